@@ -34,5 +34,6 @@ public @interface Entity {
     Ternary generateSelectByIdOperation() default Ternary.UNSPECIFIED;
     Ternary generateUpdateOperation() default Ternary.UNSPECIFIED;
     Ternary generateMergeOperation() default Ternary.UNSPECIFIED;
+    Ternary generateBatchOperations() default Ternary.UNSPECIFIED;
     Class<?> related() default Void.class;
 }
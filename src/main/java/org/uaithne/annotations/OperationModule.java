@@ -30,4 +30,6 @@ public @interface OperationModule {
     Ternary generateChainedExecutor() default Ternary.UNSPECIFIED;
     @Deprecated
     Ternary generateChainedGroupingExecutor() default Ternary.UNSPECIFIED;
+    boolean generatePipeline() default false;
+    PipelineStage[] pipelineStages() default {};
 }
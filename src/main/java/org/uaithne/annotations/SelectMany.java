@@ -29,4 +29,6 @@ public @interface SelectMany {
     Class<?> result();
     boolean distinct() default false;
     Class<?> related() default Void.class;
+    boolean streaming() default false;
+    int fetchSize() default 0;
 }
@@ -29,4 +29,6 @@ public @interface SelectPage {
     Class<?> result();
     boolean distinct() default false;
     Class<?> related() default Void.class;
+    boolean keyset() default false;
+    boolean dataCountInPageQuery() default false;
 }
\ No newline at end of file
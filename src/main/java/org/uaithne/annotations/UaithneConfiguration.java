@@ -35,6 +35,7 @@ public @interface UaithneConfiguration {
     boolean generateSelectByIdOperations() default false;
     boolean generateUpdateOperations() default false;
     boolean generateMergeOperations() default false;
+    boolean generateBatchOperations() default false;
     boolean generateAbstractExecutors() default false;
     boolean generateChainedExecutors() default false;
     @Deprecated
@@ -44,6 +45,7 @@ public @interface UaithneConfiguration {
     MyBatisBackendConfiguration[] myBatisBackendConfigurations() default {};
     Class<?> applicationParameterType() default Void.class;
     Class<?> contextParameterType() default Void.class;
+    boolean enableContextDeadline() default false;
     boolean enableBeanValidations() default false;
     AnnotationConfiguration[] annotationConfigurations() default {};
     AnnotationSubstitution[] annotationSubstitutions() default {};
@@ -31,4 +31,18 @@ public @interface MyBatisBackendConfiguration {
     DefaultJdbcType[] defaultJdbcTypes() default {};
     String defaultValue() default "";
     boolean useParameterType() default false;
+    /**
+     * Default options of the statements, the operations can override them
+     * using the MyBatisStatementOptions annotation
+     */
+    int defaultFetchSize() default 0;
+    int defaultTimeout() default 0;
+    Ternary defaultUseCache() default Ternary.UNSPECIFIED;
+    /**
+     * The select and the write statements have separate flushCache defaults,
+     * as MyBatis does: false for the selects and true for the writes
+     */
+    Ternary defaultSelectFlushCache() default Ternary.UNSPECIFIED;
+    Ternary defaultWriteFlushCache() default Ternary.UNSPECIFIED;
+    MyBatisResultSetType defaultResultSetType() default MyBatisResultSetType.UNSPECIFIED;
 }
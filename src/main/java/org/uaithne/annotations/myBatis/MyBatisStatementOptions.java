@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.annotations.myBatis;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.uaithne.annotations.Ternary;
+
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface MyBatisStatementOptions {
+    /**
+     * Number of rows fetched in each round-trip by the select statements, 0 when it is not specified
+     */
+    int fetchSize() default 0;
+    /**
+     * Timeout in seconds of each statement, 0 when it is not specified
+     */
+    int timeout() default 0;
+    /**
+     * Only used by the select statements
+     */
+    Ternary useCache() default Ternary.UNSPECIFIED;
+    Ternary flushCache() default Ternary.UNSPECIFIED;
+    /**
+     * Only used by the select statements
+     */
+    MyBatisResultSetType resultSetType() default MyBatisResultSetType.UNSPECIFIED;
+}
@@ -526,6 +526,7 @@ public class DataTypeInfo {
     private static final String DEFAULT_SHARED_PACKAGE = "org.uaithne.shared";
     // All of this field are no final because the user can change it's package name
     public static DataTypeInfo DATA_PAGE_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "DataPage", DEFAULT_SHARED_PACKAGE + ".DataPage");
+    public static DataTypeInfo KEYSET_DATA_PAGE_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "KeysetDataPage", DEFAULT_SHARED_PACKAGE + ".KeysetDataPage");
     public static DataTypeInfo OPERATION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "Operation", DEFAULT_SHARED_PACKAGE + ".Operation");
     public static DataTypeInfo DELETE_BY_ID_OPERATION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "DeleteByIdOperation", DEFAULT_SHARED_PACKAGE + ".DeleteByIdOperation");
     public static DataTypeInfo INSERT_VALUE_OPERATION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "InsertValueOperation", DEFAULT_SHARED_PACKAGE + ".InsertValueOperation");
@@ -536,13 +537,23 @@ public class DataTypeInfo {
     public static DataTypeInfo UPDATE_VALUE_OPERATION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "UpdateValueOperation", DEFAULT_SHARED_PACKAGE + ".UpdateValueOperation");
     public static DataTypeInfo MERGE_VALUE_OPERATION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "MergeValueOperation", DEFAULT_SHARED_PACKAGE + ".MergeValueOperation");
     public static DataTypeInfo DATA_PAGE_REQUEST_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "DataPageRequest", DEFAULT_SHARED_PACKAGE + ".DataPageRequest");
+    public static DataTypeInfo ROW_HANDLER_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "RowHandler", DEFAULT_SHARED_PACKAGE + ".RowHandler");
     public static DataTypeInfo EXECUTOR_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "Executor", DEFAULT_SHARED_PACKAGE + ".Executor");
     public static DataTypeInfo EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "ExecutorGroup", DEFAULT_SHARED_PACKAGE + ".ExecutorGroup");
     public static DataTypeInfo CHAINED_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "ChainedExecutorGroup", DEFAULT_SHARED_PACKAGE + ".ChainedExecutorGroup");
+    public static DataTypeInfo CACHING_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "CachingInterceptor", DEFAULT_SHARED_PACKAGE + ".CachingInterceptor");
+    public static DataTypeInfo CACHING_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "CachingExecutorGroup", DEFAULT_SHARED_PACKAGE + ".CachingExecutorGroup");
+    public static DataTypeInfo COALESCING_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "CoalescingInterceptor", DEFAULT_SHARED_PACKAGE + ".CoalescingInterceptor");
+    public static DataTypeInfo COALESCING_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "CoalescingExecutorGroup", DEFAULT_SHARED_PACKAGE + ".CoalescingExecutorGroup");
+    public static DataTypeInfo BATCH_LOADING_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "BatchLoadingInterceptor", DEFAULT_SHARED_PACKAGE + ".BatchLoadingInterceptor");
+    public static DataTypeInfo BATCH_LOADING_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "BatchLoadingExecutorGroup", DEFAULT_SHARED_PACKAGE + ".BatchLoadingExecutorGroup");
+    public static DataTypeInfo OPERATION_METRICS_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "OperationMetrics", DEFAULT_SHARED_PACKAGE + ".OperationMetrics");
+    public static DataTypeInfo OPERATION_REJECTED_EXCEPTION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_PACKAGE, "OperationRejectedException", DEFAULT_SHARED_PACKAGE + ".OperationRejectedException");
     // end of no final fields
 
     public static void updateSharedPackage(String sharedPackage) {
         DATA_PAGE_DATA_TYPE = new DataTypeInfo(sharedPackage, "DataPage", sharedPackage + ".DataPage");
+        KEYSET_DATA_PAGE_DATA_TYPE = new DataTypeInfo(sharedPackage, "KeysetDataPage", sharedPackage + ".KeysetDataPage");
         OPERATION_DATA_TYPE = new DataTypeInfo(sharedPackage, "Operation", sharedPackage + ".Operation");
         DELETE_BY_ID_OPERATION_DATA_TYPE = new DataTypeInfo(sharedPackage, "DeleteByIdOperation", sharedPackage + ".DeleteByIdOperation");
         INSERT_VALUE_OPERATION_DATA_TYPE = new DataTypeInfo(sharedPackage, "InsertValueOperation", sharedPackage + ".InsertValueOperation");
@@ -553,19 +564,38 @@ public class DataTypeInfo {
         UPDATE_VALUE_OPERATION_DATA_TYPE = new DataTypeInfo(sharedPackage, "UpdateValueOperation", sharedPackage + ".UpdateValueOperation");
         MERGE_VALUE_OPERATION_DATA_TYPE = new DataTypeInfo(sharedPackage, "MergeValueOperation", sharedPackage + ".MergeValueOperation");
         DATA_PAGE_REQUEST_DATA_TYPE = new DataTypeInfo(sharedPackage, "DataPageRequest", sharedPackage + ".DataPageRequest");
+        ROW_HANDLER_DATA_TYPE = new DataTypeInfo(sharedPackage, "RowHandler", sharedPackage + ".RowHandler");
         EXECUTOR_DATA_TYPE = new DataTypeInfo(sharedPackage, "Executor", sharedPackage + ".Executor");
         EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(sharedPackage, "ExecutorGroup", sharedPackage + ".ExecutorGroup");
         CHAINED_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(sharedPackage, "ChainedExecutorGroup", sharedPackage + ".ChainedExecutorGroup");
+        CACHING_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(sharedPackage, "CachingInterceptor", sharedPackage + ".CachingInterceptor");
+        CACHING_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(sharedPackage, "CachingExecutorGroup", sharedPackage + ".CachingExecutorGroup");
+        COALESCING_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(sharedPackage, "CoalescingInterceptor", sharedPackage + ".CoalescingInterceptor");
+        COALESCING_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(sharedPackage, "CoalescingExecutorGroup", sharedPackage + ".CoalescingExecutorGroup");
+        BATCH_LOADING_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(sharedPackage, "BatchLoadingInterceptor", sharedPackage + ".BatchLoadingInterceptor");
+        BATCH_LOADING_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(sharedPackage, "BatchLoadingExecutorGroup", sharedPackage + ".BatchLoadingExecutorGroup");
+        OPERATION_METRICS_DATA_TYPE = new DataTypeInfo(sharedPackage, "OperationMetrics", sharedPackage + ".OperationMetrics");
+        OPERATION_REJECTED_EXCEPTION_DATA_TYPE = new DataTypeInfo(sharedPackage, "OperationRejectedException", sharedPackage + ".OperationRejectedException");
     }
     private static final String DEFAULT_SHARED_MYBATIS_PACKAGE = "org.uaithne.shared.myBatys";
     public static DataTypeInfo MYBATIS_SQL_SESSION_PROVIDER_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "SqlSessionProvider", DEFAULT_SHARED_MYBATIS_PACKAGE + ".SqlSessionProvider");
     public static DataTypeInfo MYBATIS_RETAIN_ID_PLUGIN_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "RetainIdPlugin", DEFAULT_SHARED_MYBATIS_PACKAGE + ".RetainIdPlugin");
     public static DataTypeInfo MYBATIS_APPLICATION_PARAMETER_DRIVER_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "ApplicationParameterDriver", DEFAULT_SHARED_MYBATIS_PACKAGE + ".ApplicationParameterDriver");
+    public static DataTypeInfo MYBATIS_APPLICATION_PARAMETER_WRAPPER_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "ApplicationParameterWrapper", DEFAULT_SHARED_MYBATIS_PACKAGE + ".ApplicationParameterWrapper");
+    public static DataTypeInfo MYBATIS_DATA_PAGE_ROW_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "DataPageRow", DEFAULT_SHARED_MYBATIS_PACKAGE + ".DataPageRow");
+    public static DataTypeInfo MYBATIS_STATEMENT_TIMEOUT_PLUGIN_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "StatementTimeoutPlugin", DEFAULT_SHARED_MYBATIS_PACKAGE + ".StatementTimeoutPlugin");
+    public static DataTypeInfo MYBATIS_MANAGED_SQL_SESSION_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "ManagedSqlSessionExecutorGroup", DEFAULT_SHARED_MYBATIS_PACKAGE + ".ManagedSqlSessionExecutorGroup");
+    public static DataTypeInfo MYBATIS_SQL_SESSION_MANAGEMENT_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_MYBATIS_PACKAGE, "SqlSessionManagementInterceptor", DEFAULT_SHARED_MYBATIS_PACKAGE + ".SqlSessionManagementInterceptor");
     
     public static void updateSharedMyBatisPackage(String sharedMyBatisPackage) {
         MYBATIS_SQL_SESSION_PROVIDER_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "SqlSessionProvider", sharedMyBatisPackage + ".SqlSessionProvider");
         MYBATIS_RETAIN_ID_PLUGIN_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "RetainIdPlugin", sharedMyBatisPackage + ".RetainIdPlugin");
         MYBATIS_APPLICATION_PARAMETER_DRIVER_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "ApplicationParameterDriver", sharedMyBatisPackage + ".ApplicationParameterDriver");
+        MYBATIS_APPLICATION_PARAMETER_WRAPPER_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "ApplicationParameterWrapper", sharedMyBatisPackage + ".ApplicationParameterWrapper");
+        MYBATIS_DATA_PAGE_ROW_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "DataPageRow", sharedMyBatisPackage + ".DataPageRow");
+        MYBATIS_STATEMENT_TIMEOUT_PLUGIN_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "StatementTimeoutPlugin", sharedMyBatisPackage + ".StatementTimeoutPlugin");
+        MYBATIS_MANAGED_SQL_SESSION_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "ManagedSqlSessionExecutorGroup", sharedMyBatisPackage + ".ManagedSqlSessionExecutorGroup");
+        MYBATIS_SQL_SESSION_MANAGEMENT_INTERCEPTOR_DATA_TYPE = new DataTypeInfo(sharedMyBatisPackage, "SqlSessionManagementInterceptor", sharedMyBatisPackage + ".SqlSessionManagementInterceptor");
     }
     private static final String DEFAULT_SHARED_GWT_PACKAGE = "org.uaithne.shared.myBatys";
     public static DataTypeInfo GWT_ASYNC_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_GWT_PACKAGE + ".client", "AsyncExecutorGroup", DEFAULT_SHARED_GWT_PACKAGE + ".client.AsyncExecutorGroup");
@@ -576,6 +606,7 @@ public class DataTypeInfo {
     public static DataTypeInfo GWT_EXECUTOR_GROUP_RPC_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc", "ExecutorGroupRpc", DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc.ExecutorGroupRpc");
     public static DataTypeInfo GWT_EXECUTOR_GROUP_RPC_ASYNC_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc", "ExecutorGroupRpcAsync", DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc.ExecutorGroupRpcAsync");
     public static DataTypeInfo GWT_RPC_EXCEPTION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc", "RpcException", DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc.RpcException");
+    public static DataTypeInfo GWT_SEQUENTIAL_GWT_OPERATION_DATA_TYPE = new DataTypeInfo(DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc", "SequentialGwtOperation", DEFAULT_SHARED_GWT_PACKAGE + ".shared.rpc.SequentialGwtOperation");
 
     public static void updateSharedGwtPackage(String sharedGwtPackage) {
         GWT_ASYNC_EXECUTOR_GROUP_DATA_TYPE = new DataTypeInfo(sharedGwtPackage + ".client", "AsyncExecutorGroup", sharedGwtPackage + ".client.AsyncExecutorGroup");
@@ -586,5 +617,6 @@ public class DataTypeInfo {
         GWT_EXECUTOR_GROUP_RPC_DATA_TYPE = new DataTypeInfo(sharedGwtPackage + ".shared.rpc", "ExecutorGroupRpc", sharedGwtPackage + ".shared.rpc.ExecutorGroupRpc");
         GWT_EXECUTOR_GROUP_RPC_ASYNC_DATA_TYPE = new DataTypeInfo(sharedGwtPackage + ".shared.rpc", "ExecutorGroupRpcAsync", sharedGwtPackage + ".shared.rpc.ExecutorGroupRpcAsync");
         GWT_RPC_EXCEPTION_DATA_TYPE = new DataTypeInfo(sharedGwtPackage + ".shared.rpc", "RpcException", sharedGwtPackage + ".shared.rpc.RpcException");
+        GWT_SEQUENTIAL_GWT_OPERATION_DATA_TYPE = new DataTypeInfo(sharedGwtPackage + ".shared.rpc", "SequentialGwtOperation", sharedGwtPackage + ".shared.rpc.SequentialGwtOperation");
     }
 }
@@ -37,6 +37,9 @@ public class ExecutorModuleInfo {
     private final TypeElement element;
     private boolean containOrderedOperations;
     private boolean containPagedOperations;
+    private boolean containBatchOperations;
+    private boolean containCachedOperations;
+    private boolean containSelectByIdsOperations;
     private String[] documentation;
     private final HashMap<Class<?>, Object> annotations = new HashMap<Class<?>, Object>(0);
     private final HashMap<String, OperationInfo> operationsByName = new HashMap<String, OperationInfo>(0);
@@ -109,6 +112,17 @@ public class ExecutorModuleInfo {
         if (operation.getOperationKind() == OperationKind.SELECT_PAGE) {
             containPagedOperations = true;
         }
+        if (operation.getOperationKind() == OperationKind.INSERT_BATCH
+                || operation.getOperationKind() == OperationKind.UPDATE_BATCH
+                || operation.getOperationKind() == OperationKind.DELETE_BY_ID_BATCH) {
+            containBatchOperations = true;
+        }
+        if (operation.isCached()) {
+            containCachedOperations = true;
+        }
+        if (operation.getOperationKind() == OperationKind.SELECT_BY_IDS) {
+            containSelectByIdsOperations = true;
+        }
     }
 
     public ArrayList<EntityInfo> getEntities() {
@@ -182,6 +196,18 @@ public class ExecutorModuleInfo {
         return containPagedOperations;
     }
 
+    public boolean isContainBatchOperations() {
+        return containBatchOperations;
+    }
+
+    public boolean isContainCachedOperations() {
+        return containCachedOperations;
+    }
+
+    public boolean isContainSelectByIdsOperations() {
+        return containSelectByIdsOperations;
+    }
+
     public String[] getDocumentation() {
         return documentation;
     }
@@ -45,9 +45,11 @@ public class GenerationInfo {
     boolean generateSelectByIdOperationsEnabled;
     boolean generateUpdateOperationsEnabled;
     boolean generateMergeOperationsEnabled;
+    boolean generateBatchOperationsEnabled;
     boolean generateAbstractExecutorsEnabled;
     boolean generateChainedExecutorsEnabled;
     boolean generateChainedGroupingExecutorsEnabled;
+    private boolean sharedGwtLibraryEnabled;
     private boolean includeGwtClientExecutors;
     private DataTypeInfo entitiesImplements;
     private MyBatisBackendConfiguration[] myBatisBackends;
@@ -59,6 +61,7 @@ public class GenerationInfo {
     private HashMap<AnnotationConfigurationKeys, HashMap<DataTypeInfo, DataTypeInfo>> validationSubstitutions = new HashMap<AnnotationConfigurationKeys, HashMap<DataTypeInfo, DataTypeInfo>>();
     private boolean useIsInBooleanObjectGetter = true;
     private DataTypeInfo contextParameterType;
+    private boolean contextDeadlineEnabled;
     
     // Deprecated configurations
     private boolean includeExecuteOtherMethodInExecutors;
@@ -271,6 +274,14 @@ public class GenerationInfo {
         this.generateMergeOperationsEnabled = generateMergeOperationsEnabled;
     }
 
+    public boolean isGenerateBatchOperationsEnabled() {
+        return generateBatchOperationsEnabled;
+    }
+
+    public void setGenerateBatchOperationsEnabled(boolean generateBatchOperationsEnabled) {
+        this.generateBatchOperationsEnabled = generateBatchOperationsEnabled;
+    }
+
     public boolean isGenerateAbstractExecutorsEnabled() {
         return generateAbstractExecutorsEnabled;
     }
@@ -295,6 +306,14 @@ public class GenerationInfo {
         this.generateChainedGroupingExecutorsEnabled = generateChainedGroupingExecutorsEnabled;
     }
     
+    public boolean isSharedGwtLibraryEnabled() {
+        return sharedGwtLibraryEnabled;
+    }
+
+    public void setSharedGwtLibraryEnabled(boolean sharedGwtLibraryEnabled) {
+        this.sharedGwtLibraryEnabled = sharedGwtLibraryEnabled;
+    }
+
     public boolean isIncludeGwtClientExecutors() {
         return includeGwtClientExecutors;
     }
@@ -432,6 +451,14 @@ public class GenerationInfo {
         this.errorManagementEnabled = errorManagementEnabled;
     }
 
+    public boolean isContextDeadlineEnabled() {
+        return contextDeadlineEnabled;
+    }
+
+    public void setContextDeadlineEnabled(boolean contextDeadlineEnabled) {
+        this.contextDeadlineEnabled = contextDeadlineEnabled;
+    }
+
     public boolean isLambdasEnabled() {
         return lambdasEnabled;
     }
@@ -47,9 +47,18 @@ public class OperationInfo {
     private boolean manually;
     private boolean distinct;
     private boolean limitToOneResult;
+    private boolean keysetPage;
+    private boolean dataCountInPageQuery;
+    private boolean streaming;
+    private int fetchSize;
+    private boolean cached;
+    private long cacheTimeToLive;
+    private int cacheMaxSize;
+    private boolean coalesced;
     private boolean ignoreLogicalDeletion;
     private String queryId;
     private String countQueryId;
+    private String pageWithDataCountQueryId;
     private String saveInsertQueryId;
     private InsertedIdOrigin insertedIdOrigin;
     private boolean deprecated;
@@ -248,7 +257,7 @@ public class OperationInfo {
         if (operationKind == OperationKind.SELECT_PAGE) {
             DataTypeInfo.PAGE_INFO_DATA_TYPE.appendImports(currentPackage, imports);
             DataTypeInfo.LIST_DATA_TYPE.appendImports(currentPackage, imports);
-        } else if (operationKind == OperationKind.SELECT_MANY) {
+        } else if (operationKind == OperationKind.SELECT_MANY && !streaming) {
             DataTypeInfo.LIST_DATA_TYPE.appendImports(currentPackage, imports);
         }
     }
@@ -268,7 +277,7 @@ public class OperationInfo {
         if (operationKind == OperationKind.SELECT_PAGE) {
             DataTypeInfo.PAGE_INFO_DATA_TYPE.appendImports(currentPackage, imports);
             DataTypeInfo.LIST_DATA_TYPE.appendImports(currentPackage, imports);
-        } else if (operationKind == OperationKind.SELECT_MANY) {
+        } else if (operationKind == OperationKind.SELECT_MANY && !streaming) {
             DataTypeInfo.LIST_DATA_TYPE.appendImports(currentPackage, imports);
         }
     }
@@ -309,6 +318,70 @@ public class OperationInfo {
         this.limitToOneResult = limitToOneResult;
     }
 
+    public boolean isKeysetPage() {
+        return keysetPage;
+    }
+
+    public void setKeysetPage(boolean keysetPage) {
+        this.keysetPage = keysetPage;
+    }
+
+    public boolean isDataCountInPageQuery() {
+        return dataCountInPageQuery;
+    }
+
+    public void setDataCountInPageQuery(boolean dataCountInPageQuery) {
+        this.dataCountInPageQuery = dataCountInPageQuery;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public long getCacheTimeToLive() {
+        return cacheTimeToLive;
+    }
+
+    public void setCacheTimeToLive(long cacheTimeToLive) {
+        this.cacheTimeToLive = cacheTimeToLive;
+    }
+
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(int cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    public void setCoalesced(boolean coalesced) {
+        this.coalesced = coalesced;
+    }
+
     public boolean isIgnoreLogicalDeletionEnabled() {
         return ignoreLogicalDeletion;
     }
@@ -343,6 +416,14 @@ public class OperationInfo {
         this.countQueryId = countQueryId;
     }
 
+    public String getPageWithDataCountQueryId() {
+        return pageWithDataCountQueryId;
+    }
+
+    public void setPageWithDataCountQueryId(String pageWithDataCountQueryId) {
+        this.pageWithDataCountQueryId = pageWithDataCountQueryId;
+    }
+
     public String getSaveInsertQueryId() {
         return saveInsertQueryId;
     }
@@ -39,7 +39,11 @@ public enum OperationKind {
     COMPLEX_SELECT_CALL(17, "ComplexSelectCall", true),
     COMPLEX_INSERT_CALL(18, "ComplexInsertCall", true),
     COMPLEX_UPDATE_CALL(19, "ComplexUpdateCall", true),
-    COMPLEX_DELETE_CALL(20, "ComplexDeleteCall", true);
+    COMPLEX_DELETE_CALL(20, "ComplexDeleteCall", true),
+    INSERT_BATCH(21, "InsertBatch", false),
+    UPDATE_BATCH(22, "UpdateBatch", false),
+    DELETE_BY_ID_BATCH(23, "DeleteByIdBatch", false),
+    SELECT_BY_IDS(24, "SelectByIds", false);
     
     private final int id;
     private final String name;
@@ -18,6 +18,8 @@
  */
 package org.uaithne.generator.processors;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Set;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
@@ -31,13 +33,18 @@ import javax.lang.model.type.MirroredTypeException;
 import javax.tools.Diagnostic;
 import org.uaithne.annotations.*;
 import org.uaithne.annotations.executors.PlainExecutor;
+import org.uaithne.annotations.gwt.SequentialExecution;
 import org.uaithne.generator.commons.*;
 import static org.uaithne.generator.commons.TemplateProcessor.getGenerationInfo;
 import org.uaithne.generator.templates.operations.AbstractExecutorTemplate;
+import org.uaithne.generator.templates.operations.BatchLoadingConfigurationTemplate;
+import org.uaithne.generator.templates.operations.CachingConfigurationTemplate;
 import org.uaithne.generator.templates.operations.ChainedExecutorTemplate;
 import org.uaithne.generator.templates.operations.ChainedGroupingExecutorTemplate;
+import org.uaithne.generator.templates.operations.CoalescingConfigurationTemplate;
 import org.uaithne.generator.templates.operations.ExecutorTemplate;
 import org.uaithne.generator.templates.operations.OperationTemplate;
+import org.uaithne.generator.templates.operations.PipelineTemplate;
 import org.uaithne.generator.templates.operations.PlainChainedExecutorTemplate;
 import org.uaithne.generator.templates.operations.PlainChainedGroupingExecutorTemplate;
 import org.uaithne.generator.templates.operations.PlainExecutorTemplate;
@@ -46,6 +53,8 @@ import org.uaithne.generator.templates.operations.PlainExecutorTemplate;
 @SupportedAnnotationTypes("org.uaithne.annotations.OperationModule")
 public class ExecutorModuleProcessor extends TemplateProcessor {
 
+    private static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
     @Override
     public boolean doProcess(Set<? extends TypeElement> set, RoundEnvironment re) {
         boolean generate = false;
@@ -193,6 +202,7 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             return;
         }
         EntityInfo entityInfo = generationInfo.getEntityByName(resultDataType);
+        boolean resultIsEntity = entityInfo != null;
 
         DataTypeInfo relatedDataType;
         try {
@@ -219,7 +229,30 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             }
         }
 
-        DataTypeInfo pageResultDataType = DataTypeInfo.DATA_PAGE_DATA_TYPE.of(resultDataType);
+        FieldInfo keysetIdInfo = null;
+        if (selectPage.keyset()) {
+            if (!resultIsEntity) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For use keyset pagination the operation result must be an entity", element);
+                return;
+            }
+            EntityInfo combinedEntity = entityInfo.getCombined();
+            keysetIdInfo = combinedEntity.getFirstIdField();
+            if (keysetIdInfo == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For use keyset pagination the entity must define an id", element);
+                return;
+            } else if (combinedEntity.hasMultiplesIds()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For use keyset pagination the entity must define only one id", element);
+                return;
+            }
+        }
+
+        DataTypeInfo pageResultDataType;
+        if (keysetIdInfo != null) {
+            DataTypeInfo keyDataType = keysetIdInfo.getDataType().ensureBoxed();
+            pageResultDataType = DataTypeInfo.KEYSET_DATA_PAGE_DATA_TYPE.of(resultDataType, keyDataType);
+        } else {
+            pageResultDataType = DataTypeInfo.DATA_PAGE_DATA_TYPE.of(resultDataType);
+        }
         pageResultDataType.getImports().addAll(resultDataType.getImports());
 
         OperationInfo operationInfo = new OperationInfo(element, executorModuleInfo.getOperationPackage());
@@ -269,6 +302,38 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
         onlyDataCount.setSelectPageField(true);
         operationInfo.addField(onlyDataCount);
 
+        if (keysetIdInfo != null) {
+            if (operationInfo.isOrdered()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "A keyset page is always ordered by the entity id, the order by fields are not allowed", element);
+                return;
+            }
+            operationInfo.setKeysetPage(true);
+
+            FieldInfo lastKeyInfo = new FieldInfo("lastKey", keysetIdInfo.getDataType().ensureBoxed());
+            lastKeyInfo.setExcludedFromConstructor(true);
+            lastKeyInfo.setManually(true);
+            lastKeyInfo.setOptional(true);
+            lastKeyInfo.setSelectPageField(true);
+            operationInfo.addField(lastKeyInfo);
+        }
+
+        if (selectPage.dataCountInPageQuery()) {
+            if (selectPage.keyset()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "A keyset page cannot load the data count in the page query, because the count would only include the rows after the last key", element);
+                return;
+            }
+            if (!resultIsEntity) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For load the data count in the page query the operation result must be an entity", element);
+                return;
+            }
+            EntityInfo combinedEntity = entityInfo.getCombined();
+            if (combinedEntity.getFirstIdField() == null || combinedEntity.hasMultiplesIds()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For load the data count in the page query the entity must define only one id", element);
+                return;
+            }
+            operationInfo.setDataCountInPageQuery(true);
+        }
+
         generationInfo.addOperation(operationInfo, executorModuleInfo);
     }
 
@@ -316,6 +381,19 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
         generationInfo.addOperation(operationInfo, executorModuleInfo);
     }
 
+    public void loadCached(Element element, Cached cached, OperationInfo operationInfo) {
+        if (cached == null) {
+            return;
+        }
+        if (cached.maxSize() <= 0) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The maximum size of the cache must be a positive number", element);
+            return;
+        }
+        operationInfo.setCached(true);
+        operationInfo.setCacheTimeToLive(cached.timeToLive());
+        operationInfo.setCacheMaxSize(cached.maxSize());
+    }
+
     public void processSelectOne(RoundEnvironment re, TypeElement element, ExecutorModuleInfo executorModuleInfo, SelectOne selectOne) {
         GenerationInfo generationInfo = getGenerationInfo();
         DataTypeInfo resultDataType;
@@ -361,6 +439,7 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
         operationInfo.setOperationKind(OperationKind.SELECT_ONE);
         operationInfo.setLimitToOneResult(selectOne.limit());
         operationInfo.setEntity(entityInfo);
+        loadCached(element, element.getAnnotation(Cached.class), operationInfo);
 
         DataTypeInfo operationInterface = DataTypeInfo.OPERATION_DATA_TYPE.of(resultDataType);
         operationInfo.addImplement(operationInterface);
@@ -410,18 +489,47 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             
         }
 
-        DataTypeInfo listResultDataType = DataTypeInfo.LIST_DATA_TYPE.of(resultDataType);
+        if (selectMany.fetchSize() < 0) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The fetch size cannot be a negative number", element);
+            return;
+        }
+
+        DataTypeInfo listResultDataType;
+        if (selectMany.streaming()) {
+            listResultDataType = DataTypeInfo.BOXED_LONG_DATA_TYPE;
+        } else {
+            listResultDataType = DataTypeInfo.LIST_DATA_TYPE.of(resultDataType);
+        }
         OperationInfo operationInfo = new OperationInfo(element, executorModuleInfo.getOperationPackage());
         operationInfo.setReturnDataType(listResultDataType);
         operationInfo.setOneItemReturnDataType(resultDataType);
         operationInfo.setOperationKind(OperationKind.SELECT_MANY);
         operationInfo.setDistinct(selectMany.distinct());
         operationInfo.setEntity(entityInfo);
+        operationInfo.setStreaming(selectMany.streaming());
+        if (selectMany.fetchSize() == 0 && selectMany.streaming()) {
+            operationInfo.setFetchSize(DEFAULT_STREAMING_FETCH_SIZE);
+        } else {
+            operationInfo.setFetchSize(selectMany.fetchSize());
+        }
+        if (!selectMany.streaming()) {
+            loadCached(element, element.getAnnotation(Cached.class), operationInfo);
+        }
 
         DataTypeInfo operationInterface = DataTypeInfo.OPERATION_DATA_TYPE.of(listResultDataType);
         operationInfo.addImplement(operationInterface);
 
         loadShared(re, element, executorModuleInfo, operationInfo);
+
+        if (selectMany.streaming()) {
+            DataTypeInfo rowHandlerDataType = DataTypeInfo.ROW_HANDLER_DATA_TYPE.of(resultDataType);
+            FieldInfo rowHandlerInfo = new FieldInfo("rowHandler", rowHandlerDataType);
+            rowHandlerInfo.setManually(true);
+            rowHandlerInfo.setMarkAsTransient(true);
+            rowHandlerInfo.setExcludedFromToString(true);
+            operationInfo.addField(rowHandlerInfo);
+        }
+
         generationInfo.addOperation(operationInfo, executorModuleInfo);
     }
 
@@ -655,6 +763,14 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
         valueInfo.setIdentifier(false);
         DataTypeInfo affectedRowCountDataType = DataTypeInfo.AFFECTED_ROW_COUNT_DATA_TYPE;
 
+        FieldInfo valuesInfo = new FieldInfo("values", DataTypeInfo.LIST_DATA_TYPE.of(entityDataType));
+        valuesInfo.setOptional(false);
+        valuesInfo.setIdentifier(false);
+        FieldInfo idsInfo = new FieldInfo("ids", DataTypeInfo.LIST_DATA_TYPE.of(idDataType));
+        idsInfo.setOptional(false);
+        idsInfo.setIdentifier(false);
+        DataTypeInfo affectedRowCountsDataType = DataTypeInfo.LIST_DATA_TYPE.of(affectedRowCountDataType);
+
         executorModuleInfo.addEntity(entityInfo);
 
         boolean defaultGenerateDeleteByIdOperation = generationInfo.isGenerateDeleteByIdOperationsEnabled();
@@ -665,6 +781,7 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
         boolean defaultGenerateSelectByIdOperation = generationInfo.isGenerateSelectByIdOperationsEnabled();
         boolean defaultGenerateUpdateOperation = generationInfo.isGenerateUpdateOperationsEnabled();
         boolean defaultGenerateMergeOperation = generationInfo.isGenerateMergeOperationsEnabled();
+        boolean defaultGenerateBatchOperations = generationInfo.isGenerateBatchOperationsEnabled();
 
         boolean generateDeleteByIdOperation;
         boolean generateInsertOperation;
@@ -674,6 +791,7 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
         boolean generateSelectByIdOperation;
         boolean generateUpdateOperation;
         boolean generateMergeOperation;
+        boolean generateBatchOperations;
 
         Entity entityAnnotation = entityInfo.getAnnotation(Entity.class);
         if (entityAnnotation == null) {
@@ -685,6 +803,7 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             generateSelectByIdOperation = defaultGenerateSelectByIdOperation;
             generateUpdateOperation = defaultGenerateUpdateOperation;
             generateMergeOperation = defaultGenerateMergeOperation;
+            generateBatchOperations = defaultGenerateBatchOperations;
         } else {
             generateDeleteByIdOperation = entityAnnotation.generateDeleteByIdOperation().solve(defaultGenerateDeleteByIdOperation);
             generateInsertOperation = entityAnnotation.generateInsertOperation().solve(defaultGenerateInsertOperation);
@@ -694,6 +813,7 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             generateSelectByIdOperation = entityAnnotation.generateSelectByIdOperation().solve(defaultGenerateSelectByIdOperation);
             generateUpdateOperation = entityAnnotation.generateUpdateOperation().solve(defaultGenerateUpdateOperation);
             generateMergeOperation = entityAnnotation.generateMergeOperation().solve(defaultGenerateMergeOperation);
+            generateBatchOperations = entityAnnotation.generateBatchOperations().solve(defaultGenerateBatchOperations);
         }
 
         /* ****************************************************************************************
@@ -720,6 +840,29 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             }
         }
 
+        /* ****************************************************************************************
+         * *** Delete By Id Batch operation
+         */
+        if (generateDeleteByIdOperation && generateBatchOperations) {
+            DataTypeInfo deleteBatchOperationName = new DataTypeInfo(executorModuleInfo.getOperationPackage(),
+                    "Delete" + entityDataType.getSimpleNameWithoutGenerics()+ "ByIdBatch");
+            if (executorModuleInfo.getOperationByName(deleteBatchOperationName) == null) {
+                OperationInfo deleteBatchOperationInfo = new OperationInfo(deleteBatchOperationName);
+                deleteBatchOperationInfo.setReturnDataType(affectedRowCountsDataType);
+                deleteBatchOperationInfo.setOperationKind(OperationKind.DELETE_BY_ID_BATCH);
+
+                DataTypeInfo deleteBatchOperationInterface = DataTypeInfo.OPERATION_DATA_TYPE.of(affectedRowCountsDataType);
+                deleteBatchOperationInfo.addImplement(deleteBatchOperationInterface);
+
+                FieldInfo field = new FieldInfo(idsInfo);
+                deleteBatchOperationInfo.addField(field);
+                deleteBatchOperationInfo.setEntity(entityInfo);
+                deleteBatchOperationInfo.setManually(entityInfo.getCombined().isManually());
+                generationInfo.addOperation(deleteBatchOperationInfo, executorModuleInfo, index);
+                index = index + 1;
+            }
+        }
+
         /* ****************************************************************************************
          * *** Insert operation
          */
@@ -748,6 +891,34 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             }
         }
 
+        /* ****************************************************************************************
+         * *** Insert Batch operation
+         */
+        if ((generateInsertOperation || generateJustInsertOperation) && generateBatchOperations) {
+            DataTypeInfo insertBatchOperationName = new DataTypeInfo(executorModuleInfo.getOperationPackage(),
+                    "Insert" + entityDataType.getSimpleNameWithoutGenerics() + "Batch");
+            if (executorModuleInfo.getOperationByName(insertBatchOperationName) == null) {
+                OperationInfo insertBatchOperationInfo = new OperationInfo(insertBatchOperationName);
+                insertBatchOperationInfo.setReturnDataType(affectedRowCountsDataType);
+                insertBatchOperationInfo.setOperationKind(OperationKind.INSERT_BATCH);
+
+                DataTypeInfo insertBatchOperationInterface = DataTypeInfo.OPERATION_DATA_TYPE.of(affectedRowCountsDataType);
+                insertBatchOperationInfo.addImplement(insertBatchOperationInterface);
+
+                FieldInfo field = new FieldInfo(valuesInfo);
+                field.setValidationAlreadyConfigured(true);
+                field.setValidationGroups(null);
+                field.setValidationAnnotations(generationInfo.getValidationConfigurations().get(AnnotationConfigurationKeys.INSERT_ENTITY_VALUE));
+                field.setValidationSubstitutions(generationInfo.getValidationSubstitutions().get(AnnotationConfigurationKeys.INSERT_ENTITY_VALUE));
+                field.setValidationRule(ValidationRule.VALIDATE_FOR_INSERT);
+                insertBatchOperationInfo.addField(field);
+                insertBatchOperationInfo.setEntity(entityInfo);
+                insertBatchOperationInfo.setManually(entityInfo.getCombined().isManually());
+                generationInfo.addOperation(insertBatchOperationInfo, executorModuleInfo, index);
+                index = index + 1;
+            }
+        }
+
         /* ****************************************************************************************
          * *** Just Insert operation
          */
@@ -873,11 +1044,43 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
                 selectOperationInfo.addField(field);
                 selectOperationInfo.setEntity(entityInfo);
                 selectOperationInfo.setManually(entityInfo.getCombined().isManually());
+                loadCached(entityInfo.getElement(), entityInfo.getAnnotation(Cached.class), selectOperationInfo);
+                selectOperationInfo.setCoalesced(entityInfo.getAnnotation(Coalesced.class) != null);
                 generationInfo.addOperation(selectOperationInfo, executorModuleInfo, index);
                 index = index + 1;
             }
         }
 
+        /* ****************************************************************************************
+         * *** Select By Ids operation
+         */
+        if (generateSelectByIdOperation && generateBatchOperations) {
+            DataTypeInfo selectByIdsOperationName = new DataTypeInfo(executorModuleInfo.getOperationPackage(),
+                    "Select" + entityDataType.getSimpleNameWithoutGenerics()+ "ByIds");
+            if (executorModuleInfo.getOperationByName(selectByIdsOperationName) == null) {
+                DataTypeInfo entitiesDataType = DataTypeInfo.LIST_DATA_TYPE.of(entityDataType);
+                OperationInfo selectByIdsOperationInfo = new OperationInfo(selectByIdsOperationName);
+                selectByIdsOperationInfo.setReturnDataType(entitiesDataType);
+                selectByIdsOperationInfo.setOneItemReturnDataType(entityDataType);
+                selectByIdsOperationInfo.setOperationKind(OperationKind.SELECT_BY_IDS);
+
+                DataTypeInfo selectByIdsOperationInterface = DataTypeInfo.OPERATION_DATA_TYPE.of(entitiesDataType);
+                selectByIdsOperationInfo.addImplement(selectByIdsOperationInterface);
+
+                // The ids are compared with the id column using the in comparator
+                FieldInfo field = new FieldInfo("ids", combinedEntity.getFirstIdField());
+                field.setDataType(idsInfo.getDataType());
+                field.setOptional(false);
+                field.setIdentifier(false);
+                field.setIdentifierAutogenerated(false);
+                selectByIdsOperationInfo.addField(field);
+                selectByIdsOperationInfo.setEntity(entityInfo);
+                selectByIdsOperationInfo.setManually(entityInfo.getCombined().isManually());
+                generationInfo.addOperation(selectByIdsOperationInfo, executorModuleInfo, index);
+                index = index + 1;
+            }
+        }
+
         /* ****************************************************************************************
          * *** Update operation
          */
@@ -906,6 +1109,34 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             }
         }
 
+        /* ****************************************************************************************
+         * *** Update Batch operation
+         */
+        if (generateUpdateOperation && generateBatchOperations) {
+            DataTypeInfo updateBatchOperationName = new DataTypeInfo(executorModuleInfo.getOperationPackage(),
+                    "Update" + entityDataType.getSimpleNameWithoutGenerics() + "Batch");
+            if (executorModuleInfo.getOperationByName(updateBatchOperationName) == null) {
+                OperationInfo updateBatchOperationInfo = new OperationInfo(updateBatchOperationName);
+                updateBatchOperationInfo.setReturnDataType(affectedRowCountsDataType);
+                updateBatchOperationInfo.setOperationKind(OperationKind.UPDATE_BATCH);
+
+                DataTypeInfo updateBatchOperationInterface = DataTypeInfo.OPERATION_DATA_TYPE.of(affectedRowCountsDataType);
+                updateBatchOperationInfo.addImplement(updateBatchOperationInterface);
+
+                FieldInfo field = new FieldInfo(valuesInfo);
+                field.setValidationAlreadyConfigured(true);
+                field.setValidationGroups(null);
+                field.setValidationAnnotations(generationInfo.getValidationConfigurations().get(AnnotationConfigurationKeys.UPDATE_ENTITY_VALUE));
+                field.setValidationSubstitutions(generationInfo.getValidationSubstitutions().get(AnnotationConfigurationKeys.UPDATE_ENTITY_VALUE));
+                field.setValidationRule(ValidationRule.VALIDATE_FOR_UPDATE);
+                updateBatchOperationInfo.addField(field);
+                updateBatchOperationInfo.setEntity(entityInfo);
+                updateBatchOperationInfo.setManually(entityInfo.getCombined().isManually());
+                generationInfo.addOperation(updateBatchOperationInfo, executorModuleInfo, index);
+                index = index + 1;
+            }
+        }
+
         /* ****************************************************************************************
          * *** Merge operation
          */
@@ -944,6 +1175,22 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
         return false;
     }
 
+    private boolean isReadOperation(OperationInfo operation) {
+        switch (operation.getOperationKind()) {
+            case SELECT_ONE:
+            case SELECT_PAGE:
+            case SELECT_BY_ID:
+            case SELECT_BY_IDS:
+            case SELECT_COUNT:
+            case COMPLEX_SELECT_CALL:
+                return true;
+            case SELECT_MANY:
+                return !operation.isStreaming();
+            default:
+                return false;
+        }
+    }
+
     public void processInsertEntity(RoundEnvironment re, TypeElement element, ExecutorModuleInfo executorModuleInfo, InsertEntity operation) {
         GenerationInfo generationInfo = getGenerationInfo();
         DataTypeInfo entityDataType;
@@ -1166,6 +1413,7 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
 
         operationInfo.addField(id);
         operationInfo.setEntity(entity);
+        loadCached(element, element.getAnnotation(Cached.class), operationInfo);
         
         if (hasMembers(element)) {
             processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Select entity by id operations do not allow define members", element);
@@ -1445,10 +1693,43 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             processClassTemplate(new ExecutorTemplate(executorModuleInfo, packageName), executorModuleInfo.getElement());
         }
 
+        boolean containCoalescedOperations = false;
         for (OperationInfo operation : executorModuleInfo.getOperations()) {
+            if (!operation.isCached() && operation.getAnnotation(Cached.class) != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Only select one, select entity by id and not streaming select many operations can be cached", operation.getElement());
+            }
+            if (!operation.isCoalesced() && operation.getAnnotation(Coalesced.class) != null) {
+                if (isReadOperation(operation)) {
+                    operation.setCoalesced(true);
+                } else {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Only select and not streaming select many operations can be coalesced", operation.getElement());
+                }
+            }
+            if (operation.isCoalesced()) {
+                containCoalescedOperations = true;
+            }
+            if (operation.getAnnotation(SequentialExecution.class) != null) {
+                if (generationInfo.isSharedGwtLibraryEnabled()) {
+                    operation.addImplement(DataTypeInfo.GWT_SEQUENTIAL_GWT_OPERATION_DATA_TYPE);
+                } else {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@SequentialExecution requires the @SharedGwtLibrary, it provides the SequentialGwtOperation interface", operation.getElement());
+                }
+            }
             processClassTemplate(new OperationTemplate(operation, packageName, executorModuleInfo.getExecutorInterfaceName()), operation.getElement());
         }
 
+        if (executorModuleInfo.isContainCachedOperations()) {
+            processClassTemplate(new CachingConfigurationTemplate(executorModuleInfo, packageName), executorModuleInfo.getElement());
+        }
+
+        if (executorModuleInfo.isContainSelectByIdsOperations()) {
+            processClassTemplate(new BatchLoadingConfigurationTemplate(executorModuleInfo, packageName), executorModuleInfo.getElement());
+        }
+
+        if (containCoalescedOperations) {
+            processClassTemplate(new CoalescingConfigurationTemplate(executorModuleInfo, packageName), executorModuleInfo.getElement());
+        }
+
         if (generateModuleChainedExecutorsEnabled) {
             if (generationInfo.isLambdasEnabled()) {
                 processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For set generateChainedExecutor to true you also must set enableLamdas to false in the Uaithne configuration (continue assuming the first one as false)", executorModuleInfo.getElement());
@@ -1475,6 +1756,15 @@ public class ExecutorModuleProcessor extends TemplateProcessor {
             }
         }
 
+        if (operationModuleAnnotation != null && operationModuleAnnotation.generatePipeline()) {
+            ArrayList<PipelineStage> stages = new ArrayList<PipelineStage>(Arrays.asList(operationModuleAnnotation.pipelineStages()));
+            if (stages.contains(PipelineStage.POST_OPERATION) && !generationInfo.isIncludeExecutePostOperationInOperations()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For use the POST_OPERATION pipeline stage you also must set includeExecutePostOperationInOperations to true in the Uaithne configuration (continue ignoring the stage)", executorModuleInfo.getElement());
+                stages.remove(PipelineStage.POST_OPERATION);
+            }
+            processClassTemplate(new PipelineTemplate(executorModuleInfo, packageName, stages), executorModuleInfo.getElement());
+        }
+
         PlainExecutor plainExecutor = executorModuleInfo.getAnnotation(PlainExecutor.class);
         if (plainExecutor != null) {
             boolean generatePlainInterface = plainExecutor.generateInterface();
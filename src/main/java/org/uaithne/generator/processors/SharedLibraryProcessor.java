@@ -31,6 +31,16 @@ import org.uaithne.generator.commons.DataTypeInfo;
 import org.uaithne.generator.commons.GenerationInfo;
 import org.uaithne.generator.commons.NamesGenerator;
 import org.uaithne.generator.commons.TemplateProcessor;
+import org.uaithne.generator.templates.shared.AsyncExecutorTemplate_WithLamdas;
+import org.uaithne.generator.templates.shared.BatchLoadingExecutorGroupTemplate;
+import org.uaithne.generator.templates.shared.BatchLoadingInterceptorTemplate_WithLamdas;
+import org.uaithne.generator.templates.shared.BulkheadExecutorGroupTemplate;
+import org.uaithne.generator.templates.shared.BulkheadInterceptorTemplate_WithLamdas;
+import org.uaithne.generator.templates.shared.CacheRegionTemplate;
+import org.uaithne.generator.templates.shared.CachingExecutorGroupTemplate;
+import org.uaithne.generator.templates.shared.CachingInterceptorTemplate_WithLamdas;
+import org.uaithne.generator.templates.shared.CoalescingExecutorGroupTemplate;
+import org.uaithne.generator.templates.shared.CoalescingInterceptorTemplate_WithLamdas;
 import org.uaithne.generator.templates.shared.ChainedExecutorGroupTemplate;
 import org.uaithne.generator.templates.shared.ChainedExecutorTemplate;
 import org.uaithne.generator.templates.shared.ChainedExecutorTemplate_WithExecutorGroup;
@@ -45,6 +55,7 @@ import org.uaithne.generator.templates.shared.ExecutorTemplate;
 import org.uaithne.generator.templates.shared.ExecutorTemplate_WithLamdas;
 import org.uaithne.generator.templates.shared.InsertValueOperationTemplate;
 import org.uaithne.generator.templates.shared.JustInsertValueOperationTemplate;
+import org.uaithne.generator.templates.shared.KeysetDataPageTemplate;
 import org.uaithne.generator.templates.shared.JustSaveValueOperationTemplate;
 import org.uaithne.generator.templates.shared.LoggedExecutorGroupTemplate;
 import org.uaithne.generator.templates.shared.LogInterceptorTemplate_WithLamdas;
@@ -52,12 +63,18 @@ import org.uaithne.generator.templates.shared.MappedExecutorGroupTemplate;
 import org.uaithne.generator.templates.shared.MappedExecutorGroupTemplate_WithExecutorGroup;
 import org.uaithne.generator.templates.shared.MappedExecutorTemplate_WithLamdas;
 import org.uaithne.generator.templates.shared.MergeValueOperationTemplate;
+import org.uaithne.generator.templates.shared.MetricsExecutorGroupTemplate;
+import org.uaithne.generator.templates.shared.MetricsInterceptorTemplate_WithLamdas;
 import org.uaithne.generator.templates.shared.OperationExecutionExceptionTemplate;
+import org.uaithne.generator.templates.shared.OperationMetricsMBeanTemplate;
+import org.uaithne.generator.templates.shared.OperationMetricsTemplate;
+import org.uaithne.generator.templates.shared.OperationRejectedExceptionTemplate;
 import org.uaithne.generator.templates.shared.OperationTemplate;
 import org.uaithne.generator.templates.shared.PostOperationExecutorGroupTemplate;
 import org.uaithne.generator.templates.shared.PostOperationExecutorTemplate;
 import org.uaithne.generator.templates.shared.ExecutePostOperationInterceptorTemplate_WithLamdas;
 import org.uaithne.generator.templates.shared.PublicExceptionTemplate;
+import org.uaithne.generator.templates.shared.RowHandlerTemplate;
 import org.uaithne.generator.templates.shared.SaveValueOperationTemplate;
 import org.uaithne.generator.templates.shared.SelectByIdOperationTemplate;
 import org.uaithne.generator.templates.shared.UpdateValueOperationTemplate;
@@ -90,10 +107,21 @@ public class SharedLibraryProcessor extends TemplateProcessor {
                     processClassTemplate(new ExecutorTemplate_WithLamdas(packageName), element);
                     processClassTemplate(new MappedExecutorTemplate_WithLamdas(packageName), element);
                     processClassTemplate(new LogInterceptorTemplate_WithLamdas(packageName), element);
+                    processClassTemplate(new CachingInterceptorTemplate_WithLamdas(packageName), element);
+                    processClassTemplate(new CoalescingInterceptorTemplate_WithLamdas(packageName), element);
+                    processClassTemplate(new BatchLoadingInterceptorTemplate_WithLamdas(packageName), element);
+                    processClassTemplate(new BulkheadInterceptorTemplate_WithLamdas(packageName), element);
+                    processClassTemplate(new MetricsInterceptorTemplate_WithLamdas(packageName), element);
+                    processClassTemplate(new AsyncExecutorTemplate_WithLamdas(packageName), element);
                 } else {
                     processClassTemplate(new ExecutorTemplate(packageName), element);
                     processClassTemplate(new ExecutorGroupTemplate(packageName), element);
                     processClassTemplate(new LoggedExecutorGroupTemplate(packageName), element);
+                    processClassTemplate(new CachingExecutorGroupTemplate(packageName), element);
+                    processClassTemplate(new CoalescingExecutorGroupTemplate(packageName), element);
+                    processClassTemplate(new BatchLoadingExecutorGroupTemplate(packageName), element);
+                    processClassTemplate(new BulkheadExecutorGroupTemplate(packageName), element);
+                    processClassTemplate(new MetricsExecutorGroupTemplate(packageName), element);
                 }
                 processClassTemplate(new OperationTemplate(packageName), element);
                 processClassTemplate(new DeleteByIdOperationTemplate(packageName), element);
@@ -126,7 +154,13 @@ public class SharedLibraryProcessor extends TemplateProcessor {
                     }
                 }
                 processClassTemplate(new DataPageTemplate(packageName), element);
+                processClassTemplate(new KeysetDataPageTemplate(packageName), element);
                 processClassTemplate(new DataPageRequestTemplate(packageName), element);
+                processClassTemplate(new RowHandlerTemplate(packageName), element);
+                processClassTemplate(new CacheRegionTemplate(packageName), element);
+                processClassTemplate(new OperationMetricsTemplate(packageName), element);
+                processClassTemplate(new OperationMetricsMBeanTemplate(packageName), element);
+                processClassTemplate(new OperationRejectedExceptionTemplate(packageName), element);
                 
                 if (generationInfo.isErrorManagementEnabled()) {
                     processClassTemplate(new OperationExecutionExceptionTemplate(packageName), element);
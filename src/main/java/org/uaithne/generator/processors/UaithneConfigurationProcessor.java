@@ -70,6 +70,7 @@ public class UaithneConfigurationProcessor extends TemplateProcessor {
                     generationInfo.setGenerateSelectByIdOperationsEnabled(configuration.generateSelectByIdOperations());
                     generationInfo.setGenerateUpdateOperationsEnabled(configuration.generateUpdateOperations());
                     generationInfo.setGenerateMergeOperationsEnabled(configuration.generateMergeOperations());
+                    generationInfo.setGenerateBatchOperationsEnabled(configuration.generateBatchOperations());
                     generationInfo.setGenerateAbstractExecutorsEnabled(configuration.generateAbstractExecutors());
                     generationInfo.setGenerateChainedExecutorsEnabled(configuration.generateChainedExecutors());
                     generationInfo.setGenerateChainedGroupingExecutorsEnabled(configuration.generateChainedGroupingExecutors());
@@ -225,6 +226,13 @@ public class UaithneConfigurationProcessor extends TemplateProcessor {
                     if (!contextParameterType.isVoid()) {
                         generationInfo.setContextParameterType(contextParameterType);
                     }
+                    if (configuration.enableContextDeadline()) {
+                        if (contextParameterType.isVoid()) {
+                            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "For set enableContextDeadline to true you also must provide a contextParameterType (continue assuming the first one as false)", element);
+                        } else {
+                            generationInfo.setContextDeadlineEnabled(true);
+                        }
+                    }
                     
                     generationInfo.setErrorManagementEnabled(configuration.enableErrorManagement());
                     generationInfo.setLambdasEnabled(configuration.enableLamdas());
@@ -18,7 +18,9 @@
  */
 package org.uaithne.generator.processors.database;
 
+import org.uaithne.annotations.sql.JdbcTypes;
 import org.uaithne.generator.commons.EntityInfo;
+import org.uaithne.generator.commons.FieldInfo;
 import org.uaithne.generator.commons.OperationInfo;
 
 public interface QueryGenerator {
@@ -31,6 +33,7 @@ public interface QueryGenerator {
     public String[] getSelectCountQuery(OperationInfo operation);
     public String[] getSelectPageCountQuery(OperationInfo operation);
     public String[] getSelectPageQuery(OperationInfo operation);
+    public String[] getSelectPageWithDataCountQuery(OperationInfo operation);
     public String[] getEntityDeleteByIdQuery(EntityInfo entity, OperationInfo operation);
     public String[] getEntityInsertQuery(EntityInfo entity, OperationInfo operation);
     public String[] getEntityLastInsertedIdQuery(EntityInfo entity, OperationInfo operation, boolean excludeSequenceQuery);
@@ -45,4 +48,6 @@ public interface QueryGenerator {
     public String[] getComplexUpdateCallQuery(OperationInfo operation);
     public String[] getComplexDeleteCallQuery(OperationInfo operation);
     public boolean useAliasInOrderByTranslation();
+    public int getMaxInListSize();
+    public JdbcTypes getJdbcType(FieldInfo field);
 }
@@ -32,14 +32,22 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypeException;
 import javax.tools.Diagnostic;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
+import org.uaithne.annotations.Ternary;
 import org.uaithne.annotations.myBatis.MyBatisBackend;
 import org.uaithne.annotations.myBatis.MyBatisBackendConfiguration;
 import org.uaithne.annotations.myBatis.MyBatisCustomSqlStatementId;
 import org.uaithne.annotations.myBatis.MyBatisMapper;
+import org.uaithne.annotations.myBatis.MyBatisResultSetType;
+import org.uaithne.annotations.myBatis.MyBatisStatementOptions;
+import org.uaithne.annotations.myBatis.MyBatisTypeHandler;
 import org.uaithne.annotations.sql.CustomSqlQuery;
+import org.uaithne.annotations.sql.JdbcType;
+import org.uaithne.annotations.sql.JdbcTypes;
+import org.uaithne.annotations.sql.QueryTimeout;
 import org.uaithne.generator.commons.*;
 import org.uaithne.generator.processors.database.QueryGenerator;
 import org.uaithne.generator.processors.database.QueryGeneratorConfiguration;
@@ -49,6 +57,31 @@ import org.uaithne.generator.templates.operations.myBatis.MyBatisTemplate;
 @SupportedAnnotationTypes("org.uaithne.annotations.myBatis.MyBatisMapper")
 public class MyBatisMapperProcessor extends TemplateProcessor {
     
+    /**
+     * Fetch size given to the selects that return a single row, no fetch size is
+     * written for them.
+     */
+    private static final int SINGLE_ROW_FETCH_SIZE = -1;
+    /**
+     * Timeout in seconds of the statements written for the operation in process,
+     * 0 when it is not specified.
+     */
+    private int statementTimeout;
+    /**
+     * Fetch size of the select statements written for the operation in process
+     * that overrides the one specified in the operation, 0 when it is not specified.
+     */
+    private int statementFetchSize;
+    private Ternary statementUseCache = Ternary.UNSPECIFIED;
+    private Ternary statementSelectFlushCache = Ternary.UNSPECIFIED;
+    private Ternary statementWriteFlushCache = Ternary.UNSPECIFIED;
+    private MyBatisResultSetType statementResultSetType = MyBatisResultSetType.UNSPECIFIED;
+    /**
+     * Configuration of the backend in process, it contains the default options
+     * of the statements.
+     */
+    private MyBatisBackendConfiguration backendConfiguration;
+    
     @Override
     public boolean doProcess(Set<? extends TypeElement> set, RoundEnvironment re) {
         for (Element element : re.getElementsAnnotatedWith(MyBatisMapper.class)) {
@@ -113,6 +146,14 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         
         boolean useParameterType = configuration.useParameterType();
 
+        backendConfiguration = configuration;
+        if (configuration.defaultFetchSize() < 0) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The default fetch size of the statements must be greater or equal to zero", element);
+        }
+        if (configuration.defaultTimeout() < 0) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The default timeout of the statements must be greater or equal to zero", element);
+        }
+
         Writer writer = null;
         boolean hasUnimplementedOperations = false;
         try {
@@ -125,8 +166,9 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
             writer.write("'>\n\n");
             sqlGenerator.begin();
             HashSet<EntityInfo> entitiesWithLastInsertedId = new HashSet<EntityInfo>();
+            HashMap<String, String> entityResultMaps = new HashMap<String, String>();
             for (OperationInfo operation : module.getOperations()) {
-                processOperation(sqlGenerator, operation, namespace, writer, entitiesWithLastInsertedId, useParameterType);
+                processOperation(sqlGenerator, operation, namespace, writer, entitiesWithLastInsertedId, entityResultMaps, useParameterType);
                 hasUnimplementedOperations = hasUnimplementedOperations || operation.isManually();
             }
             sqlGenerator.end();
@@ -142,12 +184,12 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
                 Logger.getLogger(MyBatisMapperProcessor.class.getName()).log(Level.SEVERE, null, ex);
             }
         }
-        processClassTemplate(new MyBatisTemplate(module, packageName, name, namespace, sqlGenerator.useAliasInOrderByTranslation(), hasUnimplementedOperations), element);
+        processClassTemplate(new MyBatisTemplate(module, packageName, name, namespace, sqlGenerator.useAliasInOrderByTranslation(), sqlGenerator.getMaxInListSize(), hasUnimplementedOperations), element);
     }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Process operation">
-    public void processOperation(QueryGenerator sqlGenerator, OperationInfo operation, String namespace, Writer writer, HashSet<EntityInfo> entitiesWithLastInsertedId, boolean useParameterType) throws IOException {
+    public void processOperation(QueryGenerator sqlGenerator, OperationInfo operation, String namespace, Writer writer, HashSet<EntityInfo> entitiesWithLastInsertedId, HashMap<String, String> entityResultMaps, boolean useParameterType) throws IOException {
         if (operation.isManually()) {
             return;
         }
@@ -184,6 +226,7 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
             }
             return;
         }
+        loadStatementOptions(operation);
         EntityInfo entity = operation.getEntity();
         if (entity != null) {
             entity = entity.getCombined();
@@ -226,13 +269,23 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
                 operation.setQueryId(namespace + "." + operation.getMethodName());
                 String[] query = sqlGenerator.getSelectOneQuery(operation);
                 if (query != null) {
-                    writeSelect(writer,
-                            operation.getMethodName(),
-                            operation.getDataType().getQualifiedNameWithoutGenerics(),
-                            operation.getReturnDataType().getQualifiedNameWithoutGenerics(),
-                            query,
-                            isProcedureInvocation,
-                            useParameterType);
+                    String resultMap = writeEntityResultMap(writer, sqlGenerator, entity, operation.getReturnDataType(), isProcedureInvocation, entityResultMaps);
+                    if (resultMap != null) {
+                        writeSelectWithResultMap(writer,
+                                operation.getMethodName(),
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                resultMap,
+                                query,
+                                useParameterType);
+                    } else {
+                        writeSelect(writer,
+                                operation.getMethodName(),
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                operation.getReturnDataType().getQualifiedNameWithoutGenerics(),
+                                query,
+                                isProcedureInvocation,
+                                useParameterType);
+                    }
                 }
             }
             break;
@@ -240,13 +293,25 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
                 operation.setQueryId(namespace + "." + operation.getMethodName());
                 String[] query = sqlGenerator.getSelectManyQuery(operation);
                 if (query != null) {
-                    writeSelect(writer,
-                            operation.getMethodName(),
-                            operation.getDataType().getQualifiedNameWithoutGenerics(),
-                            operation.getOneItemReturnDataType().getQualifiedNameWithoutGenerics(),
-                            query,
-                            isProcedureInvocation,
-                            useParameterType);
+                    String resultMap = writeEntityResultMap(writer, sqlGenerator, entity, operation.getOneItemReturnDataType(), isProcedureInvocation, entityResultMaps);
+                    if (resultMap != null) {
+                        writeSelectWithResultMap(writer,
+                                operation.getMethodName(),
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                resultMap,
+                                query,
+                                useParameterType,
+                                operation.getFetchSize());
+                    } else {
+                        writeSelect(writer,
+                                operation.getMethodName(),
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                operation.getOneItemReturnDataType().getQualifiedNameWithoutGenerics(),
+                                query,
+                                isProcedureInvocation,
+                                useParameterType,
+                                operation.getFetchSize());
+                    }
                 }
             }
             break;
@@ -254,14 +319,27 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
                 operation.setQueryId(namespace + "." + operation.getMethodName() + "Page");
                 operation.setCountQueryId(namespace + "." + operation.getMethodName() + "Count");
                 String[] query = sqlGenerator.getSelectPageQuery(operation);
+                String resultMap = null;
                 if (query != null) {
-                    writeSelect(writer,
-                            operation.getMethodName() + "Page",
-                            operation.getDataType().getQualifiedNameWithoutGenerics(),
-                            operation.getOneItemReturnDataType().getQualifiedNameWithoutGenerics(),
-                            query,
-                            isProcedureInvocation,
-                            useParameterType);
+                    resultMap = writeEntityResultMap(writer, sqlGenerator, entity, operation.getOneItemReturnDataType(), isProcedureInvocation, entityResultMaps);
+                    if (resultMap != null) {
+                        writeSelectWithResultMap(writer,
+                                operation.getMethodName() + "Page",
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                resultMap,
+                                query,
+                                useParameterType,
+                                0);
+                    } else {
+                        writeSelect(writer,
+                                operation.getMethodName() + "Page",
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                operation.getOneItemReturnDataType().getQualifiedNameWithoutGenerics(),
+                                query,
+                                isProcedureInvocation,
+                                useParameterType,
+                                0);
+                    }
                 }
                 query = sqlGenerator.getSelectPageCountQuery(operation);
                 if (query != null) {
@@ -273,6 +351,25 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
                             isProcedureInvocation,
                             useParameterType);
                 }
+                operation.setPageWithDataCountQueryId(null);
+                if (entity != null && !isProcedureInvocation) {
+                    query = sqlGenerator.getSelectPageWithDataCountQuery(operation);
+                    if (query != null) {
+                        operation.setPageWithDataCountQueryId(namespace + "." + operation.getMethodName() + "PageWithDataCount");
+                        writeDataPageRowResultMap(writer,
+                                operation.getMethodName() + "PageWithDataCountRow",
+                                operation.getOneItemReturnDataType().getQualifiedNameWithoutGenerics(),
+                                resultMap,
+                                entity.getFirstIdField().getName());
+                        writeSelectWithResultMap(writer,
+                                operation.getMethodName() + "PageWithDataCount",
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                operation.getMethodName() + "PageWithDataCountRow",
+                                query,
+                                useParameterType,
+                                0);
+                    }
+                }
             }
             break;
             case DELETE_BY_ID: {
@@ -492,13 +589,53 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
                 }
                 String[] query = sqlGenerator.getEntitySelectByIdQuery(entity, operation);
                 if (query != null) {
-                    writeSelect(writer,
-                            operation.getMethodName(),
-                            entity.getFirstIdField().getDataType().getQualifiedNameWithoutGenerics(),
-                            operation.getReturnDataType().getQualifiedNameWithoutGenerics(),
-                            query,
-                            isProcedureInvocation,
-                            useParameterType);
+                    String resultMap = writeEntityResultMap(writer, sqlGenerator, entity, operation.getReturnDataType(), isProcedureInvocation, entityResultMaps);
+                    if (resultMap != null) {
+                        writeSelectWithResultMap(writer,
+                                operation.getMethodName(),
+                                entity.getFirstIdField().getDataType().getQualifiedNameWithoutGenerics(),
+                                resultMap,
+                                query,
+                                useParameterType);
+                    } else {
+                        writeSelect(writer,
+                                operation.getMethodName(),
+                                entity.getFirstIdField().getDataType().getQualifiedNameWithoutGenerics(),
+                                operation.getReturnDataType().getQualifiedNameWithoutGenerics(),
+                                query,
+                                isProcedureInvocation,
+                                useParameterType);
+                    }
+                }
+            }
+            break;
+            case SELECT_BY_IDS: {
+                operation.setQueryId(namespace + "." + operation.getMethodName());
+                if (entity == null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to find the entity related to the operation", operation.getElement());
+                    break;
+                }
+                String[] query = sqlGenerator.getSelectManyQuery(operation);
+                if (query != null) {
+                    String resultMap = writeEntityResultMap(writer, sqlGenerator, entity, operation.getOneItemReturnDataType(), isProcedureInvocation, entityResultMaps);
+                    if (resultMap != null) {
+                        writeSelectWithResultMap(writer,
+                                operation.getMethodName(),
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                resultMap,
+                                query,
+                                useParameterType,
+                                0);
+                    } else {
+                        writeSelect(writer,
+                                operation.getMethodName(),
+                                operation.getDataType().getQualifiedNameWithoutGenerics(),
+                                operation.getOneItemReturnDataType().getQualifiedNameWithoutGenerics(),
+                                query,
+                                isProcedureInvocation,
+                                useParameterType,
+                                0);
+                    }
                 }
             }
             break;
@@ -639,6 +776,79 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
                 }
             }
             break;
+            case INSERT_BATCH: {
+                operation.setQueryId(namespace + "." + operation.getMethodName());
+                if (entity == null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to find the entity related to the operation", operation.getElement());
+                    break;
+                }
+                FieldInfo id = entity.getFirstIdField();
+                QueryGeneratorConfiguration config = sqlGenerator.getConfiguration();
+                // The batched inserts can't use the last inserted id query, they only can use the generated keys
+                boolean useGeneratedKey = id.isIdentifierAutogenerated() && (config.useAutoIncrementId() || config.useGeneratedKeys());
+                String[] query = sqlGenerator.getEntityInsertQuery(entity, operation);
+                if (query != null) {
+                    if (useGeneratedKey) {
+                        operation.setInsertedIdOrigin(defaultIdOrigin);
+                        writeInsertWithGeneratedKeyFromOrigin(writer,
+                                operation.getMethodName(),
+                                entity.getDataType().getQualifiedNameWithoutGenerics(),
+                                query,
+                                id.getName(),
+                                id.getMappedNameOrName(),
+                                isProcedureInvocation,
+                                useParameterType,
+                                operation.getInsertedIdOrigin(),
+                                id);
+                    } else {
+                        writeInsert(writer,
+                                operation.getMethodName(),
+                                entity.getDataType().getQualifiedNameWithoutGenerics(),
+                                query,
+                                isProcedureInvocation,
+                                useParameterType);
+                    }
+                }
+            }
+            break;
+            case UPDATE_BATCH: {
+                operation.setQueryId(namespace + "." + operation.getMethodName());
+                if (entity == null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to find the entity related to the operation", operation.getElement());
+                    break;
+                }
+                String[] query = sqlGenerator.getEntityUpdateQuery(entity, operation);
+                if (query != null) {
+                    writeUpdate(writer,
+                            operation.getMethodName(),
+                            entity.getDataType().getQualifiedNameWithoutGenerics(),
+                            query,
+                            isProcedureInvocation,
+                            useParameterType);
+                }
+            }
+            break;
+            case DELETE_BY_ID_BATCH: {
+                operation.setQueryId(namespace + "." + operation.getMethodName());
+                if (entity == null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to find the entity related to the operation", operation.getElement());
+                    break;
+                }
+                // Each id of the batch is executed as the parameter of a delete by id statement
+                OperationInfo deleteByIdOperation = new OperationInfo(operation.getDataType());
+                deleteByIdOperation.setEntity(operation.getEntity());
+                deleteByIdOperation.addField(new FieldInfo(entity.getFirstIdField()));
+                String[] query = sqlGenerator.getEntityDeleteByIdQuery(entity, deleteByIdOperation);
+                if (query != null) {
+                    writeDelete(writer,
+                            operation.getMethodName(),
+                            entity.getFirstIdField().getDataType().getQualifiedNameWithoutGenerics(),
+                            query,
+                            isProcedureInvocation,
+                            useParameterType);
+                }
+            }
+            break;
             case COMPLEX_SELECT_CALL: {
                 operation.setQueryId(namespace + "." + operation.getMethodName());
                 String[] query = sqlGenerator.getComplexSelectCallQuery(operation);
@@ -693,9 +903,106 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
             break;
         }
     }
+
+    private void loadStatementOptions(OperationInfo operation) {
+        statementTimeout = 0;
+        statementFetchSize = 0;
+        statementUseCache = Ternary.UNSPECIFIED;
+        statementSelectFlushCache = Ternary.UNSPECIFIED;
+        statementWriteFlushCache = Ternary.UNSPECIFIED;
+        statementResultSetType = MyBatisResultSetType.UNSPECIFIED;
+        if (backendConfiguration != null) {
+            statementTimeout = Math.max(backendConfiguration.defaultTimeout(), 0);
+            statementUseCache = backendConfiguration.defaultUseCache();
+            statementSelectFlushCache = backendConfiguration.defaultSelectFlushCache();
+            statementWriteFlushCache = backendConfiguration.defaultWriteFlushCache();
+            statementResultSetType = backendConfiguration.defaultResultSetType();
+        }
+
+        QueryTimeout queryTimeout = operation.getAnnotation(QueryTimeout.class);
+        if (queryTimeout != null) {
+            if (queryTimeout.value() <= 0) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The query timeout must be greater than zero", operation.getElement());
+            } else {
+                statementTimeout = queryTimeout.value();
+            }
+        }
+
+        MyBatisStatementOptions options = operation.getAnnotation(MyBatisStatementOptions.class);
+        if (options == null) {
+            return;
+        }
+        if (options.fetchSize() < 0) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The fetch size must be greater or equal to zero", operation.getElement());
+        } else {
+            statementFetchSize = options.fetchSize();
+        }
+        if (options.timeout() < 0) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The timeout must be greater or equal to zero", operation.getElement());
+        } else if (options.timeout() > 0) {
+            if (queryTimeout != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "The timeout cannot be specified at the same time in the QueryTimeout annotation and in the MyBatisStatementOptions annotation", operation.getElement());
+            }
+            statementTimeout = options.timeout();
+        }
+        if (options.useCache() != Ternary.UNSPECIFIED) {
+            statementUseCache = options.useCache();
+        }
+        if (options.flushCache() != Ternary.UNSPECIFIED) {
+            statementSelectFlushCache = options.flushCache();
+            statementWriteFlushCache = options.flushCache();
+        }
+        if (options.resultSetType() != MyBatisResultSetType.UNSPECIFIED) {
+            statementResultSetType = options.resultSetType();
+        }
+    }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Write xml entries">
+    public void writeStatementOptions(Writer writer) throws IOException {
+        writeStatementOptions(writer, statementWriteFlushCache);
+    }
+
+    private void writeStatementOptions(Writer writer, Ternary flushCache) throws IOException {
+        if (statementTimeout > 0) {
+            writer.write("' timeout='");
+            writer.write(Integer.toString(statementTimeout));
+        }
+        if (flushCache != Ternary.UNSPECIFIED) {
+            writer.write("' flushCache='");
+            writer.write(Boolean.toString(flushCache.solve(false)));
+        }
+    }
+
+    /**
+     * The default fetch size is written only for the selects that return many
+     * rows, the ones that return a single row (like the count or the select by
+     * id) receive SINGLE_ROW_FETCH_SIZE; the fetch size specified in the
+     * MyBatisStatementOptions annotation is written for all of them.
+     */
+    public void writeSelectStatementOptions(Writer writer, int fetchSize) throws IOException {
+        if (statementFetchSize > 0) {
+            fetchSize = statementFetchSize;
+        } else if (fetchSize == SINGLE_ROW_FETCH_SIZE) {
+            fetchSize = 0;
+        } else if (fetchSize <= 0 && backendConfiguration != null) {
+            fetchSize = backendConfiguration.defaultFetchSize();
+        }
+        if (fetchSize > 0) {
+            writer.write("' fetchSize='");
+            writer.write(Integer.toString(fetchSize));
+        }
+        if (statementResultSetType != MyBatisResultSetType.UNSPECIFIED) {
+            writer.write("' resultSetType='");
+            writer.write(statementResultSetType.name());
+        }
+        if (statementUseCache != Ternary.UNSPECIFIED) {
+            writer.write("' useCache='");
+            writer.write(Boolean.toString(statementUseCache.solve(false)));
+        }
+        writeStatementOptions(writer, statementSelectFlushCache);
+    }
+
     public void writeUpdate(Writer writer, String id, String parameterType, String[] lines, boolean isProcedureInvocation, boolean useParameterType) throws IOException {
         writer.write("    <update id='");
         writer.write(id);
@@ -706,6 +1013,7 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         if (isProcedureInvocation) {
             writer.write("' statementType='CALLABLE");
         }
+        writeStatementOptions(writer);
         writer.write("'>\n");
         if (lines != null) {
             for (String line : lines) {
@@ -718,6 +1026,10 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
     }
 
     public void writeSelect(Writer writer, String id, String parameterType, String resultType, String[] lines, boolean isProcedureInvocation, boolean useParameterType) throws IOException {
+        writeSelect(writer, id, parameterType, resultType, lines, isProcedureInvocation, useParameterType, SINGLE_ROW_FETCH_SIZE);
+    }
+
+    public void writeSelect(Writer writer, String id, String parameterType, String resultType, String[] lines, boolean isProcedureInvocation, boolean useParameterType, int fetchSize) throws IOException {
         writer.write("    <select id='");
         writer.write(id);
         if (useParameterType) {
@@ -729,6 +1041,32 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         if (isProcedureInvocation) {
             writer.write("' statementType='CALLABLE");
         }
+        writeSelectStatementOptions(writer, fetchSize);
+        writer.write("'>\n");
+        if (lines != null) {
+            for (String line : lines) {
+                writer.write("        ");
+                writer.write(line);
+                writer.write("\n");
+            }
+        }
+        writer.write("    </select>\n\n");
+    }
+
+    public void writeSelectWithResultMap(Writer writer, String id, String parameterType, String resultMap, String[] lines, boolean useParameterType) throws IOException {
+        writeSelectWithResultMap(writer, id, parameterType, resultMap, lines, useParameterType, SINGLE_ROW_FETCH_SIZE);
+    }
+
+    public void writeSelectWithResultMap(Writer writer, String id, String parameterType, String resultMap, String[] lines, boolean useParameterType, int fetchSize) throws IOException {
+        writer.write("    <select id='");
+        writer.write(id);
+        if (useParameterType) {
+            writer.write("' parameterType='");
+            writer.write(parameterType);
+        }
+        writer.write("' resultMap='");
+        writer.write(resultMap);
+        writeSelectStatementOptions(writer, fetchSize);
         writer.write("'>\n");
         if (lines != null) {
             for (String line : lines) {
@@ -740,6 +1078,166 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         writer.write("    </select>\n\n");
     }
 
+    public void writeDataPageRowResultMap(Writer writer, String id, String resultType, String idColumn) throws IOException {
+        writeDataPageRowResultMap(writer, id, resultType, null, idColumn);
+    }
+
+    public void writeDataPageRowResultMap(Writer writer, String id, String resultType, String resultMap, String idColumn) throws IOException {
+        writer.write("    <resultMap id='");
+        writer.write(id);
+        writer.write("' type='");
+        writer.write(DataTypeInfo.MYBATIS_DATA_PAGE_ROW_DATA_TYPE.getQualifiedNameWithoutGenerics());
+        writer.write("'>\n");
+        writer.write("        <id column='");
+        writer.write(idColumn);
+        writer.write("'/>\n");
+        writer.write("        <result property='dataCount' column='dataCount__'/>\n");
+        if (resultMap != null) {
+            writer.write("        <association property='value' resultMap='");
+            writer.write(resultMap);
+            writer.write("'/>\n");
+        } else {
+            writer.write("        <association property='value' javaType='");
+            writer.write(resultType);
+            writer.write("' autoMapping='true'/>\n");
+        }
+        writer.write("    </resultMap>\n\n");
+    }
+
+    public String writeEntityResultMap(Writer writer, QueryGenerator sqlGenerator, EntityInfo entity, DataTypeInfo resultType, boolean isProcedureInvocation, HashMap<String, String> entityResultMaps) throws IOException {
+        if (entity == null || resultType == null || isProcedureInvocation) {
+            return null;
+        }
+        String type = entity.getDataType().getQualifiedNameWithoutGenerics();
+        if (!type.equals(resultType.getQualifiedNameWithoutGenerics())) {
+            return null;
+        }
+        String id = entityResultMaps.get(type);
+        if (id != null) {
+            return id;
+        }
+        id = entity.getDataType().getSimpleNameWithoutGenerics() + "Result";
+        if (entityResultMaps.containsValue(id)) {
+            id = id + entityResultMaps.size();
+        }
+        entityResultMaps.put(type, id);
+
+        writer.write("    <resultMap id='");
+        writer.write(id);
+        writer.write("' type='");
+        writer.write(type);
+        writer.write("' autoMapping='true'>\n");
+        // The mapper dtd requires the id elements before the result elements
+        for (FieldInfo field : entity.getFields()) {
+            if (field.isIdentifier() && !field.isExcludedFromObject() && hasExplicitResultMapping(field, sqlGenerator)) {
+                writeResultMapping(writer, "id", field, sqlGenerator);
+            }
+        }
+        for (FieldInfo field : entity.getFields()) {
+            if (!field.isIdentifier() && !field.isExcludedFromObject() && hasExplicitResultMapping(field, sqlGenerator)) {
+                writeResultMapping(writer, "result", field, sqlGenerator);
+            }
+        }
+        writer.write("    </resultMap>\n\n");
+        return id;
+    }
+
+    /**
+     * A field without an explicit mapping is auto mapped, an explicit mapping
+     * fails when the mapper is parsed if MyBatis doesn't have a type handler
+     * for the field type, like a java.util.List or an own class.
+     */
+    public boolean hasExplicitResultMapping(FieldInfo field, QueryGenerator sqlGenerator) {
+        if (field.getAnnotation(MyBatisTypeHandler.class) != null || field.getAnnotation(JdbcType.class) != null || field.hasOwnMappedName()) {
+            return true;
+        }
+        DataTypeInfo dataType = field.getDataType();
+        if (dataType.isEnum()) {
+            return true;
+        }
+        String name = dataType.ensureBoxed().getQualifiedName();
+        QueryGeneratorConfiguration config = sqlGenerator.getConfiguration();
+        if (config != null && config.getCustomJdbcTypeMap().containsKey(dataType.getQualifiedName())) {
+            return true;
+        }
+        return typesWithMyBatisTypeHandler.contains(name);
+    }
+
+    private static final HashSet<String> typesWithMyBatisTypeHandler;
+    static {
+        typesWithMyBatisTypeHandler = new HashSet<String>(40);
+        typesWithMyBatisTypeHandler.add("java.lang.Boolean");
+        typesWithMyBatisTypeHandler.add("java.lang.Byte");
+        typesWithMyBatisTypeHandler.add("java.lang.Short");
+        typesWithMyBatisTypeHandler.add("java.lang.Integer");
+        typesWithMyBatisTypeHandler.add("java.lang.Long");
+        typesWithMyBatisTypeHandler.add("java.lang.Float");
+        typesWithMyBatisTypeHandler.add("java.lang.Double");
+        typesWithMyBatisTypeHandler.add("java.lang.Character");
+        typesWithMyBatisTypeHandler.add("java.lang.String");
+        typesWithMyBatisTypeHandler.add("java.lang.Object");
+        typesWithMyBatisTypeHandler.add("java.math.BigInteger");
+        typesWithMyBatisTypeHandler.add("java.math.BigDecimal");
+        typesWithMyBatisTypeHandler.add("byte[]");
+        typesWithMyBatisTypeHandler.add("java.lang.Byte[]");
+        typesWithMyBatisTypeHandler.add("java.io.InputStream");
+        typesWithMyBatisTypeHandler.add("java.io.Reader");
+        typesWithMyBatisTypeHandler.add("java.util.Date");
+        typesWithMyBatisTypeHandler.add("java.sql.Date");
+        typesWithMyBatisTypeHandler.add("java.sql.Time");
+        typesWithMyBatisTypeHandler.add("java.sql.Timestamp");
+        typesWithMyBatisTypeHandler.add("java.time.Instant");
+        typesWithMyBatisTypeHandler.add("java.time.LocalDateTime");
+        typesWithMyBatisTypeHandler.add("java.time.LocalDate");
+        typesWithMyBatisTypeHandler.add("java.time.LocalTime");
+        typesWithMyBatisTypeHandler.add("java.time.OffsetDateTime");
+        typesWithMyBatisTypeHandler.add("java.time.OffsetTime");
+        typesWithMyBatisTypeHandler.add("java.time.ZonedDateTime");
+        typesWithMyBatisTypeHandler.add("java.time.Month");
+        typesWithMyBatisTypeHandler.add("java.time.Year");
+        typesWithMyBatisTypeHandler.add("java.time.YearMonth");
+        typesWithMyBatisTypeHandler.add("java.time.chrono.JapaneseDate");
+    }
+
+    public void writeResultMapping(Writer writer, String element, FieldInfo field, QueryGenerator sqlGenerator) throws IOException {
+        writer.write("        <");
+        writer.write(element);
+        writer.write(" property='");
+        writer.write(field.getName());
+        writer.write("' column='");
+        writer.write(field.getName());
+        DataTypeInfo javaType = field.getDataType().ensureBoxed();
+        String javaTypeName = javaType.getQualifiedNameWithoutGenerics();
+        // Only top level classes can be loaded by its qualified name, in other
+        // cases the java type is resolved by myBatis using the property type
+        if (!javaTypeName.endsWith("]") && javaTypeName.equals(javaType.getPackageName() + "." + javaType.getSimpleNameWithoutGenerics())) {
+            writer.write("' javaType='");
+            writer.write(javaTypeName);
+        }
+        JdbcTypes jdbcType = sqlGenerator.getJdbcType(field);
+        if (jdbcType != null) {
+            writer.write("' jdbcType='");
+            writer.write(jdbcType.name());
+        }
+        MyBatisTypeHandler th = field.getAnnotation(MyBatisTypeHandler.class);
+        if (th != null) {
+            DataTypeInfo typeHandler;
+            try {
+                typeHandler = NamesGenerator.createResultDataType(th.value());
+            } catch (MirroredTypeException ex) {
+                // See: http://blog.retep.org/2009/02/13/getting-class-values-from-annotations-in-an-annotationprocessor/
+                typeHandler = NamesGenerator.createDataTypeFor(ex.getTypeMirror());
+            }
+            if (typeHandler == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to find the type handler", field.getElement());
+            } else {
+                writer.write("' typeHandler='");
+                writer.write(typeHandler.getQualifiedNameWithoutGenerics());
+            }
+        }
+        writer.write("'/>\n");
+    }
+
     public void writeSelectWithoutParameter(Writer writer, String id, String resultType, String[] lines, boolean isProcedureInvocation) throws IOException {
         writer.write("    <select id='");
         writer.write(id);
@@ -748,6 +1246,7 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         if (isProcedureInvocation) {
             writer.write("' statementType='CALLABLE");
         }
+        writeStatementOptions(writer);
         writer.write("'>\n");
         if (lines != null) {
             for (String line : lines) {
@@ -769,6 +1268,7 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         if (isProcedureInvocation) {
             writer.write("' statementType='CALLABLE");
         }
+        writeStatementOptions(writer);
         writer.write("'>\n");
         if (lines != null) {
             for (String line : lines) {
@@ -790,6 +1290,7 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         if (isProcedureInvocation) {
             writer.write("' statementType='CALLABLE");
         }
+        writeStatementOptions(writer);
         writer.write("'>\n");
         if (lines != null) {
             for (String line : lines) {
@@ -815,6 +1316,7 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         if (isProcedureInvocation) {
             writer.write("' statementType='CALLABLE");
         }
+        writeStatementOptions(writer);
         writer.write("'>\n");
         if (lines != null) {
             for (String line : lines) {
@@ -851,6 +1353,7 @@ public class MyBatisMapperProcessor extends TemplateProcessor {
         if (isProcedureInvocation) {
             writer.write("' statementType='CALLABLE");
         }
+        writeStatementOptions(writer);
         writer.write("'>\n");
         if (lines != null) {
             for (String line : lines) {
@@ -32,11 +32,17 @@ import org.uaithne.generator.commons.GenerationInfo;
 import org.uaithne.generator.commons.NamesGenerator;
 import org.uaithne.generator.commons.TemplateProcessor;
 import org.uaithne.generator.templates.shared.myBatis.ApplicationParameterDriverTemplate;
+import org.uaithne.generator.templates.shared.myBatis.ApplicationParameterWrapperTemplate;
+import org.uaithne.generator.templates.shared.myBatis.DataPageRowTemplate;
 import org.uaithne.generator.templates.shared.myBatis.ManagedSqlSessionExecutorGroupTemplate;
 import org.uaithne.generator.templates.shared.myBatis.ManagedSqlSessionProviderTemplate;
+import org.uaithne.generator.templates.shared.myBatis.ManagedSqlSessionProviderTemplate_WithContext;
+import org.uaithne.generator.templates.shared.myBatis.ReadWriteSplittingSqlSessionProviderTemplate;
 import org.uaithne.generator.templates.shared.myBatis.RetainIdPluginTemplate;
+import org.uaithne.generator.templates.shared.myBatis.SqlSessionHolderTemplate;
 import org.uaithne.generator.templates.shared.myBatis.SqlSessionManagementInterceptor_WithLamdas;
 import org.uaithne.generator.templates.shared.myBatis.SqlSessionProviderTemplate;
+import org.uaithne.generator.templates.shared.myBatis.StatementTimeoutPluginTemplate;
 
 @SupportedSourceVersion(SourceVersion.RELEASE_6)
 @SupportedAnnotationTypes("org.uaithne.annotations.myBatis.SharedMyBatisLibrary")
@@ -67,19 +73,28 @@ public class SharedMyBatisLibraryProcessor extends TemplateProcessor {
 
                 GenerationInfo generationInfo = getGenerationInfo();
                 processClassTemplate(new SqlSessionProviderTemplate(packageName), element);
+                processClassTemplate(new DataPageRowTemplate(packageName), element);
                 if (generationInfo.getContextParameterType() == null) {
                     processClassTemplate(new ManagedSqlSessionProviderTemplate(packageName), element);
-                    if (generationInfo.isLambdasEnabled()) {
-                        processClassTemplate(new SqlSessionManagementInterceptor_WithLamdas(packageName), element);
-                    } else {
-                        processClassTemplate(new ManagedSqlSessionExecutorGroupTemplate(packageName), element);
-                    }
+                } else {
+                    processClassTemplate(new SqlSessionHolderTemplate(packageName), element);
+                    processClassTemplate(new ManagedSqlSessionProviderTemplate_WithContext(packageName), element);
+                }
+                processClassTemplate(new ReadWriteSplittingSqlSessionProviderTemplate(packageName), element);
+                if (generationInfo.isLambdasEnabled()) {
+                    processClassTemplate(new SqlSessionManagementInterceptor_WithLamdas(packageName), element);
+                } else {
+                    processClassTemplate(new ManagedSqlSessionExecutorGroupTemplate(packageName), element);
                 }
                 if (includeRetainIdPlugin) {
                     processClassTemplate(new RetainIdPluginTemplate(packageName), element);
                 }
                 if (includeApplicationParameterDriver) {
                     processClassTemplate(new ApplicationParameterDriverTemplate(packageName), element);
+                    processClassTemplate(new ApplicationParameterWrapperTemplate(packageName), element);
+                }
+                if (generationInfo.isContextDeadlineEnabled()) {
+                    processClassTemplate(new StatementTimeoutPluginTemplate(packageName), element);
                 }
             }
         }
@@ -27,6 +27,11 @@ import org.uaithne.generator.processors.database.myBatis.MyBatisSqlQueryGenerato
 
 public class MyBatisMySqlQueryGenerator extends MyBatisSqlQueryGenerator {
 
+    @Override
+    public int getMaxInListSize() {
+        return 10000;
+    }
+
     @Override
     public String currentSqlDate() {
         return "current_timestamp";
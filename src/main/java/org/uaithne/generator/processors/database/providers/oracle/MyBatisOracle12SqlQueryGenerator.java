@@ -33,5 +33,10 @@ public class MyBatisOracle12SqlQueryGenerator extends MyBatisSql2008QueryGenerat
     public String[] getIdSequenceCurrentValue(EntityInfo entity, FieldInfo field) {
         return new String[] {"select " + getIdSequenceName(entity, field) + ".currval from dual"};
     }
+
+    @Override
+    public boolean supportsDataCountInSelectPage() {
+        return true;
+    }
     
 }
@@ -67,6 +67,18 @@ public class OracleBasicSqlQueryGenerator extends BasicSqlQueryGenerator {
         return r;
     }
 
+    @Override
+    public String[] ignoreOffsetWhenLastKeyIsSet(String[] query) {
+        if (query == null) {
+            return null;
+        }
+        String[] result = new String[query.length];
+        for (int i = 0; i < query.length; i++) {
+            result[i] = query[i].replace("(@offset is null or ", "(@offset is null or @lastKey is not null or ");
+        }
+        return result;
+    }
+
     @Override
     public void appendSelectPageBeforeSelect(StringBuilder result, ArrayList<FieldInfo> orderBys, CustomSqlQuery customQuery) {
     }
@@ -27,6 +27,11 @@ import org.uaithne.generator.processors.database.providers.sql.MyBatisSql2008Que
 
 public class MyBatisPostgreSql2008QueryGenerator extends MyBatisSql2008QueryGenerator {
 
+    @Override
+    public int getMaxInListSize() {
+        return 10000;
+    }
+
     @Override
     public String[] getIdSequenceNextValue(EntityInfo entity, FieldInfo field) {
         return new String[] {"nextval('" + getIdSequenceName(entity, field) + "')"};
@@ -64,4 +69,9 @@ public class MyBatisPostgreSql2008QueryGenerator extends MyBatisSql2008QueryGene
                 return super.translateComparator(comparator);
         }
     }
+
+    @Override
+    public boolean supportsDataCountInSelectPage() {
+        return true;
+    }
 }
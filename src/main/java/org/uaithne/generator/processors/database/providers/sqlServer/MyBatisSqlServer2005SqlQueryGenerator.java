@@ -26,6 +26,12 @@ import org.uaithne.generator.commons.FieldInfo;
 import org.uaithne.generator.processors.database.myBatis.MyBatisSqlQueryGenerator;
 
 public class MyBatisSqlServer2005SqlQueryGenerator extends MyBatisSqlQueryGenerator {
+
+    @Override
+    public int getMaxInListSize() {
+        // SQL Server does not allow more than 2100 parameters in a statement
+        return 2000;
+    }
     
     @Override
     public String currentSqlDate() {
@@ -24,6 +24,12 @@ import org.uaithne.generator.commons.FieldInfo;
 import org.uaithne.generator.processors.database.providers.sql.MyBatisSql2008QueryGenerator;
 
 public class MyBatisSqlServer2012SqlQueryGenerator extends MyBatisSql2008QueryGenerator {
+
+    @Override
+    public int getMaxInListSize() {
+        // SQL Server does not allow more than 2100 parameters in a statement
+        return 2000;
+    }
     
     @Override
     public String falseValue() {
@@ -67,5 +73,10 @@ public class MyBatisSqlServer2012SqlQueryGenerator extends MyBatisSql2008QueryGe
                 return super.translateComparator(comparator);
         }
     }
+
+    @Override
+    public boolean supportsDataCountInSelectPage() {
+        return true;
+    }
     
 }
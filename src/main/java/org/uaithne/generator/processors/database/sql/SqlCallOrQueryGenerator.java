@@ -190,6 +190,11 @@ public class SqlCallOrQueryGenerator extends SqlGenerator {
         }
     }
 
+    @Override
+    public int getMaxInListSize() {
+        return queryGenerator.getMaxInListSize();
+    }
+
     @Override
     public String[] getSelectManyQuery(OperationInfo operation) {
         if (useCallForSelect) {
@@ -28,6 +28,7 @@ import org.uaithne.annotations.sql.JdbcType;
 import org.uaithne.annotations.sql.JdbcTypes;
 import org.uaithne.generator.commons.DataTypeInfo;
 import org.uaithne.generator.commons.FieldInfo;
+import org.uaithne.generator.commons.OperationInfo;
 import org.uaithne.generator.processors.database.QueryGeneratorConfiguration;
 
 public abstract class SqlGenerator implements QueryGenerator {
@@ -55,6 +56,17 @@ public abstract class SqlGenerator implements QueryGenerator {
     public boolean useAliasInOrderByTranslation() {
         return false;
     }
+
+    @Override
+    public int getMaxInListSize() {
+        // Oracle does not allow more than 1000 expressions in a list
+        return 1000;
+    }
+    
+    @Override
+    public String[] getSelectPageWithDataCountQuery(OperationInfo operation) {
+        return null;
+    }
     
     @Override
     public void begin() {
@@ -72,6 +72,10 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
     }
 
     public String completeQueryWithoutEnvolve(String query, OperationInfo operation, boolean count, boolean selectPage, CustomSqlQuery customQuery, boolean ignoreCustomQueryWhenCount) {
+        return completeQueryWithoutEnvolve(query, operation, count, selectPage, false, customQuery, ignoreCustomQueryWhenCount);
+    }
+
+    public String completeQueryWithoutEnvolve(String query, OperationInfo operation, boolean count, boolean selectPage, boolean dataCount, CustomSqlQuery customQuery, boolean ignoreCustomQueryWhenCount) {
         boolean addSelect = false;
         boolean addFrom = false;
         boolean addWhere = false;
@@ -221,6 +225,15 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
                 orderBys.add(field);
             }
         }
+        if (selectPage && operation.isKeysetPage() && entity != null) {
+            FieldInfo idField = entity.getCombined().getFirstIdField();
+            if (idField != null) {
+                FieldInfo keysetOrderBy = new FieldInfo(idField);
+                keysetOrderBy.setOptional(false);
+                keysetOrderBy.setForcedValue(getColumnNameForWhereFromEntity(idField, customQuery));
+                orderBys.add(keysetOrderBy);
+            }
+        }
 
         if (prepend && !ignoreQuery) {
             appender.append(query);
@@ -234,6 +247,9 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
         }
         if (selectPage && !count && (addSelect || addFrom)) {
             appendOrderByAfterSelectForSelectPage(appender, orderBys, customQuery);
+            if (dataCount) {
+                appendDataCountAfterSelectForSelectPage(appender, customQuery);
+            }
         }
         if (addFrom) {
             appendFrom(appender, entity, customQuery);
@@ -374,6 +390,9 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
                 appendToQueryln(query, customQuery.beforeWhereExpression(), "    ");
                 appendToQueryln(query, customQuery.where(), "    ");
                 appendToQueryln(query, customQuery.afterWhereExpression(), "    ");
+                if (!count && operation.isKeysetPage()) {
+                    appendKeysetCondition(query, operation, true, customQuery);
+                }
                 appendSelectPageAfterWhere(query, true, orderBys, customQuery);
                 appendEndWhere(query, "\n");
                 return;
@@ -423,6 +442,12 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
             }
             requireAnd = true;
         }
+        if (!count && operation.isKeysetPage()) {
+            boolean hasKeyset = appendKeysetCondition(result, operation, requireAnd, customQuery);
+            hasConditions = hasConditions || hasKeyset;
+            hasOptionals = hasOptionals || hasKeyset;
+            requireAnd = requireAnd || hasKeyset;
+        }
         if (operation.isLimitToOneResult()) {
             boolean hasAfterWhere = appendSelectOneRowAfterWhere(result, requireAnd, orderBys, customQuery);
             hasConditions = hasConditions || hasAfterWhere;
@@ -481,6 +506,32 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
         }
     }
 
+    public boolean appendKeysetCondition(StringBuilder result, OperationInfo operation, boolean requireAnd, CustomSqlQuery customQuery) {
+        EntityInfo entity = operation.getEntity();
+        if (entity == null) {
+            return false;
+        }
+        FieldInfo idField = entity.getCombined().getFirstIdField();
+        FieldInfo lastKeyField = operation.getFieldByName("lastKey");
+        if (idField == null || lastKeyField == null) {
+            return false;
+        }
+        String separator;
+        if (requireAnd) {
+            result.append("\n    ");
+            separator = "and ";
+        } else {
+            result.append("    ");
+            separator = "";
+        }
+        appendConditionStartIfNotNull(result, lastKeyField, separator);
+        result.append(getColumnNameForWhereFromEntity(idField, customQuery));
+        result.append(" > ");
+        result.append(getParameterValue(lastKeyField));
+        appendConditionEndIf(result);
+        return true;
+    }
+
     public void appendCondition(StringBuilder result, FieldInfo field, CustomSqlQuery customQuery) {
         Comparators comparator = getComparator(field);
 
@@ -510,6 +561,14 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
     public abstract void appendOrderByForSelectOneRow(StringBuilder result, ArrayList<FieldInfo> orderBys, CustomSqlQuery customQuery);
     public abstract void appendOrderByAfterSelectForSelectPage(StringBuilder result, ArrayList<FieldInfo> orderBys, CustomSqlQuery customQuery);
     public abstract void appendOrderByAfterSelectForSelectOneRow(StringBuilder result, ArrayList<FieldInfo> orderBys, CustomSqlQuery customQuery);
+
+    public boolean supportsDataCountInSelectPage() {
+        return false;
+    }
+
+    public void appendDataCountAfterSelectForSelectPage(StringBuilder result, CustomSqlQuery customQuery) {
+        result.append(",\n    count(*) over () as dataCount__");
+    }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Utils for generate the select query">
@@ -617,6 +676,21 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
 
     public abstract String[] envolveInSelectPage(String[] query);
 
+    /*
+     * In a keyset page the lastKey condition replaces the offset, the offset is
+     * only used for the first page.
+     */
+    public String[] ignoreOffsetWhenLastKeyIsSet(String[] query) {
+        if (query == null) {
+            return null;
+        }
+        String[] result = new String[query.length];
+        for (int i = 0; i < query.length; i++) {
+            result[i] = query[i].replace("test='offset != null'", "test='offset != null and lastKey == null'");
+        }
+        return result;
+    }
+
     /*
      * Expected:
      * result.append(page);
@@ -1306,7 +1380,11 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
             }
 
             if (result != null && result.length > 0) {
-                return envolveInSelectPage(result);
+                result = envolveInSelectPage(result);
+                if (operation.isKeysetPage()) {
+                    result = ignoreOffsetWhenLastKeyIsSet(result);
+                }
+                return result;
             } else {
                 return result;
             }
@@ -1314,6 +1392,28 @@ public abstract class SqlQueryGenerator extends SqlGenerator {
         return completeQuery(pageQueries.selectPage(), operation, false, true);
     }
 
+    @Override
+    public String[] getSelectPageWithDataCountQuery(OperationInfo operation) {
+        if (!supportsDataCountInSelectPage() || !operation.isDataCountInPageQuery()) {
+            return null;
+        }
+        if (operation.isDistinct() || operation.getAnnotation(PageQueries.class) != null || operation.getAnnotation(Query.class) != null) {
+            // The window function is evaluated before the distinct, and a manually written query cannot be rewritten
+            return null;
+        }
+        CustomSqlQuery customQuery = operation.getAnnotation(CustomSqlQuery.class);
+        String completed = completeQueryWithoutEnvolve(null, operation, false, true, true, customQuery, true);
+        completed = finalizeQuery(completed, operation, customQuery);
+        if (completed == null) {
+            return null;
+        }
+        String[] result = envolveInSelectPage(completed.split("\n"));
+        if (operation.isKeysetPage()) {
+            result = ignoreOffsetWhenLastKeyIsSet(result);
+        }
+        return result;
+    }
+
     @Override
     public String[] getSelectPageCountQuery(OperationInfo operation) {
         PageQueries pageQueries = operation.getAnnotation(PageQueries.class);
@@ -56,6 +56,7 @@ import org.uaithne.generator.templates.shared.gwt.shared.rpc.ExecutorGroupRpcAsy
 import org.uaithne.generator.templates.shared.gwt.shared.rpc.ExecutorGroupRpcTemplate;
 import org.uaithne.generator.templates.shared.gwt.shared.rpc.GwtOperationExecutorTemplate;
 import org.uaithne.generator.templates.shared.gwt.shared.rpc.RpcExceptionTemplate;
+import org.uaithne.generator.templates.shared.gwt.shared.rpc.SequentialGwtOperationTemplate;
 import org.uaithne.generator.templates.shared.gwt.shared.rpc.RpcRequestTemplate;
 import org.uaithne.generator.templates.shared.gwt.shared.rpc.RpcRequest_CustomFieldSerializerTemplate;
 import org.uaithne.generator.templates.shared.gwt.shared.rpc.RpcResponseTemplate;
@@ -79,6 +80,7 @@ public class SharedGwtLibraryProcessor extends TemplateProcessor {
                 String sharedGwtPackageDot;
 
                 SharedGwtLibrary sl = element.getAnnotation(SharedGwtLibrary.class);
+                generationInfo.setSharedGwtLibraryEnabled(true);
                 generationInfo.setIncludeGwtClientExecutors(sl.includeClientExecutors());
                 if (packageName == null || packageName.isEmpty()) {
                     DataTypeInfo.updateSharedGwtPackage("");
@@ -132,6 +134,7 @@ public class SharedGwtLibraryProcessor extends TemplateProcessor {
                 processClassTemplate(new RpcRequest_CustomFieldSerializerTemplate(sharedGwtPackageDot), element);
                 processClassTemplate(new RpcResponse_CustomFieldSerializerTemplate(sharedGwtPackageDot), element);
                 processClassTemplate(new RpcExceptionTemplate(sharedGwtPackageDot), element);
+                processClassTemplate(new SequentialGwtOperationTemplate(sharedGwtPackageDot), element);
 
                 processClassTemplate(new ExecutorGroupRpcImplTemplate(sharedGwtPackageDot), element);
             }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.operations;
+
+import java.io.IOException;
+import org.uaithne.generator.commons.DataTypeInfo;
+import org.uaithne.generator.commons.EntityInfo;
+import org.uaithne.generator.commons.ExecutorModuleInfo;
+import org.uaithne.generator.commons.FieldInfo;
+import org.uaithne.generator.commons.OperationInfo;
+import org.uaithne.generator.commons.OperationKind;
+
+public class BatchLoadingConfigurationTemplate extends ExecutorModuleTemplate {
+
+    private final String batchLoadingType;
+
+    public BatchLoadingConfigurationTemplate(ExecutorModuleInfo executorModule, String packageName) {
+        setPackageName(packageName);
+        DataTypeInfo batchLoading;
+        if (LAMBADAS_ENABLED) {
+            batchLoading = DataTypeInfo.BATCH_LOADING_INTERCEPTOR_DATA_TYPE;
+        } else {
+            batchLoading = DataTypeInfo.BATCH_LOADING_EXECUTOR_GROUP_DATA_TYPE;
+        }
+        batchLoadingType = batchLoading.getSimpleNameWithoutGenerics();
+        addImport(batchLoading, packageName);
+        addImport(DataTypeInfo.OPERATION_DATA_TYPE, packageName);
+        addImport(DataTypeInfo.LIST_DATA_TYPE, packageName);
+        for (OperationInfo operation : executorModule.getOperations()) {
+            if (operation.getOperationKind() == OperationKind.SELECT_BY_IDS) {
+                EntityInfo entity = operation.getEntity();
+                addImport(entity.getDataType(), packageName);
+                addImport(entity.getCombined().getFirstIdField().getDataType().ensureBoxed(), packageName);
+            }
+        }
+        setClassName(executorModule.getNameUpper() + "BatchLoading");
+        setExecutorModule(executorModule);
+        setFinal(true);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    public static void configure(").append(batchLoadingType).append(" batchLoading) {\n");
+        for (OperationInfo operation : getExecutorModule().getOperations()) {
+            if (CachingConfigurationTemplate.isModifyingOperation(operation.getOperationKind())) {
+                appender.append("        batchLoading.clearWhen(").append(operation.getDataType().getSimpleNameWithoutGenerics()).append(".class);\n");
+                continue;
+            }
+            if (operation.getOperationKind() != OperationKind.SELECT_BY_IDS) {
+                continue;
+            }
+            for (OperationInfo selectById : getExecutorModule().getOperations()) {
+                if (selectById.getOperationKind() == OperationKind.SELECT_BY_ID && selectById.getEntity() == operation.getEntity()) {
+                    writeBatch(appender, selectById, operation);
+                }
+            }
+        }
+        appender.append("    }\n"
+                + "\n"
+                + "    private ").append(getClassName()).append("() {\n"
+                + "    }");
+    }
+
+    private void writeBatch(Appendable appender, OperationInfo selectById, OperationInfo selectByIds) throws IOException {
+        EntityInfo entity = selectByIds.getEntity();
+        FieldInfo idField = entity.getCombined().getFirstIdField();
+        String entityName = entity.getDataType().getSimpleName();
+        String idName = idField.getDataType().ensureBoxed().getSimpleName();
+        String operationName = selectByIds.getDataType().getSimpleName();
+        appender.append("        batchLoading.batch(").append(selectById.getDataType().getSimpleNameWithoutGenerics()).append(".class, new ").append(batchLoadingType).append(".Loader<").append(idName).append(", ").append(entityName).append(">() {\n"
+                + "            @Override\n"
+                + "            public Operation<List<").append(entityName).append(">> createOperation(List<").append(idName).append("> ids) {\n"
+                + "                ").append(operationName).append(" operation = new ").append(operationName).append("();\n"
+                + "                operation.setIds(ids);\n"
+                + "                return operation;\n"
+                + "            }\n"
+                + "\n"
+                + "            @Override\n"
+                + "            public ").append(idName).append(" getId(").append(entityName).append(" value) {\n"
+                + "                return value.").append(idField.getDataType().getGetterPrefix(getGenerationInfo())).append(idField.getCapitalizedName()).append("();\n"
+                + "            }\n"
+                + "        });\n");
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.operations;
+
+import java.io.IOException;
+import org.uaithne.generator.commons.DataTypeInfo;
+import org.uaithne.generator.commons.EntityInfo;
+import org.uaithne.generator.commons.ExecutorModuleInfo;
+import org.uaithne.generator.commons.OperationInfo;
+import org.uaithne.generator.commons.OperationKind;
+
+public class CachingConfigurationTemplate extends ExecutorModuleTemplate {
+
+    private final String cachingType;
+
+    public CachingConfigurationTemplate(ExecutorModuleInfo executorModule, String packageName) {
+        setPackageName(packageName);
+        DataTypeInfo caching;
+        if (LAMBADAS_ENABLED) {
+            caching = DataTypeInfo.CACHING_INTERCEPTOR_DATA_TYPE;
+        } else {
+            caching = DataTypeInfo.CACHING_EXECUTOR_GROUP_DATA_TYPE;
+        }
+        cachingType = caching.getSimpleNameWithoutGenerics();
+        addImport(caching, packageName);
+        setClassName(executorModule.getNameUpper() + "Caching");
+        setExecutorModule(executorModule);
+        setFinal(true);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    public static void configure(").append(cachingType).append(" caching) {\n");
+        for (OperationInfo operation : getExecutorModule().getOperations()) {
+            String group = getCacheGroup(operation);
+            if (operation.isCached()) {
+                appender.append("        caching.cache(")
+                        .append(operation.getDataType().getSimpleNameWithoutGenerics())
+                        .append(".class, ");
+                if (group == null) {
+                    appender.append("null");
+                } else {
+                    appender.append("\"").append(group).append("\"");
+                }
+                appender.append(", ")
+                        .append(Long.toString(operation.getCacheTimeToLive()))
+                        .append("L, ")
+                        .append(Integer.toString(operation.getCacheMaxSize()))
+                        .append(");\n");
+            } else if (isModifyingOperation(operation.getOperationKind())) {
+                if (group == null) {
+                    // Without entity it can modify any of them
+                    appender.append("        caching.clearWhen(")
+                            .append(operation.getDataType().getSimpleNameWithoutGenerics())
+                            .append(".class);\n");
+                } else {
+                    appender.append("        caching.invalidateWhen(")
+                            .append(operation.getDataType().getSimpleNameWithoutGenerics())
+                            .append(".class, \"").append(group).append("\");\n");
+                }
+            }
+        }
+        appender.append("    }\n"
+                + "\n"
+                + "    private ").append(getClassName()).append("() {\n"
+                + "    }");
+    }
+
+    private String getCacheGroup(OperationInfo operation) {
+        EntityInfo entity = operation.getEntity();
+        if (entity == null) {
+            return null;
+        }
+        while (entity.getRelated() != null) {
+            entity = entity.getRelated();
+        }
+        return entity.getDataType().getQualifiedNameWithoutGenerics();
+    }
+
+    static boolean isModifyingOperation(OperationKind operationKind) {
+        switch (operationKind) {
+            case SELECT_ONE:
+            case SELECT_MANY:
+            case SELECT_PAGE:
+            case SELECT_BY_ID:
+            case SELECT_BY_IDS:
+            case SELECT_COUNT:
+            case COMPLEX_SELECT_CALL:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+}
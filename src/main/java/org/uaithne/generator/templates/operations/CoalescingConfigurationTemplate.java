@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.operations;
+
+import java.io.IOException;
+import org.uaithne.generator.commons.DataTypeInfo;
+import org.uaithne.generator.commons.ExecutorModuleInfo;
+import org.uaithne.generator.commons.OperationInfo;
+
+public class CoalescingConfigurationTemplate extends ExecutorModuleTemplate {
+
+    private final String coalescingType;
+
+    public CoalescingConfigurationTemplate(ExecutorModuleInfo executorModule, String packageName) {
+        setPackageName(packageName);
+        DataTypeInfo coalescing;
+        if (LAMBADAS_ENABLED) {
+            coalescing = DataTypeInfo.COALESCING_INTERCEPTOR_DATA_TYPE;
+        } else {
+            coalescing = DataTypeInfo.COALESCING_EXECUTOR_GROUP_DATA_TYPE;
+        }
+        coalescingType = coalescing.getSimpleNameWithoutGenerics();
+        addImport(coalescing, packageName);
+        setClassName(executorModule.getNameUpper() + "Coalescing");
+        setExecutorModule(executorModule);
+        setFinal(true);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    public static void configure(").append(coalescingType).append(" coalescing) {\n");
+        for (OperationInfo operation : getExecutorModule().getOperations()) {
+            if (operation.isCoalesced()) {
+                appender.append("        coalescing.coalesce(")
+                        .append(operation.getDataType().getSimpleNameWithoutGenerics())
+                        .append(".class);\n");
+            }
+        }
+        appender.append("    }\n"
+                + "\n"
+                + "    private ").append(getClassName()).append("() {\n"
+                + "    }");
+    }
+
+}
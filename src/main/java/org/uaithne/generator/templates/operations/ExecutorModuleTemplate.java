@@ -35,6 +35,14 @@ public abstract class ExecutorModuleTemplate extends WithFieldsTemplate {
         this.executorModule = executorModule;
     }
 
+    /**
+     * The context must be set before executing the operation when the executor
+     * takes from it the deadline.
+     */
+    protected boolean isContextSetBeforeExecution() {
+        return HAS_CONTEXT && getGenerationInfo().isContextDeadlineEnabled();
+    }
+
     protected void writeGetExecutorSelector(Appendable appender) throws IOException {
         appender.append("    @Override\n"
                 + "    public Object getExecutorSelector() {\n"
@@ -59,8 +67,8 @@ public abstract class ExecutorModuleTemplate extends WithFieldsTemplate {
             appender.append("        if (operation.getExecutorSelector() == ").append(getExecutorModule().getExecutorInterfaceName()).append(".SELECTOR) {\n");
             if (setContext && HAS_CONTEXT) {
                 appender.append(""
+                        + "            setContext(context);\n"
                         + "            try {\n"
-                        + "                setContext(context);\n"
                         + "                return operation.execute(this").append(CONTEXT_VALUE).append(");\n"
                         + "            } finally {\n"
                         + "                clearContext(context);\n"
@@ -83,8 +91,8 @@ public abstract class ExecutorModuleTemplate extends WithFieldsTemplate {
         } else {
             if (setContext && HAS_CONTEXT) {
                 appender.append(""
+                        + "        setContext(context);\n"
                         + "        try {\n"
-                        + "            setContext(context);\n"
                         + "            return operation.execute(this").append(CONTEXT_VALUE).append(");\n"
                         + "        } finally {\n"
                         + "            clearContext(context);\n"
@@ -84,6 +84,11 @@ public class OperationTemplate extends PojoTemplate {
     void writeGetMaxRowNumber(Appendable appender) throws IOException {
         appender.append("    @Override\n");
         appender.append("    public ").append(PAGE_INFO_DATA_TYPE.getSimpleName()).append(" getMaxRowNumber() {\n");
+        if (getOperation().isKeysetPage()) {
+            appender.append("        if (lastKey != null) {\n"
+                    + "            return limit;\n"
+                    + "        }\n");
+        }
         if (PAGE_INFO_DATA_TYPE.getPackageName().isEmpty()) {
             appender.append("        return limit + offset;\n");
         } else {
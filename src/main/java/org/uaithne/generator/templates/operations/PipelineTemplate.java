@@ -0,0 +1,236 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.operations;
+
+import java.io.IOException;
+import java.util.List;
+import org.uaithne.annotations.PipelineStage;
+import org.uaithne.generator.commons.DataTypeInfo;
+import org.uaithne.generator.commons.ExecutorModuleInfo;
+import org.uaithne.generator.commons.OperationInfo;
+import org.uaithne.generator.templates.shared.LoggedExecutorGroupTemplate;
+
+public class PipelineTemplate extends ExecutorModuleTemplate {
+
+    private List<PipelineStage> stages;
+
+    public PipelineTemplate(ExecutorModuleInfo executorModule, String packageName, List<PipelineStage> stages) {
+        setPackageName(packageName);
+        addImport(DataTypeInfo.OPERATION_DATA_TYPE, packageName);
+        addImport(DataTypeInfo.HASHMAP_DATA_TYPE, packageName);
+        if (stages.contains(PipelineStage.LOG)) {
+            addImport("java.util.logging.Level", packageName);
+            addImport("java.util.logging.Logger", packageName);
+            addImport("java.util.Collection", packageName);
+            addImport("java.util.concurrent.TimeUnit", packageName);
+            addImport("java.util.concurrent.atomic.AtomicLong", packageName);
+        }
+        if (stages.contains(PipelineStage.METRICS)) {
+            addImport(DataTypeInfo.ARRAYLIST_DATA_TYPE, packageName);
+            addImport(DataTypeInfo.OPERATION_METRICS_DATA_TYPE, packageName);
+        }
+        setClassName(executorModule.getNameUpper() + "Pipeline");
+        if (LAMBADAS_ENABLED) {
+            addImport(DataTypeInfo.EXECUTOR_DATA_TYPE, packageName);
+            setExtend("Executor");
+        } else {
+            addImport(DataTypeInfo.EXECUTOR_GROUP_DATA_TYPE, packageName);
+            if (ERROR_MANAGEMENT) {
+                setExtend("ExecutorGroup");
+            } else {
+                addImplement("ExecutorGroup");
+            }
+        }
+        setExecutorModule(executorModule);
+        this.stages = stages;
+        addContextImport(packageName);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        String executorName = getExecutorModule().getExecutorInterfaceName();
+        boolean log = stages.contains(PipelineStage.LOG);
+        boolean metrics = stages.contains(PipelineStage.METRICS);
+        boolean postOperation = stages.contains(PipelineStage.POST_OPERATION);
+        List<OperationInfo> operations = getExecutorModule().getOperations();
+
+        writeOperationIndexes(appender, operations);
+        if (!LAMBADAS_ENABLED) {
+            appender.append("    private final ").append(executorName).append(" executor;\n"
+                    + "    private final ExecutorGroup chainedExecutorGroup;\n");
+        }
+        if (log) {
+            appender.append("    private final Logger logger = Logger.getLogger(").append(getClassName()).append(".class.getName());\n"
+                    + "    private final String shortName = \"").append(getClassName()).append("\";\n");
+            LoggedExecutorGroupTemplate.writeLoggingFields(appender);
+        }
+        if (metrics) {
+            appender.append("    private final OperationMetrics[] metrics = new OperationMetrics[").append(Integer.toString(operations.size())).append("];\n");
+        }
+        appender.append("\n"
+                + "    @Override\n"
+                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                + "        Integer index = OPERATIONS.get(operation.getClass());\n"
+                + "        if (index == null) {\n");
+        if (LAMBADAS_ENABLED) {
+            appender.append("            return next.execute(operation").append(CONTEXT_VALUE).append(");\n");
+        } else {
+            appender.append("            if (chainedExecutorGroup == null) {\n"
+                    + "                throw new IllegalStateException(\"Unable to handle the operation: '\" + operation.getClass().getName() + \"'\");\n"
+                    + "            }\n"
+                    + "            return chainedExecutorGroup.execute(operation").append(CONTEXT_VALUE).append(");\n");
+        }
+        appender.append("        }\n");
+        String execution;
+        if (log) {
+            execution = "executeLogged(index, operation" + CONTEXT_VALUE + ")";
+        } else {
+            execution = "executeStages(index, operation" + CONTEXT_VALUE + ")";
+        }
+        if (metrics) {
+            appender.append("        OperationMetrics operationMetrics = metrics[index];\n"
+                    + "        operationMetrics.started();\n"
+                    + "        long start = System.nanoTime();\n"
+                    + "        boolean failed = true;\n"
+                    + "        try {\n"
+                    + "            RESULT result = ").append(execution).append(";\n"
+                    + "            failed = false;\n"
+                    + "            return result;\n"
+                    + "        } finally {\n"
+                    + "            operationMetrics.finished(System.nanoTime() - start, failed);\n"
+                    + "        }\n");
+        } else {
+            appender.append("        return ").append(execution).append(";\n");
+        }
+        appender.append("    }\n"
+                + "\n");
+        if (log) {
+            appender.append("    private ").append(OPERATION_BASE_DEFINITION).append(" RESULT executeLogged(int index, OPERATION operation").append(CONTEXT_PARAM).append(") {\n");
+            LoggedExecutorGroupTemplate.writeLoggedExecution(appender, "executeStages(index, operation" + CONTEXT_VALUE + ")");
+            appender.append("    }\n"
+                    + "\n");
+        }
+        appender.append("    private ").append(OPERATION_BASE_DEFINITION).append(" RESULT executeStages(int index, OPERATION operation").append(CONTEXT_PARAM).append(") {\n");
+        if (postOperation) {
+            appender.append("        RESULT result = (RESULT) dispatch(index, operation").append(CONTEXT_VALUE).append(");\n"
+                    + "        return operation.executePostOperation(result);\n");
+        } else {
+            appender.append("        return (RESULT) dispatch(index, operation").append(CONTEXT_VALUE).append(");\n");
+        }
+        appender.append("    }\n"
+                + "\n"
+                + "    private Object dispatch(int index, Operation operation").append(CONTEXT_PARAM).append(") {\n");
+        if (LAMBADAS_ENABLED) {
+            // The handlers of the next executor are already resolved by operation type
+            appender.append("        return next.execute(operation").append(CONTEXT_VALUE).append(");\n"
+                    + "    }\n"
+                    + "\n");
+        } else if (isContextSetBeforeExecution()) {
+            // The executor must set the context before execute the operation
+            appender.append("        return executor.execute(operation").append(CONTEXT_VALUE).append(");\n"
+                    + "    }\n"
+                    + "\n");
+        } else {
+            writeDispatchSwitch(appender, operations);
+            appender.append("    }\n"
+                    + "\n");
+        }
+        if (log) {
+            LoggedExecutorGroupTemplate.writeLoggingMethods(appender);
+        }
+        if (metrics) {
+            appender.append("    /**\n"
+                    + "     * @return the values recorded for each operation of the module\n"
+                    + "     */\n"
+                    + "    public ArrayList<OperationMetrics.Snapshot> snapshot() {\n"
+                    + "        ArrayList<OperationMetrics.Snapshot> result = new ArrayList<OperationMetrics.Snapshot>(metrics.length);\n"
+                    + "        for (OperationMetrics operationMetrics : metrics) {\n"
+                    + "            result.add(operationMetrics.snapshot());\n"
+                    + "        }\n"
+                    + "        return result;\n"
+                    + "    }\n"
+                    + "\n");
+        }
+        if (LAMBADAS_ENABLED) {
+            appender.append("    public ").append(getClassName()).append("(Executor next) {\n"
+                    + "        super(next);\n"
+                    + "        if (next == null) {\n"
+                    + "            throw new IllegalArgumentException(\"next for the ").append(getClassName()).append(" cannot be null\");\n"
+                    + "        }\n");
+        } else {
+            appender.append("    /**\n"
+                    + "     * @return the executor\n"
+                    + "     */\n"
+                    + "    public ").append(executorName).append(" getExecutor() {\n"
+                    + "        return executor;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    /**\n"
+                    + "     * @return the chainedExecutorGroup\n"
+                    + "     */\n"
+                    + "    public ExecutorGroup getChainedExecutorGroup() {\n"
+                    + "        return chainedExecutorGroup;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    public ").append(getClassName()).append("(").append(executorName).append(" executor) {\n"
+                    + "        this(executor, null);\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    public ").append(getClassName()).append("(").append(executorName).append(" executor, ExecutorGroup chainedExecutorGroup) {\n"
+                    + "        if (executor == null) {\n"
+                    + "            throw new IllegalArgumentException(\"executor for the ").append(getClassName()).append(" cannot be null\");\n"
+                    + "        }\n"
+                    + "        this.executor = executor;\n"
+                    + "        this.chainedExecutorGroup = chainedExecutorGroup;\n");
+        }
+        if (metrics) {
+            appender.append("        for (Class operationType : OPERATIONS.keySet()) {\n"
+                    + "            metrics[OPERATIONS.get(operationType)] = new OperationMetrics(operationType.getName());\n"
+                    + "        }\n");
+        }
+        appender.append("    }");
+    }
+
+    /**
+     * Writes the index of each operation of the module, the same index is used
+     * by the switch written by writeDispatchSwitch.
+     */
+    static void writeOperationIndexes(Appendable appender, List<OperationInfo> operations) throws IOException {
+        appender.append("    private static final HashMap<Class, Integer> OPERATIONS = new HashMap<Class, Integer>();\n"
+                + "\n"
+                + "    static {\n");
+        for (int i = 0; i < operations.size(); i++) {
+            appender.append("        OPERATIONS.put(").append(operations.get(i).getDataType().getSimpleNameWithoutGenerics()).append(".class, ").append(Integer.toString(i)).append(");\n");
+        }
+        appender.append("    }\n"
+                + "\n");
+    }
+
+    static void writeDispatchSwitch(Appendable appender, List<OperationInfo> operations) throws IOException {
+        appender.append("        switch (index) {\n");
+        for (int i = 0; i < operations.size(); i++) {
+            OperationInfo operation = operations.get(i);
+            appender.append("            case ").append(Integer.toString(i)).append(":\n"
+                    + "                return executor.").append(operation.getMethodName()).append("((").append(operation.getDataType().getSimpleName()).append(") operation").append(CONTEXT_VALUE).append(");\n");
+        }
+        appender.append("            default:\n"
+                + "                throw new IllegalStateException(\"Unknown operation index: \" + index);\n"
+                + "        }\n");
+    }
+}
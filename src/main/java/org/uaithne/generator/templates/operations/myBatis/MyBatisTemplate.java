@@ -36,6 +36,7 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
 
     private String namespace;
     private boolean useAliasInOrderBy;
+    private int maxInListSize;
     private boolean hasUnimplementedOperations;
     private String indentation = "        ";
 
@@ -55,6 +56,14 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         this.useAliasInOrderBy = useAliasInOrderBy;
     }
 
+    public int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    public void setMaxInListSize(int maxInListSize) {
+        this.maxInListSize = maxInListSize;
+    }
+
     public boolean hasUnimplementedOperations() {
         return hasUnimplementedOperations;
     }
@@ -63,17 +72,28 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         this.hasUnimplementedOperations = hasUnimplementedOperations;
     }
 
-    public MyBatisTemplate(ExecutorModuleInfo executorModule, String packageName, String className, String namespace, boolean useAliasInOrderBy, boolean hasUnimplementedOperations) {
+    public MyBatisTemplate(ExecutorModuleInfo executorModule, String packageName, String className, String namespace, boolean useAliasInOrderBy, int maxInListSize, boolean hasUnimplementedOperations) {
         setPackageName(packageName);
         addImport("org.apache.ibatis.session.SqlSession", packageName);
         executorModule.appendNotMannuallyDefinitionImports(packageName, getImport());
         if (executorModule.isContainOrderedOperations()) {
             addImport(HASHMAP_DATA_TYPE, packageName);
+            addImport("java.util.Map", packageName);
+            addImport("java.util.concurrent.ConcurrentHashMap", packageName);
         }
         if (executorModule.isContainPagedOperations()) {
             addImport(PAGE_INFO_DATA_TYPE, packageName);
             addImport(LIST_DATA_TYPE, packageName);
         }
+        if (executorModule.isContainSelectByIdsOperations()) {
+            addImport(LIST_DATA_TYPE, packageName);
+            addImport(ARRAYLIST_DATA_TYPE, packageName);
+        }
+        if (executorModule.isContainBatchOperations()) {
+            addImport("org.apache.ibatis.executor.BatchResult", packageName);
+            addImport(LIST_DATA_TYPE, packageName);
+            addImport(ARRAYLIST_DATA_TYPE, packageName);
+        }
         addImport(MYBATIS_SQL_SESSION_PROVIDER_DATA_TYPE, packageName);
         for (OperationInfo operation : executorModule.getOperations()) {
             if (operation.isManually()) {
@@ -83,8 +103,27 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                 case INSERT:
                 case SAVE:
                 case JUST_SAVE:
+                case INSERT_BATCH:
+                case UPDATE_BATCH:
                     addImport(operation.getEntity().getDataType(), packageName);
                     break;
+                case DELETE_BY_ID_BATCH:
+                case SELECT_BY_IDS:
+                    addImport(operation.getEntity().getCombined().getFirstIdField().getDataType().ensureBoxed(), packageName);
+                    break;
+                case SELECT_MANY:
+                    if (operation.isStreaming()) {
+                        addImport("org.apache.ibatis.session.ResultContext", packageName);
+                        addImport("org.apache.ibatis.session.ResultHandler", packageName);
+                        addImport(ROW_HANDLER_DATA_TYPE, packageName);
+                    }
+                    break;
+                case SELECT_PAGE:
+                    if (operation.getPageWithDataCountQueryId() != null) {
+                        addImport(MYBATIS_DATA_PAGE_ROW_DATA_TYPE, packageName);
+                        addImport(ARRAYLIST_DATA_TYPE, packageName);
+                    }
+                    break;
                 case COMPLEX_SELECT_CALL:
                 case COMPLEX_INSERT_CALL:
                 case COMPLEX_UPDATE_CALL:
@@ -153,9 +192,11 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         setExecutorModule(executorModule);
         if (LAMBADAS_ENABLED) {
             addImport(EXECUTOR_DATA_TYPE, packageName);
+            addImport(MYBATIS_SQL_SESSION_MANAGEMENT_INTERCEPTOR_DATA_TYPE, packageName);
             setExtend("Executor");
         } else {
             addImport(OPERATION_DATA_TYPE, packageName);
+            addImport(MYBATIS_MANAGED_SQL_SESSION_EXECUTOR_GROUP_DATA_TYPE, packageName);
             addImport(executorModule.getOperationPackage() + "." + executorModule.getExecutorInterfaceName(), packageName);
             setAbstract(hasUnimplementedOperations);
             if (ERROR_MANAGEMENT) {
@@ -166,13 +207,65 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         }
         this.namespace = namespace;
         this.useAliasInOrderBy = useAliasInOrderBy;
+        this.maxInListSize = maxInListSize;
         this.hasUnimplementedOperations = hasUnimplementedOperations;
         if (HAS_CONTEXT) {
             addContextImport(packageName);
             if (getGenerationInfo().getApplicationParameter() != null) {
-                addImport(MYBATIS_APPLICATION_PARAMETER_DRIVER_DATA_TYPE, packageName);
+                addImport(MYBATIS_APPLICATION_PARAMETER_WRAPPER_DATA_TYPE, packageName);
+            }
+            if (getGenerationInfo().isContextDeadlineEnabled()) {
+                addImport(MYBATIS_STATEMENT_TIMEOUT_PLUGIN_DATA_TYPE, packageName);
+                addImport(OPERATION_REJECTED_EXCEPTION_DATA_TYPE, packageName);
+            }
+            if (LAMBADAS_ENABLED && isContextSetBeforeExecution()) {
+                addImport(OPERATION_DATA_TYPE, packageName);
+                addImport("java.util.function.BiFunction", packageName);
+            }
+        }
+    }
+
+    private String statementParameter(String session, String parameter) {
+        if (HAS_CONTEXT && getGenerationInfo().getApplicationParameterType() != null) {
+            return "withApplicationParameter(" + session + ", " + parameter + ", context)";
+        } else {
+            return parameter;
+        }
+    }
+
+    private boolean isReadOnlyOperation(OperationInfo operation) {
+        switch (operation.getOperationKind()) {
+            case SELECT_ONE:
+            case SELECT_PAGE:
+            case SELECT_BY_ID:
+            case SELECT_BY_IDS:
+            case SELECT_COUNT:
+                return true;
+            case SELECT_MANY:
+                return !operation.isStreaming();
+            default:
+                return false;
+        }
+    }
+
+    private void writeConfigureSessionPolicy(Appendable appender) throws IOException {
+        String sessionManagementType;
+        if (LAMBADAS_ENABLED) {
+            sessionManagementType = MYBATIS_SQL_SESSION_MANAGEMENT_INTERCEPTOR_DATA_TYPE.getSimpleNameWithoutGenerics();
+        } else {
+            sessionManagementType = MYBATIS_MANAGED_SQL_SESSION_EXECUTOR_GROUP_DATA_TYPE.getSimpleNameWithoutGenerics();
+        }
+        appender.append("    /**\n"
+                + "     * Registers the operations that only read as read only in the session management.\n"
+                + "     */\n"
+                + "    public static void configureSessionPolicy(").append(sessionManagementType).append(" sessionManagement) {\n");
+        for (OperationInfo operation : getExecutorModule().getOperations()) {
+            if (operation.isManually() || !isReadOnlyOperation(operation)) {
+                continue;
             }
+            appender.append("        sessionManagement.readOnly(").append(operation.getDataType().getSimpleNameWithoutGenerics()).append(".class);\n");
         }
+        appender.append("    }\n\n");
     }
 
     @Override
@@ -181,43 +274,144 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         for (EntityInfo entity : getExecutorModule().getEntities()) {
             if (entity.isUsedInOrderedOperation()) {
                 appender.append("    protected HashMap<String,String> orderByTranslationsFor").append(entity.getDataType().getSimpleNameWithoutGenerics()).append(" = new HashMap<String,String>();\n");
+                appender.append("    protected Map<String,String> orderByCacheFor").append(entity.getDataType().getSimpleNameWithoutGenerics()).append(" = createOrderByCache();\n");
             }
         }
 
         appender.append("    private SqlSessionProvider provider;\n");
+        if (getExecutorModule().isContainOrderedOperations()) {
+            appender.append("    private int orderByCacheSize = 256;\n");
+        }
+        if (getExecutorModule().isContainBatchOperations()) {
+            appender.append("    private int batchFlushSize = 1000;\n");
+        }
+        if (getExecutorModule().isContainSelectByIdsOperations()) {
+            appender.append("    private int selectByIdsChunkSize = ").append(Integer.toString(maxInListSize)).append(";\n");
+        }
         if (HAS_CONTEXT) {
             appender.append("\n"
                     + "    protected SqlSession getSession(").append(CONTEXT_TYPE).append(" context) {\n"
                     + "        return provider.getSqlSession(context);\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    protected SqlSession getReadSession(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "        return provider.getReadSqlSession(context);\n"
                     + "    }\n");
+            if (HAS_CONTEXT_AND_APPPARAM_AND_ARE_DIFFERENT) {
+                appender.append("\n"
+                        + "    protected Object withApplicationParameter(SqlSession session, Object parameter, ").append(CONTEXT_TYPE).append(" context) {\n"
+                        + "        return new ApplicationParameterWrapper(session.getConfiguration(), parameter, provider.getApplicationParameter(context));\n"
+                        + "    }\n");
+            } else if (getGenerationInfo().getApplicationParameterType() != null) {
+                appender.append("\n"
+                        + "    protected Object withApplicationParameter(SqlSession session, Object parameter, ").append(CONTEXT_TYPE).append(" context) {\n"
+                        + "        return new ApplicationParameterWrapper(session.getConfiguration(), parameter, context);\n"
+                        + "    }\n");
+            }
         } else {
             appender.append("\n"
                     + "    protected SqlSession getSession() {\n"
                     + "        return provider.getSqlSession();\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    protected SqlSession getReadSession() {\n"
+                    + "        return provider.getReadSqlSession();\n"
+                    + "    }\n");
+        }
+
+        if (getExecutorModule().isContainBatchOperations()) {
+            if (HAS_CONTEXT) {
+                appender.append("\n"
+                        + "    protected SqlSession getBatchSession(").append(CONTEXT_TYPE).append(" context) {\n"
+                        + "        return provider.getBatchSqlSession(context);\n"
+                        + "    }\n");
+            } else {
+                appender.append("\n"
+                        + "    protected SqlSession getBatchSession() {\n"
+                        + "        return provider.getBatchSqlSession();\n"
+                        + "    }\n");
+            }
+            appender.append("\n"
+                    + "    public int getBatchFlushSize() {\n"
+                    + "        return batchFlushSize;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    public void setBatchFlushSize(int batchFlushSize) {\n"
+                    + "        if (batchFlushSize <= 0) {\n"
+                    + "            throw new IllegalArgumentException(\"batchFlushSize for the ").append(getClassName()).append(" must be greater than zero\");\n"
+                    + "        }\n"
+                    + "        this.batchFlushSize = batchFlushSize;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    protected void appendBatchResults(").append(LIST_DATA).append("<BatchResult> batchResults, ").append(LIST_DATA).append("<Integer> result) {\n"
+                    + "        for (BatchResult batchResult : batchResults) {\n"
+                    + "            for (int updateCount : batchResult.getUpdateCounts()) {\n"
+                    + "                result.add(updateCount);\n"
+                    + "            }\n"
+                    + "        }\n"
+                    + "    }\n");
+        }
+
+        if (getExecutorModule().isContainSelectByIdsOperations()) {
+            appender.append("\n"
+                    + "    public int getSelectByIdsChunkSize() {\n"
+                    + "        return selectByIdsChunkSize;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    /**\n"
+                    + "     * The select by ids operations with more ids are executed in several queries,\n"
+                    + "     * by default it is the maximum number of elements allowed by the database in\n"
+                    + "     * an in list.\n"
+                    + "     */\n"
+                    + "    public void setSelectByIdsChunkSize(int selectByIdsChunkSize) {\n"
+                    + "        if (selectByIdsChunkSize <= 0) {\n"
+                    + "            throw new IllegalArgumentException(\"selectByIdsChunkSize for the ").append(getClassName()).append(" must be greater than zero\");\n"
+                    + "        }\n"
+                    + "        this.selectByIdsChunkSize = selectByIdsChunkSize;\n"
                     + "    }\n");
         }
 
         GenerationInfo generationInfo = getGenerationInfo();
 
-        if (HAS_CONTEXT && generationInfo.getApplicationParameterType() != null) {
+        if (isContextSetBeforeExecution()) {
+            boolean hasDeadline = generationInfo.isContextDeadlineEnabled();
             appender.append("\n    protected void setContext(").append(CONTEXT_TYPE).append(" context) {\n");
-            if (HAS_CONTEXT_AND_APPPARAM_AND_ARE_DIFFERENT) {
-                appender.append("        ApplicationParameterDriver.setApplicationParameter(getSession(context), provider.getApplicationParameter(context));\n");
-            } else {
-                appender.append("        ApplicationParameterDriver.setApplicationParameter(getSession(context), context);\n");
+            if (hasDeadline) {
+                appender.append("        long deadline = provider.getDeadline(context);\n"
+                        + "        if (deadline > 0 && deadline <= System.currentTimeMillis()) {\n"
+                        + "            throw new OperationRejectedException(\"The deadline of the operation has passed before its execution\");\n"
+                        + "        }\n");
+            }
+            if (hasDeadline) {
+                appender.append("        StatementTimeoutPlugin.setDeadline(deadline);\n");
             }
             appender.append("    }\n"
                     + "\n"
-                    + "    protected void clearContext(").append(CONTEXT_TYPE).append(" context) {\n"
-                    + "        ApplicationParameterDriver.setApplicationParameter(getSession(context), null);\n"
-                    + "    }\n");
+                    + "    protected void clearContext(").append(CONTEXT_TYPE).append(" context) {\n");
+            if (hasDeadline) {
+                appender.append("        StatementTimeoutPlugin.clearDeadline();\n");
+            }
+            appender.append("    }\n");
+            if (LAMBADAS_ENABLED) {
+                appender.append("\n"
+                        + "    protected ").append(OPERATION_BASE_DEFINITION).append(" BiFunction<OPERATION, ").append(CONTEXT_TYPE).append(", RESULT> withContext(BiFunction<OPERATION, ").append(CONTEXT_TYPE).append(", RESULT> handler) {\n"
+                        + "        return (operation, context) -> {\n"
+                        + "            setContext(context);\n"
+                        + "            try {\n"
+                        + "                return handler.apply(operation, context);\n"
+                        + "            } finally {\n"
+                        + "                clearContext(context);\n"
+                        + "            }\n"
+                        + "        };\n"
+                        + "    }\n");
+            }
         }
 
         if (!LAMBADAS_ENABLED) {
             appender.append("\n");
             writeGetExecutorSelector(appender);
             appender.append("\n");
-            writeExecuteMethods(appender, generationInfo.getApplicationParameterType() != null);
+            writeExecuteMethods(appender, isContextSetBeforeExecution());
         }
 
         String context;
@@ -257,21 +451,35 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
             switch (operation.getOperationKind()) {
                 case SELECT_COUNT: {
                     writeStartOrderByVariable(appender, operation);
-                    appender.append(indentation).append(returnTypeName).append(" result = (").append(returnTypeName).append(") getSession(").append(context).append(").selectOne(\"").append(operation.getQueryId()).append("\", operation);\n");
+                    appender.append(indentation).append(returnTypeName).append(" result = (").append(returnTypeName).append(") getReadSession(").append(context).append(").selectOne(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n");
                     appender.append(indentation).append("return result;\n");
                     writeEndOrderByVariable(appender, operation);
                     break;
                 }
                 case SELECT_ONE: {
                     writeStartOrderByVariable(appender, operation);
-                    appender.append(indentation).append(returnTypeName).append(" result = (").append(returnTypeName).append(") getSession(").append(context).append(").selectOne(\"").append(operation.getQueryId()).append("\", operation);\n");
+                    appender.append(indentation).append(returnTypeName).append(" result = (").append(returnTypeName).append(") getReadSession(").append(context).append(").selectOne(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n");
                     appender.append(indentation).append("return result;\n");
                     writeEndOrderByVariable(appender, operation);
                     break;
                 }
                 case SELECT_MANY: {
                     writeStartOrderByVariable(appender, operation);
-                    appender.append(indentation).append(returnTypeName).append(" result = getSession(").append(context).append(").selectList(\"").append(operation.getQueryId()).append("\", operation);\n");
+                    if (operation.isStreaming()) {
+                        String itemTypeName = operation.getOneItemReturnDataType().getSimpleName();
+                        appender.append(indentation).append("final ").append(ROW_HANDLER_DATA_TYPE.getSimpleNameWithoutGenerics()).append("<").append(itemTypeName).append("> rowHandler = operation.getRowHandler();\n")
+                                .append(indentation).append("final long[] rowCount = new long[1];\n")
+                                .append(indentation).append("getReadSession(").append(context).append(").select(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(", new ResultHandler() {\n")
+                                .append(indentation).append("    @Override\n")
+                                .append(indentation).append("    public void handleResult(ResultContext resultContext) {\n")
+                                .append(indentation).append("        rowHandler.handle((").append(itemTypeName).append(") resultContext.getResultObject());\n")
+                                .append(indentation).append("        rowCount[0]++;\n")
+                                .append(indentation).append("    }\n")
+                                .append(indentation).append("});\n")
+                                .append(indentation).append(returnTypeName).append(" result = rowCount[0];\n");
+                    } else {
+                        appender.append(indentation).append(returnTypeName).append(" result = getReadSession(").append(context).append(").selectList(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n");
+                    }
                     appender.append(indentation).append("return result;\n");
                     writeEndOrderByVariable(appender, operation);
                     break;
@@ -279,32 +487,55 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                 case SELECT_PAGE: {
                     writeStartOrderByVariable(appender, operation);
                     appender.append(indentation).append(returnTypeName).append(" result = new ").append(returnTypeName).append("();\n")
-                            .append(indentation).append(PAGE_INFO_DATA).append(" count = operation.getDataCount();\n")
-                            .append(indentation).append("if (count == null) {\n")
-                            .append(indentation).append("    count = (").append(PAGE_INFO_DATA).append(") getSession(").append(context).append(").selectOne(\"").append(operation.getCountQueryId()).append("\", operation);\n")
+                            .append(indentation).append(PAGE_INFO_DATA).append(" count = operation.getDataCount();\n");
+                    if (operation.getPageWithDataCountQueryId() != null) {
+                        String itemTypeName = operation.getOneItemReturnDataType().getSimpleName();
+                        String rowTypeName = MYBATIS_DATA_PAGE_ROW_DATA_TYPE.getSimpleNameWithoutGenerics() + "<" + itemTypeName + ">";
+                        appender.append(indentation).append("if (count == null && !operation.isOnlyDataCount()) {\n")
+                                .append(indentation).append("    ").append(LIST_DATA).append("<").append(rowTypeName).append("> rows = getReadSession(").append(context).append(").selectList(\"").append(operation.getPageWithDataCountQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n")
+                                .append(indentation).append("    ").append(LIST_DATA).append("<").append(itemTypeName).append("> data = new ").append(ARRAYLIST_DATA).append("<").append(itemTypeName).append(">(rows.size());\n")
+                                .append(indentation).append("    for (").append(rowTypeName).append(" row : rows) {\n")
+                                .append(indentation).append("        data.add(row.getValue());\n")
+                                .append(indentation).append("    }\n")
+                                .append(indentation).append("    if (rows.isEmpty()) {\n")
+                                .append(indentation).append("        count = (").append(PAGE_INFO_DATA).append(") getReadSession(").append(context).append(").selectOne(\"").append(operation.getCountQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n")
+                                .append(indentation).append("    } else {\n")
+                                .append(indentation).append("        count = rows.get(0).getDataCount();\n")
+                                .append(indentation).append("    }\n")
+                                .append(indentation).append("    result.setDataCount(count);\n")
+                                .append(indentation).append("    result.setData(data);\n")
+                                .append(indentation).append("    result.setLimit(operation.getLimit());\n")
+                                .append(indentation).append("    result.setOffset(operation.getOffset());\n");
+                        writeKeysetLastKey(appender, indentation + "    ", operation);
+                        appender.append(indentation).append("    return result;\n")
+                                .append(indentation).append("}\n");
+                    }
+                    appender.append(indentation).append("if (count == null) {\n")
+                            .append(indentation).append("    count = (").append(PAGE_INFO_DATA).append(") getReadSession(").append(context).append(").selectOne(\"").append(operation.getCountQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n")
                             .append(indentation).append("}\n")
                             .append(indentation).append("result.setDataCount(count);\n")
                             .append(indentation).append("if (operation.isOnlyDataCount()) {\n")
                             .append(indentation).append("    return result;\n")
                             .append(indentation).append("}\n"
                             + "\n")
-                            .append(indentation).append(LIST_DATA).append("<").append(operation.getOneItemReturnDataType().getSimpleName()).append("> data = getSession(").append(context).append(").selectList(\"").append(operation.getQueryId()).append("\", operation);\n");
+                            .append(indentation).append(LIST_DATA).append("<").append(operation.getOneItemReturnDataType().getSimpleName()).append("> data = getReadSession(").append(context).append(").selectList(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n");
                     appender.append(indentation).append("result.setData(data);\n")
                             .append(indentation).append("result.setLimit(operation.getLimit());\n")
                             .append(indentation).append("result.setOffset(operation.getOffset());\n");
+                    writeKeysetLastKey(appender, indentation, operation);
                     appender.append(indentation).append("return result;\n");
                     writeEndOrderByVariable(appender, operation);
                     break;
                 }
                 case DELETE_BY_ID: {
-                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").delete(\"").append(operation.getQueryId()).append("\", operation.getId());\n");
+                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").delete(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "operation.getId()")).append(");\n");
                     appender.append("        return result;\n");
                     break;
                 }
                 case INSERT: {
                     appender.append("        ").append(operation.getEntity().getDataType().getSimpleName()).append(" value = operation.getValue();\n"
                             + "        SqlSession session = getSession(").append(context).append(");\n"
-                            + "        int i = session.insert(\"").append(operation.getQueryId()).append("\", value);\n"
+                            + "        int i = session.insert(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("session", "value")).append(");\n"
                             + "        if (i == 1) {\n");
                     FieldInfo idField = operation.getEntity().getCombined().getFirstIdField();
                     InsertedIdOrigin idOrigin = operation.getInsertedIdOrigin();
@@ -338,7 +569,7 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                     break;
                 }
                 case JUST_INSERT: {
-                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").insert(\"").append(operation.getQueryId()).append("\", operation.getValue());\n"
+                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").insert(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "operation.getValue()")).append(");\n"
                             + "        return result;\n");
                     break;
                 }
@@ -346,7 +577,7 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                     appender.append("        ").append(operation.getEntity().getDataType().getSimpleName()).append(" value = operation.getValue();\n"
                             + "        if (value.get").append(operation.getEntity().getCombined().getFirstIdField().getCapitalizedName()).append("() == null) {\n"
                             + "            SqlSession session = getSession(").append(context).append(");\n"
-                            + "            int i = session.insert(\"").append(operation.getSaveInsertQueryId()).append("\", value);\n"
+                            + "            int i = session.insert(\"").append(operation.getSaveInsertQueryId()).append("\", ").append(statementParameter("session", "value")).append(");\n"
                             + "            if (i == 1) {\n");
                     FieldInfo idField = operation.getEntity().getCombined().getFirstIdField();
                     InsertedIdOrigin idOrigin = operation.getInsertedIdOrigin();
@@ -378,7 +609,7 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                     }
                     appender.append("            }\n"
                             + "        } else {\n"
-                            + "            int i = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", value);\n"
+                            + "            int i = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "value")).append(");\n"
                             + "            if (i == 1) {\n"
                             + "                ").append(returnTypeName).append(" result = value.get").append(operation.getEntity().getCombined().getFirstIdField().getCapitalizedName()).append("();\n"
                             + "                return result;\n"
@@ -396,41 +627,63 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                     appender.append("        ").append(operation.getEntity().getDataType().getSimpleName()).append(" value = operation.getValue();\n"
                             + "        ").append(returnTypeName).append(" result;\n"
                             + "        if (value.get").append(operation.getEntity().getCombined().getFirstIdField().getCapitalizedName()).append("() == null) {\n"
-                            + "            result = getSession(").append(context).append(").insert(\"").append(operation.getSaveInsertQueryId()).append("\", value);\n"
+                            + "            result = getSession(").append(context).append(").insert(\"").append(operation.getSaveInsertQueryId()).append("\", ").append(statementParameter("getSession(context)", "value")).append(");\n"
                             + "        } else {\n"
-                            + "            result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", value);\n"
+                            + "            result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "value")).append(");\n"
                             + "        }\n"
                             + "        return result;\n");
                     break;
                 }
                 case SELECT_BY_ID: {
-                    appender.append("        ").append(returnTypeName).append(" result = (").append(returnTypeName).append(") getSession(").append(context).append(").selectOne(\"").append(operation.getQueryId()).append("\", operation.getId());\n"
+                    appender.append("        ").append(returnTypeName).append(" result = (").append(returnTypeName).append(") getReadSession(").append(context).append(").selectOne(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation.getId()")).append(");\n"
+                            + "        return result;\n");
+                    break;
+                }
+                case SELECT_BY_IDS: {
+                    String itemTypeName = operation.getOneItemReturnDataType().getSimpleName();
+                    String idTypeName = operation.getEntity().getCombined().getFirstIdField().getDataType().ensureBoxed().getSimpleName();
+                    String operationTypeName = operation.getDataType().getSimpleName();
+                    appender.append("        ").append(LIST_DATA).append("<").append(idTypeName).append("> ids = operation.getIds();\n"
+                            + "        if (ids.isEmpty()) {\n"
+                            + "            return new ").append(ARRAYLIST_DATA).append("<").append(itemTypeName).append(">(0);\n"
+                            + "        }\n"
+                            + "        if (ids.size() <= selectByIdsChunkSize) {\n"
+                            + "            ").append(returnTypeName).append(" result = getReadSession(").append(context).append(").selectList(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "operation")).append(");\n"
+                            + "            return result;\n"
+                            + "        }\n"
+                            + "        ").append(ARRAYLIST_DATA).append("<").append(itemTypeName).append("> result = new ").append(ARRAYLIST_DATA).append("<").append(itemTypeName).append(">(ids.size());\n"
+                            + "        for (int i = 0; i < ids.size(); i += selectByIdsChunkSize) {\n"
+                            + "            ").append(operationTypeName).append(" chunk = new ").append(operationTypeName).append("();\n"
+                            + "            chunk.setIds(ids.subList(i, Math.min(ids.size(), i + selectByIdsChunkSize)));\n"
+                            + "            ").append(LIST_DATA).append("<").append(itemTypeName).append("> chunkResult = getReadSession(").append(context).append(").selectList(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getReadSession(context)", "chunk")).append(");\n"
+                            + "            result.addAll(chunkResult);\n"
+                            + "        }\n"
                             + "        return result;\n");
                     break;
                 }
                 case UPDATE: {
-                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", operation.getValue());\n"
+                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "operation.getValue()")).append(");\n"
                             + "        return result;\n");
                     break;
                 }
                 case CUSTOM_INSERT: {
-                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").insert(\"").append(operation.getQueryId()).append("\", operation);\n"
+                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").insert(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "operation")).append(");\n"
                             + "        return result;\n");
                     break;
                 }
                 case CUSTOM_UPDATE: {
-                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", operation);\n"
+                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "operation")).append(");\n"
                             + "        return result;\n");
                     break;
                 }
                 case CUSTOM_DELETE: {
-                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").delete(\"").append(operation.getQueryId()).append("\", operation);\n"
+                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").delete(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "operation")).append(");\n"
                             + "        return result;\n");
                     break;
                 }
                 case CUSTOM_INSERT_WITH_ID: {
                     appender.append("        SqlSession session = getSession(").append(context).append(");\n"
-                            + "        int i = session.insert(\"").append(operation.getQueryId()).append("\", operation);\n"
+                            + "        int i = session.insert(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("session", "operation")).append(");\n"
                             + "        if (i == 1) {\n");
 
                     FieldInfo idField = operation.getEntity().getCombined().getFirstIdField();
@@ -465,26 +718,38 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                     break;
                 }
                 case MERGE: {
-                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", operation.getValue());\n"
+                    appender.append("        ").append(returnTypeName).append(" result = getSession(").append(context).append(").update(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "operation.getValue()")).append(");\n"
                             + "        return result;\n");
                     break;
                 }
+                case INSERT_BATCH: {
+                    writeBatchBody(appender, operation, "insert", operation.getEntity().getDataType().getSimpleName(), "value", "Values", context);
+                    break;
+                }
+                case UPDATE_BATCH: {
+                    writeBatchBody(appender, operation, "update", operation.getEntity().getDataType().getSimpleName(), "value", "Values", context);
+                    break;
+                }
+                case DELETE_BY_ID_BATCH: {
+                    writeBatchBody(appender, operation, "delete", operation.getEntity().getCombined().getFirstIdField().getDataType().ensureBoxed().getSimpleName(), "id", "Ids", context);
+                    break;
+                }
                 case COMPLEX_SELECT_CALL: {
                     writeStartOrderByVariable(appender, operation);
-                    writeComplexCallBody(appender, operation, "selectOne");
+                    writeComplexCallBody(appender, operation, "selectOne", context);
                     writeEndOrderByVariable(appender, operation);
                     break;
                 }
                 case COMPLEX_INSERT_CALL: {
-                    writeComplexCallBody(appender, operation, "insert");
+                    writeComplexCallBody(appender, operation, "insert", context);
                     break;
                 }
                 case COMPLEX_UPDATE_CALL: {
-                    writeComplexCallBody(appender, operation, "update");
+                    writeComplexCallBody(appender, operation, "update", context);
                     break;
                 }
                 case COMPLEX_DELETE_CALL: {
-                    writeComplexCallBody(appender, operation, "delete");
+                    writeComplexCallBody(appender, operation, "delete", context);
                     break;
                 }
                 default:
@@ -496,42 +761,11 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
 
         appender.append("\n");
         if (getExecutorModule().isContainOrderedOperations()) {
-
-            appender.append("    public String translateOrderBy(String orderBy, HashMap<String, String> orderByTranslations) {\n"
-                    + "        if (orderBy == null || orderBy.isEmpty()) {\n"
-                    + "            return null;\n"
-                    + "        }\n"
-                    + "        if (orderByTranslations == null || orderByTranslations.isEmpty()) {\n"
-                    + "            return null;\n"
-                    + "        }\n"
-                    + "        orderBy = orderBy.toLowerCase();\n"
-                    + "        orderBy = orderBy.replaceAll(\"\\\\s+\", \" \");\n"
-                    + "        String[] split = orderBy.split(\"\\\\s*,\\\\s*\");\n"
-                    + "\n"
-                    + "        StringBuilder sb = new StringBuilder();\n"
-                    + "        if (split != null) {\n"
-                    + "            for (String s : split) {\n"
-                    + "                s = s.trim();\n"
-                    + "                String translated = orderByTranslations.get(s);\n"
-                    + "                if (translated == null) {\n"
-                    + "                    throw new IllegalArgumentException(\"Invalid order by clause: \" + s);\n"
-                    + "                }\n"
-                    + "                if (!translated.isEmpty()) {\n"
-                    + "                    sb.append(translated);\n"
-                    + "                    sb.append(\", \");\n"
-                    + "                }\n"
-                    + "            }\n"
-                    + "        }\n"
-                    + "\n"
-                    + "        if (sb.length() > 2) {\n"
-                    + "            return sb.substring(0, sb.length() - 2);\n"
-                    + "        } else {\n"
-                    + "            return null;\n"
-                    + "        }\n"
-                    + "    }\n"
-                    + "\n");
+            writeOrderByTranslation(appender, getClassName());
         }
 
+        writeConfigureSessionPolicy(appender);
+
         if (LAMBADAS_ENABLED) {
             appender.append("    public ").append(getClassName()).append("(SqlSessionProvider provider) {\n"
                     + "        this(null, provider);\n"
@@ -554,7 +788,11 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
                 if (operation.isManually() || operation.getOperationKind() == OperationKind.CUSTOM) {
                     continue;
                 }
-                appender.append("        handle(").append(operation.getDataType().getSimpleName()).append(".class, this::").append(operation.getMethodName()).append(");\n");
+                if (isContextSetBeforeExecution()) {
+                    appender.append("        handle(").append(operation.getDataType().getSimpleName()).append(".class, withContext(this::").append(operation.getMethodName()).append("));\n");
+                } else {
+                    appender.append("        handle(").append(operation.getDataType().getSimpleName()).append(".class, this::").append(operation.getMethodName()).append(");\n");
+                }
             }
             appender.append("\n");
         }
@@ -583,6 +821,130 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         appender.append("    }");
     }
 
+    /**
+     * The order by cache is bounded by the orderByCacheSize, once it is full the
+     * new order by clauses are translated without being cached.
+     */
+    static void writeOrderByTranslation(Appendable appender, String className) throws IOException {
+        appender.append("    public int getOrderByCacheSize() {\n"
+                + "        return orderByCacheSize;\n"
+                + "    }\n"
+                + "\n"
+                + "    public void setOrderByCacheSize(int orderByCacheSize) {\n"
+                + "        if (orderByCacheSize < 0) {\n"
+                + "            throw new IllegalArgumentException(\"orderByCacheSize for the ").append(className).append(" cannot be negative\");\n"
+                + "        }\n"
+                + "        this.orderByCacheSize = orderByCacheSize;\n"
+                + "    }\n"
+                + "\n"
+                + "    protected Map<String, String> createOrderByCache() {\n"
+                + "        return new ConcurrentHashMap<String, String>();\n"
+                + "    }\n"
+                + "\n"
+                + "    public String translateOrderBy(String orderBy, HashMap<String, String> orderByTranslations, Map<String, String> orderByCache) {\n"
+                + "        if (orderBy == null || orderBy.isEmpty()) {\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "        String result = orderByCache.get(orderBy);\n"
+                + "        if (result == null) {\n"
+                + "            result = translateOrderBy(orderBy, orderByTranslations);\n"
+                + "            if (result == null) {\n"
+                + "                result = \"\";\n"
+                + "            }\n"
+                + "            if (orderByCache.size() < orderByCacheSize) {\n"
+                + "                orderByCache.put(orderBy, result);\n"
+                + "            }\n"
+                + "        }\n"
+                + "        if (result.isEmpty()) {\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    public String translateOrderBy(String orderBy, HashMap<String, String> orderByTranslations) {\n"
+                + "        if (orderBy == null || orderBy.isEmpty()) {\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "        if (orderByTranslations == null || orderByTranslations.isEmpty()) {\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "\n"
+                + "        StringBuilder sb = new StringBuilder();\n"
+                + "        StringBuilder term = new StringBuilder();\n"
+                + "        boolean pendingSpace = false;\n"
+                + "        boolean hasEmptyTerm = false;\n"
+                + "        boolean hasComma = false;\n"
+                + "        int length = orderBy.length();\n"
+                + "        for (int i = 0; i <= length; i++) {\n"
+                + "            char c;\n"
+                + "            if (i < length) {\n"
+                + "                c = orderBy.charAt(i);\n"
+                + "                hasComma = hasComma || c == ',';\n"
+                + "            } else {\n"
+                + "                c = ',';\n"
+                + "            }\n"
+                + "            if (c == ',') {\n"
+                + "                if (term.length() <= 0) {\n"
+                + "                    if (i >= length && !hasComma) {\n"
+                + "                        throw new IllegalArgumentException(\"Invalid order by clause: \");\n"
+                + "                    }\n"
+                + "                    hasEmptyTerm = true;\n"
+                + "                    continue;\n"
+                + "                }\n"
+                + "                if (hasEmptyTerm) {\n"
+                + "                    throw new IllegalArgumentException(\"Invalid order by clause: \");\n"
+                + "                }\n"
+                + "                String s = term.toString();\n"
+                + "                String translated = orderByTranslations.get(s);\n"
+                + "                if (translated == null) {\n"
+                + "                    throw new IllegalArgumentException(\"Invalid order by clause: \" + s);\n"
+                + "                }\n"
+                + "                if (!translated.isEmpty()) {\n"
+                + "                    if (sb.length() > 0) {\n"
+                + "                        sb.append(\", \");\n"
+                + "                    }\n"
+                + "                    sb.append(translated);\n"
+                + "                }\n"
+                + "                term.setLength(0);\n"
+                + "                pendingSpace = false;\n"
+                + "            } else if (Character.isWhitespace(c)) {\n"
+                + "                pendingSpace = term.length() > 0;\n"
+                + "            } else {\n"
+                + "                if (pendingSpace) {\n"
+                + "                    term.append(' ');\n"
+                + "                    pendingSpace = false;\n"
+                + "                }\n"
+                + "                term.append(Character.toLowerCase(c));\n"
+                + "            }\n"
+                + "        }\n"
+                + "\n"
+                + "        if (sb.length() > 0) {\n"
+                + "            return sb.toString();\n"
+                + "        } else {\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n");
+    }
+
+    void writeKeysetLastKey(Appendable appender, String indentation, OperationInfo operation) throws IOException {
+        if (!operation.isKeysetPage()) {
+            return;
+        }
+        FieldInfo idField = operation.getEntity().getCombined().getFirstIdField();
+        appender.append(indentation).append("if (data != null && !data.isEmpty()) {\n")
+                .append(indentation).append("    result.setLastKey(data.get(data.size() - 1).");
+        if (idField.getDataType().isPrimitiveBoolean()) {
+            appender.append("is");
+        } else {
+            appender.append("get");
+        }
+        appender.append(idField.getCapitalizedName()).append("());\n")
+                .append(indentation).append("} else {\n")
+                .append(indentation).append("    result.setLastKey(operation.getLastKey());\n")
+                .append(indentation).append("}\n");
+    }
+
     void writeStartOrderByVariable(Appendable appender, OperationInfo operation) throws IOException {
         if (!operation.isOrdered() || operation.getEntity() == null) {
             return;
@@ -590,7 +952,7 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         for (FieldInfo field : operation.getFields()) {
             if (field.isOrderBy()) {
                 appender.append("        ").append(field.getDataType().getSimpleName()).append(" ").append(field.getName()).append("Old = operation.get").append(field.getCapitalizedName()).append("();\n"
-                        + "        operation.set").append(field.getCapitalizedName()).append("(translateOrderBy(").append(field.getName()).append("Old, orderByTranslationsFor").append(operation.getEntity().getDataType().getSimpleName()).append("));\n");
+                        + "        operation.set").append(field.getCapitalizedName()).append("(translateOrderBy(").append(field.getName()).append("Old, orderByTranslationsFor").append(operation.getEntity().getDataType().getSimpleName()).append(", orderByCacheFor").append(operation.getEntity().getDataType().getSimpleName()).append("));\n");
             }
         }
         appender.append("        try {\n");
@@ -611,6 +973,42 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         indentation = "        ";
     }
 
+    void writeBatchBody(Appendable appender, OperationInfo operation, String myBatisMethod, String itemTypeName, String itemName, String itemsName, String context) throws IOException {
+        // The keys retained by every flush are accumulated until the end of the operation
+        boolean retainIds = operation.getInsertedIdOrigin() == InsertedIdOrigin.RETAINED;
+        String indent;
+        if (retainIds) {
+            indent = "            ";
+        } else {
+            indent = "        ";
+        }
+        appender.append("        ").append(LIST_DATA).append("<").append(itemTypeName).append("> ").append(itemName).append("s = operation.get").append(itemsName).append("();\n"
+                + "        ").append(ARRAYLIST_DATA).append("<Integer> result = new ").append(ARRAYLIST_DATA).append("<Integer>(").append(itemName).append("s.size());\n"
+                + "        SqlSession session = getBatchSession(").append(context).append(");\n");
+        if (retainIds) {
+            appender.append("        RetainIdPlugin.beginOperation();\n"
+                    + "        try {\n");
+        }
+        appender.append(indent).append("int pending = 0;\n")
+                .append(indent).append("for (").append(itemTypeName).append(" ").append(itemName).append(" : ").append(itemName).append("s) {\n")
+                .append(indent).append("    session.").append(myBatisMethod).append("(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("session", itemName)).append(");\n")
+                .append(indent).append("    pending++;\n")
+                .append(indent).append("    if (pending >= batchFlushSize) {\n")
+                .append(indent).append("        appendBatchResults(session.flushStatements(), result);\n")
+                .append(indent).append("        pending = 0;\n")
+                .append(indent).append("    }\n")
+                .append(indent).append("}\n")
+                .append(indent).append("if (pending > 0) {\n")
+                .append(indent).append("    appendBatchResults(session.flushStatements(), result);\n")
+                .append(indent).append("}\n");
+        if (retainIds) {
+            appender.append("        } finally {\n"
+                    + "            RetainIdPlugin.endOperation();\n"
+                    + "        }\n");
+        }
+        appender.append("        return result;\n");
+    }
+
     void writeComplexCallMethodHeader(Appendable appender, OperationInfo operation) throws IOException {
         appender.append("    public ");
         appender.append(operation.getReturnDataType().getSimpleName());
@@ -618,10 +1016,10 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         appender.append(operation.getMethodName());
         appender.append("(final ");
         appender.append(operation.getDataType().getSimpleName());
-        appender.append(" _operation)");
+        appender.append(" _operation").append(CONTEXT_PARAM).append(")");
     }
 
-    void writeComplexCallBody(Appendable appender, OperationInfo operation, String myBatisMethod) throws IOException {
+    void writeComplexCallBody(Appendable appender, OperationInfo operation, String myBatisMethod, String context) throws IOException {
         String returnTypeName = operation.getReturnDataType().getSimpleName();
         appender.append(indentation).append("class Wrapper {\n");
         appender.append(indentation).append("    ").append(operation.getDataType().getSimpleName()).append(" operation = _operation;\n");
@@ -687,11 +1085,7 @@ public class MyBatisTemplate extends ExecutorModuleTemplate {
         }
         appender.append(indentation).append("}\n");
         appender.append(indentation).append("Wrapper wrapper = new Wrapper();\n");
-        if (HAS_CONTEXT) {
-            appender.append(indentation).append("getSession().").append(myBatisMethod).append("(\"").append(operation.getQueryId()).append("\", wrapper);\n");
-        } else {
-            appender.append(indentation).append("getSession(context).").append(myBatisMethod).append("(\"").append(operation.getQueryId()).append("\", wrapper);\n");
-        }
+        appender.append(indentation).append("getSession(").append(context).append(").").append(myBatisMethod).append("(\"").append(operation.getQueryId()).append("\", ").append(statementParameter("getSession(context)", "wrapper")).append(");\n");
         appender.append(indentation).append("return wrapper.result;\n");
     }
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class AsyncExecutorTemplate_WithLamdas extends ClassTemplate {
+
+    public AsyncExecutorTemplate_WithLamdas(String packageName) {
+        setPackageName(packageName);
+        addImport("java.util.concurrent.CompletableFuture", packageName);
+        addImport("java.util.concurrent.CompletionException", packageName);
+        addImport("java.util.concurrent.ExecutorService", packageName);
+        addImport("java.util.concurrent.Executors", packageName);
+        addImport("java.util.concurrent.RejectedExecutionException", packageName);
+        setClassName("AsyncExecutor");
+        setFinal(true);
+        addContextImport(packageName);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private final Executor executor;\n"
+                + "    private final ExecutorService executorService;\n"
+                + "\n"
+                + "    public Executor getExecutor() {\n"
+                + "        return executor;\n"
+                + "    }\n"
+                + "\n"
+                + "    public ExecutorService getExecutorService() {\n"
+                + "        return executorService;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Execute the operation in the executor service. When the operation fails\n"
+                + "     * the returned future is completed with the exception thrown by the\n"
+                + "     * executor, without any additional wrapping.\n"
+                + "     */\n"
+                + "    public ").append(OPERATION_BASE_DEFINITION).append(" CompletableFuture<RESULT> execute(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                + "        CompletableFuture<RESULT> future = new CompletableFuture<>();\n"
+                + "        try {\n"
+                + "            executorService.execute(() -> {\n"
+                + "                try {\n"
+                + "                    future.complete(executor.execute(operation").append(CONTEXT_VALUE).append("));\n"
+                + "                } catch (Throwable ex) {\n"
+                + "                    future.completeExceptionally(ex);\n"
+                + "                }\n"
+                + "            });\n"
+                + "        } catch (RejectedExecutionException ex) {\n"
+                + "            future.completeExceptionally(ex);\n"
+                + "        }\n"
+                + "        return future;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Wait for the result of the future, rethrowing the exception thrown by the\n"
+                + "     * operation instead of the CompletionException that wraps it.\n"
+                + "     */\n"
+                + "    public static <RESULT> RESULT await(CompletableFuture<RESULT> future) {\n"
+                + "        try {\n"
+                + "            return future.join();\n"
+                + "        } catch (CompletionException ex) {\n"
+                + "            Throwable cause = ex.getCause();\n"
+                + "            if (cause instanceof RuntimeException) {\n"
+                + "                throw (RuntimeException) cause;\n"
+                + "            }\n"
+                + "            if (cause instanceof Error) {\n"
+                + "                throw (Error) cause;\n"
+                + "            }\n"
+                + "            throw ex;\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Create an executor service that use a virtual thread per task when it is\n"
+                + "     * supported by the running jvm, or a cached thread pool in other case.\n"
+                + "     */\n"
+                + "    public static ExecutorService newDefaultExecutorService() {\n"
+                + "        try {\n"
+                + "            return (ExecutorService) Executors.class.getMethod(\"newVirtualThreadPerTaskExecutor\").invoke(null);\n"
+                + "        } catch (ReflectiveOperationException | RuntimeException ex) {\n"
+                + "            return Executors.newCachedThreadPool(runnable -> {\n"
+                + "                Thread thread = new Thread(runnable, \"AsyncExecutor\");\n"
+                + "                thread.setDaemon(true);\n"
+                + "                return thread;\n"
+                + "            });\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public AsyncExecutor(Executor executor) {\n"
+                + "        this(executor, DefaultExecutorService.INSTANCE);\n"
+                + "    }\n"
+                + "\n"
+                + "    public AsyncExecutor(Executor executor, ExecutorService executorService) {\n"
+                + "        if (executor == null) {\n"
+                + "            throw new IllegalArgumentException(\"executor for the AsyncExecutor cannot be null\");\n"
+                + "        }\n"
+                + "        if (executorService == null) {\n"
+                + "            throw new IllegalArgumentException(\"executorService for the AsyncExecutor cannot be null\");\n"
+                + "        }\n"
+                + "        this.executor = executor;\n"
+                + "        this.executorService = executorService;\n"
+                + "    }\n"
+                + "\n"
+                + "    private static final class DefaultExecutorService {\n"
+                + "        static final ExecutorService INSTANCE = newDefaultExecutorService();\n"
+                + "    }");
+    }
+
+}
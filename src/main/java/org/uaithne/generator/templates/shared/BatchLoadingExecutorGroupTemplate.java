@@ -0,0 +1,322 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class BatchLoadingExecutorGroupTemplate extends ClassTemplate {
+
+    public BatchLoadingExecutorGroupTemplate(String packageName) {
+        setPackageName(packageName);
+        addBatchLoadingImports(this, packageName);
+        setClassName("BatchLoadingExecutorGroup");
+        if (ERROR_MANAGEMENT) {
+            setExtend("ExecutorGroup");
+        } else {
+            addImplement("ExecutorGroup");
+        }
+        addContextImport(packageName);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private ExecutorGroup chainedExecutorGroup;\n");
+        writeBatchLoadingContent(appender, "chainedExecutorGroup");
+        appender.append("    /**\n"
+                + "     * @return the chainedExecutorGroup\n"
+                + "     */\n"
+                + "    public ExecutorGroup getChainedExecutorGroup() {\n"
+                + "        return chainedExecutorGroup;\n"
+                + "    }\n"
+                + "\n"
+                + "    public BatchLoadingExecutorGroup(ExecutorGroup chainedExecutorGroup) {\n"
+                + "        if (chainedExecutorGroup == null) {\n"
+                + "            throw new IllegalArgumentException(\"chainedExecutorGroup for the BatchLoadingExecutorGroup cannot be null\");\n"
+                + "        }\n"
+                + "        this.chainedExecutorGroup = chainedExecutorGroup;\n"
+                + "    }");
+    }
+
+    static void addBatchLoadingImports(ClassTemplate template, String packageName) {
+        template.addImport("java.io.Closeable", packageName);
+        template.addImport("java.util.ArrayList", packageName);
+        template.addImport("java.util.HashMap", packageName);
+        template.addImport("java.util.LinkedHashSet", packageName);
+        template.addImport("java.util.List", packageName);
+        template.addImport("java.util.concurrent.ConcurrentHashMap", packageName);
+    }
+
+    static void writeBatchLoadingContent(Appendable appender, String next) throws IOException {
+        appender.append("    private final ConcurrentHashMap<Class, Loader> loaders = new ConcurrentHashMap<Class, Loader>();\n"
+                + "    private final ConcurrentHashMap<Class, Boolean> clearingOperations = new ConcurrentHashMap<Class, Boolean>();\n");
+        if (HAS_CONTEXT) {
+            appender.append("    private final ConcurrentHashMap<Object, LoadScope> openScopes = new ConcurrentHashMap<Object, LoadScope>();\n");
+        } else {
+            appender.append("    private final ThreadLocal<LoadScope> currentScope = new ThreadLocal<LoadScope>();\n");
+        }
+        appender.append("    private volatile int maxBatchSize = 1000;\n"
+                + "\n"
+                + "    @Override\n"
+                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                + "        Class operationType = operation.getClass();\n"
+                + "        Loader loader = loaders.get(operationType);\n"
+                + "        if (loader == null) {\n"
+                + "            if (clearingOperations.get(operationType) == null) {\n"
+                + "                return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "            }\n"
+                + "            return executeClearing(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        }\n"
+                + "        Object id = ((SelectByIdOperation) operation).getId();\n"
+                + "        if (id == null) {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        }\n");
+        writeCurrentScope(appender);
+        appender.append("        if (scope == null) {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        }\n"
+                + "        return (RESULT) scope.get(operationType, loader, id").append(CONTEXT_VALUE).append(");\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Execute an operation that modifies the loaded values, the values already loaded\n"
+                + "     * in the current load scope are discarded, the following executions load them again.\n"
+                + "     */\n"
+                + "    private ").append(OPERATION_BASE_DEFINITION).append(" RESULT executeClearing(OPERATION operation").append(CONTEXT_PARAM).append(") {\n");
+        writeCurrentScope(appender);
+        appender.append("        if (scope == null) {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        }\n"
+                + "        scope.clear();\n"
+                + "        try {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        } finally {\n"
+                + "            // A value loaded meanwhile can have been read before the modification\n"
+                + "            scope.clear();\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Register the loader of the select by id operations of the provided type, they\n"
+                + "     * are loaded together inside a load scope.\n"
+                + "     */\n"
+                + "    public <IDTYPE, RESULT> void batch(Class<? extends SelectByIdOperation<IDTYPE, RESULT>> operationType, Loader<IDTYPE, RESULT> loader) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for batch cannot be null\");\n"
+                + "        }\n"
+                + "        if (loader == null) {\n"
+                + "            throw new IllegalArgumentException(\"loader for batch cannot be null\");\n"
+                + "        }\n"
+                + "        loaders.put(operationType, loader);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Discard the values loaded in the load scope when an operation of the provided\n"
+                + "     * type is executed in it, usually the operations that modify the loaded entities.\n"
+                + "     */\n"
+                + "    public void clearWhen(Class<? extends Operation> operationType) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for clearWhen cannot be null\");\n"
+                + "        }\n"
+                + "        clearingOperations.put(operationType, Boolean.TRUE);\n"
+                + "    }\n"
+                + "\n");
+        if (HAS_CONTEXT) {
+            appender.append("    /**\n"
+                    + "     * Open a load scope for the context, usually one per request, it must be closed\n"
+                    + "     * when the request ends. Inside it, the select by id operations executed with the\n"
+                    + "     * context are loaded together, with only one operation created by the loader and\n"
+                    + "     * executed with the same context, and the loaded values are kept until the scope\n"
+                    + "     * is closed; they are shared, they must not be modified.\n"
+                    + "     * Only the ids registered with prefetch before the first execution are loaded\n"
+                    + "     * together, without them each select by id operation loads only its own id.\n"
+                    + "     */\n"
+                    + "    public LoadScope openScope(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "        if (context == null) {\n"
+                    + "            throw new IllegalArgumentException(\"context for openScope cannot be null\");\n"
+                    + "        }\n"
+                    + "        LoadScope scope = new LoadScope(context);\n"
+                    + "        if (openScopes.putIfAbsent(context, scope) != null) {\n"
+                    + "            throw new IllegalStateException(\"There is already a load scope open for the context\");\n"
+                    + "        }\n"
+                    + "        return scope;\n"
+                    + "    }\n"
+                    + "\n");
+        } else {
+            appender.append("    /**\n"
+                    + "     * Open a load scope for the current thread, usually one per request, it must be\n"
+                    + "     * closed when the request ends. Inside it, the select by id operations are loaded\n"
+                    + "     * together, with only one operation created by the loader, and the loaded values\n"
+                    + "     * are kept until the scope is closed; they are shared, they must not be modified.\n"
+                    + "     * Only the ids registered with prefetch before the first execution are loaded\n"
+                    + "     * together, without them each select by id operation loads only its own id.\n"
+                    + "     */\n"
+                    + "    public LoadScope openScope() {\n"
+                    + "        if (currentScope.get() != null) {\n"
+                    + "            throw new IllegalStateException(\"There is already a load scope open for the current thread\");\n"
+                    + "        }\n"
+                    + "        LoadScope scope = new LoadScope();\n"
+                    + "        currentScope.set(scope);\n"
+                    + "        return scope;\n"
+                    + "    }\n"
+                    + "\n");
+        }
+        appender.append("    /**\n"
+                + "     * @return the maximum number of ids loaded by each operation created by the loader\n"
+                + "     */\n"
+                + "    public int getMaxBatchSize() {\n"
+                + "        return maxBatchSize;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @param maxBatchSize the maximum number of ids loaded by each operation created by the loader\n"
+                + "     */\n"
+                + "    public void setMaxBatchSize(int maxBatchSize) {\n"
+                + "        if (maxBatchSize <= 0) {\n"
+                + "            throw new IllegalArgumentException(\"maxBatchSize must be greater than zero\");\n"
+                + "        }\n"
+                + "        this.maxBatchSize = maxBatchSize;\n"
+                + "    }\n"
+                + "\n"
+                + "    public static abstract class Loader<IDTYPE, RESULT> {\n"
+                + "\n"
+                + "        /**\n"
+                + "         * @return the operation that select the values with the provided ids\n"
+                + "         */\n"
+                + "        public abstract Operation<List<RESULT>> createOperation(List<IDTYPE> ids);\n"
+                + "\n"
+                + "        /**\n"
+                + "         * @return the id of the provided value\n"
+                + "         */\n"
+                + "        public abstract IDTYPE getId(RESULT value);\n"
+                + "    }\n"
+                + "\n"
+                + "    public final class LoadScope implements Closeable {\n");
+        if (HAS_CONTEXT) {
+            appender.append("        private final ").append(CONTEXT_TYPE).append(" context;\n");
+        }
+        appender.append("        private final HashMap<Class, LinkedHashSet<Object>> pendingIds = new HashMap<Class, LinkedHashSet<Object>>();\n"
+                + "        private final HashMap<Class, HashMap<Object, Object>> loadedValues = new HashMap<Class, HashMap<Object, Object>>();\n"
+                + "\n"
+                + "        /**\n"
+                + "         * Register the id of the operation for be loaded together with the others ids\n"
+                + "         * of the same operation type, when the first of them is executed.\n"
+                + "         */\n"
+                + "        public synchronized void prefetch(SelectByIdOperation operation) {\n"
+                + "            if (operation == null) {\n"
+                + "                throw new IllegalArgumentException(\"operation for prefetch cannot be null\");\n"
+                + "            }\n"
+                + "            Class operationType = operation.getClass();\n"
+                + "            if (loaders.get(operationType) == null) {\n"
+                + "                throw new IllegalArgumentException(\"There is no loader for the operation type \" + operationType.getName());\n"
+                + "            }\n"
+                + "            Object id = operation.getId();\n"
+                + "            if (id == null) {\n"
+                + "                return;\n"
+                + "            }\n"
+                + "            HashMap<Object, Object> values = loadedValues.get(operationType);\n"
+                + "            if (values != null && values.containsKey(id)) {\n"
+                + "                return;\n"
+                + "            }\n"
+                + "            LinkedHashSet<Object> ids = pendingIds.get(operationType);\n"
+                + "            if (ids == null) {\n"
+                + "                ids = new LinkedHashSet<Object>();\n"
+                + "                pendingIds.put(operationType, ids);\n"
+                + "            }\n"
+                + "            ids.add(id);\n"
+                + "        }\n"
+                + "\n"
+                + "        synchronized Object get(Class operationType, Loader loader, Object id").append(CONTEXT_PARAM).append(") {\n"
+                + "            HashMap<Object, Object> values = loadedValues.get(operationType);\n"
+                + "            if (values == null) {\n"
+                + "                values = new HashMap<Object, Object>();\n"
+                + "                loadedValues.put(operationType, values);\n"
+                + "            } else if (values.containsKey(id)) {\n"
+                + "                return values.get(id);\n"
+                + "            }\n"
+                + "            LinkedHashSet<Object> ids = pendingIds.remove(operationType);\n"
+                + "            if (ids == null) {\n"
+                + "                ids = new LinkedHashSet<Object>();\n"
+                + "            }\n"
+                + "            ids.add(id);\n"
+                + "            ArrayList<Object> batch = new ArrayList<Object>(Math.min(ids.size(), maxBatchSize));\n"
+                + "            for (Object pendingId : ids) {\n"
+                + "                batch.add(pendingId);\n"
+                + "                if (batch.size() >= maxBatchSize) {\n"
+                + "                    load(values, loader, batch").append(CONTEXT_VALUE).append(");\n"
+                + "                    batch.clear();\n"
+                + "                }\n"
+                + "            }\n"
+                + "            if (!batch.isEmpty()) {\n"
+                + "                load(values, loader, batch").append(CONTEXT_VALUE).append(");\n"
+                + "            }\n"
+                + "            return values.get(id);\n"
+                + "        }\n"
+                + "\n"
+                + "        private void load(HashMap<Object, Object> values, Loader loader, ArrayList<Object> ids").append(CONTEXT_PARAM).append(") {\n"
+                + "            List result = (List) ").append(next).append(".execute(loader.createOperation(new ArrayList<Object>(ids))").append(CONTEXT_VALUE).append(");\n"
+                + "            for (Object id : ids) {\n"
+                + "                values.put(id, null);\n"
+                + "            }\n"
+                + "            for (Object value : result) {\n"
+                + "                if (value != null) {\n"
+                + "                    values.put(loader.getId(value), value);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "\n"
+                + "        /**\n"
+                + "         * Discard the loaded values, the pending ids are kept.\n"
+                + "         */\n"
+                + "        synchronized void clear() {\n"
+                + "            loadedValues.clear();\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override\n"
+                + "        public void close() {\n");
+        if (HAS_CONTEXT) {
+            appender.append("            openScopes.remove(context, this);\n");
+        } else {
+            appender.append("            if (currentScope.get() == this) {\n"
+                    + "                currentScope.remove();\n"
+                    + "            }\n");
+        }
+        appender.append("        }\n"
+                + "\n");
+        if (HAS_CONTEXT) {
+            appender.append("        LoadScope(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "            this.context = context;\n"
+                    + "        }\n");
+        } else {
+            appender.append("        LoadScope() {\n"
+                    + "        }\n");
+        }
+        appender.append("    }\n"
+                + "\n");
+    }
+
+    private static void writeCurrentScope(Appendable appender) throws IOException {
+        if (HAS_CONTEXT) {
+            appender.append("        LoadScope scope = context == null ? null : openScopes.get(context);\n");
+        } else {
+            appender.append("        LoadScope scope = currentScope.get();\n");
+        }
+    }
+
+}
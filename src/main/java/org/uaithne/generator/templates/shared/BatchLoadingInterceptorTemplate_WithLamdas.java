@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class BatchLoadingInterceptorTemplate_WithLamdas extends ClassTemplate {
+
+    public BatchLoadingInterceptorTemplate_WithLamdas(String packageName) {
+        setPackageName(packageName);
+        BatchLoadingExecutorGroupTemplate.addBatchLoadingImports(this, packageName);
+        setClassName("BatchLoadingInterceptor");
+        if (LAMBADAS_ENABLED) {
+            setExtend("Executor");
+        }
+        setFinal(true);
+        addContextImport(packageName);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        BatchLoadingExecutorGroupTemplate.writeBatchLoadingContent(appender, "next");
+        appender.append("    public BatchLoadingInterceptor(Executor next) {\n"
+                + "        super(next);\n"
+                + "        if (next == null) {\n"
+                + "            throw new IllegalArgumentException(\"next for the BatchLoadingInterceptor cannot be null\");\n"
+                + "        }\n"
+                + "    }");
+    }
+
+}
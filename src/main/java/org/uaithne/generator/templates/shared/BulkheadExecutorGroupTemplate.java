@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class BulkheadExecutorGroupTemplate extends ClassTemplate {
+
+    public BulkheadExecutorGroupTemplate(String packageName) {
+        setPackageName(packageName);
+        addBulkheadImports(this, packageName);
+        setClassName("BulkheadExecutorGroup");
+        if (ERROR_MANAGEMENT) {
+            setExtend("ExecutorGroup");
+        } else {
+            addImplement("ExecutorGroup");
+        }
+        addContextImport(packageName);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private ExecutorGroup chainedExecutorGroup;\n");
+        writeBulkheadContent(appender, "chainedExecutorGroup");
+        appender.append("    /**\n"
+                + "     * @return the chainedExecutorGroup\n"
+                + "     */\n"
+                + "    public ExecutorGroup getChainedExecutorGroup() {\n"
+                + "        return chainedExecutorGroup;\n"
+                + "    }\n"
+                + "\n"
+                + "    public BulkheadExecutorGroup(ExecutorGroup chainedExecutorGroup) {\n"
+                + "        if (chainedExecutorGroup == null) {\n"
+                + "            throw new IllegalArgumentException(\"chainedExecutorGroup for the BulkheadExecutorGroup cannot be null\");\n"
+                + "        }\n"
+                + "        this.chainedExecutorGroup = chainedExecutorGroup;\n"
+                + "    }");
+    }
+
+    static void addBulkheadImports(ClassTemplate template, String packageName) {
+        template.addImport("java.util.ArrayList", packageName);
+        template.addImport("java.util.concurrent.ConcurrentHashMap", packageName);
+        template.addImport("java.util.concurrent.Semaphore", packageName);
+        template.addImport("java.util.concurrent.TimeUnit", packageName);
+        template.addImport("java.util.concurrent.atomic.AtomicLong", packageName);
+    }
+
+    static void writeBulkheadContent(Appendable appender, String next) throws IOException {
+        if (LAMBADAS_ENABLED) {
+            appender.append("    private final ConcurrentHashMap<Class, Semaphore> moduleLimits = new ConcurrentHashMap<Class, Semaphore>();\n"
+                    + "    private final ConcurrentHashMap<Class, Object> moduleKeys = new ConcurrentHashMap<Class, Object>();\n");
+        } else {
+            appender.append("    private final ConcurrentHashMap<Object, Semaphore> selectorLimits = new ConcurrentHashMap<Object, Semaphore>();\n");
+        }
+        appender.append("    private final ConcurrentHashMap<Class, Semaphore> operationLimits = new ConcurrentHashMap<Class, Semaphore>();\n"
+                + "    private final ThreadLocal<ArrayList<Semaphore>> heldPermits = new ThreadLocal<ArrayList<Semaphore>>();\n"
+                + "    private final AtomicLong rejectedCount = new AtomicLong();\n"
+                + "    private volatile long maxWaitInMillis;\n"
+                + "\n"
+                + "    @Override\n"
+                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                + "        Semaphore operationSemaphore = null;\n"
+                + "        if (!operationLimits.isEmpty()) {\n"
+                + "            operationSemaphore = operationLimits.get(operation.getClass());\n"
+                + "        }\n"
+                + "        Semaphore selectorSemaphore = null;\n");
+        if (LAMBADAS_ENABLED) {
+            appender.append("        if (!moduleLimits.isEmpty()) {\n"
+                    + "            selectorSemaphore = moduleLimits.get(operation.getClass());\n"
+                    + "        }\n");
+        } else {
+            appender.append("        if (!selectorLimits.isEmpty()) {\n"
+                    + "            Object executorSelector = operation.getExecutorSelector();\n"
+                    + "            if (executorSelector != null) {\n"
+                    + "                selectorSemaphore = selectorLimits.get(executorSelector);\n"
+                    + "            }\n"
+                    + "        }\n");
+        }
+        appender.append("        ArrayList<Semaphore> held = heldPermits.get();\n"
+                + "        if (held != null) {\n"
+                + "            // The call chain of this thread already holds these permits, acquiring\n"
+                + "            // them again would count it twice and could block it against itself\n"
+                + "            if (operationSemaphore != null && held.contains(operationSemaphore)) {\n"
+                + "                operationSemaphore = null;\n"
+                + "            }\n"
+                + "            if (selectorSemaphore != null && held.contains(selectorSemaphore)) {\n"
+                + "                selectorSemaphore = null;\n"
+                + "            }\n"
+                + "        }\n"
+                + "        if (operationSemaphore == null && selectorSemaphore == null) {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        }\n"
+                + "        boolean outermost = held == null;\n"
+                + "        if (outermost) {\n"
+                + "            held = new ArrayList<Semaphore>(2);\n"
+                + "            heldPermits.set(held);\n"
+                + "        }\n"
+                + "        int heldSize = held.size();\n"
+                + "        try {\n"
+                + "            if (operationSemaphore != null) {\n"
+                + "                acquire(operationSemaphore, operation.getClass());\n"
+                + "                held.add(operationSemaphore);\n"
+                + "            }\n"
+                + "            try {\n"
+                + "                if (selectorSemaphore != null) {\n"
+                + "                    acquire(selectorSemaphore, ").append(LAMBADAS_ENABLED ? "moduleKeys.get(operation.getClass())" : "operation.getExecutorSelector()").append(");\n"
+                + "                    held.add(selectorSemaphore);\n"
+                + "                }\n"
+                + "                try {\n"
+                + "                    return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "                } finally {\n"
+                + "                    if (selectorSemaphore != null) {\n"
+                + "                        selectorSemaphore.release();\n"
+                + "                    }\n"
+                + "                }\n"
+                + "            } finally {\n"
+                + "                if (operationSemaphore != null) {\n"
+                + "                    operationSemaphore.release();\n"
+                + "                }\n"
+                + "            }\n"
+                + "        } finally {\n"
+                + "            if (outermost) {\n"
+                + "                heldPermits.remove();\n"
+                + "            } else {\n"
+                + "                while (held.size() > heldSize) {\n"
+                + "                    held.remove(held.size() - 1);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    private void acquire(Semaphore semaphore, Object limitKey) {\n"
+                + "        if (semaphore.tryAcquire()) {\n"
+                + "            return;\n"
+                + "        }\n"
+                + "        long maxWait = maxWaitInMillis;\n"
+                + "        if (maxWait > 0) {\n"
+                + "            try {\n"
+                + "                if (semaphore.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {\n"
+                + "                    return;\n"
+                + "                }\n"
+                + "            } catch (InterruptedException e) {\n"
+                + "                Thread.currentThread().interrupt();\n"
+                + "            }\n"
+                + "        }\n"
+                + "        rejectedCount.incrementAndGet();\n"
+                + "        throw new OperationRejectedException(limitKey);\n"
+                + "    }\n"
+                + "\n");
+        if (LAMBADAS_ENABLED) {
+            appender.append("    /**\n"
+                    + "     * Limit the concurrent executions of all the operations handled by the\n"
+                    + "     * provided executor (and the executors chained after it), sharing the same\n"
+                    + "     * limit, the executor usually is the module executor; its class is the\n"
+                    + "     * limit key reported when an execution is rejected.\n"
+                    + "     * It must be configured before start executing operations.\n"
+                    + "     */\n"
+                    + "    public void limit(Executor moduleExecutor, int maxConcurrentExecutions) {\n"
+                    + "        if (moduleExecutor == null) {\n"
+                    + "            throw new IllegalArgumentException(\"moduleExecutor for limit cannot be null\");\n"
+                    + "        }\n"
+                    + "        if (maxConcurrentExecutions <= 0) {\n"
+                    + "            throw new IllegalArgumentException(\"maxConcurrentExecutions for limit must be greater than zero\");\n"
+                    + "        }\n"
+                    + "        Semaphore semaphore = new Semaphore(maxConcurrentExecutions);\n"
+                    + "        Object moduleKey = moduleExecutor.getClass();\n"
+                    + "        Executor current = moduleExecutor;\n"
+                    + "        while (current != null && current != this) {\n"
+                    + "            if (current.handlers != null) {\n"
+                    + "                for (Class operationType : current.handlers.keySet()) {\n"
+                    + "                    moduleKeys.put(operationType, moduleKey);\n"
+                    + "                    moduleLimits.put(operationType, semaphore);\n"
+                    + "                }\n"
+                    + "            }\n"
+                    + "            current = current.next;\n"
+                    + "        }\n"
+                    + "    }\n"
+                    + "\n");
+        } else {
+            appender.append("    /**\n"
+                    + "     * Limit the concurrent executions of the operations whose executor selector\n"
+                    + "     * is the provided one, the executor selector identifies the module.\n"
+                    + "     * It must be configured before start executing operations.\n"
+                    + "     */\n"
+                    + "    public void limit(Object executorSelector, int maxConcurrentExecutions) {\n"
+                    + "        if (executorSelector == null) {\n"
+                    + "            throw new IllegalArgumentException(\"executorSelector for limit cannot be null\");\n"
+                    + "        }\n"
+                    + "        if (maxConcurrentExecutions <= 0) {\n"
+                    + "            throw new IllegalArgumentException(\"maxConcurrentExecutions for limit must be greater than zero\");\n"
+                    + "        }\n"
+                    + "        selectorLimits.put(executorSelector, new Semaphore(maxConcurrentExecutions));\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    /**\n"
+                    + "     * @return the available executions for the executor selector, or -1 if it is not limited\n"
+                    + "     */\n"
+                    + "    public int getAvailableExecutions(Object executorSelector) {\n"
+                    + "        Semaphore semaphore = selectorLimits.get(executorSelector);\n"
+                    + "        if (semaphore == null) {\n"
+                    + "            return -1;\n"
+                    + "        }\n"
+                    + "        return semaphore.availablePermits();\n"
+                    + "    }\n"
+                    + "\n");
+        }
+        appender.append("    /**\n"
+                + "     * Limit the concurrent executions of the operations of the provided type,\n"
+                + "     * this limit is applied in addition to the limit of its executor selector.\n"
+                + "     * It must be configured before start executing operations.\n"
+                + "     */\n"
+                + "    public void limit(Class<? extends Operation> operationType, int maxConcurrentExecutions) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for limit cannot be null\");\n"
+                + "        }\n"
+                + "        if (maxConcurrentExecutions <= 0) {\n"
+                + "            throw new IllegalArgumentException(\"maxConcurrentExecutions for limit must be greater than zero\");\n"
+                + "        }\n"
+                + "        operationLimits.put(operationType, new Semaphore(maxConcurrentExecutions));\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the maxWaitInMillis\n"
+                + "     */\n"
+                + "    public long getMaxWaitInMillis() {\n"
+                + "        return maxWaitInMillis;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Time that an execution waits for a free slot before being rejected,\n"
+                + "     * by default it is 0 and the execution is rejected immediately.\n"
+                + "     */\n"
+                + "    public void setMaxWaitInMillis(long maxWaitInMillis) {\n"
+                + "        if (maxWaitInMillis < 0) {\n"
+                + "            throw new IllegalArgumentException(\"maxWaitInMillis cannot be negative\");\n"
+                + "        }\n"
+                + "        this.maxWaitInMillis = maxWaitInMillis;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the number of rejected executions\n"
+                + "     */\n"
+                + "    public long getRejectedCount() {\n"
+                + "        return rejectedCount.get();\n"
+                + "    }\n"
+                + "\n");
+    }
+
+}
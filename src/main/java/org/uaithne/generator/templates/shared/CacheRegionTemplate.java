@@ -0,0 +1,382 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class CacheRegionTemplate extends ClassTemplate {
+
+    public CacheRegionTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("java.lang.reflect.Array", packageName);
+        addImport("java.lang.reflect.Field", packageName);
+        addImport("java.lang.reflect.Modifier", packageName);
+        addImport("java.util.ArrayList", packageName);
+        addImport("java.util.Arrays", packageName);
+        addImport("java.util.HashMap", packageName);
+        addImport("java.util.HashSet", packageName);
+        addImport("java.util.List", packageName);
+        addImport("java.util.Map", packageName);
+        addImport("java.util.Set", packageName);
+        addImport("java.util.concurrent.ConcurrentHashMap", packageName);
+        addImport("java.util.concurrent.ConcurrentLinkedQueue", packageName);
+        addImport("java.util.concurrent.TimeUnit", packageName);
+        addImport("java.util.concurrent.atomic.AtomicLong", packageName);
+        setClassName("CacheRegion");
+        setFinal(true);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private static final ConcurrentHashMap<Class, Field[]> keyFields = new ConcurrentHashMap<Class, Field[]>();\n"
+                + "    private final Object group;\n"
+                + "    private final long timeToLive;\n"
+                + "    private final int maxSize;\n"
+                + "    private final ConcurrentHashMap<Object, CachedValue> values = new ConcurrentHashMap<Object, CachedValue>();\n"
+                + "    private final ConcurrentLinkedQueue<Object> insertionOrder = new ConcurrentLinkedQueue<Object>();\n"
+                + "    private final AtomicLong version = new AtomicLong();\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the group invalidated together with this region\n"
+                + "     */\n"
+                + "    public Object getGroup() {\n"
+                + "        return group;\n"
+                + "    }\n"
+                + "\n"
+                + "    public CachedValue get(Object key) {\n"
+                + "        CachedValue value = values.get(key);\n"
+                + "        if (value == null) {\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "        if (timeToLive > 0 && System.nanoTime() - value.expiration > 0) {\n"
+                + "            // The expired value is replaced by the next put of the same key\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "        return value;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The version changes each time the region is cleared, a value loaded before\n"
+                + "     * that is not stored.\n"
+                + "     */\n"
+                + "    public long getVersion() {\n"
+                + "        return version.get();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Stores the value, when the region is full the oldest stored values are\n"
+                + "     * evicted first.\n"
+                + "     */\n"
+                + "    public void put(Object key, Object value, long loadedInVersion) {\n"
+                + "        if (loadedInVersion != version.get()) {\n"
+                + "            return;\n"
+                + "        }\n"
+                + "        CachedValue cachedValue = new CachedValue(value, System.nanoTime() + timeToLive);\n"
+                + "        if (values.put(key, cachedValue) == null) {\n"
+                + "            insertionOrder.offer(key);\n"
+                + "        }\n"
+                + "        if (loadedInVersion != version.get()) {\n"
+                + "            // Cleared while it was being stored\n"
+                + "            values.remove(key, cachedValue);\n"
+                + "            return;\n"
+                + "        }\n"
+                + "        while (values.size() > maxSize) {\n"
+                + "            Object eldest = insertionOrder.poll();\n"
+                + "            if (eldest == null) {\n"
+                + "                break;\n"
+                + "            }\n"
+                + "            values.remove(eldest);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public void clear() {\n"
+                + "        version.incrementAndGet();\n"
+                + "        values.clear();\n"
+                + "        insertionOrder.clear();\n"
+                + "    }\n"
+                + "\n"
+                + "    public int size() {\n"
+                + "        return values.size();\n"
+                + "    }\n"
+                + "\n"
+                + "    public CacheRegion(Object group, long timeToLiveInMillis, int maxSize) {\n"
+                + "        if (maxSize <= 0) {\n"
+                + "            throw new IllegalArgumentException(\"maxSize for the CacheRegion must be a positive number\");\n"
+                + "        }\n"
+                + "        this.group = group;\n"
+                + "        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLiveInMillis);\n"
+                + "        this.maxSize = maxSize;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Creates a key with a copy of the values of the fields of the operation,\n"
+                + "     * changing the operation after its execution doesn't change the cached\n"
+                + "     * entry. The scope, like the context that provides the application\n"
+                + "     * parameter, is part of the key.\n"
+                + "     */\n"
+                + "    public static Object createKey(Object operation, Object scope) {\n"
+                + "        Class operationType = operation.getClass();\n"
+                + "        Field[] fields = getKeyFields(operationType);\n"
+                + "        Object[] fieldValues = new Object[fields.length];\n"
+                + "        try {\n"
+                + "            for (int i = 0; i < fields.length; i++) {\n"
+                + "                fieldValues[i] = copyKeyValue(fields[i].get(operation));\n"
+                + "            }\n"
+                + "        } catch (IllegalAccessException ex) {\n"
+                + "            throw new IllegalStateException(\"Unable to read the fields of the operation \" + operationType.getName(), ex);\n"
+                + "        }\n"
+                + "        return new Key(operationType, fieldValues, scope);\n"
+                + "    }\n"
+                + "\n"
+                + "    private static Field[] getKeyFields(Class operationType) {\n"
+                + "        Field[] result = keyFields.get(operationType);\n"
+                + "        if (result != null) {\n"
+                + "            return result;\n"
+                + "        }\n"
+                + "        ArrayList<Field> fields = new ArrayList<Field>();\n"
+                + "        for (Class type = operationType; type != null && type != Object.class; type = type.getSuperclass()) {\n"
+                + "            for (Field field : type.getDeclaredFields()) {\n"
+                + "                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {\n"
+                + "                    continue;\n"
+                + "                }\n"
+                + "                field.setAccessible(true);\n"
+                + "                fields.add(field);\n"
+                + "            }\n"
+                + "        }\n"
+                + "        result = fields.toArray(new Field[fields.size()]);\n"
+                + "        keyFields.put(operationType, result);\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    private static Object copyKeyValue(Object value) {\n"
+                + "        if (value instanceof List) {\n"
+                + "            return new ArrayList<Object>((List) value);\n"
+                + "        } else if (value instanceof Set) {\n"
+                + "            return new HashSet<Object>((Set) value);\n"
+                + "        } else if (value instanceof Map) {\n"
+                + "            return new HashMap<Object, Object>((Map) value);\n"
+                + "        } else if (value != null && value.getClass().isArray()) {\n"
+                + "            int length = Array.getLength(value);\n"
+                + "            Object copy = Array.newInstance(value.getClass().getComponentType(), length);\n"
+                + "            System.arraycopy(value, 0, copy, 0, length);\n"
+                + "            return copy;\n"
+                + "        }\n"
+                + "        return value;\n"
+                + "    }\n"
+                + "\n"
+                + "    private static final class Key {\n"
+                + "        private final Class operationType;\n"
+                + "        private final Object[] fieldValues;\n"
+                + "        private final Object scope;\n"
+                + "        private final int hash;\n"
+                + "\n"
+                + "        Key(Class operationType, Object[] fieldValues, Object scope) {\n"
+                + "            this.operationType = operationType;\n"
+                + "            this.fieldValues = fieldValues;\n"
+                + "            this.scope = scope;\n"
+                + "            int h = operationType.hashCode();\n"
+                + "            h = 31 * h + Arrays.deepHashCode(fieldValues);\n"
+                + "            h = 31 * h + (scope != null ? scope.hashCode() : 0);\n"
+                + "            this.hash = h;\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override\n"
+                + "        public boolean equals(Object obj) {\n"
+                + "            if (this == obj) {\n"
+                + "                return true;\n"
+                + "            }\n"
+                + "            if (!(obj instanceof Key)) {\n"
+                + "                return false;\n"
+                + "            }\n"
+                + "            Key other = (Key) obj;\n"
+                + "            if (hash != other.hash || operationType != other.operationType) {\n"
+                + "                return false;\n"
+                + "            }\n"
+                + "            if (scope != other.scope && (scope == null || !scope.equals(other.scope))) {\n"
+                + "                return false;\n"
+                + "            }\n"
+                + "            return Arrays.deepEquals(fieldValues, other.fieldValues);\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override\n"
+                + "        public int hashCode() {\n"
+                + "            return hash;\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public static final class CachedValue {\n"
+                + "        private final Object value;\n"
+                + "        private final long expiration;\n"
+                + "\n"
+                + "        public Object getValue() {\n"
+                + "            return value;\n"
+                + "        }\n"
+                + "\n"
+                + "        CachedValue(Object value, long expiration) {\n"
+                + "            this.value = value;\n"
+                + "            this.expiration = expiration;\n"
+                + "        }\n"
+                + "    }");
+    }
+
+    /**
+     * When the application parameter is not the context the scope hook is
+     * abstract, the shared library doesn't know how to obtain it.
+     */
+    static boolean isScopeAbstract() {
+        return HAS_CONTEXT_AND_APPPARAM_AND_ARE_DIFFERENT;
+    }
+
+    /**
+     * Writes the hook that returns the scope of the key of the operations, the
+     * application parameter is the only value of the context used by the queries.
+     */
+    static void writeScopeMethod(Appendable appender, String methodName, String keyDescription) throws IOException {
+        appender.append("    /**\n"
+                + "     * The scope is part of the key of the ").append(keyDescription).append(", only the\n");
+        if (isScopeAbstract()) {
+            appender.append("     * operations with the same scope share them. It must return the application\n"
+                    + "     * parameter provided by the context, or null if the operations don't use it.\n"
+                    + "     */\n"
+                    + "    protected abstract Object ").append(methodName).append("(").append(CONTEXT_TYPE).append(" context);\n"
+                    + "\n");
+        } else if (getGenerationInfo().getApplicationParameterType() != null) {
+            appender.append("     * operations with the same scope share them. By default it is the context,\n"
+                    + "     * that is the application parameter, and it is compared using equals.\n"
+                    + "     * Override it to return null when the operations don't use it.\n"
+                    + "     */\n"
+                    + "    protected Object ").append(methodName).append("(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "        return context;\n"
+                    + "    }\n"
+                    + "\n");
+        } else {
+            appender.append("     * operations with the same scope share them. By default it is null, the\n"
+                    + "     * operations are shared by all the contexts.\n"
+                    + "     */\n"
+                    + "    protected Object ").append(methodName).append("(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "\n");
+        }
+    }
+
+    static void writeCachingContent(Appendable appender, String next) throws IOException {
+        appender.append("    private static final Object ALL_GROUPS = new Object();\n"
+                + "    private final ConcurrentHashMap<Class, CacheRegion> cachedOperations = new ConcurrentHashMap<Class, CacheRegion>();\n"
+                + "    private final ConcurrentHashMap<Class, Object> invalidatingOperations = new ConcurrentHashMap<Class, Object>();\n"
+                + "\n"
+                + "    @Override\n"
+                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                + "        Class operationType = operation.getClass();\n"
+                + "        CacheRegion region = cachedOperations.get(operationType);\n"
+                + "        if (region != null) {\n");
+        if (HAS_CONTEXT) {
+            appender.append("            Object key = CacheRegion.createKey(operation, getCacheScope(context));\n");
+        } else {
+            appender.append("            Object key = CacheRegion.createKey(operation, null);\n");
+        }
+        appender.append("            CacheRegion.CachedValue cachedValue = region.get(key);\n"
+                + "            if (cachedValue != null) {\n"
+                + "                return (RESULT) cachedValue.getValue();\n"
+                + "            }\n"
+                + "            long version = region.getVersion();\n"
+                + "            RESULT result = ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "            region.put(key, result, version);\n"
+                + "            return result;\n"
+                + "        }\n"
+                + "        Object group = invalidatingOperations.get(operationType);\n"
+                + "        if (group == null) {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        }\n"
+                + "        try {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        } finally {\n"
+                + "            if (group == ALL_GROUPS) {\n"
+                + "                clear();\n"
+                + "            } else {\n"
+                + "                invalidate(group);\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n");
+        if (HAS_CONTEXT) {
+            writeScopeMethod(appender, "getCacheScope", "cached results");
+        }
+        appender.append("    /**\n"
+                + "     * Cache the results of the operations of the provided type, the values of\n"
+                + "     * the operation are used as key, and the results are shared, they must not\n"
+                + "     * be modified.\n"
+                + "     */\n"
+                + "    public void cache(Class<? extends Operation> operationType, Object group, long timeToLiveInMillis, int maxSize) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for cache cannot be null\");\n"
+                + "        }\n"
+                + "        cachedOperations.put(operationType, new CacheRegion(group, timeToLiveInMillis, maxSize));\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Invalidate the cached results of the group each time an operation of\n"
+                + "     * the provided type is executed.\n"
+                + "     */\n"
+                + "    public void invalidateWhen(Class<? extends Operation> operationType, Object group) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for invalidateWhen cannot be null\");\n"
+                + "        }\n"
+                + "        if (group == null) {\n"
+                + "            throw new IllegalArgumentException(\"group for invalidateWhen cannot be null\");\n"
+                + "        }\n"
+                + "        invalidatingOperations.put(operationType, group);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Invalidate all the cached results each time an operation of the provided\n"
+                + "     * type is executed.\n"
+                + "     */\n"
+                + "    public void clearWhen(Class<? extends Operation> operationType) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for clearWhen cannot be null\");\n"
+                + "        }\n"
+                + "        invalidatingOperations.put(operationType, ALL_GROUPS);\n"
+                + "    }\n"
+                + "\n"
+                + "    public void invalidate(Object group) {\n"
+                + "        for (CacheRegion region : cachedOperations.values()) {\n"
+                + "            if (group.equals(region.getGroup())) {\n"
+                + "                region.clear();\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public void invalidate(Class<? extends Operation> operationType) {\n"
+                + "        CacheRegion region = cachedOperations.get(operationType);\n"
+                + "        if (region != null) {\n"
+                + "            region.clear();\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public void clear() {\n"
+                + "        for (CacheRegion region : cachedOperations.values()) {\n"
+                + "            region.clear();\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n");
+    }
+
+}
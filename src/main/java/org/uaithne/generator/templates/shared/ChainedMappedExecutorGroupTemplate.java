@@ -38,14 +38,20 @@ public class ChainedMappedExecutorGroupTemplate extends ClassTemplate {
     
     @Override
     protected void writeContent(Appendable appender) throws IOException {
-        appender.append("    private HashMap<Object, Executor> executorMap;\n"
+        appender.append("    /**\n"
+                + "     * The executors are kept in a map that is never modified once published, each\n"
+                + "     * change replaces it with a modified copy, so the executors can be added or removed\n"
+                + "     * while operations are being executed without locking the execution.\n"
+                + "     */\n"
+                + "    private volatile HashMap<Object, Executor> executorMap;\n"
                 + "    private ExecutorGroup chainedExecutorGroup;\n"
                 + "\n"
                 + "    public Executor getCustomizedExecutor(Operation operation) {\n"
-                + "        if (executorMap == null) {\n"
+                + "        HashMap<Object, Executor> currentExecutorMap = executorMap;\n"
+                + "        if (currentExecutorMap == null) {\n"
                 + "            return null;\n"
                 + "        }\n"
-                + "        return executorMap.get(operation.getExecutorSelector());\n"
+                + "        return currentExecutorMap.get(operation.getExecutorSelector());\n"
                 + "    }\n"
                 + "\n"
                 + "    @Override\n"
@@ -65,29 +71,36 @@ public class ChainedMappedExecutorGroupTemplate extends ClassTemplate {
                 + "        return chainedExecutorGroup;\n"
                 + "    }\n"
                 + "    \n"
-                + "    public Executor addCustomExecutor(Executor executor) {\n"
+                + "    public synchronized Executor addCustomExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            throw new IllegalArgumentException(\"executor for add to the ChainedMappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
+                + "        HashMap<Object, Executor> newExecutorMap;\n"
                 + "        if (executorMap == null) {\n"
-                + "            executorMap = new HashMap<Object, Executor>();\n"
+                + "            newExecutorMap = new HashMap<Object, Executor>();\n"
+                + "        } else {\n"
+                + "            newExecutorMap = new HashMap<Object, Executor>(executorMap);\n"
                 + "        }\n"
-                + "        return executorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        Executor previous = newExecutorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return previous;\n"
                 + "    }\n"
                 + "    \n"
-                + "    public boolean removeCustomExecutor(Executor executor) {\n"
+                + "    public synchronized boolean removeCustomExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
                 + "        if (executorMap == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
-                + "        if (executorMap.containsValue(executor)) {\n"
-                + "            executorMap.remove(executor.getExecutorSelector());\n"
-                + "            return true;\n"
-                + "        } else {\n"
+                + "        Object executorSelector = executor.getExecutorSelector();\n"
+                + "        if (!executor.equals(executorMap.get(executorSelector))) {\n"
                 + "            return false;\n"
                 + "        }\n"
+                + "        HashMap<Object, Executor> newExecutorMap = new HashMap<Object, Executor>(executorMap);\n"
+                + "        newExecutorMap.remove(executorSelector);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return true;\n"
                 + "    }\n"
                 + "\n"
                 + "    public ChainedMappedExecutorGroup(ExecutorGroup chainedExecutorGroup) {\n"
@@ -38,14 +38,20 @@ public class ChainedMappedExecutorGroupTemplate_WithExecutorGroup extends ClassT
     
     @Override
     protected void writeContent(Appendable appender) throws IOException {
-        appender.append("    private HashMap<Object, ExecutorGroup> executorMap;\n"
+        appender.append("    /**\n"
+                + "     * The executors are kept in a map that is never modified once published, each\n"
+                + "     * change replaces it with a modified copy, so the executors can be added or removed\n"
+                + "     * while operations are being executed without locking the execution.\n"
+                + "     */\n"
+                + "    private volatile HashMap<Object, ExecutorGroup> executorMap;\n"
                 + "    private ExecutorGroup chainedExecutorGroup;\n"
                 + "\n"
                 + "    public ExecutorGroup getCustomizedExecutor(Operation operation) {\n"
-                + "        if (executorMap == null) {\n"
+                + "        HashMap<Object, ExecutorGroup> currentExecutorMap = executorMap;\n"
+                + "        if (currentExecutorMap == null) {\n"
                 + "            return null;\n"
                 + "        }\n"
-                + "        return executorMap.get(operation.getExecutorSelector());\n"
+                + "        return currentExecutorMap.get(operation.getExecutorSelector());\n"
                 + "    }\n"
                 + "\n"
                 + "    @Override\n"
@@ -65,57 +71,70 @@ public class ChainedMappedExecutorGroupTemplate_WithExecutorGroup extends ClassT
                 + "        return chainedExecutorGroup;\n"
                 + "    }\n"
                 + "    \n"
-                + "    public ExecutorGroup addCustomExecutor(Executor executor) {\n"
+                + "    public synchronized ExecutorGroup addCustomExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            throw new IllegalArgumentException(\"executor for add to the ChainedMappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap;\n"
                 + "        if (executorMap == null) {\n"
-                + "            executorMap = new HashMap<Object, ExecutorGroup>();\n"
+                + "            newExecutorMap = new HashMap<Object, ExecutorGroup>();\n"
+                + "        } else {\n"
+                + "            newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
                 + "        }\n"
-                + "        return executorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        ExecutorGroup previous = newExecutorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return previous;\n"
                 + "    }\n"
                 + "    \n"
-                + "    public ExecutorGroup addCustomExecutor(ExecutorGroup executorGroup, Object executorSelector) {\n"
+                + "    public synchronized ExecutorGroup addCustomExecutor(ExecutorGroup executorGroup, Object executorSelector) {\n"
                 + "        if (executorGroup == null) {\n"
                 + "            throw new IllegalArgumentException(\"executorGroup for add to the ChainedMappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
                 + "        if (executorSelector == null) {\n"
                 + "            throw new IllegalArgumentException(\"executorSelector for add to the ChainedMappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap;\n"
                 + "        if (executorMap == null) {\n"
-                + "            executorMap = new HashMap<Object, ExecutorGroup>();\n"
+                + "            newExecutorMap = new HashMap<Object, ExecutorGroup>();\n"
+                + "        } else {\n"
+                + "            newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
                 + "        }\n"
-                + "        return executorMap.put(executorSelector, executorGroup);\n"
+                + "        ExecutorGroup previous = newExecutorMap.put(executorSelector, executorGroup);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return previous;\n"
                 + "    }\n"
                 + "    \n"
-                + "    public boolean removeCustomExecutor(Executor executor) {\n"
+                + "    public synchronized boolean removeCustomExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
                 + "        if (executorMap == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
-                + "        if (executorMap.containsValue(executor)) {\n"
-                + "            executorMap.remove(executor.getExecutorSelector());\n"
-                + "            return true;\n"
-                + "        } else {\n"
+                + "        Object executorSelector = executor.getExecutorSelector();\n"
+                + "        if (!executor.equals(executorMap.get(executorSelector))) {\n"
                 + "            return false;\n"
                 + "        }\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
+                + "        newExecutorMap.remove(executorSelector);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return true;\n"
                 + "    }\n"
                 + "    \n"
-                + "    public boolean removeCustomExecutorBySelector(Object executorSelector) {\n"
+                + "    public synchronized boolean removeCustomExecutorBySelector(Object executorSelector) {\n"
                 + "        if (executorSelector == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
                 + "        if (executorMap == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
-                + "        if (executorMap.containsKey(executorSelector)) {\n"
-                + "            executorMap.remove(executorSelector);\n"
-                + "            return true;\n"
-                + "        } else {\n"
+                + "        if (!executorMap.containsKey(executorSelector)) {\n"
                 + "            return false;\n"
                 + "        }\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
+                + "        newExecutorMap.remove(executorSelector);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return true;\n"
                 + "    }\n"
                 + "\n"
                 + "    public ChainedMappedExecutorGroup(ExecutorGroup chainedExecutorGroup) {\n"
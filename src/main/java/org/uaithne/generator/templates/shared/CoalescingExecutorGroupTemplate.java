@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class CoalescingExecutorGroupTemplate extends ClassTemplate {
+
+    public CoalescingExecutorGroupTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("java.util.concurrent.ConcurrentHashMap", packageName);
+        addImport("java.util.concurrent.CountDownLatch", packageName);
+        addImport("java.util.concurrent.TimeUnit", packageName);
+        setClassName("CoalescingExecutorGroup");
+        if (ERROR_MANAGEMENT) {
+            setExtend("ExecutorGroup");
+        } else {
+            addImplement("ExecutorGroup");
+        }
+        setAbstract(CacheRegionTemplate.isScopeAbstract());
+        addContextImport(packageName);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private ExecutorGroup chainedExecutorGroup;\n");
+        writeCoalescingContent(appender, "chainedExecutorGroup");
+        appender.append("    /**\n"
+                + "     * @return the chainedExecutorGroup\n"
+                + "     */\n"
+                + "    public ExecutorGroup getChainedExecutorGroup() {\n"
+                + "        return chainedExecutorGroup;\n"
+                + "    }\n"
+                + "\n"
+                + "    public CoalescingExecutorGroup(ExecutorGroup chainedExecutorGroup) {\n"
+                + "        if (chainedExecutorGroup == null) {\n"
+                + "            throw new IllegalArgumentException(\"chainedExecutorGroup for the CoalescingExecutorGroup cannot be null\");\n"
+                + "        }\n"
+                + "        this.chainedExecutorGroup = chainedExecutorGroup;\n"
+                + "    }");
+    }
+
+    static void writeCoalescingContent(Appendable appender, String next) throws IOException {
+        appender.append("    private final ConcurrentHashMap<Class, Boolean> coalescedOperations = new ConcurrentHashMap<Class, Boolean>();\n"
+                + "    private final ConcurrentHashMap<Object, InFlightExecution> inFlightExecutions = new ConcurrentHashMap<Object, InFlightExecution>();\n"
+                + "    private volatile long maxWaitMillis;\n"
+                + "\n"
+                + "    @Override\n"
+                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                + "        if (coalescedOperations.get(operation.getClass()) == null) {\n"
+                + "            return ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        }\n");
+        if (HAS_CONTEXT) {
+            appender.append("        Object key = CacheRegion.createKey(operation, getCoalescingScope(context));\n");
+        } else {
+            appender.append("        Object key = CacheRegion.createKey(operation, null);\n");
+        }
+        appender.append("        InFlightExecution execution = new InFlightExecution();\n"
+                + "        InFlightExecution running = inFlightExecutions.putIfAbsent(key, execution);\n"
+                + "        if (running != null) {\n");
+        if (HAS_CONTEXT) {
+            appender.append("            return (RESULT) running.await(getWaitDeadline(getDeadline(context)));\n");
+        } else {
+            appender.append("            return (RESULT) running.await(getWaitDeadline(0));\n");
+        }
+        appender.append("        }\n"
+                + "        RESULT result;\n"
+                + "        try {\n"
+                + "            result = ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        } catch (RuntimeException e) {\n"
+                + "            inFlightExecutions.remove(key, execution);\n"
+                + "            execution.complete(null, e);\n"
+                + "            throw e;\n"
+                + "        } catch (Error e) {\n"
+                + "            inFlightExecutions.remove(key, execution);\n"
+                + "            execution.complete(null, e);\n"
+                + "            throw e;\n"
+                + "        }\n"
+                + "        inFlightExecutions.remove(key, execution);\n"
+                + "        execution.complete(result, null);\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the time, as System.nanoTime, until a caller waits for the equal operation\n"
+                + "     * in execution, or 0 to wait until it finishes\n"
+                + "     */\n"
+                + "    private long getWaitDeadline(long deadlineMillis) {\n"
+                + "        long maxWait = maxWaitMillis;\n"
+                + "        if (maxWait <= 0 && deadlineMillis <= 0) {\n"
+                + "            return 0;\n"
+                + "        }\n"
+                + "        long waitMillis = maxWait;\n"
+                + "        if (deadlineMillis > 0) {\n"
+                + "            long untilDeadline = deadlineMillis - System.currentTimeMillis();\n"
+                + "            if (waitMillis <= 0 || untilDeadline < waitMillis) {\n"
+                + "                waitMillis = untilDeadline;\n"
+                + "            }\n"
+                + "        }\n"
+                + "        long result = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);\n"
+                + "        // 0 means without limit\n"
+                + "        return result == 0 ? 1 : result;\n"
+                + "    }\n"
+                + "\n");
+        if (HAS_CONTEXT) {
+            CacheRegionTemplate.writeScopeMethod(appender, "getCoalescingScope", "coalesced operations");
+            appender.append("    /**\n"
+                    + "     * @return the time, as System.currentTimeMillis, when the execution requested with\n"
+                    + "     * the context must be finished, or 0 if there is no deadline; a caller doesn't wait\n"
+                    + "     * for the equal operation in execution beyond it\n"
+                    + "     */\n"
+                    + "    protected long getDeadline(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "        return 0;\n"
+                    + "    }\n"
+                    + "\n");
+        }
+        appender.append("    /**\n"
+                + "     * Allow only one execution at the same time of the equal operations of the\n"
+                + "     * provided type, the other callers wait for it and receive the same result\n"
+                + "     * or exception. A copy of the values of the operation is used as key");
+        if (HAS_CONTEXT) {
+            appender.append(", together\n"
+                    + "     * with the scope returned by getCoalescingScope");
+        }
+        appender.append(". The other callers receive the same result instance\n"
+                + "     * than the first one, not a copy, it must not be modified.\n"
+                + "     * Only read operations must be coalesced.\n"
+                + "     */\n"
+                + "    public void coalesce(Class<? extends Operation> operationType) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for coalesce cannot be null\");\n"
+                + "        }\n"
+                + "        coalescedOperations.put(operationType, Boolean.TRUE);\n"
+                + "    }\n"
+                + "\n"
+                + "    public boolean isCoalesced(Class<? extends Operation> operationType) {\n"
+                + "        return coalescedOperations.get(operationType) != null;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the number of distinct operations currently in execution\n"
+                + "     */\n"
+                + "    public int getInFlightExecutionCount() {\n"
+                + "        return inFlightExecutions.size();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the maxWaitMillis\n"
+                + "     */\n"
+                + "    public long getMaxWaitMillis() {\n"
+                + "        return maxWaitMillis;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Maximum time that a caller waits for the equal operation in execution before\n"
+                + "     * it is rejected; zero (the default value) waits until it finishes.\n"
+                + "     * @param maxWaitMillis the maxWaitMillis to set\n"
+                + "     */\n"
+                + "    public void setMaxWaitMillis(long maxWaitMillis) {\n"
+                + "        if (maxWaitMillis < 0) {\n"
+                + "            throw new IllegalArgumentException(\"maxWaitMillis cannot be negative\");\n"
+                + "        }\n"
+                + "        this.maxWaitMillis = maxWaitMillis;\n"
+                + "    }\n"
+                + "\n"
+                + "    private static final class InFlightExecution {\n"
+                + "        private final CountDownLatch done = new CountDownLatch(1);\n"
+                + "        private Object result;\n"
+                + "        private Throwable failure;\n"
+                + "\n"
+                + "        void complete(Object result, Throwable failure) {\n"
+                + "            this.result = result;\n"
+                + "            this.failure = failure;\n"
+                + "            done.countDown();\n"
+                + "        }\n"
+                + "\n"
+                + "        /**\n"
+                + "         * @param waitDeadline the time, as System.nanoTime, until it waits, or 0 for\n"
+                + "         * wait until the execution finishes\n"
+                + "         * @return the same result received by the caller that executed the operation\n"
+                + "         */\n"
+                + "        Object await(long waitDeadline) {\n"
+                + "            try {\n"
+                + "                if (waitDeadline == 0) {\n"
+                + "                    done.await();\n"
+                + "                } else if (!done.await(waitDeadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {\n"
+                + "                    throw new OperationRejectedException(\"The time waiting for the equal operation in execution has expired\");\n"
+                + "                }\n"
+                + "            } catch (InterruptedException e) {\n"
+                + "                Thread.currentThread().interrupt();\n"
+                + "                throw new OperationRejectedException(\"Interrupted while waiting for the equal operation in execution\");\n"
+                + "            }\n"
+                + "            if (failure instanceof RuntimeException) {\n"
+                + "                throw (RuntimeException) failure;\n"
+                + "            }\n"
+                + "            if (failure instanceof Error) {\n"
+                + "                throw (Error) failure;\n"
+                + "            }\n"
+                + "            return result;\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n");
+    }
+
+}
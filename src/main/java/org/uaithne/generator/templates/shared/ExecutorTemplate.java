@@ -55,10 +55,7 @@ public class ExecutorTemplate extends ClassTemplate {
                         + "        try {\n"
                         + "            return executeAnyOperation(operation").append(CONTEXT_VALUE).append(");\n"
                         + "        } catch (OperationExecutionException ex) {\n"
-                        + "            if (ex.sameContent(operation").append(CONTEXT_VALUE).append(")) {\n"
-                        + "                throw ex;\n"
-                        + "            }\n"
-                        + "            throw new OperationExecutionException(operation").append(CONTEXT_VALUE).append(", ex);\n"
+                        + "            throw ex;\n"
                         + "        } catch (PublicException ex) {\n"
                         + "            throw ex;\n"
                         + "        } catch (Exception ex) {\n"
@@ -26,7 +26,10 @@ public class ExecutorTemplate_WithLamdas extends ClassTemplate {
     public ExecutorTemplate_WithLamdas(String packageName) {
         setPackageName(packageName);
         setClassName("Executor");
+        addImport("java.lang.reflect.Method", packageName);
         addImport("java.util.HashMap", packageName);
+        addImport("java.util.concurrent.ConcurrentHashMap", packageName);
+        addImport("java.util.concurrent.atomic.AtomicInteger", packageName);
         if (HAS_CONTEXT) {
             addImport("java.util.function.BiFunction", packageName);
         } else {
@@ -39,16 +42,53 @@ public class ExecutorTemplate_WithLamdas extends ClassTemplate {
     protected void writeContent(Appendable appender) throws IOException {
         String functionClass;
         String functionType;
+        String delegateType;
+        String noHandler;
+        String delegate;
         if (HAS_CONTEXT) {
             functionClass = "BiFunction";
             functionType = "BiFunction<OPERATION, " + CONTEXT_TYPE + ", RESULT>";
+            delegateType = "BiFunction<Operation, " + CONTEXT_TYPE + ", Object>";
+            noHandler = "(operation, context) -> null";
+            delegate = "(operation, context) -> following.execute(operation, context)";
         } else {
             functionClass = "Function";
             functionType = "Function<OPERATION, RESULT>";
+            delegateType = "Function<Operation, Object>";
+            noHandler = "operation -> null";
+            delegate = "operation -> following.execute(operation)";
         }
 
-        appender.append("    protected final Executor next;\n"
-                + "    HashMap<Class, ").append(functionClass).append("> handlers;\n"
+        appender.append("    private static final ").append(functionClass).append(" NO_HANDLER = ").append(noHandler).append(";\n"
+                + "    private static final ClassValue<Boolean> TRANSPARENT_TYPES = new ClassValue<Boolean>() {\n"
+                + "        @Override\n"
+                + "        protected Boolean computeValue(Class<?> executorType) {\n"
+                + "            for (Class<?> type = executorType; type != Executor.class; type = type.getSuperclass()) {\n"
+                + "                for (Method method : type.getDeclaredMethods()) {\n"
+                + "                    if (method.getName().equals(\"").append(EXECUTE_ANY).append("\")) {\n"
+                + "                        return Boolean.FALSE;\n"
+                + "                    }\n"
+                + "                }\n"
+                + "            }\n"
+                + "            return Boolean.TRUE;\n"
+                + "        }\n"
+                + "    };\n"
+                + "\n"
+                + "    protected final Executor next;\n"
+                + "    volatile ConcurrentHashMap<Class, ").append(functionClass).append("> handlers;\n"
+                + "    /**\n"
+                + "     * An executor is transparent when it doesn't override the operation execution, the\n"
+                + "     * operations that it doesn't handle can be sent directly to the handler of the next ones.\n"
+                + "     */\n"
+                + "    private final boolean transparent;\n"
+                + "    /**\n"
+                + "     * Shared with the next executors, incremented when a handler is registered in an\n"
+                + "     * executor already used for resolve the handlers; the handlers resolved before that\n"
+                + "     * by the executors of the chain are discarded.\n"
+                + "     */\n"
+                + "    private final AtomicInteger chainVersion;\n"
+                + "    private volatile boolean resolved;\n"
+                + "    private volatile Dispatch dispatch;\n"
                 + "\n"
                 + "    public final Executor getNext() {\n"
                 + "        return next;\n"
@@ -59,10 +99,7 @@ public class ExecutorTemplate_WithLamdas extends ClassTemplate {
                     + "        try {\n"
                     + "            return executeAnyOperation(operation").append(CONTEXT_VALUE).append(");\n"
                     + "        } catch (OperationExecutionException ex) {\n"
-                    + "            if (ex.sameContent(operation").append(CONTEXT_VALUE).append(")) {\n"
-                    + "                throw ex;\n"
-                    + "            }\n"
-                    + "            throw new OperationExecutionException(operation").append(CONTEXT_VALUE).append(", ex);\n"
+                    + "            throw ex;\n"
                     + "        } catch (PublicException ex) {\n"
                     + "            throw ex;\n"
                     + "        } catch (Exception ex) {\n"
@@ -72,14 +109,17 @@ public class ExecutorTemplate_WithLamdas extends ClassTemplate {
                     + "\n");
         }
         appender.append("    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
-                + "        if (handlers != null) {\n"
-                + "            ").append(functionType).append(" handler = handlers.get(operation.getClass());\n"
-                + "            if (handler != null) {\n"
-                + "                return handler.apply(operation").append(CONTEXT_VALUE).append(");\n"
-                + "            }\n"
+                + "        Dispatch current = dispatch;\n"
+                + "        Class operationType = operation.getClass();\n"
+                + "        ").append(functionClass).append(" handler = null;\n"
+                + "        if (current.version == chainVersion.get()) {\n"
+                + "            handler = current.handlers.get(operationType);\n"
+                + "        }\n"
+                + "        if (handler == null) {\n"
+                + "            handler = resolveHandler(operationType);\n"
                 + "        }\n"
-                + "        if (next != null) {\n"
-                + "            return next.execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "        if (handler != NO_HANDLER) {\n"
+                + "            return (RESULT) handler.apply(operation").append(CONTEXT_VALUE).append(");\n"
                 + "        }\n");
         if (ERROR_MANAGEMENT) {
             appender.append("        throw new OperationExecutionException(operation").append(CONTEXT_VALUE).append(", \"No handler found for the operation: \" + operation.getClass().getTypeName());\n");
@@ -92,11 +132,63 @@ public class ExecutorTemplate_WithLamdas extends ClassTemplate {
         }
         appender.append("    }\n"
                 + "\n"
+                + "    /**\n"
+                + "     * Find the handler of the operation type in this executor or in the following transparent ones,\n"
+                + "     * the result is cached per operation type until a handler is registered in the chain.\n"
+                + "     */\n"
+                + "    private ").append(functionClass).append(" resolveHandler(Class<?> operationType) {\n"
+                + "        // The version is read before the handlers, a handler registered meanwhile discards the result\n"
+                + "        int version = chainVersion.get();\n"
+                + "        ").append(functionClass).append(" result = null;\n"
+                + "        Executor current = this;\n"
+                + "        while (result == null) {\n"
+                + "            if (!current.resolved) {\n"
+                + "                current.resolved = true;\n"
+                + "            }\n"
+                + "            ConcurrentHashMap<Class, ").append(functionClass).append("> currentHandlers = current.handlers;\n"
+                + "            if (currentHandlers != null) {\n"
+                + "                result = currentHandlers.get(operationType);\n"
+                + "                if (result != null) {\n"
+                + "                    break;\n"
+                + "                }\n"
+                + "            }\n"
+                + "            Executor following = current.next;\n"
+                + "            if (following == null) {\n"
+                + "                result = NO_HANDLER;\n"
+                + "            } else if (!following.transparent) {\n"
+                + "                result = (").append(delegateType).append(") ").append(delegate).append(";\n"
+                + "            } else {\n"
+                + "                current = following;\n"
+                + "            }\n"
+                + "        }\n"
+                + "        Dispatch previous = dispatch;\n"
+                + "        HashMap<Class, ").append(functionClass).append("> resolvedHandlers;\n"
+                + "        if (previous.version == version) {\n"
+                + "            resolvedHandlers = new HashMap<>(previous.handlers);\n"
+                + "        } else {\n"
+                + "            resolvedHandlers = new HashMap<>();\n"
+                + "        }\n"
+                + "        resolvedHandlers.put(operationType, result);\n"
+                + "        // The map is never modified once published, a concurrent resolution can replace it\n"
+                + "        dispatch = new Dispatch(version, resolvedHandlers);\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Register the handler of an operation type, usually in the constructor; the handlers\n"
+                + "     * registered later are used by the following executions.\n"
+                + "     */\n"
                 + "    protected final ").append(OPERATION_BASE_DEFINITION).append(" void handle(Class<OPERATION> operationType, ").append(functionType).append(" handler) {\n"
-                + "        if (handlers == null) {\n"
-                + "            handlers = new HashMap<>();\n"
+                + "        ConcurrentHashMap<Class, ").append(functionClass).append("> currentHandlers = handlers;\n"
+                + "        if (currentHandlers == null) {\n"
+                + "            currentHandlers = new ConcurrentHashMap<>();\n"
+                + "            handlers = currentHandlers;\n"
+                + "        }\n"
+                + "        currentHandlers.put(operationType, handler);\n"
+                + "        // Only the executors that have walked through this one can have it cached\n"
+                + "        if (resolved) {\n"
+                + "            chainVersion.incrementAndGet();\n"
                 + "        }\n"
-                + "        handlers.put(operationType, handler);\n"
                 + "    }\n"
                 + "\n"
                 + "    public Executor() {\n"
@@ -105,6 +197,23 @@ public class ExecutorTemplate_WithLamdas extends ClassTemplate {
                 + "\n"
                 + "    public Executor(Executor next) {\n"
                 + "        this.next = next;\n"
+                + "        this.transparent = TRANSPARENT_TYPES.get(getClass());\n"
+                + "        if (next == null) {\n"
+                + "            chainVersion = new AtomicInteger();\n"
+                + "        } else {\n"
+                + "            chainVersion = next.chainVersion;\n"
+                + "        }\n"
+                + "        dispatch = new Dispatch(chainVersion.get(), new HashMap<Class, ").append(functionClass).append(">());\n"
+                + "    }\n"
+                + "\n"
+                + "    private static final class Dispatch {\n"
+                + "        final int version;\n"
+                + "        final HashMap<Class, ").append(functionClass).append("> handlers;\n"
+                + "\n"
+                + "        Dispatch(int version, HashMap<Class, ").append(functionClass).append("> handlers) {\n"
+                + "            this.version = version;\n"
+                + "            this.handlers = handlers;\n"
+                + "        }\n"
                 + "    }");
     }
 
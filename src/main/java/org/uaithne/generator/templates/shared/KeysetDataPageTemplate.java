@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import static org.uaithne.generator.commons.DataTypeInfo.*;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class KeysetDataPageTemplate extends ClassTemplate {
+
+    public KeysetDataPageTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport(LIST_DATA_TYPE, packageName);
+        addImport(PAGE_INFO_DATA_TYPE, packageName);
+        setClassName("KeysetDataPage");
+        addGenericArgument(RESULT_BASE_DEFINITION);
+        addGenericArgument("KEY");
+        setExtend("DataPage<RESULT>");
+    }
+
+    @Override
+    protected void writeClassAnnotations(Appendable appender) throws IOException {
+        appender.append("/**\n"
+                + " * Page loaded using keyset pagination, the lastKey is the key of the last row\n"
+                + " * of the page and must be used as the lastKey of the request for the next page.\n"
+                + " */\n");
+        super.writeClassAnnotations(appender);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private KEY lastKey;\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the lastKey\n"
+                + "     */\n"
+                + "    public KEY getLastKey() {\n"
+                + "        return lastKey;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @param lastKey the lastKey to set\n"
+                + "     */\n"
+                + "    public void setLastKey(KEY lastKey) {\n"
+                + "        this.lastKey = lastKey;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public boolean equals(Object obj) {\n"
+                + "        if (!super.equals(obj)) {\n"
+                + "            return false;\n"
+                + "        }\n"
+                + "        final KeysetDataPage other = (KeysetDataPage) obj;\n"
+                + "        if ((this.lastKey == null) ? (other.lastKey != null) : !this.lastKey.equals(other.lastKey)) {\n"
+                + "            return false;\n"
+                + "        }\n"
+                + "        return true;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public int hashCode() {\n"
+                + "        int hash = super.hashCode();\n"
+                + "        hash = 23 * hash + (this.lastKey != null ? this.lastKey.hashCode() : 0);\n"
+                + "        return hash;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public String toString() {\n"
+                + "        return \"KeysetDataPage{limit=\" + getLimit() + \"| offset=\" + getOffset() + \"| dataCount=\" + getDataCount() + \"| data=\" + getData() + \"| lastKey=\" + lastKey + \"}\";\n"
+                + "    }\n"
+                + "\n"
+                + "    public KeysetDataPage() {\n"
+                + "    }\n"
+                + "\n"
+                + "    public KeysetDataPage(").append(PAGE_INFO_DATA).append(" limit, ").append(PAGE_INFO_DATA).append(" offset, ").append(PAGE_INFO_DATA).append(" dataCount, ").append(LIST_DATA).append("<RESULT> data, KEY lastKey) {\n"
+                + "        super(limit, offset, dataCount, data);\n"
+                + "        this.lastKey = lastKey;\n"
+                + "    }");
+    }
+
+}
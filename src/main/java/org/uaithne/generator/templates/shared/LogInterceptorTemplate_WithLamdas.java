@@ -27,6 +27,9 @@ public class LogInterceptorTemplate_WithLamdas extends ClassTemplate {
         setPackageName(packageName);
         addImport("java.util.logging.Level", packageName);
         addImport("java.util.logging.Logger", packageName);
+        addImport("java.util.Collection", packageName);
+        addImport("java.util.concurrent.TimeUnit", packageName);
+        addImport("java.util.concurrent.atomic.AtomicLong", packageName);
         setClassName("LogInterceptor");
         if (LAMBADAS_ENABLED) {
             setExtend("Executor");
@@ -37,34 +40,10 @@ public class LogInterceptorTemplate_WithLamdas extends ClassTemplate {
 
     @Override
     protected void writeContent(Appendable appender) throws IOException {
-        String context;
-        if (HAS_CONTEXT) {
-            context = " + \". Context: \" + context";
-        } else {
-            context = "";
-        }
         appender.append("    private final Logger logger;\n"
-                + "    private final String shortName;\n"
-                + "\n"
-                + "    @Override\n"
-                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
-                + "        boolean fineLevelEnabled = logger.isLoggable(Level.FINE);\n"
-                + "        try {\n"
-                + "            if (fineLevelEnabled) {\n"
-                + "                logger.log(Level.FINE, shortName + \": Execute operation requested. Operation: \" + operation").append(context).append(");\n"
-                + "                RESULT result = next.execute(operation").append(CONTEXT_VALUE).append(");\n"
-                + "                logger.log(Level.FINE, shortName + \": Execute operation executed. Operation: \" + operation").append(context).append(" + \". Result: \" + result);\n"
-                + "                return result;\n"
-                + "            } else {\n"
-                + "                return next.execute(operation").append(CONTEXT_VALUE).append(");\n"
-                + "            }\n"
-                + "        } catch (RuntimeException e) {\n"
-                + "            logger.log(Level.SEVERE, \"An exception has been ocurrend when execute an operation. Operation: \" + operation").append(context).append(", e);\n"
-                + "            throw e;\n"
-                + "        }\n"
-                + "    }\n"
-                + "\n"
-                + "    public LogInterceptor(Executor next, Logger logger, String shortName) {\n"
+                + "    private final String shortName;\n");
+        LoggedExecutorGroupTemplate.writeLoggingContent(appender, "next");
+        appender.append("    public LogInterceptor(Executor next, Logger logger, String shortName) {\n"
                 + "        super(next);\n"
                 + "        if (next == null) {\n"
                 + "            throw new IllegalArgumentException(\"next for the LoggedExecutorGroup cannot be null\");\n"
@@ -27,6 +27,9 @@ public class LoggedExecutorGroupTemplate extends ClassTemplate {
         setPackageName(packageName);
         addImport("java.util.logging.Level", packageName);
         addImport("java.util.logging.Logger", packageName);
+        addImport("java.util.Collection", packageName);
+        addImport("java.util.concurrent.TimeUnit", packageName);
+        addImport("java.util.concurrent.atomic.AtomicLong", packageName);
         setClassName("LoggedExecutorGroup");
         if (ERROR_MANAGEMENT) {
             setExtend("ExecutorGroup");
@@ -38,35 +41,11 @@ public class LoggedExecutorGroupTemplate extends ClassTemplate {
     
     @Override
     protected void writeContent(Appendable appender) throws IOException {
-        String context;
-        if (HAS_CONTEXT) {
-            context = " + \". Context: \" + context";
-        } else {
-            context = "";
-        }
         appender.append("    private ExecutorGroup chainedExecutorGroup;\n"
                 + "    private Logger logger;\n"
-                + "    private String shortName;\n"
-                + "\n"
-                + "    @Override\n"
-                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
-                + "        boolean fineLevelEnabled = logger.isLoggable(Level.FINE);\n"
-                + "        try {\n"
-                + "            if (fineLevelEnabled) {\n"
-                + "                logger.log(Level.FINE, shortName + \": Execute operation requested. Operation: \" + operation").append(context).append(");\n"
-                + "                RESULT result = chainedExecutorGroup.execute(operation").append(CONTEXT_VALUE).append(");\n"
-                + "                logger.log(Level.FINE, shortName + \": Execute operation executed. Operation: \" + operation").append(context).append(" + \". Result: \" + result);\n"
-                + "                return result;\n"
-                + "            } else {\n"
-                + "                return chainedExecutorGroup.execute(operation").append(CONTEXT_VALUE).append(");\n"
-                + "            }\n"
-                + "        } catch (RuntimeException e) {\n"
-                + "            logger.log(Level.SEVERE, \"An exception has been ocurrend when execute an operation. Operation: \" + operation").append(context).append(", e);\n"
-                + "            throw e;\n"
-                + "        }\n"
-                + "    }\n"
-                + "\n"
-                + "    /**\n"
+                + "    private String shortName;\n");
+        writeLoggingContent(appender, "chainedExecutorGroup");
+        appender.append("    /**\n"
                 + "     * @return the chainedExecutorGroup\n"
                 + "     */\n"
                 + "    public ExecutorGroup getChainedExecutorGroup() {\n"
@@ -89,4 +68,198 @@ public class LoggedExecutorGroupTemplate extends ClassTemplate {
                 + "    }");
     }
     
+
+    static void writeLoggingContent(Appendable appender, String next) throws IOException {
+        writeLoggingFields(appender);
+        appender.append("\n"
+                + "    @Override\n"
+                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n");
+        writeLoggedExecution(appender, next + ".execute(operation" + CONTEXT_VALUE + ")");
+        appender.append("    }\n"
+                + "\n");
+        writeLoggingMethods(appender);
+    }
+
+    public static void writeLoggingFields(Appendable appender) throws IOException {
+        appender.append("    private final AtomicLong sampleCounter = new AtomicLong();\n"
+                + "    private volatile long slowOperationThreshold;\n"
+                + "    private volatile int sampleRate = 1;\n"
+                + "    private volatile int maxMessageLength;\n"
+                + "    private volatile int maxLoggedItems;\n");
+    }
+
+    /**
+     * Writes the body of a method that logs the execution of the provided
+     * expression, that returns the RESULT of the operation; the logger and the
+     * shortName must be fields of the class.
+     */
+    public static void writeLoggedExecution(Appendable appender, String execution) throws IOException {
+        String context;
+        if (HAS_CONTEXT) {
+            context = " + \". Context: \" + context";
+        } else {
+            context = "";
+        }
+        appender.append("        boolean logExecution = logger.isLoggable(Level.FINE) && isSampled();\n"
+                + "        long threshold = slowOperationThreshold;\n"
+                + "        long start = 0;\n"
+                + "        if (threshold > 0) {\n"
+                + "            start = System.nanoTime();\n"
+                + "        }\n"
+                + "        try {\n"
+                + "            if (logExecution) {\n"
+                + "                logger.log(Level.FINE, shortName + \": Execute operation requested. Operation: \" + describe(operation)").append(context).append(");\n"
+                + "            }\n"
+                + "            RESULT result = ").append(execution).append(";\n"
+                + "            if (threshold > 0) {\n"
+                + "                long elapsed = System.nanoTime() - start;\n"
+                + "                if (elapsed > threshold && logger.isLoggable(Level.WARNING)) {\n"
+                + "                    logger.log(Level.WARNING, shortName + \": Slow operation executed in \" + TimeUnit.NANOSECONDS.toMillis(elapsed) + \" ms. Operation: \" + describe(operation)").append(context).append(");\n"
+                + "                }\n"
+                + "            }\n"
+                + "            if (logExecution) {\n"
+                + "                logger.log(Level.FINE, shortName + \": Execute operation executed. Operation: \" + describe(operation)").append(context).append(" + \". Result: \" + describe(result));\n"
+                + "            }\n"
+                + "            return result;\n"
+                + "        } catch (RuntimeException e) {\n");
+        if (LAMBADAS_ENABLED) {
+            appender.append("            logger.log(Level.SEVERE, e, () -> \"An exception has been ocurrend when execute an operation. Operation: \" + describe(operation)").append(context).append(");\n");
+        } else {
+            appender.append("            logger.log(Level.SEVERE, \"An exception has been ocurrend when execute an operation. Operation: \" + describe(operation)").append(context).append(", e);\n");
+        }
+        appender.append("            throw e;\n"
+                + "        }\n");
+    }
+
+    public static void writeLoggingMethods(Appendable appender) throws IOException {
+        appender.append("    private boolean isSampled() {\n"
+                + "        int rate = sampleRate;\n"
+                + "        return rate <= 1 || sampleCounter.incrementAndGet() % rate == 0;\n"
+                + "    }\n"
+                + "\n"
+                + "    private String describe(Object value) {\n"
+                + "        int maxLength = maxMessageLength;\n"
+                + "        if (value instanceof Collection) {\n"
+                + "            Collection collection = (Collection) value;\n"
+                + "            int maxItems = maxLoggedItems;\n"
+                + "            if (maxItems > 0 && collection.size() > maxItems) {\n"
+                + "                return value.getClass().getSimpleName() + \"{size=\" + collection.size() + \"}\";\n"
+                + "            }\n"
+                + "            if (maxLength > 0) {\n"
+                + "                return describe(collection, maxLength);\n"
+                + "            }\n"
+                + "        }\n"
+                + "        String result = String.valueOf(value);\n"
+                + "        if (maxLength > 0 && result.length() > maxLength) {\n"
+                + "            return result.substring(0, maxLength) + \"...\";\n"
+                + "        }\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Describe the collection element by element, stopping when the maximum length\n"
+                + "     * is reached, instead of converting the whole collection to string.\n"
+                + "     */\n"
+                + "    private static String describe(Collection collection, int maxLength) {\n"
+                + "        StringBuilder result = new StringBuilder(\"[\");\n"
+                + "        boolean first = true;\n"
+                + "        for (Object item : collection) {\n"
+                + "            if (first) {\n"
+                + "                first = false;\n"
+                + "            } else {\n"
+                + "                result.append(\", \");\n"
+                + "            }\n"
+                + "            result.append(item == collection ? \"(this Collection)\" : String.valueOf(item));\n"
+                + "            if (result.length() > maxLength) {\n"
+                + "                result.setLength(maxLength);\n"
+                + "                return result.append(\"...\").toString();\n"
+                + "            }\n"
+                + "        }\n"
+                + "        result.append(']');\n"
+                + "        if (result.length() > maxLength) {\n"
+                + "            result.setLength(maxLength);\n"
+                + "            result.append(\"...\");\n"
+                + "        }\n"
+                + "        return result.toString();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the minimum execution time, in milliseconds, of the operations logged as slow;\n"
+                + "     * zero when the slow operations are not logged\n"
+                + "     */\n"
+                + "    public long getSlowOperationThresholdMillis() {\n"
+                + "        return TimeUnit.NANOSECONDS.toMillis(slowOperationThreshold);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Log with WARNING level the operations that take more than the provided time,\n"
+                + "     * zero (the default value) disables it.\n"
+                + "     * @param slowOperationThresholdMillis the slowOperationThresholdMillis to set\n"
+                + "     */\n"
+                + "    public void setSlowOperationThresholdMillis(long slowOperationThresholdMillis) {\n"
+                + "        if (slowOperationThresholdMillis < 0) {\n"
+                + "            throw new IllegalArgumentException(\"slowOperationThresholdMillis cannot be negative\");\n"
+                + "        }\n"
+                + "        this.slowOperationThreshold = TimeUnit.MILLISECONDS.toNanos(slowOperationThresholdMillis);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the sampleRate\n"
+                + "     */\n"
+                + "    public int getSampleRate() {\n"
+                + "        return sampleRate;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Log with FINE level only one of each sampleRate operations, by default all\n"
+                + "     * operations are logged.\n"
+                + "     * @param sampleRate the sampleRate to set\n"
+                + "     */\n"
+                + "    public void setSampleRate(int sampleRate) {\n"
+                + "        if (sampleRate < 1) {\n"
+                + "            throw new IllegalArgumentException(\"sampleRate must be a positive number\");\n"
+                + "        }\n"
+                + "        this.sampleRate = sampleRate;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the maxMessageLength\n"
+                + "     */\n"
+                + "    public int getMaxMessageLength() {\n"
+                + "        return maxMessageLength;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Maximum length of the logged operations and results, longer ones are truncated;\n"
+                + "     * zero (the default value) disables the truncation.\n"
+                + "     * @param maxMessageLength the maxMessageLength to set\n"
+                + "     */\n"
+                + "    public void setMaxMessageLength(int maxMessageLength) {\n"
+                + "        if (maxMessageLength < 0) {\n"
+                + "            throw new IllegalArgumentException(\"maxMessageLength cannot be negative\");\n"
+                + "        }\n"
+                + "        this.maxMessageLength = maxMessageLength;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the maxLoggedItems\n"
+                + "     */\n"
+                + "    public int getMaxLoggedItems() {\n"
+                + "        return maxLoggedItems;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The collections with more elements than the provided number are logged only\n"
+                + "     * with its size; zero (the default value) logs all the elements.\n"
+                + "     * @param maxLoggedItems the maxLoggedItems to set\n"
+                + "     */\n"
+                + "    public void setMaxLoggedItems(int maxLoggedItems) {\n"
+                + "        if (maxLoggedItems < 0) {\n"
+                + "            throw new IllegalArgumentException(\"maxLoggedItems cannot be negative\");\n"
+                + "        }\n"
+                + "        this.maxLoggedItems = maxLoggedItems;\n"
+                + "    }\n"
+                + "\n");
+    }
+
 }
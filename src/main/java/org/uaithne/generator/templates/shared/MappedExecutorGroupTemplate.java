@@ -45,25 +45,35 @@ public class MappedExecutorGroupTemplate extends ClassTemplate {
         } else {
             context = "";
         }
-        appender.append("    private final HashMap<Object, Executor> executorMap = new HashMap<Object, Executor>();\n"
+        appender.append("    /**\n"
+                + "     * The executors are kept in a map that is never modified once published, each\n"
+                + "     * change replaces it with a modified copy, so the executors can be added or removed\n"
+                + "     * while operations are being executed without locking the execution.\n"
+                + "     */\n"
+                + "    private volatile HashMap<Object, Executor> executorMap = new HashMap<Object, Executor>();\n"
                 + "    \n"
-                + "    public Executor addExecutor(Executor executor) {\n"
+                + "    public synchronized Executor addExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            throw new IllegalArgumentException(\"executor for add to the MappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
-                + "        return executorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        HashMap<Object, Executor> newExecutorMap = new HashMap<Object, Executor>(executorMap);\n"
+                + "        Executor previous = newExecutorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return previous;\n"
                 + "    }\n"
                 + "\n"
-                + "    public boolean removeExecutor(Executor executor) {\n"
+                + "    public synchronized boolean removeExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
-                + "        if (executorMap.containsValue(executor)) {\n"
-                + "            executorMap.remove(executor.getExecutorSelector());\n"
-                + "            return true;\n"
-                + "        } else {\n"
+                + "        Object executorSelector = executor.getExecutorSelector();\n"
+                + "        if (!executor.equals(executorMap.get(executorSelector))) {\n"
                 + "            return false;\n"
                 + "        }\n"
+                + "        HashMap<Object, Executor> newExecutorMap = new HashMap<Object, Executor>(executorMap);\n"
+                + "        newExecutorMap.remove(executorSelector);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return true;\n"
                 + "    }\n"
                 + "\n"
                 + "    public Executor getExecutor(Operation operation) {\n"
@@ -45,47 +45,61 @@ public class MappedExecutorGroupTemplate_WithExecutorGroup extends ClassTemplate
         } else {
             context = "";
         }
-        appender.append("    private final HashMap<Object, ExecutorGroup> executorMap = new HashMap<Object, ExecutorGroup>();\n"
+        appender.append("    /**\n"
+                + "     * The executors are kept in a map that is never modified once published, each\n"
+                + "     * change replaces it with a modified copy, so the executors can be added or removed\n"
+                + "     * while operations are being executed without locking the execution.\n"
+                + "     */\n"
+                + "    private volatile HashMap<Object, ExecutorGroup> executorMap = new HashMap<Object, ExecutorGroup>();\n"
                 + "\n"
-                + "    public ExecutorGroup addExecutor(Executor executor) {\n"
+                + "    public synchronized ExecutorGroup addExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            throw new IllegalArgumentException(\"executor for add to the MappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
-                + "        return executorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
+                + "        ExecutorGroup previous = newExecutorMap.put(executor.getExecutorSelector(), executor);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return previous;\n"
                 + "    }\n"
                 + "\n"
-                + "    public ExecutorGroup addExecutor(ExecutorGroup executorGroup, Object executorSelector) {\n"
+                + "    public synchronized ExecutorGroup addExecutor(ExecutorGroup executorGroup, Object executorSelector) {\n"
                 + "        if (executorGroup == null) {\n"
                 + "            throw new IllegalArgumentException(\"executorGroup for add to the MappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
                 + "        if (executorSelector == null) {\n"
                 + "            throw new IllegalArgumentException(\"executorSelector for add to the MappedExecutorGroup cannot be null\");\n"
                 + "        }\n"
-                + "        return executorMap.put(executorSelector, executorGroup);\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
+                + "        ExecutorGroup previous = newExecutorMap.put(executorSelector, executorGroup);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return previous;\n"
                 + "    }\n"
                 + "\n"
-                + "    public boolean removeExecutor(Executor executor) {\n"
+                + "    public synchronized boolean removeExecutor(Executor executor) {\n"
                 + "        if (executor == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
-                + "        if (executorMap.containsValue(executor)) {\n"
-                + "            executorMap.remove(executor.getExecutorSelector());\n"
-                + "            return true;\n"
-                + "        } else {\n"
+                + "        Object executorSelector = executor.getExecutorSelector();\n"
+                + "        if (!executor.equals(executorMap.get(executorSelector))) {\n"
                 + "            return false;\n"
                 + "        }\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
+                + "        newExecutorMap.remove(executorSelector);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return true;\n"
                 + "    }\n"
                 + "\n"
-                + "    public boolean removeExecutorBySelector(Object executorSelector) {\n"
+                + "    public synchronized boolean removeExecutorBySelector(Object executorSelector) {\n"
                 + "        if (executorSelector == null) {\n"
                 + "            return false;\n"
                 + "        }\n"
-                + "        if (executorMap.containsKey(executorSelector)) {\n"
-                + "            executorMap.remove(executorSelector);\n"
-                + "            return true;\n"
-                + "        } else {\n"
+                + "        if (!executorMap.containsKey(executorSelector)) {\n"
                 + "            return false;\n"
                 + "        }\n"
+                + "        HashMap<Object, ExecutorGroup> newExecutorMap = new HashMap<Object, ExecutorGroup>(executorMap);\n"
+                + "        newExecutorMap.remove(executorSelector);\n"
+                + "        executorMap = newExecutorMap;\n"
+                + "        return true;\n"
                 + "    }\n"
                 + "\n"
                 + "    public ExecutorGroup getExecutor(Operation operation) {\n"
@@ -27,18 +27,30 @@ public class MappedExecutorTemplate_WithLamdas extends ClassTemplate {
         setPackageName(packageName);
         setClassName("MappedExecutor");
         setExtend("Executor");
+        if (HAS_CONTEXT) {
+            addImport("java.util.function.BiFunction", packageName);
+        } else {
+            addImport("java.util.function.Function", packageName);
+        }
         setFinal(true);
         addContextImport(packageName);
     }
 
     @Override
     protected void writeContent(Appendable appender) throws IOException {
+        String functionType;
+        if (HAS_CONTEXT) {
+            functionType = "BiFunction<Operation, " + CONTEXT_TYPE + ", Object>";
+        } else {
+            functionType = "Function<Operation, Object>";
+        }
         appender.append("    public final void handle(Executor executor) {\n"
+                + "        ").append(functionType).append(" handler = executor::execute;\n"
                 + "        Executor current = executor;\n"
                 + "        while (current != null && current != next && current != this) {\n"
                 + "            if (current.handlers != null) {\n"
                 + "                for (Class operationType : current.handlers.keySet()) {\n"
-                + "                    handle(operationType, executor::execute);\n"
+                + "                    handle(operationType, handler);\n"
                 + "                }\n"
                 + "            }\n"
                 + "\n"
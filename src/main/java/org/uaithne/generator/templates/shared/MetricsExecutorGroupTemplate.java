@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class MetricsExecutorGroupTemplate extends ClassTemplate {
+
+    public MetricsExecutorGroupTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("java.lang.management.ManagementFactory", packageName);
+        addImport("java.util.ArrayList", packageName);
+        addImport("java.util.Map", packageName);
+        addImport("java.util.concurrent.ConcurrentHashMap", packageName);
+        addImport("java.util.logging.Level", packageName);
+        addImport("java.util.logging.Logger", packageName);
+        addImport("javax.management.InstanceAlreadyExistsException", packageName);
+        addImport("javax.management.InstanceNotFoundException", packageName);
+        addImport("javax.management.JMException", packageName);
+        addImport("javax.management.MBeanServer", packageName);
+        addImport("javax.management.MalformedObjectNameException", packageName);
+        addImport("javax.management.ObjectName", packageName);
+        setClassName("MetricsExecutorGroup");
+        if (ERROR_MANAGEMENT) {
+            setExtend("ExecutorGroup");
+        } else {
+            addImplement("ExecutorGroup");
+        }
+        addContextImport(packageName);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private ExecutorGroup chainedExecutorGroup;\n");
+        OperationMetricsTemplate.writeMetricsContent(appender, "chainedExecutorGroup");
+        appender.append("    /**\n"
+                + "     * @return the chainedExecutorGroup\n"
+                + "     */\n"
+                + "    public ExecutorGroup getChainedExecutorGroup() {\n"
+                + "        return chainedExecutorGroup;\n"
+                + "    }\n"
+                + "\n"
+                + "    public MetricsExecutorGroup(ExecutorGroup chainedExecutorGroup) {\n"
+                + "        if (chainedExecutorGroup == null) {\n"
+                + "            throw new IllegalArgumentException(\"chainedExecutorGroup for the MetricsExecutorGroup cannot be null\");\n"
+                + "        }\n"
+                + "        this.chainedExecutorGroup = chainedExecutorGroup;\n"
+                + "    }");
+    }
+
+}
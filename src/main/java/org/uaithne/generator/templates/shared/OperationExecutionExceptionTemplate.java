@@ -37,6 +37,8 @@ public class OperationExecutionExceptionTemplate extends ClassTemplate {
             appender.append("    private ").append(CONTEXT_TYPE).append(" context;\n");
         }
         appender.append("    private String simpleMessage;\n"
+                + "    private String message;\n"
+                + "    private static volatile boolean wrapperStackTraceEnabled = true;\n"
                 + "\n"
                 + "    public Operation getOperation() {\n"
                 + "        return operation;\n"
@@ -61,6 +63,30 @@ public class OperationExecutionExceptionTemplate extends ClassTemplate {
                 + "        }\n"
                 + "        return simpleMessage;\n"
                 + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The message is created the first time it is requested, the operation and the\n"
+                + "     * context are not converted to string until then.\n"
+                + "     */\n"
+                + "    @Override\n"
+                + "    public String getMessage() {\n"
+                + "        if (message == null) {\n"
+                + "            message = createMessage(operation").append(CONTEXT_VALUE).append(", simpleMessage, getCause());\n"
+                + "        }\n"
+                + "        return message;\n"
+                + "    }\n"
+                + "\n"
+                + "    public static boolean isWrapperStackTraceEnabled() {\n"
+                + "        return wrapperStackTraceEnabled;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * When it is disabled the exceptions that wrap a cause don't fill its stack trace,\n"
+                + "     * the stack trace of the cause is kept.\n"
+                + "     */\n"
+                + "    public static void setWrapperStackTraceEnabled(boolean wrapperStackTraceEnabled) {\n"
+                + "        OperationExecutionException.wrapperStackTraceEnabled = wrapperStackTraceEnabled;\n"
+                + "    }\n"
                 + "\n");
         if (HAS_CONTEXT) {
             appender.append("    public boolean sameContent(Operation operation").append(CONTEXT_PARAM).append(") {\n"
@@ -74,11 +100,13 @@ public class OperationExecutionExceptionTemplate extends ClassTemplate {
                     + "\n");
         }
         appender.append("    public OperationExecutionException(Operation operation").append(CONTEXT_PARAM).append(") {\n"
-                + "        super(createMessage(operation").append(CONTEXT_VALUE).append(", null, null));\n"
-                + "    }\n"
+                + "        this.operation = operation;\n");
+        if (HAS_CONTEXT) {
+            appender.append("        this.context = context;\n");
+        }
+        appender.append("    }\n"
                 + "\n"
                 + "    public OperationExecutionException(Operation operation").append(CONTEXT_PARAM).append(", String message) {\n"
-                + "        super(createMessage(operation").append(CONTEXT_VALUE).append(", message, null));\n"
                 + "        this.operation = operation;\n");
         if (HAS_CONTEXT) {
             appender.append("        this.context = context;\n");
@@ -88,7 +116,7 @@ public class OperationExecutionExceptionTemplate extends ClassTemplate {
                 + "\n"
                 + "    public OperationExecutionException(Operation operation").append(CONTEXT_PARAM).append(", String message,\n"
                 + "            Throwable cause) {\n"
-                + "        super(createMessage(operation").append(CONTEXT_VALUE).append(", message, cause), cause);\n"
+                + "        super(null, cause, true, cause == null || wrapperStackTraceEnabled);\n"
                 + "        this.operation = operation;\n");
         if (HAS_CONTEXT) {
             appender.append("        this.context = context;\n");
@@ -97,7 +125,7 @@ public class OperationExecutionExceptionTemplate extends ClassTemplate {
                 + "    }\n"
                 + "\n"
                 + "    public OperationExecutionException(Operation operation").append(CONTEXT_PARAM).append(", Throwable cause) {\n"
-                + "        super(createMessage(operation").append(CONTEXT_VALUE).append(", null, cause), cause);\n"
+                + "        super(null, cause, true, cause == null || wrapperStackTraceEnabled);\n"
                 + "        this.operation = operation;\n");
         if (HAS_CONTEXT) {
             appender.append("        this.context = context;\n");
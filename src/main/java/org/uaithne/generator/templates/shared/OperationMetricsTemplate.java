@@ -0,0 +1,410 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class OperationMetricsTemplate extends ClassTemplate {
+
+    public OperationMetricsTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("java.util.concurrent.atomic.AtomicLong", packageName);
+        addImport("java.util.concurrent.atomic.AtomicLongArray", packageName);
+        setClassName("OperationMetrics");
+        addImplement("OperationMetricsMBean");
+        setFinal(true);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    /**\n"
+                + "     * Latency histogram buckets: the values under 4 nanoseconds have its own bucket, the\n"
+                + "     * following ones are grouped by power of two, each one divided in 4 sub buckets, so\n"
+                + "     * the relative error of the percentiles is lower than 25%. Values over 2^40\n"
+                + "     * nanoseconds (about 18 minutes) are recorded in the last bucket.\n"
+                + "     */\n"
+                + "    private static final int BUCKETS = 160;\n"
+                + "    private static final int STARTED = BUCKETS;\n"
+                + "    private static final int ERRORS = BUCKETS + 1;\n"
+                + "    private static final int TOTAL_TIME = BUCKETS + 2;\n"
+                + "    private static final int FINISHED = BUCKETS + 3;\n"
+                + "    /**\n"
+                + "     * Each stripe is padded for avoid sharing cache lines with the next one.\n"
+                + "     */\n"
+                + "    private static final int STRIPE_SIZE = BUCKETS + 16;\n"
+                + "    private static final int STRIPES = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors()), 8);\n"
+                + "\n"
+                + "    private final String operation;\n"
+                + "    private final AtomicLongArray values = new AtomicLongArray(STRIPES * STRIPE_SIZE);\n"
+                + "    private final AtomicLong maxTime = new AtomicLong();\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public String getOperation() {\n"
+                + "        return operation;\n"
+                + "    }\n"
+                + "\n"
+                + "    private static int stripe() {\n"
+                + "        return ((int) Thread.currentThread().getId() & (STRIPES - 1)) * STRIPE_SIZE;\n"
+                + "    }\n"
+                + "\n"
+                + "    public void started() {\n"
+                + "        values.incrementAndGet(stripe() + STARTED);\n"
+                + "    }\n"
+                + "\n"
+                + "    public void finished(long nanos, boolean failed) {\n"
+                + "        if (nanos < 0) {\n"
+                + "            nanos = 0;\n"
+                + "        }\n"
+                + "        int stripe = stripe();\n"
+                + "        values.incrementAndGet(stripe + FINISHED);\n"
+                + "        values.incrementAndGet(stripe + bucketOf(nanos));\n"
+                + "        values.addAndGet(stripe + TOTAL_TIME, nanos);\n"
+                + "        if (failed) {\n"
+                + "            values.incrementAndGet(stripe + ERRORS);\n"
+                + "        }\n"
+                + "        long max = maxTime.get();\n"
+                + "        while (nanos > max && !maxTime.compareAndSet(max, nanos)) {\n"
+                + "            max = maxTime.get();\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    static int bucketOf(long nanos) {\n"
+                + "        if (nanos < 4) {\n"
+                + "            return (int) nanos;\n"
+                + "        }\n"
+                + "        int exponent = 63 - Long.numberOfLeadingZeros(nanos);\n"
+                + "        if (exponent > 40) {\n"
+                + "            return BUCKETS - 1;\n"
+                + "        }\n"
+                + "        return (exponent - 1) * 4 + (int) ((nanos >>> (exponent - 2)) & 3);\n"
+                + "    }\n"
+                + "\n"
+                + "    static long bucketUpperBound(int bucket) {\n"
+                + "        if (bucket < 4) {\n"
+                + "            return bucket;\n"
+                + "        }\n"
+                + "        int exponent = bucket / 4 + 1;\n"
+                + "        long lowerBound = (4L + (bucket & 3)) << (exponent - 2);\n"
+                + "        return lowerBound + (1L << (exponent - 2)) - 1;\n"
+                + "    }\n"
+                + "\n"
+                + "    public Snapshot snapshot() {\n"
+                + "        long[] histogram = new long[BUCKETS];\n"
+                + "        long count = 0;\n"
+                + "        long started = 0;\n"
+                + "        long finished = 0;\n"
+                + "        long errors = 0;\n"
+                + "        long totalTime = 0;\n"
+                + "        for (int stripe = 0; stripe < STRIPES * STRIPE_SIZE; stripe += STRIPE_SIZE) {\n"
+                + "            for (int i = 0; i < BUCKETS; i++) {\n"
+                + "                long value = values.get(stripe + i);\n"
+                + "                histogram[i] += value;\n"
+                + "                count += value;\n"
+                + "            }\n"
+                + "            started += values.get(stripe + STARTED);\n"
+                + "            finished += values.get(stripe + FINISHED);\n"
+                + "            errors += values.get(stripe + ERRORS);\n"
+                + "            totalTime += values.get(stripe + TOTAL_TIME);\n"
+                + "        }\n"
+                + "        long inFlight = started - finished;\n"
+                + "        if (inFlight < 0) {\n"
+                + "            inFlight = 0;\n"
+                + "        }\n"
+                + "        return new Snapshot(operation, count, errors, inFlight, totalTime, maxTime.get(), histogram);\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public long getCount() {\n"
+                + "        return snapshot().getCount();\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public long getErrorCount() {\n"
+                + "        return snapshot().getErrorCount();\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public long getInFlight() {\n"
+                + "        return snapshot().getInFlight();\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public double getMeanTimeMillis() {\n"
+                + "        return snapshot().getMeanTime() / 1000000.0;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public double getMaxTimeMillis() {\n"
+                + "        return snapshot().getMaxTime() / 1000000.0;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public double getP50TimeMillis() {\n"
+                + "        return snapshot().getPercentile(50) / 1000000.0;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public double getP90TimeMillis() {\n"
+                + "        return snapshot().getPercentile(90) / 1000000.0;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public double getP99TimeMillis() {\n"
+                + "        return snapshot().getPercentile(99) / 1000000.0;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public double getP999TimeMillis() {\n"
+                + "        return snapshot().getPercentile(99.9) / 1000000.0;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Clear the values recorded for the finished operations, the in flight count\n"
+                + "     * is kept, and the operations in execution when it is called are recorded\n"
+                + "     * when they finish.\n"
+                + "     */\n"
+                + "    @Override\n"
+                + "    public void reset() {\n"
+                + "        for (int stripe = 0; stripe < STRIPES * STRIPE_SIZE; stripe += STRIPE_SIZE) {\n"
+                + "            for (int i = 0; i < BUCKETS; i++) {\n"
+                + "                values.set(stripe + i, 0);\n"
+                + "            }\n"
+                + "            values.set(stripe + ERRORS, 0);\n"
+                + "            values.set(stripe + TOTAL_TIME, 0);\n"
+                + "        }\n"
+                + "        maxTime.set(0);\n"
+                + "    }\n"
+                + "\n"
+                + "    public OperationMetrics(String operation) {\n"
+                + "        if (operation == null) {\n"
+                + "            throw new IllegalArgumentException(\"operation for the OperationMetrics cannot be null\");\n"
+                + "        }\n"
+                + "        this.operation = operation;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Values recorded for an operation type, the times are in nanoseconds.\n"
+                + "     */\n"
+                + "    public static final class Snapshot {\n"
+                + "        private final String operation;\n"
+                + "        private final long count;\n"
+                + "        private final long errorCount;\n"
+                + "        private final long inFlight;\n"
+                + "        private final long totalTime;\n"
+                + "        private final long maxTime;\n"
+                + "        private final long[] histogram;\n"
+                + "\n"
+                + "        public String getOperation() {\n"
+                + "            return operation;\n"
+                + "        }\n"
+                + "\n"
+                + "        public long getCount() {\n"
+                + "            return count;\n"
+                + "        }\n"
+                + "\n"
+                + "        public long getErrorCount() {\n"
+                + "            return errorCount;\n"
+                + "        }\n"
+                + "\n"
+                + "        public long getInFlight() {\n"
+                + "            return inFlight;\n"
+                + "        }\n"
+                + "\n"
+                + "        public long getTotalTime() {\n"
+                + "            return totalTime;\n"
+                + "        }\n"
+                + "\n"
+                + "        public long getMeanTime() {\n"
+                + "            if (count == 0) {\n"
+                + "                return 0;\n"
+                + "            }\n"
+                + "            return totalTime / count;\n"
+                + "        }\n"
+                + "\n"
+                + "        public long getMaxTime() {\n"
+                + "            return maxTime;\n"
+                + "        }\n"
+                + "\n"
+                + "        /**\n"
+                + "         * @param percentile percentile between 0 and 100\n"
+                + "         * @return the upper bound of the time of the requested percentile\n"
+                + "         */\n"
+                + "        public long getPercentile(double percentile) {\n"
+                + "            if (count == 0) {\n"
+                + "                return 0;\n"
+                + "            }\n"
+                + "            long rank = (long) Math.ceil(percentile / 100.0 * count);\n"
+                + "            if (rank < 1) {\n"
+                + "                rank = 1;\n"
+                + "            }\n"
+                + "            long accumulated = 0;\n"
+                + "            for (int i = 0; i < histogram.length; i++) {\n"
+                + "                accumulated += histogram[i];\n"
+                + "                if (accumulated >= rank) {\n"
+                + "                    if (i == histogram.length - 1) {\n"
+                + "                        return maxTime;\n"
+                + "                    }\n"
+                + "                    return Math.min(bucketUpperBound(i), maxTime);\n"
+                + "                }\n"
+                + "            }\n"
+                + "            return maxTime;\n"
+                + "        }\n"
+                + "\n"
+                + "        @Override\n"
+                + "        public String toString() {\n"
+                + "            return \"Snapshot{operation=\" + operation + \"| count=\" + count + \"| errorCount=\" + errorCount + \"| inFlight=\" + inFlight + \"| meanTime=\" + getMeanTime() + \"| p99Time=\" + getPercentile(99) + \"| maxTime=\" + maxTime + \"}\";\n"
+                + "        }\n"
+                + "\n"
+                + "        Snapshot(String operation, long count, long errorCount, long inFlight, long totalTime, long maxTime, long[] histogram) {\n"
+                + "            this.operation = operation;\n"
+                + "            this.count = count;\n"
+                + "            this.errorCount = errorCount;\n"
+                + "            this.inFlight = inFlight;\n"
+                + "            this.totalTime = totalTime;\n"
+                + "            this.maxTime = maxTime;\n"
+                + "            this.histogram = histogram;\n"
+                + "        }\n"
+                + "    }");
+    }
+
+    static void writeMetricsContent(Appendable appender, String next) throws IOException {
+        appender.append("    private final ConcurrentHashMap<Class, OperationMetrics> metrics = new ConcurrentHashMap<Class, OperationMetrics>();\n"
+                + "    private final ConcurrentHashMap<OperationMetrics, ObjectName> registeredMBeans = new ConcurrentHashMap<OperationMetrics, ObjectName>();\n"
+                + "    private volatile String jmxDomain;\n"
+                + "\n"
+                + "    @Override\n"
+                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                + "        OperationMetrics operationMetrics = getMetrics(operation.getClass());\n"
+                + "        operationMetrics.started();\n"
+                + "        long start = System.nanoTime();\n"
+                + "        boolean failed = true;\n"
+                + "        try {\n"
+                + "            RESULT result = ").append(next).append(".execute(operation").append(CONTEXT_VALUE).append(");\n"
+                + "            failed = false;\n"
+                + "            return result;\n"
+                + "        } finally {\n"
+                + "            operationMetrics.finished(System.nanoTime() - start, failed);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public OperationMetrics getMetrics(Class<? extends Operation> operationType) {\n"
+                + "        OperationMetrics result = metrics.get(operationType);\n"
+                + "        if (result != null) {\n"
+                + "            return result;\n"
+                + "        }\n"
+                + "        OperationMetrics newMetrics = new OperationMetrics(operationType.getName());\n"
+                + "        result = metrics.putIfAbsent(operationType, newMetrics);\n"
+                + "        if (result != null) {\n"
+                + "            return result;\n"
+                + "        }\n"
+                + "        String domain = jmxDomain;\n"
+                + "        if (domain != null) {\n"
+                + "            try {\n"
+                + "                registerMBean(domain, newMetrics);\n"
+                + "            } catch (RuntimeException e) {\n"
+                + "                // The failure to publish the metrics must not fail the operation\n"
+                + "                Logger.getLogger(getClass().getName()).log(Level.WARNING, \"Unable to publish the metrics of the operation \" + newMetrics.getOperation(), e);\n"
+                + "            }\n"
+                + "        }\n"
+                + "        return newMetrics;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the values recorded for each operation type executed until now\n"
+                + "     */\n"
+                + "    public ArrayList<OperationMetrics.Snapshot> snapshot() {\n"
+                + "        ArrayList<OperationMetrics.Snapshot> result = new ArrayList<OperationMetrics.Snapshot>(metrics.size());\n"
+                + "        for (OperationMetrics operationMetrics : metrics.values()) {\n"
+                + "            result.add(operationMetrics.snapshot());\n"
+                + "        }\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    public void reset() {\n"
+                + "        for (OperationMetrics operationMetrics : metrics.values()) {\n"
+                + "            operationMetrics.reset();\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Publish the metrics of each operation type in the platform MBean server, with the name\n"
+                + "     * domain:type=OperationMetrics,name=OperationClassName; the operation types executed\n"
+                + "     * later are published when they are executed for the first time. It fails if\n"
+                + "     * the name is already used by another MBean, like the metrics of another instance\n"
+                + "     * published in the same domain.\n"
+                + "     */\n"
+                + "    public void registerMBeans(String domain) {\n"
+                + "        if (domain == null) {\n"
+                + "            throw new IllegalArgumentException(\"domain for registerMBeans cannot be null\");\n"
+                + "        }\n"
+                + "        jmxDomain = domain;\n"
+                + "        for (OperationMetrics operationMetrics : metrics.values()) {\n"
+                + "            registerMBean(domain, operationMetrics);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public void unregisterMBeans() {\n"
+                + "        String domain = jmxDomain;\n"
+                + "        if (domain == null) {\n"
+                + "            return;\n"
+                + "        }\n"
+                + "        jmxDomain = null;\n"
+                + "        MBeanServer server = ManagementFactory.getPlatformMBeanServer();\n"
+                + "        for (Map.Entry<OperationMetrics, ObjectName> entry : registeredMBeans.entrySet()) {\n"
+                + "            try {\n"
+                + "                server.unregisterMBean(entry.getValue());\n"
+                + "            } catch (InstanceNotFoundException e) {\n"
+                + "                // Already unregistered\n"
+                + "            } catch (JMException e) {\n"
+                + "                throw new IllegalStateException(\"Unable to unregister the metrics MBean of the operation \" + entry.getKey().getOperation(), e);\n"
+                + "            }\n"
+                + "            registeredMBeans.remove(entry.getKey(), entry.getValue());\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    private void registerMBean(String domain, OperationMetrics operationMetrics) {\n"
+                + "        ObjectName name;\n"
+                + "        try {\n"
+                + "            name = getObjectName(domain, operationMetrics);\n"
+                + "        } catch (MalformedObjectNameException e) {\n"
+                + "            throw new IllegalStateException(\"Unable to register the metrics MBean of the operation \" + operationMetrics.getOperation(), e);\n"
+                + "        }\n"
+                + "        if (registeredMBeans.putIfAbsent(operationMetrics, name) != null) {\n"
+                + "            // Already registered by this instance\n"
+                + "            return;\n"
+                + "        }\n"
+                + "        try {\n"
+                + "            ManagementFactory.getPlatformMBeanServer().registerMBean(operationMetrics, name);\n"
+                + "        } catch (InstanceAlreadyExistsException e) {\n"
+                + "            registeredMBeans.remove(operationMetrics, name);\n"
+                + "            throw new IllegalStateException(\"The name \" + name + \" of the metrics MBean of the operation \" + operationMetrics.getOperation() + \" is already in use\", e);\n"
+                + "        } catch (JMException e) {\n"
+                + "            registeredMBeans.remove(operationMetrics, name);\n"
+                + "            throw new IllegalStateException(\"Unable to register the metrics MBean of the operation \" + operationMetrics.getOperation(), e);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    private static ObjectName getObjectName(String domain, OperationMetrics operationMetrics) throws MalformedObjectNameException {\n"
+                + "        return new ObjectName(domain + \":type=OperationMetrics,name=\" + ObjectName.quote(operationMetrics.getOperation()));\n"
+                + "    }\n"
+                + "\n");
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class OperationRejectedExceptionTemplate extends ClassTemplate {
+
+    public OperationRejectedExceptionTemplate(String packageName) {
+        setPackageName(packageName);
+        setClassName("OperationRejectedException");
+        if (ERROR_MANAGEMENT) {
+            setExtend("PublicException");
+        } else {
+            setExtend("RuntimeException");
+        }
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private final Object limitKey;\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the executor selector or the operation type whose limit was reached,\n"
+                + "     * or null when it was rejected for another reason, like an expired deadline\n"
+                + "     */\n"
+                + "    public Object getLimitKey() {\n"
+                + "        return limitKey;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The rejection is expected under overload, the stack trace is not filled.\n"
+                + "     */\n"
+                + "    public OperationRejectedException(Object limitKey) {\n"
+                + "        super(\"The operation has been rejected because the concurrent executions limit was reached for: \" + limitKey, null, false, false);\n"
+                + "        this.limitKey = limitKey;\n"
+                + "    }\n"
+                + "\n"
+                + "    public OperationRejectedException(String message) {\n"
+                + "        super(message, null, false, false);\n"
+                + "        this.limitKey = null;\n"
+                + "    }");
+    }
+
+}
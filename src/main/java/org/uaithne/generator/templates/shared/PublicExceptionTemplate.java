@@ -44,6 +44,14 @@ public class PublicExceptionTemplate extends ClassTemplate {
                 + "\n"
                 + "    public PublicException(Throwable cause) {\n"
                 + "        super(cause);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Allow the expected business errors to skip the stack trace filling\n"
+                + "     * passing false as writableStackTrace.\n"
+                + "     */\n"
+                + "    protected PublicException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {\n"
+                + "        super(message, cause, enableSuppression, writableStackTrace);\n"
                 + "    }");
     }
 
@@ -36,10 +36,17 @@ public class ExecutorGroupRpcImplTemplate extends ClassTemplate {
         addImport(sharedGwtPackageDot + "shared.rpc.RpcRequest", packageName);
         addImport(sharedGwtPackageDot + "shared.rpc.RpcResponse", packageName);
         addImport(sharedGwtPackageDot + "shared.rpc.RpcException", packageName);
+        addImport(sharedGwtPackageDot + "shared.rpc.SequentialGwtOperation", packageName);
         addImport(EXECUTOR_GROUP_DATA_TYPE, packageName);
         addImport(OPERATION_DATA_TYPE, packageName);
         addImport("com.google.gwt.user.server.rpc.RemoteServiceServlet", packageName);
         addImport(ARRAYLIST_DATA_TYPE, packageName);
+        addImport("java.util.concurrent.Callable", packageName);
+        addImport("java.util.concurrent.CancellationException", packageName);
+        addImport("java.util.concurrent.ExecutionException", packageName);
+        addImport("java.util.concurrent.ExecutorService", packageName);
+        addImport("java.util.concurrent.Future", packageName);
+        addImport("java.util.concurrent.RejectedExecutionException", packageName);
         setClassName("ExecutorGroupRpcImpl");
         setExtend("RemoteServiceServlet");
         addImplement("ExecutorGroupRpc");
@@ -92,6 +99,27 @@ public class ExecutorGroupRpcImplTemplate extends ClassTemplate {
                 + "        return chainedExecutorGroup;\n"
                 + "    }\n"
                 + "\n"
+                + "    private ExecutorService executorService;\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the executor service used for execute concurrently the operations of a request\n"
+                + "     */\n"
+                + "    public ExecutorService getExecutorService() {\n"
+                + "        return executorService;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Set the executor service used for execute concurrently the operations of a request,\n"
+                + "     * when it is null (the default value) the operations are executed sequentially.\n"
+                + "     * <p>\n"
+                + "     * A bounded pool is recommended; the operations executed in the pool don't see the\n"
+                + "     * thread local state of the request thread.\n"
+                + "     * @param executorService the executorService to set\n"
+                + "     */\n"
+                + "    public void setExecutorService(ExecutorService executorService) {\n"
+                + "        this.executorService = executorService;\n"
+                + "    }\n"
+                + "\n"
                 + "    @Override\n"
                 + "    public RpcResponse execute(RpcRequest request) {\n"
                 + "        if (request == null) {\n"
@@ -105,15 +133,85 @@ public class ExecutorGroupRpcImplTemplate extends ClassTemplate {
                 + "        if (operations == null) {\n"
                 + "            return null;\n"
                 + "        }\n"
-                + "        ArrayList<Object> result = new ArrayList<Object>(operations.size());\n"
+                + "        if (executorService == null || operations.size() <= 1) {\n"
+                + "            ArrayList<Object> result = new ArrayList<Object>(operations.size());\n"
+                + "\n"
+                + "            for (int i = 0; i < operations.size(); i++) {\n"
+                + "                result.add(executeOperation(operations.get(i)));\n"
+                + "            }\n"
+                + "\n"
+                + "            return result;\n"
+                + "        }\n"
+                + "        return executeConcurrently(operations, executorService);\n"
+                + "    }\n"
                 + "\n"
-                + "        for (int i = 0; i < operations.size(); i++) {\n"
-                + "            result.add(executeOperation(operations.get(i)));\n"
+                + "    /**\n"
+                + "     * Execute the operations in the executor service keeping the order of the results.\n"
+                + "     * The sequential operations wait for all the previous operations, are executed\n"
+                + "     * in the request thread, and the following operations don't start until they end.\n"
+                + "     */\n"
+                + "    protected ArrayList<Object> executeConcurrently(ArrayList<Operation> operations, ExecutorService executorService) {\n"
+                + "        int size = operations.size();\n"
+                + "        Object[] results = new Object[size];\n"
+                + "        Future<?>[] futures = new Future<?>[size];\n"
+                + "        int pending = 0;\n"
+                + "\n"
+                + "        for (int i = 0; i < size; i++) {\n"
+                + "            final Operation operation = operations.get(i);\n"
+                + "            if (isSequential(operation)) {\n"
+                + "                for (; pending < i; pending++) {\n"
+                + "                    if (futures[pending] != null) {\n"
+                + "                        results[pending] = collect(futures[pending]);\n"
+                + "                    }\n"
+                + "                }\n"
+                + "                results[i] = executeOperation(operation);\n"
+                + "                pending = i + 1;\n"
+                + "            } else {\n"
+                + "                try {\n"
+                + "                    futures[i] = executorService.submit(new Callable<Object>() {\n"
+                + "                        @Override\n"
+                + "                        public Object call() throws Exception {\n"
+                + "                            return executeOperation(operation);\n"
+                + "                        }\n"
+                + "                    });\n"
+                + "                } catch (RejectedExecutionException e) {\n"
+                + "                    results[i] = executeOperation(operation);\n"
+                + "                }\n"
+                + "            }\n"
                 + "        }\n"
                 + "\n"
+                + "        ArrayList<Object> result = new ArrayList<Object>(size);\n"
+                + "        for (int i = 0; i < size; i++) {\n"
+                + "            if (i >= pending && futures[i] != null) {\n"
+                + "                results[i] = collect(futures[i]);\n"
+                + "            }\n"
+                + "            result.add(results[i]);\n"
+                + "        }\n"
                 + "        return result;\n"
                 + "    }\n"
                 + "\n"
+                + "    /**\n"
+                + "     * @return true if the operation must be executed alone, after the previous operations\n"
+                + "     * of the request and before the following ones\n"
+                + "     */\n"
+                + "    protected boolean isSequential(Operation operation) {\n"
+                + "        return operation instanceof SequentialGwtOperation || operation instanceof AwaitGwtOperation;\n"
+                + "    }\n"
+                + "\n"
+                + "    private Object collect(Future<?> future) {\n"
+                + "        try {\n"
+                + "            return future.get();\n"
+                + "        } catch (InterruptedException e) {\n"
+                + "            Thread.currentThread().interrupt();\n"
+                + "            future.cancel(true);\n"
+                + "            return wrapOperationEception(e);\n"
+                + "        } catch (ExecutionException e) {\n"
+                + "            return wrapOperationEception(e.getCause());\n"
+                + "        } catch (CancellationException e) {\n"
+                + "            return wrapOperationEception(e);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
                 + "    Object executeOperation(Operation o) {\n"
                 + "        try {\n"
                 + "            return runOperation(o);\n"
@@ -28,47 +28,24 @@ public class ApplicationParameterDriverTemplate extends ClassTemplate {
         addImport("org.apache.ibatis.executor.parameter.ParameterHandler", packageName);
         addImport("org.apache.ibatis.mapping.BoundSql", packageName);
         addImport("org.apache.ibatis.mapping.MappedStatement", packageName);
-        addImport("org.apache.ibatis.scripting.LanguageDriver", packageName);
         addImport("org.apache.ibatis.scripting.xmltags.XMLLanguageDriver", packageName);
-        addImport("org.apache.ibatis.session.SqlSession", packageName);
-        addImport("org.apache.ibatis.session.SqlSessionFactory", packageName);
         setClassName("ApplicationParameterDriver");
         setExtend("XMLLanguageDriver");
     }
     
     @Override
     protected void writeContent(Appendable appender) throws IOException {
-        appender.append("    private final ThreadLocal<Object> applicationParameters = new ThreadLocal<Object>();\n" +
-            "\n" +
-            "    public Object getApplicationParameter() {\n" +
-            "        return applicationParameters.get();\n" +
-            "    }\n" +
-            "\n" +
-            "    public void setApplicationParameter(Object applicationParameter) {\n" +
-            "        applicationParameters.set(applicationParameter);\n" +
-            "    }\n" +
-            "\n" +
-            "    @Override\n" +
+        appender.append("    @Override\n" +
             "    public ParameterHandler createParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {\n" +
-            "        Object appParameter = getApplicationParameter();\n" +
-            "        boundSql.setAdditionalParameter(\"_app\", appParameter);\n" +
-            "        return super.createParameterHandler(mappedStatement, parameterObject, boundSql);\n" +
-            "    }\n" +
-            "\n" +
-            "    public static void setApplicationParameter(SqlSessionFactory sqlSessionFactory, Object applicationParameter) {\n" +
-            "        LanguageDriver languageDriver = sqlSessionFactory.getConfiguration().getDefaultScriptingLanguageInstance();\n" +
-            "        if (languageDriver instanceof ApplicationParameterDriver) {\n" +
-            "            ApplicationParameterDriver driver = (ApplicationParameterDriver) languageDriver;\n" +
-            "            driver.setApplicationParameter(applicationParameter);\n" +
-            "        }\n" +
-            "    }\n" +
-            "\n" +
-            "    public static void setApplicationParameter(SqlSession sqlSession, Object applicationParameter) {\n" +
-            "        LanguageDriver languageDriver = sqlSession.getConfiguration().getDefaultScriptingLanguageInstance();\n" +
-            "        if (languageDriver instanceof ApplicationParameterDriver) {\n" +
-            "            ApplicationParameterDriver driver = (ApplicationParameterDriver) languageDriver;\n" +
-            "            driver.setApplicationParameter(applicationParameter);\n" +
+            "        if (parameterObject instanceof ApplicationParameterWrapper) {\n" +
+            "            ApplicationParameterWrapper wrapper = (ApplicationParameterWrapper) parameterObject;\n" +
+            "            parameterObject = wrapper.getParameter();\n" +
+            "            boundSql.setAdditionalParameter(\"_app\", wrapper.getApplicationParameter());\n" +
+            "            if (boundSql.hasAdditionalParameter(\"_parameter\")) {\n" +
+            "                boundSql.setAdditionalParameter(\"_parameter\", parameterObject);\n" +
+            "            }\n" +
             "        }\n" +
+            "        return super.createParameterHandler(mappedStatement, parameterObject, boundSql);\n" +
             "    }");
     }
     
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class ApplicationParameterWrapperTemplate extends ClassTemplate {
+
+    public ApplicationParameterWrapperTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("java.util.Collection", packageName);
+        addImport("java.util.HashMap", packageName);
+        addImport("java.util.List", packageName);
+        addImport("org.apache.ibatis.reflection.MetaObject", packageName);
+        addImport("org.apache.ibatis.reflection.factory.ObjectFactory", packageName);
+        addImport("org.apache.ibatis.reflection.property.PropertyTokenizer", packageName);
+        addImport("org.apache.ibatis.reflection.wrapper.ObjectWrapper", packageName);
+        addImport("org.apache.ibatis.session.Configuration", packageName);
+        setClassName("ApplicationParameterWrapper");
+        addImplement("ObjectWrapper");
+        setFinal(true);
+    }
+
+    @Override
+    protected void writeClassAnnotations(Appendable appender) throws IOException {
+        appender.append("/**\n"
+                + " * Parameter of a statement that also exposes the application parameter as _app.\n"
+                + " * MyBatis uses it directly as the ObjectWrapper of the parameter, and the\n"
+                + " * ApplicationParameterDriver unwraps it before setting the statement parameters.\n"
+                + " */\n");
+        super.writeClassAnnotations(appender);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private final Configuration configuration;\n"
+                + "    private final Object parameter;\n"
+                + "    private final Object applicationParameter;\n"
+                + "    private final boolean simpleParameter;\n"
+                + "    private MetaObject metaParameter;\n"
+                + "    private MetaObject metaApplicationParameter;\n"
+                + "\n"
+                + "    public ApplicationParameterWrapper(Configuration configuration, Object parameter, Object applicationParameter) {\n"
+                + "        this.configuration = configuration;\n"
+                + "        this.parameter = wrapCollection(parameter);\n"
+                + "        this.applicationParameter = applicationParameter;\n"
+                + "        simpleParameter = parameter == null || configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass());\n"
+                + "    }\n"
+                + "\n"
+                + "    public Object getParameter() {\n"
+                + "        return parameter;\n"
+                + "    }\n"
+                + "\n"
+                + "    public Object getApplicationParameter() {\n"
+                + "        return applicationParameter;\n"
+                + "    }\n"
+                + "\n"
+                + "    private static Object wrapCollection(Object parameter) {\n"
+                + "        if (parameter instanceof Collection) {\n"
+                + "            HashMap<String, Object> map = new HashMap<String, Object>();\n"
+                + "            map.put(\"collection\", parameter);\n"
+                + "            if (parameter instanceof List) {\n"
+                + "                map.put(\"list\", parameter);\n"
+                + "            }\n"
+                + "            return map;\n"
+                + "        } else if (parameter != null && parameter.getClass().isArray()) {\n"
+                + "            HashMap<String, Object> map = new HashMap<String, Object>();\n"
+                + "            map.put(\"array\", parameter);\n"
+                + "            return map;\n"
+                + "        }\n"
+                + "        return parameter;\n"
+                + "    }\n"
+                + "\n"
+                + "    private MetaObject getMetaParameter() {\n"
+                + "        if (metaParameter == null) {\n"
+                + "            metaParameter = configuration.newMetaObject(parameter);\n"
+                + "        }\n"
+                + "        return metaParameter;\n"
+                + "    }\n"
+                + "\n"
+                + "    private MetaObject getMetaApplicationParameter() {\n"
+                + "        if (metaApplicationParameter == null) {\n"
+                + "            metaApplicationParameter = configuration.newMetaObject(applicationParameter);\n"
+                + "        }\n"
+                + "        return metaApplicationParameter;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public Object get(PropertyTokenizer prop) {\n"
+                + "        if (\"_app\".equals(prop.getName())) {\n"
+                + "            return applicationParameter;\n"
+                + "        } else if (simpleParameter) {\n"
+                + "            return parameter;\n"
+                + "        } else {\n"
+                + "            return getMetaParameter().getValue(prop.getIndexedName());\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public void set(PropertyTokenizer prop, Object value) {\n"
+                + "        getMetaParameter().setValue(prop.getIndexedName(), value);\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public String findProperty(String name, boolean useCamelCaseMapping) {\n"
+                + "        return getMetaParameter().findProperty(name, useCamelCaseMapping);\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public String[] getGetterNames() {\n"
+                + "        return getMetaParameter().getGetterNames();\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public String[] getSetterNames() {\n"
+                + "        return getMetaParameter().getSetterNames();\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public Class<?> getSetterType(String name) {\n"
+                + "        return getMetaParameter().getSetterType(name);\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public Class<?> getGetterType(String name) {\n"
+                + "        PropertyTokenizer prop = new PropertyTokenizer(name);\n"
+                + "        if (\"_app\".equals(prop.getName())) {\n"
+                + "            if (prop.getChildren() != null) {\n"
+                + "                return getMetaApplicationParameter().getGetterType(prop.getChildren());\n"
+                + "            } else if (applicationParameter != null) {\n"
+                + "                return applicationParameter.getClass();\n"
+                + "            } else {\n"
+                + "                return Object.class;\n"
+                + "            }\n"
+                + "        } else if (simpleParameter) {\n"
+                + "            if (parameter != null) {\n"
+                + "                return parameter.getClass();\n"
+                + "            } else {\n"
+                + "                return Object.class;\n"
+                + "            }\n"
+                + "        } else {\n"
+                + "            return getMetaParameter().getGetterType(name);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public boolean hasSetter(String name) {\n"
+                + "        return getMetaParameter().hasSetter(name);\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public boolean hasGetter(String name) {\n"
+                + "        PropertyTokenizer prop = new PropertyTokenizer(name);\n"
+                + "        if (\"_app\".equals(prop.getName())) {\n"
+                + "            if (prop.getChildren() != null) {\n"
+                + "                return getMetaApplicationParameter().hasGetter(prop.getChildren());\n"
+                + "            } else {\n"
+                + "                return true;\n"
+                + "            }\n"
+                + "        } else if (simpleParameter) {\n"
+                + "            return true;\n"
+                + "        } else {\n"
+                + "            return getMetaParameter().hasGetter(name);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public MetaObject instantiatePropertyValue(String name, PropertyTokenizer prop, ObjectFactory objectFactory) {\n"
+                + "        return getMetaParameter().getObjectWrapper().instantiatePropertyValue(name, prop, objectFactory);\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public boolean isCollection() {\n"
+                + "        return false;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public void add(Object element) {\n"
+                + "        throw new UnsupportedOperationException();\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public <E> void addAll(List<E> element) {\n"
+                + "        throw new UnsupportedOperationException();\n"
+                + "    }");
+    }
+
+}
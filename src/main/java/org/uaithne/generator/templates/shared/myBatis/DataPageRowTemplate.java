@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.IOException;
+import static org.uaithne.generator.commons.DataTypeInfo.*;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class DataPageRowTemplate extends ClassTemplate {
+
+    public DataPageRowTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport(PAGE_INFO_DATA_TYPE, packageName);
+        setClassName("DataPageRow");
+        addGenericArgument(RESULT_BASE_DEFINITION);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private ").append(PAGE_INFO_DATA).append(" dataCount;\n"
+                + "    private RESULT value;\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the total number of rows returned by the query without paging\n"
+                + "     */\n"
+                + "    public ").append(PAGE_INFO_DATA).append(" getDataCount() {\n"
+                + "        return dataCount;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @param dataCount the dataCount to set\n"
+                + "     */\n"
+                + "    public void setDataCount(").append(PAGE_INFO_DATA).append(" dataCount) {\n"
+                + "        this.dataCount = dataCount;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the value\n"
+                + "     */\n"
+                + "    public RESULT getValue() {\n"
+                + "        return value;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @param value the value to set\n"
+                + "     */\n"
+                + "    public void setValue(RESULT value) {\n"
+                + "        this.value = value;\n"
+                + "    }");
+    }
+    
+}
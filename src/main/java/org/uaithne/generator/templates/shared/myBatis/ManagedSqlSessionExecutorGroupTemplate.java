@@ -29,6 +29,7 @@ public class ManagedSqlSessionExecutorGroupTemplate extends ClassTemplate {
         addImport(DataTypeInfo.CHAINED_EXECUTOR_GROUP_DATA_TYPE, packageName);
         addImport(DataTypeInfo.EXECUTOR_GROUP_DATA_TYPE, packageName);
         addImport(DataTypeInfo.OPERATION_DATA_TYPE, packageName);
+        addImport("java.util.concurrent.ConcurrentHashMap", packageName);
         setClassName("ManagedSqlSessionExecutorGroup");
         setExtend("ChainedExecutorGroup");
         addContextImport(packageName);
@@ -37,20 +38,37 @@ public class ManagedSqlSessionExecutorGroupTemplate extends ClassTemplate {
     @Override
     protected void writeContent(Appendable appender) throws IOException {
         appender.append("    private ManagedSqlSessionProvider provider;\n"
-                + "\n"
-                + "    @Override\n"
-                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
-                + "        boolean maybeRollback = true;\n"
-                + "        try {\n"
-                + "            provider.beginSqlSessionLevel();\n"
-                + "            RESULT result = super.").append(EXECUTE_ANY).append("(operation").append(CONTEXT_VALUE).append(");\n"
-                + "            maybeRollback = false;\n"
-                + "            return result;\n"
-                + "        } finally {\n"
-                + "            provider.endSqlSessionLevel(maybeRollback);\n"
-                + "        }\n"
-                + "    }\n"
-                + "\n"
+                + "    private final ConcurrentHashMap<Class, ManagedSqlSessionProvider.SessionPolicy> sessionPolicies = new ConcurrentHashMap<Class, ManagedSqlSessionProvider.SessionPolicy>();\n"
+                + "\n");
+        if (HAS_CONTEXT) {
+            appender.append("    @Override\n"
+                    + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                    + "        SqlSessionHolder holder = provider.beginSqlSessionLevel(getSessionPolicy(operation.getClass()), context);\n"
+                    + "        boolean maybeRollback = true;\n"
+                    + "        try {\n"
+                    + "            RESULT result = super.").append(EXECUTE_ANY).append("(operation").append(CONTEXT_VALUE).append(");\n"
+                    + "            maybeRollback = false;\n"
+                    + "            return result;\n"
+                    + "        } finally {\n"
+                    + "            provider.endSqlSessionLevel(holder, maybeRollback);\n"
+                    + "        }\n"
+                    + "    }\n");
+        } else {
+            appender.append("    @Override\n"
+                    + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                    + "        boolean maybeRollback = true;\n"
+                    + "        try {\n"
+                    + "            provider.beginSqlSessionLevel(getSessionPolicy(operation.getClass()));\n"
+                    + "            RESULT result = super.").append(EXECUTE_ANY).append("(operation").append(CONTEXT_VALUE).append(");\n"
+                    + "            maybeRollback = false;\n"
+                    + "            return result;\n"
+                    + "        } finally {\n"
+                    + "            provider.endSqlSessionLevel(maybeRollback);\n"
+                    + "        }\n"
+                    + "    }\n");
+        }
+        writeSessionPolicyMethods(appender);
+        appender.append("\n"
                 + "    public ManagedSqlSessionExecutorGroup(ExecutorGroup chainedExecutorGroup, ManagedSqlSessionProvider provider) {\n"
                 + "        super(chainedExecutorGroup);\n"
                 + "        \n"
@@ -60,5 +78,35 @@ public class ManagedSqlSessionExecutorGroupTemplate extends ClassTemplate {
                 + "        this.provider = provider;\n"
                 + "    }");
     }
+
+    public static void writeSessionPolicyMethods(Appendable appender) throws IOException {
+        appender.append("\n"
+                + "    /**\n"
+                + "     * The sessions opened by the operation, when it is the outermost one, are\n"
+                + "     * closed without commit. Only operations that don't modify the database must be\n"
+                + "     * registered.\n"
+                + "     */\n"
+                + "    public void readOnly(Class<? extends Operation> operationType) {\n"
+                + "        setSessionPolicy(operationType, ManagedSqlSessionProvider.SessionPolicy.READ_ONLY);\n"
+                + "    }\n"
+                + "\n"
+                + "    public void setSessionPolicy(Class<? extends Operation> operationType, ManagedSqlSessionProvider.SessionPolicy policy) {\n"
+                + "        if (operationType == null) {\n"
+                + "            throw new IllegalArgumentException(\"operationType for the session policy cannot be null\");\n"
+                + "        }\n"
+                + "        if (policy == null) {\n"
+                + "            throw new IllegalArgumentException(\"policy for the session policy cannot be null\");\n"
+                + "        }\n"
+                + "        sessionPolicies.put(operationType, policy);\n"
+                + "    }\n"
+                + "\n"
+                + "    public ManagedSqlSessionProvider.SessionPolicy getSessionPolicy(Class<? extends Operation> operationType) {\n"
+                + "        ManagedSqlSessionProvider.SessionPolicy policy = sessionPolicies.get(operationType);\n"
+                + "        if (policy == null) {\n"
+                + "            return ManagedSqlSessionProvider.SessionPolicy.DEFAULT;\n"
+                + "        }\n"
+                + "        return policy;\n"
+                + "    }\n");
+    }
     
 }
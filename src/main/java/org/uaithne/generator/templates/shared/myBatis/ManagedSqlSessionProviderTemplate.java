@@ -27,7 +27,12 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
         setPackageName(packageName);
         addImport("java.io.IOException", packageName);
         addImport("java.io.InputStream", packageName);
+        addImport("java.sql.Connection", packageName);
+        addImport("java.sql.SQLException", packageName);
+        addImport("java.util.concurrent.atomic.AtomicLong", packageName);
+        addImport("org.apache.ibatis.exceptions.PersistenceException", packageName);
         addImport("org.apache.ibatis.io.Resources", packageName);
+        addImport("org.apache.ibatis.session.ExecutorType", packageName);
         addImport("org.apache.ibatis.session.SqlSession", packageName);
         addImport("org.apache.ibatis.session.SqlSessionFactory", packageName);
         addImport("org.apache.ibatis.session.SqlSessionFactoryBuilder", packageName);
@@ -39,7 +44,11 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
     protected void writeContent(Appendable appender) throws IOException {
         appender.append("    private final SqlSessionFactory sqlSessionFactory;\n"
                 + "    private final ThreadLocal<SqlSession> currentSqlSession = new ThreadLocal<SqlSession>();\n"
+                + "    private final ThreadLocal<SqlSession> currentBatchSqlSession = new ThreadLocal<SqlSession>();\n"
                 + "    private final ThreadLocal<Integer> currentSessionLevel = new ThreadLocal<Integer>();\n"
+                + "    private final ThreadLocal<SessionPolicy> currentSessionPolicy = new ThreadLocal<SessionPolicy>();\n"
+                + "    private final AtomicLong commitCount = new AtomicLong();\n"
+                + "    private final AtomicLong skippedCommitCount = new AtomicLong();\n"
                 + "\n"
                 + "    public ManagedSqlSessionProvider(String configurationUrl) throws IOException {\n"
                 + "        InputStream inputStream = Resources.getResourceAsStream(configurationUrl);\n"
@@ -66,17 +75,36 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
                 + "    }\n"
                 + "\n"
                 + "    public void beginSqlSessionLevel() {\n"
+                + "        beginSqlSessionLevel(SessionPolicy.DEFAULT);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The policy of the outermost level is used for the sessions opened in it,\n"
+                + "     * a read only level that contains other kind of level is committed as usual;\n"
+                + "     * the read only session opened before is closed and the operations executed\n"
+                + "     * after use a new one.\n"
+                + "     */\n"
+                + "    public void beginSqlSessionLevel(SessionPolicy policy) {\n"
                 + "        Integer currentLevel = currentSessionLevel.get();\n"
                 + "        if (currentLevel == null || currentLevel <= 0) {\n"
-                + "            currentLevel = 1;\n"
+                + "            currentSessionLevel.set(1);\n"
+                + "            currentSessionPolicy.set(policy);\n"
                 + "        } else {\n"
-                + "            currentLevel++;\n"
+                + "            currentSessionLevel.set(currentLevel + 1);\n"
+                + "            if (policy != SessionPolicy.READ_ONLY && currentSessionPolicy.get() == SessionPolicy.READ_ONLY) {\n"
+                + "                currentSessionPolicy.set(SessionPolicy.DEFAULT);\n"
+                + "                SqlSession readOnlySession = currentSqlSession.get();\n"
+                + "                if (readOnlySession != null) {\n"
+                + "                    currentSqlSession.remove();\n"
+                + "                    currentBatchSqlSession.remove();\n"
+                + "                    closeReadOnlySqlSession(readOnlySession);\n"
+                + "                }\n"
+                + "            }\n"
                 + "        }\n"
-                + "        currentSessionLevel.set(currentLevel);\n"
                 + "    }\n"
                 + "\n"
                 + "    public boolean isSqlSessionOpened() {\n"
-                + "        return currentSqlSession.get() != null;\n"
+                + "        return currentSqlSession.get() != null || currentBatchSqlSession.get() != null;\n"
                 + "    }\n"
                 + "\n"
                 + "    @Override\n"
@@ -87,12 +115,40 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
                 + "        }\n"
                 + "        SqlSession result = currentSqlSession.get();\n"
                 + "        if (result == null) {\n"
-                + "            result = openNewSqlSession(sqlSessionFactory);\n"
+                + "            if (currentSessionPolicy.get() == SessionPolicy.READ_ONLY) {\n"
+                + "                result = openNewReadOnlySqlSession(sqlSessionFactory);\n"
+                + "            } else {\n"
+                + "                result = openNewSqlSession(sqlSessionFactory);\n"
+                + "            }\n"
                 + "            currentSqlSession.set(result);\n"
                 + "        }\n"
                 + "        return result;\n"
                 + "    }\n"
                 + "\n"
+                + "    @Override\n"
+                + "    public SqlSession getBatchSqlSession() {\n"
+                + "        Integer currentLevel = currentSessionLevel.get();\n"
+                + "        if (currentLevel == null || currentLevel <= 0) {\n"
+                + "            throw new IllegalStateException(\"No open connection is available in this context, the operation must cross a ManagedSqlSessionExecutorGroup before get the sql session\");\n"
+                + "        }\n"
+                + "        SqlSession result = currentBatchSqlSession.get();\n"
+                + "        if (result == null) {\n"
+                + "            SqlSession session = getSqlSession();\n"
+                + "            result = openNewBatchSqlSession(sqlSessionFactory, session.getConnection());\n"
+                + "            currentBatchSqlSession.set(result);\n"
+                + "        }\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The select operations use the same session than the other ones, the\n"
+                + "     * ReadWriteSplittingSqlSessionProvider send them to the replicas.\n"
+                + "     */\n"
+                + "    @Override\n"
+                + "    public SqlSession getReadSqlSession() {\n"
+                + "        return getSqlSession();\n"
+                + "    }\n"
+                + "\n"
                 + "    public void endSqlSessionLevel(boolean maybeRollback) {\n"
                 + "        Integer currentLevel = currentSessionLevel.get();\n"
                 + "        if (currentLevel == null || currentLevel <= 1) {\n"
@@ -106,18 +162,66 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
                 + "            return;\n"
                 + "        }\n"
                 + "\n"
-                + "        currentSessionLevel.set(null);\n"
-                + "\n"
+                + "        boolean skipCommit = currentSessionPolicy.get() == SessionPolicy.READ_ONLY;\n"
                 + "        SqlSession session = currentSqlSession.get();\n"
-                + "        if (session != null) {\n"
-                + "            currentSqlSession.set(null);\n"
+                + "        SqlSession batchSession = currentBatchSqlSession.get();\n"
+                + "        try {\n"
+                + "            endSqlSessions(session, batchSession, maybeRollback, skipCommit);\n"
+                + "        } finally {\n"
+                + "            currentSessionLevel.remove();\n"
+                + "            currentSessionPolicy.remove();\n"
+                + "            currentSqlSession.remove();\n"
+                + "            currentBatchSqlSession.remove();\n"
+                + "            if (session != null) {\n"
+                + "                if (skipCommit) {\n"
+                + "                    closeReadOnlySqlSession(session);\n"
+                + "                } else {\n"
+                + "                    close(session);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n"
                 + "\n"
-                + "            if (maybeRollback) {\n"
-                + "                rollback(session);\n"
-                + "            } else {\n"
-                + "                commit(session);\n"
+                + "    /**\n"
+                + "     * The batch session shares the connection of the main session, it is\n"
+                + "     * flushed and committed first and it is not closed because closing it\n"
+                + "     * closes the shared connection, that is released closing the main session.\n"
+                + "     */\n"
+                + "    private void endSqlSessions(SqlSession session, SqlSession batchSession, boolean maybeRollback, boolean skipCommit) {\n"
+                + "        if (maybeRollback) {\n"
+                + "            try {\n"
+                + "                if (batchSession != null) {\n"
+                + "                    rollback(batchSession);\n"
+                + "                }\n"
+                + "            } finally {\n"
+                + "                if (session != null) {\n"
+                + "                    rollback(session);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        } else if (skipCommit) {\n"
+                + "            if (session != null) {\n"
+                + "                skippedCommitCount.incrementAndGet();\n"
+                + "            }\n"
+                + "            if (batchSession != null) {\n"
+                + "                skippedCommitCount.incrementAndGet();\n"
+                + "            }\n"
+                + "        } else {\n"
+                + "            boolean committed = false;\n"
+                + "            try {\n"
+                + "                if (batchSession != null) {\n"
+                + "                    commit(batchSession);\n"
+                + "                    commitCount.incrementAndGet();\n"
+                + "                }\n"
+                + "                if (session != null) {\n"
+                + "                    commit(session);\n"
+                + "                    commitCount.incrementAndGet();\n"
+                + "                }\n"
+                + "                committed = true;\n"
+                + "            } finally {\n"
+                + "                if (!committed) {\n"
+                + "                    endSqlSessions(session, batchSession, true, false);\n"
+                + "                }\n"
                 + "            }\n"
-                + "            close(session);\n"
                 + "        }\n"
                 + "    }\n"
                 + "\n"
@@ -129,6 +233,21 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
                 + "        return level;\n"
                 + "    }\n"
                 + "\n"
+                + "    public SessionPolicy getCurrentSessionPolicy() {\n"
+                + "        return currentSessionPolicy.get();\n"
+                + "    }\n"
+                + "\n"
+                + "    public long getCommitCount() {\n"
+                + "        return commitCount.get();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the number of read only sessions closed without commit\n"
+                + "     */\n"
+                + "    public long getSkippedCommitCount() {\n"
+                + "        return skippedCommitCount.get();\n"
+                + "    }\n"
+                + "\n"
                 + "    public SqlSessionFactory getSqlSessionFactory() {\n"
                 + "        return sqlSessionFactory;\n"
                 + "    }\n"
@@ -137,6 +256,25 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
                 + "        return sqlSessionFactory.openSession();\n"
                 + "    }\n"
                 + "\n"
+                + "    protected SqlSession openNewBatchSqlSession(SqlSessionFactory sqlSessionFactory, Connection connection) {\n"
+                + "        return sqlSessionFactory.openSession(ExecutorType.BATCH, connection);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The connection of the read only sessions is marked as read only, in order to\n"
+                + "     * allow the driver and the database optimize it.\n"
+                + "     */\n"
+                + "    protected SqlSession openNewReadOnlySqlSession(SqlSessionFactory sqlSessionFactory) {\n"
+                + "        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REUSE);\n"
+                + "        try {\n"
+                + "            sqlSession.getConnection().setReadOnly(true);\n"
+                + "        } catch (SQLException e) {\n"
+                + "            sqlSession.close();\n"
+                + "            throw new PersistenceException(\"Unable to mark the connection of the session as read only\", e);\n"
+                + "        }\n"
+                + "        return sqlSession;\n"
+                + "    }\n"
+                + "\n"
                 + "    protected void commit(SqlSession sqlSession) {\n"
                 + "        sqlSession.commit();\n"
                 + "    }\n"
@@ -147,6 +285,35 @@ public class ManagedSqlSessionProviderTemplate extends ClassTemplate {
                 + "\n"
                 + "    protected void close(SqlSession sqlSession) {\n"
                 + "        sqlSession.close();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The read only flag is removed before closing the session, because the\n"
+                + "     * connection can return to a pool and be used for writing. The read only\n"
+                + "     * transaction is ended first, as closing the session does, because some\n"
+                + "     * drivers don't allow changing the flag in the middle of a transaction.\n"
+                + "     */\n"
+                + "    protected void closeReadOnlySqlSession(SqlSession sqlSession) {\n"
+                + "        try {\n"
+                + "            Connection connection = sqlSession.getConnection();\n"
+                + "            if (!connection.getAutoCommit()) {\n"
+                + "                connection.setAutoCommit(true);\n"
+                + "            }\n"
+                + "            connection.setReadOnly(false);\n"
+                + "        } catch (SQLException e) {\n"
+                + "            throw new PersistenceException(\"Unable to remove the read only mark of the connection of the session\", e);\n"
+                + "        } finally {\n"
+                + "            close(sqlSession);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * READ_ONLY sessions use a statement reusing executor and a read only\n"
+                + "     * connection, and are closed without commit.\n"
+                + "     */\n"
+                + "    public enum SessionPolicy {\n"
+                + "        DEFAULT,\n"
+                + "        READ_ONLY\n"
                 + "    }");
     }
     
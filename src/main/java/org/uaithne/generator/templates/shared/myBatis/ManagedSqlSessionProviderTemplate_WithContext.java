@@ -0,0 +1,329 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class ManagedSqlSessionProviderTemplate_WithContext extends ClassTemplate {
+
+    public ManagedSqlSessionProviderTemplate_WithContext(String packageName) {
+        setPackageName(packageName);
+        addImport("java.io.IOException", packageName);
+        addImport("java.io.InputStream", packageName);
+        addImport("java.sql.Connection", packageName);
+        addImport("java.sql.SQLException", packageName);
+        addImport("java.util.concurrent.atomic.AtomicLong", packageName);
+        addImport("org.apache.ibatis.exceptions.PersistenceException", packageName);
+        addImport("org.apache.ibatis.io.Resources", packageName);
+        addImport("org.apache.ibatis.session.ExecutorType", packageName);
+        addImport("org.apache.ibatis.session.SqlSession", packageName);
+        addImport("org.apache.ibatis.session.SqlSessionFactory", packageName);
+        addImport("org.apache.ibatis.session.SqlSessionFactoryBuilder", packageName);
+        setClassName("ManagedSqlSessionProvider");
+        addImplement("SqlSessionProvider");
+        addContextImport(packageName);
+        setAbstract(true);
+    }
+
+    @Override
+    protected void writeClassAnnotations(Appendable appender) throws IOException {
+        appender.append("/**\n"
+                + " * Keeps the sessions in the SqlSessionHolder carried by the context instead of\n"
+                + " * in thread locals, in consequence the operations executed with the same context\n"
+                + " * share the transaction even when they continue in other thread.\n"
+                + " */\n");
+        super.writeClassAnnotations(appender);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private final SqlSessionFactory sqlSessionFactory;\n"
+                + "    private final AtomicLong commitCount = new AtomicLong();\n"
+                + "    private final AtomicLong skippedCommitCount = new AtomicLong();\n"
+                + "\n"
+                + "    public ManagedSqlSessionProvider(String configurationUrl) throws IOException {\n"
+                + "        InputStream inputStream = Resources.getResourceAsStream(configurationUrl);\n"
+                + "        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);\n"
+                + "    }\n"
+                + "\n"
+                + "    public ManagedSqlSessionProvider(ClassLoader loader, String configurationUrl) throws IOException {\n"
+                + "        InputStream inputStream = Resources.getResourceAsStream(loader, configurationUrl);\n"
+                + "        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);\n"
+                + "    }\n"
+                + "\n"
+                + "    public ManagedSqlSessionProvider(String configurationUrl, String environment) throws IOException {\n"
+                + "        InputStream inputStream = Resources.getResourceAsStream(configurationUrl);\n"
+                + "        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream, environment);\n"
+                + "    }\n"
+                + "\n"
+                + "    public ManagedSqlSessionProvider(SqlSessionFactory sqlSessionFactory) {\n"
+                + "        this.sqlSessionFactory = sqlSessionFactory;\n"
+                + "    }\n"
+                + "\n"
+                + "    public ManagedSqlSessionProvider(ClassLoader loader, String configurationUrl, String environment) throws IOException {\n"
+                + "        InputStream inputStream = Resources.getResourceAsStream(loader, configurationUrl);\n"
+                + "        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream, environment);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the holder of the sessions carried by the context, it must be the\n"
+                + "     * same instance for all the operations executed with the context\n"
+                + "     */\n"
+                + "    protected abstract SqlSessionHolder getSqlSessionHolder(").append(CONTEXT_TYPE).append(" context);\n"
+                + "\n"
+                + "    private SqlSessionHolder getRequiredSqlSessionHolder(").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        SqlSessionHolder holder = getSqlSessionHolder(context);\n"
+                + "        if (holder == null) {\n"
+                + "            throw new IllegalStateException(\"The context doesn't provide a SqlSessionHolder\");\n"
+                + "        }\n"
+                + "        return holder;\n"
+                + "    }\n"
+                + "\n"
+                + "    public SqlSessionHolder beginSqlSessionLevel(").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        return beginSqlSessionLevel(SessionPolicy.DEFAULT, context);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The policy of the outermost level is used for the sessions opened in it,\n"
+                + "     * a read only level that contains other kind of level is committed as usual;\n"
+                + "     * the read only session opened before is closed and the operations executed\n"
+                + "     * after use a new one.\n"
+                + "     */\n"
+                + "    public SqlSessionHolder beginSqlSessionLevel(SessionPolicy policy, ").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        SqlSessionHolder holder = getRequiredSqlSessionHolder(context);\n"
+                + "        if (holder.level <= 0) {\n"
+                + "            holder.level = 1;\n"
+                + "            holder.policy = policy;\n"
+                + "        } else {\n"
+                + "            holder.level++;\n"
+                + "            if (policy != SessionPolicy.READ_ONLY && holder.policy == SessionPolicy.READ_ONLY) {\n"
+                + "                holder.policy = SessionPolicy.DEFAULT;\n"
+                + "                SqlSession readOnlySession = holder.sqlSession;\n"
+                + "                if (readOnlySession != null) {\n"
+                + "                    holder.sqlSession = null;\n"
+                + "                    holder.batchSqlSession = null;\n"
+                + "                    closeReadOnlySqlSession(readOnlySession);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "        return holder;\n"
+                + "    }\n"
+                + "\n"
+                + "    public boolean isSqlSessionOpened(").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        SqlSessionHolder holder = getSqlSessionHolder(context);\n"
+                + "        return holder != null && holder.isSqlSessionOpened();\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public SqlSession getSqlSession(").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        SqlSessionHolder holder = getRequiredSqlSessionHolder(context);\n"
+                + "        if (holder.level <= 0) {\n"
+                + "            throw new IllegalStateException(\"No open connection is available in this context, the operation must cross a ManagedSqlSessionExecutorGroup before get the sql session\");\n"
+                + "        }\n"
+                + "        SqlSession result = holder.sqlSession;\n"
+                + "        if (result == null) {\n"
+                + "            if (holder.policy == SessionPolicy.READ_ONLY) {\n"
+                + "                result = openNewReadOnlySqlSession(sqlSessionFactory);\n"
+                + "            } else {\n"
+                + "                result = openNewSqlSession(sqlSessionFactory);\n"
+                + "            }\n"
+                + "            holder.sqlSession = result;\n"
+                + "        }\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public SqlSession getBatchSqlSession(").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        SqlSessionHolder holder = getRequiredSqlSessionHolder(context);\n"
+                + "        if (holder.level <= 0) {\n"
+                + "            throw new IllegalStateException(\"No open connection is available in this context, the operation must cross a ManagedSqlSessionExecutorGroup before get the sql session\");\n"
+                + "        }\n"
+                + "        SqlSession result = holder.batchSqlSession;\n"
+                + "        if (result == null) {\n"
+                + "            SqlSession session = getSqlSession(context);\n"
+                + "            result = openNewBatchSqlSession(sqlSessionFactory, session.getConnection());\n"
+                + "            holder.batchSqlSession = result;\n"
+                + "        }\n"
+                + "        return result;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public SqlSession getReadSqlSession(").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        return getSqlSession(context);\n"
+                + "    }\n"
+                + "\n"
+                + "    public void endSqlSessionLevel(SqlSessionHolder holder, boolean maybeRollback) {\n"
+                + "        if (holder.level > 1) {\n"
+                + "            holder.level--;\n"
+                + "            return;\n"
+                + "        }\n"
+                + "\n"
+                + "        boolean skipCommit = holder.policy == SessionPolicy.READ_ONLY;\n"
+                + "        SqlSession session = holder.sqlSession;\n"
+                + "        SqlSession batchSession = holder.batchSqlSession;\n"
+                + "        try {\n"
+                + "            endSqlSessions(session, batchSession, maybeRollback, skipCommit);\n"
+                + "        } finally {\n"
+                + "            holder.level = 0;\n"
+                + "            holder.policy = null;\n"
+                + "            holder.sqlSession = null;\n"
+                + "            holder.batchSqlSession = null;\n"
+                + "            if (session != null) {\n"
+                + "                if (skipCommit) {\n"
+                + "                    closeReadOnlySqlSession(session);\n"
+                + "                } else {\n"
+                + "                    close(session);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The batch session shares the connection of the main session, it is\n"
+                + "     * flushed and committed first and it is not closed because closing it\n"
+                + "     * closes the shared connection, that is released closing the main session.\n"
+                + "     */\n"
+                + "    private void endSqlSessions(SqlSession session, SqlSession batchSession, boolean maybeRollback, boolean skipCommit) {\n"
+                + "        if (maybeRollback) {\n"
+                + "            try {\n"
+                + "                if (batchSession != null) {\n"
+                + "                    rollback(batchSession);\n"
+                + "                }\n"
+                + "            } finally {\n"
+                + "                if (session != null) {\n"
+                + "                    rollback(session);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        } else if (skipCommit) {\n"
+                + "            if (session != null) {\n"
+                + "                skippedCommitCount.incrementAndGet();\n"
+                + "            }\n"
+                + "            if (batchSession != null) {\n"
+                + "                skippedCommitCount.incrementAndGet();\n"
+                + "            }\n"
+                + "        } else {\n"
+                + "            boolean committed = false;\n"
+                + "            try {\n"
+                + "                if (batchSession != null) {\n"
+                + "                    commit(batchSession);\n"
+                + "                    commitCount.incrementAndGet();\n"
+                + "                }\n"
+                + "                if (session != null) {\n"
+                + "                    commit(session);\n"
+                + "                    commitCount.incrementAndGet();\n"
+                + "                }\n"
+                + "                committed = true;\n"
+                + "            } finally {\n"
+                + "                if (!committed) {\n"
+                + "                    endSqlSessions(session, batchSession, true, false);\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    public int getCurrentLevel(").append(CONTEXT_TYPE).append(" context) {\n"
+                + "        SqlSessionHolder holder = getSqlSessionHolder(context);\n"
+                + "        if (holder == null || holder.level <= 0) {\n"
+                + "            return 0;\n"
+                + "        }\n"
+                + "        return holder.level;\n"
+                + "    }\n"
+                + "\n"
+                + "    public long getCommitCount() {\n"
+                + "        return commitCount.get();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * @return the number of read only sessions closed without commit\n"
+                + "     */\n"
+                + "    public long getSkippedCommitCount() {\n"
+                + "        return skippedCommitCount.get();\n"
+                + "    }\n"
+                + "\n"
+                + "    public SqlSessionFactory getSqlSessionFactory() {\n"
+                + "        return sqlSessionFactory;\n"
+                + "    }\n"
+                + "\n"
+                + "    protected SqlSession openNewSqlSession(SqlSessionFactory sqlSessionFactory) {\n"
+                + "        return sqlSessionFactory.openSession();\n"
+                + "    }\n"
+                + "\n"
+                + "    protected SqlSession openNewBatchSqlSession(SqlSessionFactory sqlSessionFactory, Connection connection) {\n"
+                + "        return sqlSessionFactory.openSession(ExecutorType.BATCH, connection);\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The connection of the read only sessions is marked as read only, in order to\n"
+                + "     * allow the driver and the database optimize it.\n"
+                + "     */\n"
+                + "    protected SqlSession openNewReadOnlySqlSession(SqlSessionFactory sqlSessionFactory) {\n"
+                + "        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REUSE);\n"
+                + "        try {\n"
+                + "            sqlSession.getConnection().setReadOnly(true);\n"
+                + "        } catch (SQLException e) {\n"
+                + "            sqlSession.close();\n"
+                + "            throw new PersistenceException(\"Unable to mark the connection of the session as read only\", e);\n"
+                + "        }\n"
+                + "        return sqlSession;\n"
+                + "    }\n"
+                + "\n"
+                + "    protected void commit(SqlSession sqlSession) {\n"
+                + "        sqlSession.commit();\n"
+                + "    }\n"
+                + "\n"
+                + "    protected void rollback(SqlSession sqlSession) {\n"
+                + "        sqlSession.rollback();\n"
+                + "    }\n"
+                + "\n"
+                + "    protected void close(SqlSession sqlSession) {\n"
+                + "        sqlSession.close();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The read only flag is removed before closing the session, because the\n"
+                + "     * connection can return to a pool and be used for writing. The read only\n"
+                + "     * transaction is ended first, as closing the session does, because some\n"
+                + "     * drivers don't allow changing the flag in the middle of a transaction.\n"
+                + "     */\n"
+                + "    protected void closeReadOnlySqlSession(SqlSession sqlSession) {\n"
+                + "        try {\n"
+                + "            Connection connection = sqlSession.getConnection();\n"
+                + "            if (!connection.getAutoCommit()) {\n"
+                + "                connection.setAutoCommit(true);\n"
+                + "            }\n"
+                + "            connection.setReadOnly(false);\n"
+                + "        } catch (SQLException e) {\n"
+                + "            throw new PersistenceException(\"Unable to remove the read only mark of the connection of the session\", e);\n"
+                + "        } finally {\n"
+                + "            close(sqlSession);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * READ_ONLY sessions use a statement reusing executor and a read only\n"
+                + "     * connection, and are closed without commit.\n"
+                + "     */\n"
+                + "    public enum SessionPolicy {\n"
+                + "        DEFAULT,\n"
+                + "        READ_ONLY\n"
+                + "    }");
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class ReadWriteSplittingSqlSessionProviderTemplate extends ClassTemplate {
+
+    public ReadWriteSplittingSqlSessionProviderTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("java.util.concurrent.atomic.AtomicInteger", packageName);
+        addImport("org.apache.ibatis.session.SqlSession", packageName);
+        addImport("org.apache.ibatis.session.SqlSessionFactory", packageName);
+        setClassName("ReadWriteSplittingSqlSessionProvider");
+        setExtend("ManagedSqlSessionProvider");
+        if (HAS_CONTEXT) {
+            addContextImport(packageName);
+            setAbstract(true);
+        }
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private final SqlSessionFactory[] replicaSqlSessionFactories;\n"
+                + "    private final AtomicInteger nextReplica = new AtomicInteger();\n");
+        if (!HAS_CONTEXT) {
+            appender.append("    private final ThreadLocal<SqlSession> currentReadSqlSession = new ThreadLocal<SqlSession>();\n");
+        }
+        appender.append("\n"
+                + "    /**\n"
+                + "     * The select operations are executed in one of the replicas, chosen in round-robin\n"
+                + "     * when the first one is executed in the session level, the other operations\n"
+                + "     * are executed in the primary.\n"
+                + "     */\n"
+                + "    public ReadWriteSplittingSqlSessionProvider(SqlSessionFactory sqlSessionFactory, SqlSessionFactory... replicaSqlSessionFactories) {\n"
+                + "        super(sqlSessionFactory);\n"
+                + "        if (replicaSqlSessionFactories == null) {\n"
+                + "            throw new IllegalArgumentException(\"replicaSqlSessionFactories for the ReadWriteSplittingSqlSessionProvider cannot be null\");\n"
+                + "        }\n"
+                + "        for (SqlSessionFactory replicaSqlSessionFactory : replicaSqlSessionFactories) {\n"
+                + "            if (replicaSqlSessionFactory == null) {\n"
+                + "                throw new IllegalArgumentException(\"replicaSqlSessionFactories for the ReadWriteSplittingSqlSessionProvider cannot contain null\");\n"
+                + "            }\n"
+                + "        }\n"
+                + "        this.replicaSqlSessionFactories = replicaSqlSessionFactories.clone();\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Once the primary session has been opened in the current session level the\n"
+                + "     * following reads use it too, in order to see the changes already done.\n"
+                + "     */\n"
+                + "    @Override\n");
+        if (HAS_CONTEXT) {
+            appender.append("    public SqlSession getReadSqlSession(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "        if (replicaSqlSessionFactories.length == 0 || isSqlSessionOpened(context)) {\n"
+                    + "            return getSqlSession(context);\n"
+                    + "        }\n"
+                    + "        SqlSessionHolder holder = getSqlSessionHolder(context);\n"
+                    + "        if (holder == null || holder.level <= 0) {\n"
+                    + "            throw new IllegalStateException(\"No open connection is available in this context, the operation must cross a ManagedSqlSessionExecutorGroup before get the sql session\");\n"
+                    + "        }\n"
+                    + "        SqlSession result = holder.readSqlSession;\n"
+                    + "        if (result == null) {\n"
+                    + "            int replica = (nextReplica.getAndIncrement() & Integer.MAX_VALUE) % replicaSqlSessionFactories.length;\n"
+                    + "            result = openNewReadSqlSession(replicaSqlSessionFactories[replica]);\n"
+                    + "            holder.readSqlSession = result;\n"
+                    + "        }\n"
+                    + "        return result;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    public boolean isReadSqlSessionOpened(").append(CONTEXT_TYPE).append(" context) {\n"
+                    + "        SqlSessionHolder holder = getSqlSessionHolder(context);\n"
+                    + "        return holder != null && holder.readSqlSession != null;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    @Override\n"
+                    + "    public void endSqlSessionLevel(SqlSessionHolder holder, boolean maybeRollback) {\n"
+                    + "        try {\n"
+                    + "            super.endSqlSessionLevel(holder, maybeRollback);\n"
+                    + "        } finally {\n"
+                    + "            if (holder.level <= 0) {\n"
+                    + "                SqlSession session = holder.readSqlSession;\n"
+                    + "                if (session != null) {\n"
+                    + "                    holder.readSqlSession = null;\n"
+                    + "                    close(session);\n"
+                    + "                }\n"
+                    + "            }\n"
+                    + "        }\n"
+                    + "    }\n"
+                    + "\n");
+        } else {
+            appender.append("    public SqlSession getReadSqlSession() {\n"
+                    + "        if (replicaSqlSessionFactories.length == 0 || isSqlSessionOpened()) {\n"
+                    + "            return getSqlSession();\n"
+                    + "        }\n"
+                    + "        if (getCurrentLevel() <= 0) {\n"
+                    + "            throw new IllegalStateException(\"No open connection is available in this context, the operation must cross a ManagedSqlSessionExecutorGroup before get the sql session\");\n"
+                    + "        }\n"
+                    + "        SqlSession result = currentReadSqlSession.get();\n"
+                    + "        if (result == null) {\n"
+                    + "            int replica = (nextReplica.getAndIncrement() & Integer.MAX_VALUE) % replicaSqlSessionFactories.length;\n"
+                    + "            result = openNewReadSqlSession(replicaSqlSessionFactories[replica]);\n"
+                    + "            currentReadSqlSession.set(result);\n"
+                    + "        }\n"
+                    + "        return result;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    public boolean isReadSqlSessionOpened() {\n"
+                    + "        return currentReadSqlSession.get() != null;\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    @Override\n"
+                    + "    public void endSqlSessionLevel(boolean maybeRollback) {\n"
+                    + "        try {\n"
+                    + "            super.endSqlSessionLevel(maybeRollback);\n"
+                    + "        } finally {\n"
+                    + "            if (getCurrentLevel() <= 0) {\n"
+                    + "                SqlSession session = currentReadSqlSession.get();\n"
+                    + "                if (session != null) {\n"
+                    + "                    currentReadSqlSession.set(null);\n"
+                    + "                    close(session);\n"
+                    + "                }\n"
+                    + "            }\n"
+                    + "        }\n"
+                    + "    }\n"
+                    + "\n");
+        }
+        appender.append("    public SqlSessionFactory[] getReplicaSqlSessionFactories() {\n"
+                + "        return replicaSqlSessionFactories.clone();\n"
+                + "    }\n"
+                + "\n"
+                + "    protected SqlSession openNewReadSqlSession(SqlSessionFactory sqlSessionFactory) {\n"
+                + "        return sqlSessionFactory.openSession();\n"
+                + "    }");
+    }
+
+}
@@ -26,13 +26,16 @@ public class RetainIdPluginTemplate extends ClassTemplate {
 
     public RetainIdPluginTemplate(String packageName) {
         setPackageName(packageName);
-        addImport("java.lang.reflect.Field", packageName);
         addImport("java.sql.ResultSet", packageName);
         addImport("java.sql.ResultSetMetaData", packageName);
         addImport("java.sql.SQLException", packageName);
         addImport("java.sql.Statement", packageName);
+        addImport("java.util.ArrayList", packageName);
         addImport("java.util.Collection", packageName);
+        addImport("java.util.Collections", packageName);
+        addImport("java.util.List", packageName);
         addImport("java.util.Properties", packageName);
+        addImport("java.util.concurrent.ConcurrentHashMap", packageName);
         addImport("org.apache.ibatis.executor.Executor", packageName);
         addImport("org.apache.ibatis.executor.ExecutorException", packageName);
         addImport("org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator", packageName);
@@ -61,27 +64,129 @@ public class RetainIdPluginTemplate extends ClassTemplate {
             "            type = Executor.class,\n" +
             "            method = \"update\",\n" +
             "            args = {MappedStatement.class, Object.class}\n" +
+            "    ),\n" +
+            "    @Signature(\n" +
+            "            type = Executor.class,\n" +
+            "            method = \"flushStatements\",\n" +
+            "            args = {}\n" +
             "    )}\n" +
             ")\n");
     }
     
     @Override
     protected void writeContent(Appendable appender) throws IOException {
-        appender.append("    private static Field keyGeneratorField;\n" +
-            "    private static final RetainKeyGenerator retainKeyGenerator = new RetainKeyGenerator();\n" +
-            "    private static final ThreadLocal<Object> retain = new ThreadLocal<Object>();\n" +
-            "    private static final ThreadLocal<Boolean> configured = new ThreadLocal<Boolean>();\n" +
+        appender.append("    private static final RetainKeyGenerator retainKeyGenerator = new RetainKeyGenerator();\n" +
+            "    private static final ThreadLocal<RetainedKeys> retained = new ThreadLocal<RetainedKeys>();\n" +
+            "    private static volatile boolean configured;\n" +
+            "    private final ConcurrentHashMap<MappedStatement, MappedStatement> retainingStatements = new ConcurrentHashMap<MappedStatement, MappedStatement>();\n" +
             "\n" +
             "    public static Object getRetainedId() {\n" +
-            "        if (configured.get() != Boolean.TRUE) {\n" +
+            "        List<Object> ids = getRetainedIds();\n" +
+            "        if (ids.isEmpty()) {\n" +
+            "            return null;\n" +
+            "        }\n" +
+            "        return ids.get(ids.size() - 1);\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Keys retained in the current thread, in the order they were generated. Inside\n" +
+            "     * an operation started with beginOperation they are the keys of all its inserts,\n" +
+            "     * including the ones of every flush of its batched inserts; outside it they are\n" +
+            "     * the keys of the last insert, or of the batched inserts flushed after it.\n" +
+            "     */\n" +
+            "    public static List<Object> getRetainedIds() {\n" +
+            "        if (!configured) {\n" +
             "            throw new IllegalStateException(\"RetainIdPlugin is not loaded, you must put RetainIdPlugin class as a plugin in the MyBatis configuration\");\n" +
             "        }\n" +
-            "        return retain.get();\n" +
+            "        RetainedKeys keys = retained.get();\n" +
+            "        if (keys == null) {\n" +
+            "            return Collections.emptyList();\n" +
+            "        }\n" +
+            "        return new ArrayList<Object>(keys.ids);\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Start an operation that accumulates the keys of all its inserts, the keys\n" +
+            "     * retained before are cleared only when it is the outermost one. It must be\n" +
+            "     * paired with endOperation.\n" +
+            "     */\n" +
+            "    public static void beginOperation() {\n" +
+            "        RetainedKeys keys = getRetainedKeys();\n" +
+            "        if (keys.operationLevel <= 0) {\n" +
+            "            keys.ids.clear();\n" +
+            "            keys.operationLevel = 0;\n" +
+            "        }\n" +
+            "        keys.operationLevel++;\n" +
+            "    }\n" +
+            "\n" +
+            "    public static void endOperation() {\n" +
+            "        RetainedKeys keys = retained.get();\n" +
+            "        if (keys != null && keys.operationLevel > 0) {\n" +
+            "            keys.operationLevel--;\n" +
+            "        }\n" +
+            "    }\n" +
+            "\n" +
+            "    private static RetainedKeys getRetainedKeys() {\n" +
+            "        RetainedKeys keys = retained.get();\n" +
+            "        if (keys == null) {\n" +
+            "            keys = new RetainedKeys();\n" +
+            "            retained.set(keys);\n" +
+            "        }\n" +
+            "        return keys;\n" +
             "    }\n" +
             "\n" +
             "    @Override\n" +
             "    public Object intercept(Invocation invocation) throws Throwable {\n" +
-            "        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];\n" +
+            "        if (\"update\".equals(invocation.getMethod().getName())) {\n" +
+            "            Object[] args = invocation.getArgs();\n" +
+            "            MappedStatement retainingStatement = getRetainingStatement((MappedStatement) args[0]);\n" +
+            "            if (retainingStatement == null) {\n" +
+            "                return invocation.proceed();\n" +
+            "            }\n" +
+            "            args[0] = retainingStatement;\n" +
+            "            RetainedKeys keys = getRetainedKeys();\n" +
+            "            if (keys.operationLevel <= 0) {\n" +
+            "                keys.ids.clear();\n" +
+            "            }\n" +
+            "            int retainedBefore = keys.ids.size();\n" +
+            "            try {\n" +
+            "                Object result = invocation.proceed();\n" +
+            "                // A batch executor doesn't generate the keys until the statements are flushed\n" +
+            "                keys.waitingFlush = keys.waitingFlush || keys.ids.size() == retainedBefore;\n" +
+            "                return result;\n" +
+            "            } finally {\n" +
+            "                keys.release();\n" +
+            "            }\n" +
+            "        } else {\n" +
+            "            RetainedKeys keys = retained.get();\n" +
+            "            if (keys == null || !keys.waitingFlush) {\n" +
+            "                return invocation.proceed();\n" +
+            "            }\n" +
+            "            try {\n" +
+            "                return invocation.proceed();\n" +
+            "            } finally {\n" +
+            "                keys.waitingFlush = false;\n" +
+            "                keys.release();\n" +
+            "            }\n" +
+            "        }\n" +
+            "    }\n" +
+            "\n" +
+            "    private MappedStatement getRetainingStatement(MappedStatement mappedStatement) {\n" +
+            "        MappedStatement result = retainingStatements.get(mappedStatement);\n" +
+            "        if (result == null) {\n" +
+            "            result = createRetainingStatement(mappedStatement);\n" +
+            "            MappedStatement previous = retainingStatements.putIfAbsent(mappedStatement, result);\n" +
+            "            if (previous != null) {\n" +
+            "                result = previous;\n" +
+            "            }\n" +
+            "        }\n" +
+            "        if (result == mappedStatement) {\n" +
+            "            return null;\n" +
+            "        }\n" +
+            "        return result;\n" +
+            "    }\n" +
+            "\n" +
+            "    private static MappedStatement createRetainingStatement(MappedStatement mappedStatement) {\n" +
             "        String[] keys = mappedStatement.getKeyProperties();\n" +
             "        boolean containsRetain = false;\n" +
             "        if (keys != null) {\n" +
@@ -90,19 +195,47 @@ public class RetainIdPluginTemplate extends ClassTemplate {
             "            }\n" +
             "        }\n" +
             "        KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();\n" +
-            "        if (containsRetain && keyGenerator instanceof Jdbc3KeyGenerator) {\n" +
-            "            if (keyGeneratorField == null) {\n" +
-            "                keyGeneratorField = MappedStatement.class.getDeclaredField(\"keyGenerator\");\n" +
-            "                keyGeneratorField.setAccessible(true);\n" +
+            "        if (!containsRetain || !(keyGenerator instanceof Jdbc3KeyGenerator) || keyGenerator instanceof RetainKeyGenerator) {\n" +
+            "            return mappedStatement;\n" +
+            "        }\n" +
+            "        MappedStatement.Builder builder = new MappedStatement.Builder(mappedStatement.getConfiguration(), mappedStatement.getId(), mappedStatement.getSqlSource(), mappedStatement.getSqlCommandType());\n" +
+            "        builder.resource(mappedStatement.getResource());\n" +
+            "        builder.fetchSize(mappedStatement.getFetchSize());\n" +
+            "        builder.timeout(mappedStatement.getTimeout());\n" +
+            "        builder.statementType(mappedStatement.getStatementType());\n" +
+            "        builder.resultSetType(mappedStatement.getResultSetType());\n" +
+            "        builder.parameterMap(mappedStatement.getParameterMap());\n" +
+            "        builder.resultMaps(mappedStatement.getResultMaps());\n" +
+            "        builder.cache(mappedStatement.getCache());\n" +
+            "        builder.flushCacheRequired(mappedStatement.isFlushCacheRequired());\n" +
+            "        builder.useCache(mappedStatement.isUseCache());\n" +
+            "        builder.resultOrdered(mappedStatement.isResultOrdered());\n" +
+            "        builder.keyGenerator(retainKeyGenerator);\n" +
+            "        builder.keyProperty(join(mappedStatement.getKeyProperties()));\n" +
+            "        builder.keyColumn(join(mappedStatement.getKeyColumns()));\n" +
+            "        builder.databaseId(mappedStatement.getDatabaseId());\n" +
+            "        builder.lang(mappedStatement.getLang());\n" +
+            "        builder.resultSets(join(mappedStatement.getResultSets()));\n" +
+            "        return builder.build();\n" +
+            "    }\n" +
+            "\n" +
+            "    private static String join(String[] values) {\n" +
+            "        if (values == null) {\n" +
+            "            return null;\n" +
+            "        }\n" +
+            "        StringBuilder result = new StringBuilder();\n" +
+            "        for (String value : values) {\n" +
+            "            if (result.length() > 0) {\n" +
+            "                result.append(',');\n" +
             "            }\n" +
-            "            keyGeneratorField.set(mappedStatement, retainKeyGenerator);\n" +
+            "            result.append(value);\n" +
             "        }\n" +
-            "        return invocation.proceed();\n" +
+            "        return result.toString();\n" +
             "    }\n" +
             "\n" +
             "    @Override\n" +
             "    public Object plugin(Object target) {\n" +
-            "        configured.set(Boolean.TRUE);\n" +
+            "        configured = true;\n" +
             "        return Plugin.wrap(target, this);\n" +
             "    }\n" +
             "\n" +
@@ -110,43 +243,77 @@ public class RetainIdPluginTemplate extends ClassTemplate {
             "    public void setProperties(Properties properties) {\n" +
             "    }\n" +
             "\n" +
+            "    private static class RetainedKeys {\n" +
+            "\n" +
+            "        final ArrayList<Object> ids = new ArrayList<Object>();\n" +
+            "        int operationLevel;\n" +
+            "        boolean waitingFlush;\n" +
+            "        Statement statement;\n" +
+            "        ResultSet generatedKeys;\n" +
+            "        TypeHandler<?>[] typeHandlers;\n" +
+            "\n" +
+            "        ResultSet getGeneratedKeys(Statement stmt) throws SQLException {\n" +
+            "            if (statement != stmt) {\n" +
+            "                release();\n" +
+            "                generatedKeys = stmt.getGeneratedKeys();\n" +
+            "                statement = stmt;\n" +
+            "            }\n" +
+            "            return generatedKeys;\n" +
+            "        }\n" +
+            "\n" +
+            "        void release() {\n" +
+            "            if (generatedKeys != null) {\n" +
+            "                try {\n" +
+            "                    generatedKeys.close();\n" +
+            "                } catch (Exception e) {\n" +
+            "                    // ignore\n" +
+            "                }\n" +
+            "            }\n" +
+            "            generatedKeys = null;\n" +
+            "            statement = null;\n" +
+            "            typeHandlers = null;\n" +
+            "        }\n" +
+            "\n" +
+            "    }\n" +
+            "\n" +
             "    private static class RetainKeyGenerator extends Jdbc3KeyGenerator {\n" +
             "\n" +
             "        @Override\n" +
+            "        public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {\n" +
+            "            // The batch executor calls this method once for each parameter using the same statement\n" +
+            "            processGeneratedKeys(ms, stmt, Collections.singletonList(parameter));\n" +
+            "        }\n" +
+            "\n" +
+            "        @Override\n" +
             "        public void processBatch(MappedStatement ms, Statement stmt, Collection<Object> parameters) {\n" +
+            "            processGeneratedKeys(ms, stmt, parameters);\n" +
+            "        }\n" +
             "\n" +
-            "            ResultSet rs = null;\n" +
+            "        private void processGeneratedKeys(MappedStatement ms, Statement stmt, Collection<Object> parameters) {\n" +
+            "            RetainedKeys keys = getRetainedKeys();\n" +
             "            try {\n" +
-            "                rs = stmt.getGeneratedKeys();\n" +
+            "                final ResultSet rs = keys.getGeneratedKeys(stmt);\n" +
             "                final Configuration configuration = ms.getConfiguration();\n" +
             "                final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();\n" +
             "                final String[] keyProperties = ms.getKeyProperties();\n" +
             "                final TypeAliasRegistry typeAliasRegistry = configuration.getTypeAliasRegistry();\n" +
             "\n" +
             "                final ResultSetMetaData rsmd = rs.getMetaData();\n" +
-            "                TypeHandler<?>[] typeHandlers = null;\n" +
             "                if (keyProperties != null && rsmd.getColumnCount() >= keyProperties.length) {\n" +
             "                    for (Object parameter : parameters) {\n" +
             "                        if (!rs.next()) {\n" +
             "                            break; // there should be one row for each statement (also one for each parameter)\n" +
             "                        }\n" +
             "                        final MetaObject metaParam = configuration.newMetaObject(parameter);\n" +
-            "                        if (typeHandlers == null) {\n" +
-            "                            typeHandlers = getTypeHandlers(typeAliasRegistry, typeHandlerRegistry, metaParam, keyProperties, rsmd);\n" +
+            "                        if (keys.typeHandlers == null) {\n" +
+            "                            keys.typeHandlers = getTypeHandlers(typeAliasRegistry, typeHandlerRegistry, metaParam, keyProperties, rsmd);\n" +
             "                        }\n" +
-            "                        populateKeys(rs, metaParam, keyProperties, typeHandlers);\n" +
+            "                        populateKeys(rs, metaParam, keyProperties, keys.typeHandlers, keys.ids);\n" +
             "                    }\n" +
             "                }\n" +
             "            } catch (Exception e) {\n" +
+            "                keys.release();\n" +
             "                throw new ExecutorException(\"Error getting generated key or setting result to parameter object. Cause: \" + e, e);\n" +
-            "            } finally {\n" +
-            "                if (rs != null) {\n" +
-            "                    try {\n" +
-            "                        rs.close();\n" +
-            "                    } catch (Exception e) {\n" +
-            "                        // ignore\n" +
-            "                    }\n" +
-            "                }\n" +
             "            }\n" +
             "        }\n" +
             "\n" +
@@ -168,7 +335,7 @@ public class RetainIdPluginTemplate extends ClassTemplate {
             "            return typeHandlers;\n" +
             "        }\n" +
             "\n" +
-            "        private void populateKeys(ResultSet rs, MetaObject metaParam, String[] keyProperties, TypeHandler<?>[] typeHandlers) throws SQLException {\n" +
+            "        private void populateKeys(ResultSet rs, MetaObject metaParam, String[] keyProperties, TypeHandler<?>[] typeHandlers, List<Object> ids) throws SQLException {\n" +
             "            for (int i = 0; i < keyProperties.length; i++) {\n" +
             "                String key = keyProperties[i];\n" +
             "                TypeHandler<?> th = typeHandlers[i];\n" +
@@ -177,7 +344,7 @@ public class RetainIdPluginTemplate extends ClassTemplate {
             "                    if (metaParam.hasSetter(key)) {\n" +
             "                        metaParam.setValue(key, value);\n" +
             "                    } else {\n" +
-            "                        retain.set(value);\n" +
+            "                        ids.add(value);\n" +
             "                    }\n" +
             "                }\n" +
             "            }\n" +
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class SqlSessionHolderTemplate extends ClassTemplate {
+
+    public SqlSessionHolderTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("org.apache.ibatis.session.SqlSession", packageName);
+        setClassName("SqlSessionHolder");
+        setFinal(true);
+    }
+
+    @Override
+    protected void writeClassAnnotations(Appendable appender) throws IOException {
+        appender.append("/**\n"
+                + " * Sessions of a unit of work, it is carried by the context and the operations\n"
+                + " * executed with it share the same sessions and transaction even when they are\n"
+                + " * executed in other thread. It can be passed between threads, but it must not\n"
+                + " * be used concurrently.\n"
+                + " */\n");
+        super.writeClassAnnotations(appender);
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    int level;\n"
+                + "    SqlSession sqlSession;\n"
+                + "    SqlSession batchSqlSession;\n"
+                + "    SqlSession readSqlSession;\n"
+                + "    ManagedSqlSessionProvider.SessionPolicy policy;\n"
+                + "\n"
+                + "    public int getLevel() {\n"
+                + "        return level;\n"
+                + "    }\n"
+                + "\n"
+                + "    public ManagedSqlSessionProvider.SessionPolicy getPolicy() {\n"
+                + "        return policy;\n"
+                + "    }\n"
+                + "\n"
+                + "    public boolean isSqlSessionOpened() {\n"
+                + "        return sqlSession != null || batchSqlSession != null;\n"
+                + "    }");
+    }
+
+}
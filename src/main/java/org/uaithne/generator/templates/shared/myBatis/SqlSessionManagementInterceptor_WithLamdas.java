@@ -28,6 +28,7 @@ public class SqlSessionManagementInterceptor_WithLamdas extends ClassTemplate {
         setPackageName(packageName);
         addImport(DataTypeInfo.EXECUTOR_DATA_TYPE, packageName);
         addImport(DataTypeInfo.OPERATION_DATA_TYPE, packageName);
+        addImport("java.util.concurrent.ConcurrentHashMap", packageName);
         setClassName("SqlSessionManagementInterceptor");
         setExtend("Executor");
         addContextImport(packageName);
@@ -37,20 +38,37 @@ public class SqlSessionManagementInterceptor_WithLamdas extends ClassTemplate {
     @Override
     protected void writeContent(Appendable appender) throws IOException {
         appender.append("    private final ManagedSqlSessionProvider provider;\n"
-                + "\n"
-                + "    @Override\n"
-                + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
-                + "        boolean maybeRollback = true;\n"
-                + "        try {\n"
-                + "            provider.beginSqlSessionLevel();\n"
-                + "            RESULT result = next.execute(operation").append(CONTEXT_VALUE).append(");\n"
-                + "            maybeRollback = false;\n"
-                + "            return result;\n"
-                + "        } finally {\n"
-                + "            provider.endSqlSessionLevel(maybeRollback);\n"
-                + "        }\n"
-                + "    }\n"
-                + "\n"
+                + "    private final ConcurrentHashMap<Class, ManagedSqlSessionProvider.SessionPolicy> sessionPolicies = new ConcurrentHashMap<Class, ManagedSqlSessionProvider.SessionPolicy>();\n"
+                + "\n");
+        if (HAS_CONTEXT) {
+            appender.append("    @Override\n"
+                    + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                    + "        SqlSessionHolder holder = provider.beginSqlSessionLevel(getSessionPolicy(operation.getClass()), context);\n"
+                    + "        boolean maybeRollback = true;\n"
+                    + "        try {\n"
+                    + "            RESULT result = next.execute(operation").append(CONTEXT_VALUE).append(");\n"
+                    + "            maybeRollback = false;\n"
+                    + "            return result;\n"
+                    + "        } finally {\n"
+                    + "            provider.endSqlSessionLevel(holder, maybeRollback);\n"
+                    + "        }\n"
+                    + "    }\n");
+        } else {
+            appender.append("    @Override\n"
+                    + "    ").append(EXECUTE_ANY_VISIBILITY).append(OPERATION_BASE_DEFINITION).append(" RESULT ").append(EXECUTE_ANY).append("(OPERATION operation").append(CONTEXT_PARAM).append(") {\n"
+                    + "        boolean maybeRollback = true;\n"
+                    + "        try {\n"
+                    + "            provider.beginSqlSessionLevel(getSessionPolicy(operation.getClass()));\n"
+                    + "            RESULT result = next.execute(operation").append(CONTEXT_VALUE).append(");\n"
+                    + "            maybeRollback = false;\n"
+                    + "            return result;\n"
+                    + "        } finally {\n"
+                    + "            provider.endSqlSessionLevel(maybeRollback);\n"
+                    + "        }\n"
+                    + "    }\n");
+        }
+        ManagedSqlSessionExecutorGroupTemplate.writeSessionPolicyMethods(appender);
+        appender.append("\n"
                 + "    public SqlSessionManagementInterceptor(Executor next, ManagedSqlSessionProvider provider) {\n"
                 + "        super(next);\n"
                 + "        if (next == null) {\n"
@@ -37,13 +37,31 @@ public class SqlSessionProviderTemplate extends ClassTemplate {
     @Override
     protected void writeContent(Appendable appender) throws IOException {
         if (HAS_CONTEXT) {
-            appender.append("    public SqlSession getSqlSession(").append(CONTEXT_TYPE).append(" context);");
+            appender.append("    public SqlSession getSqlSession(").append(CONTEXT_TYPE).append(" context);\n"
+                    + "    public SqlSession getBatchSqlSession(").append(CONTEXT_TYPE).append(" context);\n"
+                    + "    /**\n"
+                    + "     * @return the session used by the select operations, it can be connected to a replica\n"
+                    + "     */\n"
+                    + "    public SqlSession getReadSqlSession(").append(CONTEXT_TYPE).append(" context);");
         } else {
-            appender.append("    public SqlSession getSqlSession();");
+            appender.append("    public SqlSession getSqlSession();\n"
+                    + "    public SqlSession getBatchSqlSession();\n"
+                    + "    /**\n"
+                    + "     * @return the session used by the select operations, it can be connected to a replica\n"
+                    + "     */\n"
+                    + "    public SqlSession getReadSqlSession();");
         }
         if (HAS_CONTEXT_AND_APPPARAM_AND_ARE_DIFFERENT) {
             appender.append("\n    public ").append(getGenerationInfo().getApplicationParameterType().getSimpleName()).append(" getApplicationParameter(").append(CONTEXT_TYPE).append(" context);");
         }
+        if (HAS_CONTEXT && getGenerationInfo().isContextDeadlineEnabled()) {
+            appender.append("\n"
+                    + "    /**\n"
+                    + "     * @return the time in milliseconds, as System.currentTimeMillis, when the\n"
+                    + "     * execution must be finished, or 0 if there is no deadline\n"
+                    + "     */\n"
+                    + "    public long getDeadline(").append(CONTEXT_TYPE).append(" context);");
+        }
     }
     
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.IOException;
+import org.uaithne.generator.templates.ClassTemplate;
+
+public class StatementTimeoutPluginTemplate extends ClassTemplate {
+
+    public StatementTimeoutPluginTemplate(String packageName) {
+        setPackageName(packageName);
+        addImport("java.sql.SQLException", packageName);
+        addImport("java.sql.SQLTimeoutException", packageName);
+        addImport("java.sql.Statement", packageName);
+        addImport("java.util.Arrays", packageName);
+        addImport("java.util.Properties", packageName);
+        addImport("org.apache.ibatis.executor.statement.StatementHandler", packageName);
+        addImport("org.apache.ibatis.plugin.Interceptor", packageName);
+        addImport("org.apache.ibatis.plugin.Intercepts", packageName);
+        addImport("org.apache.ibatis.plugin.Invocation", packageName);
+        addImport("org.apache.ibatis.plugin.Plugin", packageName);
+        addImport("org.apache.ibatis.plugin.Signature", packageName);
+        addImport("org.apache.ibatis.session.ResultHandler", packageName);
+        setClassName("StatementTimeoutPlugin");
+        addImplement("Interceptor");
+    }
+
+    @Override
+    protected void writeClassAnnotations(Appendable appender) throws IOException {
+        super.writeClassAnnotations(appender);
+        appender.append("@Intercepts({\n" +
+            "    @Signature(\n" +
+            "            type = StatementHandler.class,\n" +
+            "            method = \"query\",\n" +
+            "            args = {Statement.class, ResultHandler.class}\n" +
+            "    ),\n" +
+            "    @Signature(\n" +
+            "            type = StatementHandler.class,\n" +
+            "            method = \"update\",\n" +
+            "            args = {Statement.class}\n" +
+            "    ),\n" +
+            "    @Signature(\n" +
+            "            type = StatementHandler.class,\n" +
+            "            method = \"batch\",\n" +
+            "            args = {Statement.class}\n" +
+            "    )}\n" +
+            ")\n");
+    }
+
+    @Override
+    protected void writeContent(Appendable appender) throws IOException {
+        appender.append("    private static final ThreadLocal<Deadlines> deadlines = new ThreadLocal<Deadlines>() {\n" +
+            "        @Override\n" +
+            "        protected Deadlines initialValue() {\n" +
+            "            return new Deadlines();\n" +
+            "        }\n" +
+            "    };\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Set the deadline, in milliseconds as System.currentTimeMillis, of the statements\n" +
+            "     * executed by the current thread, 0 means no deadline. A nested call cannot extend\n" +
+            "     * the deadline already in effect. The generated mappers set it from the context\n" +
+            "     * before the execution and clear it after.\n" +
+            "     */\n" +
+            "    public static void setDeadline(long deadline) {\n" +
+            "        Deadlines current = deadlines.get();\n" +
+            "        if (current.size == current.previous.length) {\n" +
+            "            current.previous = Arrays.copyOf(current.previous, current.size * 2);\n" +
+            "        }\n" +
+            "        current.previous[current.size] = current.deadline;\n" +
+            "        current.size++;\n" +
+            "        if (deadline > 0 && (current.deadline <= 0 || deadline < current.deadline)) {\n" +
+            "            current.deadline = deadline;\n" +
+            "        }\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Restore the deadline that was in effect before the matching setDeadline.\n" +
+            "     */\n" +
+            "    public static void clearDeadline() {\n" +
+            "        Deadlines current = deadlines.get();\n" +
+            "        if (current.size > 0) {\n" +
+            "            current.size--;\n" +
+            "            current.deadline = current.previous[current.size];\n" +
+            "        } else {\n" +
+            "            current.deadline = 0;\n" +
+            "        }\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public Object intercept(Invocation invocation) throws Throwable {\n" +
+            "        long deadline = deadlines.get().deadline;\n" +
+            "        if (deadline <= 0) {\n" +
+            "            return invocation.proceed();\n" +
+            "        }\n" +
+            "        Statement statement = (Statement) invocation.getArgs()[0];\n" +
+            "        int configuredTimeout = statement.getQueryTimeout();\n" +
+            "        int timeout = getTimeout(configuredTimeout, deadline);\n" +
+            "        if (timeout == configuredTimeout) {\n" +
+            "            return invocation.proceed();\n" +
+            "        }\n" +
+            "        statement.setQueryTimeout(timeout);\n" +
+            "        if (\"batch\".equals(invocation.getMethod().getName())) {\n" +
+            "            // The batched statements are executed when the session is flushed, the\n" +
+            "            // shortest timeout of the operations added to the batch is kept until then\n" +
+            "            return invocation.proceed();\n" +
+            "        }\n" +
+            "        try {\n" +
+            "            return invocation.proceed();\n" +
+            "        } finally {\n" +
+            "            // The REUSE executor keeps the statement for the following executions\n" +
+            "            restoreTimeout(statement, configuredTimeout);\n" +
+            "        }\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * @return the query timeout, in seconds, limited by the time remaining until the deadline\n" +
+            "     */\n" +
+            "    private static int getTimeout(int configuredTimeout, long deadline) throws SQLTimeoutException {\n" +
+            "        long remaining = deadline - System.currentTimeMillis();\n" +
+            "        if (remaining <= 0) {\n" +
+            "            throw new SQLTimeoutException(\"The deadline of the operation has passed before executing the statement\");\n" +
+            "        }\n" +
+            "        // The query timeout is in seconds, the remaining time is rounded up\n" +
+            "        int remainingTimeout = (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);\n" +
+            "        if (configuredTimeout <= 0 || remainingTimeout < configuredTimeout) {\n" +
+            "            return remainingTimeout;\n" +
+            "        }\n" +
+            "        return configuredTimeout;\n" +
+            "    }\n" +
+            "\n" +
+            "    private static void restoreTimeout(Statement statement, int configuredTimeout) {\n" +
+            "        try {\n" +
+            "            if (!statement.isClosed()) {\n" +
+            "                statement.setQueryTimeout(configuredTimeout);\n" +
+            "            }\n" +
+            "        } catch (SQLException e) {\n" +
+            "            // The statement is not usable anymore, the failure of the execution is reported\n" +
+            "        }\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public Object plugin(Object target) {\n" +
+            "        if (target instanceof StatementHandler) {\n" +
+            "            return Plugin.wrap(target, this);\n" +
+            "        }\n" +
+            "        return target;\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public void setProperties(Properties properties) {\n" +
+            "    }\n" +
+            "\n" +
+            "    private static final class Deadlines {\n" +
+            "        long deadline;\n" +
+            "        long[] previous = new long[4];\n" +
+            "        int size;\n" +
+            "    }");
+    }
+
+}
@@ -71,6 +71,12 @@ import org.uaithne.generator.commons.NamesGenerator;
 import org.uaithne.generator.commons.OperationInfo;
 import org.uaithne.generator.commons.OperationKind;
 import org.uaithne.generator.processors.database.QueryGeneratorConfiguration;
+import org.uaithne.generator.processors.database.providers.derby.MyBatisDerbySql2008QueryGenerator;
+import org.uaithne.generator.processors.database.providers.mySql.MyBatisMySqlQueryGenerator;
+import org.uaithne.generator.processors.database.providers.oracle.MyBatisOracle10SqlQueryGenerator;
+import org.uaithne.generator.processors.database.providers.postgreSql.MyBatisPostgreSql2008QueryGenerator;
+import org.uaithne.generator.processors.database.providers.sqlServer.MyBatisSqlServer2005SqlQueryGenerator;
+import org.uaithne.generator.processors.database.providers.sqlServer.MyBatisSqlServer2012SqlQueryGenerator;
 import org.uaithne.generator.utils.MessageContent;
 import org.uaithne.generator.utils.ProcessingEnviromentImpl;
 import org.uaithne.generator.utils.TestCustomSqlQuery;
@@ -187,6 +193,31 @@ public class SqlQueryGeneratorTest {
         assertEquals(expResult, result);
     }
 
+    @Test
+    public void testCompleteQueryWithoutEnvolveWithNullQueriesAndSelectPageOperationWithDataCount() {
+        String query = null;
+        OperationInfo operation = new OperationInfo(DataTypeInfo.LIST_DATA_TYPE);
+        operation.setEntity(getEntityForSelect());
+        FieldInfo field3 = new FieldInfo("myField3", new DataTypeInfo("Integer"));
+        field3.setOrderBy(true);
+        operation.addField(field3);
+        boolean count = false;
+        boolean selectPage = true;
+        boolean dataCount = true;
+        CustomSqlQuery customQuery = null;
+        SqlQueryGeneratorImpl instance = new SqlQueryGeneratorImpl();
+        String expResult = "select\n"
+                + "    mappedName as \"mappedField\",\n"
+                + "    fieldappendOrderByAfterSelectForSelectPage,\n"
+                + "    count(*) over () as dataCount__\n"
+                + "from\n"
+                + "    MyEntity \n"
+                + "order by myField3\n"
+                + "selectPageAfterOrderBy";
+        String result = instance.completeQueryWithoutEnvolve(query, operation, count, selectPage, dataCount, customQuery, true);
+        assertEquals(expResult, result);
+    }
+
     @Test
     public void testCompleteQueryWithoutEnvolveWithEmptyQueryAfterTrimAndNullEntity() {
         String query = "   ";
@@ -1135,6 +1166,40 @@ public class SqlQueryGeneratorTest {
         assertEquals(query.toString(), "\nwhere\n");
     }
 
+    @Test
+    public void testAppendWhereWithKeysetSelectPageOperation() {
+        StringBuilder query = new StringBuilder();
+        OperationInfo operation = new OperationInfo(new DataTypeInfo("MyOperation"));
+        operation.setOperationKind(OperationKind.SELECT_PAGE);
+        operation.setKeysetPage(true);
+
+        EntityInfo entity = new EntityInfo(new DataTypeInfo("myEntity"), EntityKind.ENTITY);
+        FieldInfo id = new FieldInfo("myId", DataTypeInfo.LONG_DATA_TYPE);
+        id.setIdentifier(true);
+        entity.addField(id);
+        operation.setEntity(entity);
+
+        FieldInfo lastKey = new FieldInfo("lastKey", DataTypeInfo.LONG_DATA_TYPE);
+        lastKey.setManually(true);
+        lastKey.setOptional(true);
+        operation.addField(lastKey);
+
+        CustomSqlQuery customQuery = null;
+        boolean count = false;
+        SqlQueryGeneratorImpl instance = new SqlQueryGeneratorImpl();
+        instance.appendSelectPageAfterWhere = false;
+        instance.appendWhere(query, operation, customQuery, count, null);
+        assertEquals(query.toString(), "\n"
+                + "<where>\n"
+                + "    <if test='lastKey != null'>myId > parameterValue!lastKey</if>\n"
+                + "</where>");
+
+        query = new StringBuilder();
+        count = true;
+        instance.appendWhere(query, operation, customQuery, count, null);
+        assertEquals(query.toString(), "");
+    }
+
     @Test
     public void testAppendWhereWithCustomQueryAndWithoutConditions() {
         StringBuilder query = new StringBuilder();
@@ -2638,6 +2703,111 @@ public class SqlQueryGeneratorTest {
         assertArrayEquals(expResult, result);
     }
     
+    @Test
+    public void testGetKeysetSelectPageQueryWithOffsetAndLastKey() {
+        OperationInfo operation = new OperationInfo(DataTypeInfo.LIST_DATA_TYPE);
+        operation.setOperationKind(OperationKind.SELECT_PAGE);
+        operation.setKeysetPage(true);
+        EntityInfo entity = new EntityInfo(new DataTypeInfo("MyEntity"), EntityKind.ENTITY);
+        FieldInfo id = new FieldInfo("myId", DataTypeInfo.LONG_DATA_TYPE);
+        id.setIdentifier(true);
+        entity.addField(id);
+        operation.setEntity(entity);
+        FieldInfo offset = new FieldInfo("offset", new DataTypeInfo("Integer"));
+        offset.setManually(true);
+        operation.addField(offset);
+        FieldInfo lastKey = new FieldInfo("lastKey", DataTypeInfo.LONG_DATA_TYPE);
+        lastKey.setManually(true);
+        lastKey.setOptional(true);
+        operation.addField(lastKey);
+
+        SqlQueryGenerator instance = new SqlQueryGeneratorImpl() {
+            @Override
+            public void appendSelectPageAfterOrderBy(StringBuilder result, ArrayList<FieldInfo> orderBys, CustomSqlQuery customQuery) {
+                result.append("\n"
+                        + "{[if test='offset != null or limit != null']}\n"
+                        + "    {[if test='offset != null']}offset #{offset,jdbcType=NUMERIC} rows {[/if]}\n"
+                        + "    {[if test='limit != null']}fetch next #{limit,jdbcType=NUMERIC} rows only{[/if]}\n"
+                        + "{[/if]}");
+            }
+        };
+        String[] expResult = new String[]{"selectselectPageBeforeSelect ",
+            "    myIdappendOrderByAfterSelectForSelectPage",
+            "from",
+            "    MyEntity ",
+            "<where>",
+            "    <if test='lastKey != null'>myId > parameterValue!lastKey</if>",
+            "</where>",
+            "order by myId",
+            "{[if test='offset != null or limit != null']}",
+            "    {[if test='offset != null and lastKey == null']}offset #{offset,jdbcType=NUMERIC} rows {[/if]}",
+            "    {[if test='limit != null']}fetch next #{limit,jdbcType=NUMERIC} rows only{[/if]}",
+            "{[/if]}",
+            "envolveInSelectPage"};
+        String[] result = instance.getSelectPageQuery(operation);
+        assertArrayEquals(expResult, result);
+
+        operation.setKeysetPage(false);
+        operation.getFields().remove(lastKey);
+        result = instance.getSelectPageQuery(operation);
+        assertTrue(Arrays.asList(result).contains("    {[if test='offset != null']}offset #{offset,jdbcType=NUMERIC} rows {[/if]}"));
+    }
+
+    @Test
+    public void testIgnoreOffsetWhenLastKeyIsSet() {
+        SqlQueryGenerator instance = new SqlQueryGeneratorImpl();
+        String[] query = new String[]{"<if test='offset != null or maxRowNumber != null'> select * from (</if>",
+            "select * from MyEntity",
+            "        <if test='offset != null'>rownumber__ &gt; #{offset,jdbcType=NUMERIC}</if>"};
+        String[] expResult = new String[]{"<if test='offset != null or maxRowNumber != null'> select * from (</if>",
+            "select * from MyEntity",
+            "        <if test='offset != null and lastKey == null'>rownumber__ &gt; #{offset,jdbcType=NUMERIC}</if>"};
+        assertArrayEquals(expResult, instance.ignoreOffsetWhenLastKeyIsSet(query));
+        assertNull(instance.ignoreOffsetWhenLastKeyIsSet(null));
+    }
+
+    @Test
+    public void testGetSelectByIdsQuery() {
+        OperationInfo operation = new OperationInfo(DataTypeInfo.LIST_DATA_TYPE);
+        operation.setOperationKind(OperationKind.SELECT_BY_IDS);
+        EntityInfo entity = new EntityInfo(new DataTypeInfo("MyEntity"), EntityKind.ENTITY);
+        FieldInfo id = new FieldInfo("myId", DataTypeInfo.LONG_DATA_TYPE);
+        id.setIdentifier(true);
+        entity.addField(id);
+        FieldInfo name = new FieldInfo("name", new DataTypeInfo("String"));
+        entity.addField(name);
+        operation.setEntity(entity);
+        FieldInfo ids = new FieldInfo("ids", id);
+        ids.setDataType(DataTypeInfo.LIST_DATA_TYPE.of(DataTypeInfo.LONG_DATA_TYPE.ensureBoxed()));
+        ids.setOptional(false);
+        ids.setIdentifier(false);
+        ids.setIdentifierAutogenerated(false);
+        operation.addField(ids);
+
+        SqlQueryGenerator instance = new SqlQueryGeneratorImpl();
+        String[] expResult = new String[]{"select",
+            "    myId,",
+            "    name",
+            "from",
+            "    MyEntity ",
+            "where",
+            "    myId in <foreach collection='ids' open='(' separator=',' close=')' item='_item_ids'> #{_item_ids,jdbcType=BIGINT} </foreach>",
+            "order by"};
+        String[] result = instance.getSelectManyQuery(operation);
+        assertArrayEquals(expResult, result);
+    }
+
+    @Test
+    public void testGetMaxInListSize() {
+        assertEquals(1000, new SqlQueryGeneratorImpl().getMaxInListSize());
+        assertEquals(1000, new MyBatisOracle10SqlQueryGenerator().getMaxInListSize());
+        assertEquals(1000, new MyBatisDerbySql2008QueryGenerator().getMaxInListSize());
+        assertEquals(2000, new MyBatisSqlServer2005SqlQueryGenerator().getMaxInListSize());
+        assertEquals(2000, new MyBatisSqlServer2012SqlQueryGenerator().getMaxInListSize());
+        assertEquals(10000, new MyBatisPostgreSql2008QueryGenerator().getMaxInListSize());
+        assertEquals(10000, new MyBatisMySqlQueryGenerator().getMaxInListSize());
+    }
+
     @Test
     public void testGetSelectDistinctPageQuery() {
         OperationInfo operation = new OperationInfo(DataTypeInfo.LIST_DATA_TYPE);
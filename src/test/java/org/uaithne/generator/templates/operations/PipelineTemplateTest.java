@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.operations;
+
+import java.util.ArrayList;
+import org.junit.Test;
+import org.uaithne.generator.commons.DataTypeInfo;
+import org.uaithne.generator.commons.OperationInfo;
+import static org.junit.Assert.*;
+
+public class PipelineTemplateTest {
+
+    private static ArrayList<OperationInfo> operations() {
+        ArrayList<OperationInfo> operations = new ArrayList<OperationInfo>();
+        operations.add(new OperationInfo(new DataTypeInfo("app.operations", "SelectProductById")));
+        operations.add(new OperationInfo(new DataTypeInfo("app.operations", "InsertProduct")));
+        operations.add(new OperationInfo(new DataTypeInfo("app.operations", "ListProducts")));
+        return operations;
+    }
+
+    @Test
+    public void testOperationIndexes() throws Exception {
+        StringBuilder appender = new StringBuilder();
+        PipelineTemplate.writeOperationIndexes(appender, operations());
+        assertEquals("    private static final HashMap<Class, Integer> OPERATIONS = new HashMap<Class, Integer>();\n"
+                + "\n"
+                + "    static {\n"
+                + "        OPERATIONS.put(SelectProductById.class, 0);\n"
+                + "        OPERATIONS.put(InsertProduct.class, 1);\n"
+                + "        OPERATIONS.put(ListProducts.class, 2);\n"
+                + "    }\n"
+                + "\n", appender.toString());
+    }
+
+    @Test
+    public void testDispatchSwitch() throws Exception {
+        StringBuilder appender = new StringBuilder();
+        PipelineTemplate.writeDispatchSwitch(appender, operations());
+        assertEquals("        switch (index) {\n"
+                + "            case 0:\n"
+                + "                return executor.selectProductById((SelectProductById) operation);\n"
+                + "            case 1:\n"
+                + "                return executor.insertProduct((InsertProduct) operation);\n"
+                + "            case 2:\n"
+                + "                return executor.listProducts((ListProducts) operation);\n"
+                + "            default:\n"
+                + "                throw new IllegalStateException(\"Unknown operation index: \" + index);\n"
+                + "        }\n", appender.toString());
+    }
+
+    @Test
+    public void testDispatchSwitchWithoutOperations() throws Exception {
+        StringBuilder appender = new StringBuilder();
+        PipelineTemplate.writeDispatchSwitch(appender, new ArrayList<OperationInfo>());
+        assertEquals("        switch (index) {\n"
+                + "            default:\n"
+                + "                throw new IllegalStateException(\"Unknown operation index: \" + index);\n"
+                + "        }\n", appender.toString());
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.operations.myBatis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.uaithne.generator.commons.DataTypeInfo;
+import org.uaithne.generator.commons.ExecutorModuleInfo;
+import org.uaithne.generator.commons.GenerationInfo;
+import org.uaithne.generator.commons.OperationInfo;
+import org.uaithne.generator.commons.OperationKind;
+import org.uaithne.generator.commons.TemplateProcessor;
+import static org.junit.Assert.*;
+
+public class MyBatisTemplateTest {
+
+    private static Class<?> translatorClass;
+
+    @BeforeClass
+    public static void compileOrderByTranslation() throws IOException, ClassNotFoundException {
+        StringBuilder appender = new StringBuilder();
+        appender.append("import java.util.HashMap;\n"
+                + "import java.util.Map;\n"
+                + "import java.util.concurrent.ConcurrentHashMap;\n"
+                + "\n"
+                + "public class OrderByTranslator {\n"
+                + "    private int orderByCacheSize = 256;\n"
+                + "\n");
+        MyBatisTemplate.writeOrderByTranslation(appender, "OrderByTranslator");
+        appender.append("}\n");
+
+        File directory = File.createTempFile("orderByTranslation", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        String source = writeSource(directory, "OrderByTranslator", appender);
+        ClassLoader loader = compile(directory, "The generated order by translation must compile", source);
+        translatorClass = loader.loadClass("OrderByTranslator");
+    }
+
+    private static String writeSource(File directory, String className, CharSequence content) throws IOException {
+        File source = new File(directory, className + ".java");
+        FileOutputStream output = new FileOutputStream(source);
+        try {
+            output.write(content.toString().getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+        return source.getPath();
+    }
+
+    private static ClassLoader compile(File directory, String message, String... sources) throws IOException {
+        ArrayList<String> arguments = new ArrayList<String>();
+        arguments.add("-proc:none");
+        arguments.add("-d");
+        arguments.add(directory.getPath());
+        for (String source : sources) {
+            arguments.add(source);
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A java compiler is required for run this test", compiler);
+        int result = compiler.run((InputStream) null, null, null, arguments.toArray(new String[arguments.size()]));
+        assertEquals(message, 0, result);
+        return new URLClassLoader(new URL[]{directory.toURI().toURL()}, MyBatisTemplateTest.class.getClassLoader());
+    }
+
+    private static HashMap<String, String> getTranslations() {
+        HashMap<String, String> translations = new HashMap<String, String>();
+        translations.put("name", "name");
+        translations.put("name asc", "name asc");
+        translations.put("name desc", "name desc");
+        translations.put("id", "productId");
+        translations.put("id asc", "productId asc");
+        translations.put("id desc", "productId desc");
+        return translations;
+    }
+
+    private static Object newTranslator() throws Exception {
+        return translatorClass.getConstructor().newInstance();
+    }
+
+    private static String translate(Object translator, String orderBy) throws Throwable {
+        Method method = translatorClass.getMethod("translateOrderBy", String.class, HashMap.class);
+        try {
+            return (String) method.invoke(translator, orderBy, getTranslations());
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> createCache(Object translator) throws Exception {
+        Method method = translatorClass.getDeclaredMethod("createOrderByCache");
+        method.setAccessible(true);
+        return (Map<String, String>) method.invoke(translator);
+    }
+
+    private static String translate(Object translator, String orderBy, Map<String, String> cache) throws Exception {
+        Method method = translatorClass.getMethod("translateOrderBy", String.class, HashMap.class, Map.class);
+        return (String) method.invoke(translator, orderBy, getTranslations(), cache);
+    }
+
+    private static void assertInvalid(String orderBy, String expectedMessage) throws Throwable {
+        try {
+            translate(newTranslator(), orderBy);
+            fail("The order by clause '" + orderBy + "' must be rejected");
+        } catch (IllegalArgumentException ex) {
+            assertEquals(expectedMessage, ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testTranslateOrderBy() throws Throwable {
+        Object translator = newTranslator();
+        assertEquals("name desc, productId", translate(translator, "  Name \t DESC ,id"));
+        assertEquals("productId asc", translate(translator, "ID   ASC,"));
+        assertNull(translate(translator, null));
+        assertNull(translate(translator, ""));
+        assertNull(translate(translator, ","));
+        assertNull(translate(translator, " , ,"));
+    }
+
+    @Test
+    public void testTranslateOrderByRejectsInvalidClauses() throws Throwable {
+        assertInvalid("   ", "Invalid order by clause: ");
+        assertInvalid("\t", "Invalid order by clause: ");
+        assertInvalid("name,,id", "Invalid order by clause: ");
+        assertInvalid(" , name", "Invalid order by clause: ");
+        assertInvalid("name, stock", "Invalid order by clause: stock");
+        assertInvalid("name; drop table Product", "Invalid order by clause: name; drop table product");
+    }
+
+    @Test
+    public void testTranslateOrderByCache() throws Throwable {
+        Object translator = newTranslator();
+        translatorClass.getMethod("setOrderByCacheSize", int.class).invoke(translator, 2);
+        Map<String, String> cache = createCache(translator);
+        assertEquals("name desc", translate(translator, "name desc", cache));
+        assertEquals("name desc", translate(translator, "name desc", cache));
+        assertNull(translate(translator, ",", cache));
+        assertEquals("productId", translate(translator, "id", cache));
+        assertEquals(2, cache.size());
+        assertEquals("name desc", cache.get("name desc"));
+        assertEquals("", cache.get(","));
+        assertFalse(cache.containsKey("id"));
+    }
+
+    @Test
+    public void testTranslateOrderByWithoutCache() throws Throwable {
+        Object translator = newTranslator();
+        translatorClass.getMethod("setOrderByCacheSize", int.class).invoke(translator, 0);
+        Map<String, String> cache = createCache(translator);
+        assertEquals("name, productId desc", translate(translator, "name, id desc", cache));
+        assertTrue(cache.isEmpty());
+        try {
+            translate(translator, "   ", cache);
+            fail("The order by clause with only spaces must be rejected");
+        } catch (InvocationTargetException ex) {
+            assertTrue(ex.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * The generator is configured when its templates are loaded, this class is
+     * loaded in a new class loader, together with the generator, for generate a
+     * complex call with a context and an application parameter.
+     */
+    public static class ComplexCallWithContextWriter {
+
+        public static String write() throws IOException {
+            GenerationInfo generationInfo = TemplateProcessor.getGenerationInfo();
+            DataTypeInfo contextType = new DataTypeInfo("app", "Ctx");
+            generationInfo.setContextParameterType(contextType);
+            generationInfo.setApplicationParameterType(contextType);
+
+            InvocationHandler moduleElement = new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if (name.equals("getSimpleName")) {
+                        return name("Catalog");
+                    } else if (name.equals("getQualifiedName")) {
+                        return name("app.Catalog");
+                    } else if (name.equals("getAnnotation")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(name);
+                }
+            };
+            ExecutorModuleInfo module = new ExecutorModuleInfo((TypeElement) Proxy.newProxyInstance(TypeElement.class.getClassLoader(), new Class<?>[]{TypeElement.class}, moduleElement));
+            MyBatisTemplate template = new MyBatisTemplate(module, "app", "TestMapper", "app.TestMapper", false, 1000, false);
+
+            OperationInfo operation = new OperationInfo(new DataTypeInfo("app", "RestockProduct"));
+            operation.setOperationKind(OperationKind.COMPLEX_UPDATE_CALL);
+            operation.setReturnDataType(new DataTypeInfo("app", "Result"));
+            operation.setInitComplexResult(true);
+            operation.setQueryId("app.TestMapper.restockProduct");
+
+            StringBuilder appender = new StringBuilder();
+            template.writeComplexCallMethodHeader(appender, operation);
+            appender.append(" {\n");
+            template.writeComplexCallBody(appender, operation, "update", "context");
+            appender.append("    }\n");
+            return appender.toString();
+        }
+
+        private static Name name(final String value) {
+            return (Name) Proxy.newProxyInstance(Name.class.getClassLoader(), new Class<?>[]{Name.class}, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getName().equals("toString")) {
+                        return value;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+
+    private static String writeComplexCallWithContext() throws Exception {
+        URL generatorClasses = MyBatisTemplate.class.getProtectionDomain().getCodeSource().getLocation();
+        URL testClasses = MyBatisTemplateTest.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[]{generatorClasses, testClasses}, ClassLoader.getSystemClassLoader().getParent());
+        Class<?> writer = loader.loadClass(ComplexCallWithContextWriter.class.getName());
+        return (String) writer.getMethod("write").invoke(null);
+    }
+
+    @Test
+    public void testComplexCallWithApplicationParameter() throws Exception {
+        String method = writeComplexCallWithContext();
+        assertTrue(method, method.contains("restockProduct(final RestockProduct _operation, Ctx context)"));
+
+        File directory = File.createTempFile("complexCall", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        ClassLoader loader = compile(directory, "The generated complex call must compile",
+                writeSource(directory, "Ctx", "public class Ctx {\n"
+                + "}\n"),
+                writeSource(directory, "Result", "public class Result {\n"
+                + "}\n"),
+                writeSource(directory, "RestockProduct", "public class RestockProduct {\n"
+                + "}\n"),
+                writeSource(directory, "SqlSession", "public class SqlSession {\n"
+                + "    public String statement;\n"
+                + "    public Object parameter;\n"
+                + "    public int update(String statement, Object parameter) {\n"
+                + "        this.statement = statement;\n"
+                + "        this.parameter = parameter;\n"
+                + "        return 1;\n"
+                + "    }\n"
+                + "}\n"),
+                writeSource(directory, "TestMapper", "public class TestMapper {\n"
+                + "    public final SqlSession session = new SqlSession();\n"
+                + "\n"
+                + "    protected SqlSession getSession(Ctx context) {\n"
+                + "        return session;\n"
+                + "    }\n"
+                + "\n"
+                + "    protected Object withApplicationParameter(SqlSession session, Object parameter, Ctx context) {\n"
+                + "        return new Object[]{parameter, context};\n"
+                + "    }\n"
+                + "\n"
+                + method
+                + "}\n"));
+
+        Class<?> mapperClass = loader.loadClass("TestMapper");
+        Class<?> contextClass = loader.loadClass("Ctx");
+        Class<?> operationClass = loader.loadClass("RestockProduct");
+        Object mapper = mapperClass.newInstance();
+        Object context = contextClass.newInstance();
+        Object operation = operationClass.newInstance();
+        Object result = mapperClass.getMethod("restockProduct", operationClass, contextClass).invoke(mapper, operation, context);
+        assertEquals("Result", result.getClass().getName());
+
+        Object session = mapperClass.getField("session").get(mapper);
+        assertEquals("app.TestMapper.restockProduct", session.getClass().getField("statement").get(session));
+        Object[] parameter = (Object[]) session.getClass().getField("parameter").get(session);
+        assertSame("The application parameter must be passed with the statement parameter", context, parameter[1]);
+        Field wrappedOperation = parameter[0].getClass().getDeclaredField("operation");
+        wrappedOperation.setAccessible(true);
+        assertSame(operation, wrappedOperation.get(parameter[0]));
+        Field wrappedResult = parameter[0].getClass().getDeclaredField("result");
+        wrappedResult.setAccessible(true);
+        assertSame(result, wrappedResult.get(parameter[0]));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.Closeable;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.uaithne.generator.templates.shared.GeneratedSharedLibrary.*;
+
+public class BatchLoadingInterceptorTemplateTest {
+
+    private static ClassLoader loader;
+    private Object executor;
+    private Object interceptor;
+    private Closeable scope;
+
+    @BeforeClass
+    public static void compileInterceptor() throws Exception {
+        GeneratedSharedLibrary library = new GeneratedSharedLibrary("batchLoadingInterceptor");
+        library.add(new SelectByIdOperationTemplate(PACKAGE));
+        library.add(new BatchLoadingInterceptorTemplate_WithLamdas(PACKAGE));
+        library.add("SelectItemById",
+                "public class SelectItemById implements SelectByIdOperation<Integer, String> {\n"
+                + "    private Integer id;\n"
+                + "    public SelectItemById(Integer id) { this.id = id; }\n"
+                + "    public Integer getId() { return id; }\n"
+                + "    public void setId(Integer id) { this.id = id; }\n"
+                + "}");
+        library.add("SelectItemsByIds",
+                "import java.util.List;\n"
+                + "\n"
+                + "public class SelectItemsByIds implements Operation<List<String>> {\n"
+                + "    private final List<Integer> ids;\n"
+                + "    public SelectItemsByIds(List<Integer> ids) { this.ids = ids; }\n"
+                + "    public List<Integer> getIds() { return ids; }\n"
+                + "}");
+        library.add("UpdateItem",
+                "public class UpdateItem implements Operation<Integer> {\n"
+                + "}");
+        library.add("ItemExecutor",
+                "import java.util.ArrayList;\n"
+                + "import java.util.List;\n"
+                + "\n"
+                + "public class ItemExecutor extends Executor {\n"
+                + "    public final List<List<Integer>> loadedIds = new ArrayList<List<Integer>>();\n"
+                + "    private int version;\n"
+                + "    public ItemExecutor() {\n"
+                + "        handle(SelectItemById.class, operation -> {\n"
+                + "            loadedIds.add(java.util.Collections.singletonList(operation.getId()));\n"
+                + "            return \"item \" + operation.getId() + \" v\" + version;\n"
+                + "        });\n"
+                + "        handle(SelectItemsByIds.class, operation -> {\n"
+                + "            loadedIds.add(new ArrayList<Integer>(operation.getIds()));\n"
+                + "            List<String> result = new ArrayList<String>();\n"
+                + "            for (Integer id : operation.getIds()) {\n"
+                + "                result.add(\"item \" + id + \" v\" + version);\n"
+                + "            }\n"
+                + "            return result;\n"
+                + "        });\n"
+                + "        handle(UpdateItem.class, operation -> ++version);\n"
+                + "    }\n"
+                + "}");
+        library.add("ItemLoader",
+                "import java.util.List;\n"
+                + "\n"
+                + "public class ItemLoader extends BatchLoadingInterceptor.Loader<Integer, String> {\n"
+                + "    public Operation<List<String>> createOperation(List<Integer> ids) { return new SelectItemsByIds(ids); }\n"
+                + "    public Integer getId(String value) { return Integer.valueOf(value.split(\" \")[1]); }\n"
+                + "}");
+        loader = library.compile();
+    }
+
+    @Before
+    public void openScope() throws Throwable {
+        executor = newInstance(loader, "ItemExecutor");
+        interceptor = newInstance(loader, "BatchLoadingInterceptor", executor);
+        invoke(interceptor, "batch", loader.loadClass(PACKAGE + ".SelectItemById"), newInstance(loader, "ItemLoader"));
+        invoke(interceptor, "clearWhen", loader.loadClass(PACKAGE + ".UpdateItem"));
+        scope = (Closeable) invoke(interceptor, "openScope");
+    }
+
+    @After
+    public void closeScope() throws Exception {
+        scope.close();
+    }
+
+    private Object select(int id) throws Throwable {
+        return invoke(interceptor, "execute", newInstance(loader, "SelectItemById", id));
+    }
+
+    private void prefetch(int id) throws Throwable {
+        invoke(scope, "prefetch", newInstance(loader, "SelectItemById", id));
+    }
+
+    private List<?> loadedIds() throws Exception {
+        return (List<?>) field(executor, "loadedIds");
+    }
+
+    @Test
+    public void testPrefetchedIdsAreLoadedTogether() throws Throwable {
+        prefetch(1);
+        prefetch(2);
+        prefetch(3);
+        assertEquals("item 2 v0", select(2));
+        assertEquals("item 1 v0", select(1));
+        assertEquals("item 3 v0", select(3));
+        assertEquals(1, loadedIds().size());
+        assertEquals("[1, 2, 3]", loadedIds().get(0).toString());
+    }
+
+    @Test
+    public void testWithoutPrefetchEachIdIsLoadedAlone() throws Throwable {
+        assertEquals("item 1 v0", select(1));
+        assertEquals("item 2 v0", select(2));
+        assertEquals("item 1 v0", select(1));
+        assertEquals("[[1], [2]]", loadedIds().toString());
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Throwable {
+        invoke(interceptor, "setMaxBatchSize", 2);
+        prefetch(1);
+        prefetch(2);
+        prefetch(3);
+        assertEquals("item 3 v0", select(3));
+        assertEquals("item 1 v0", select(1));
+        assertEquals("[[1, 2], [3]]", loadedIds().toString());
+    }
+
+    @Test
+    public void testModificationClearsTheLoadedValues() throws Throwable {
+        prefetch(1);
+        prefetch(2);
+        assertEquals("item 1 v0", select(1));
+        assertEquals(1, invoke(interceptor, "execute", newInstance(loader, "UpdateItem")));
+        assertEquals("item 2 v1", select(2));
+        assertEquals("item 1 v1", select(1));
+        assertEquals("[[1, 2], [2], [1]]", loadedIds().toString());
+    }
+
+    @Test
+    public void testModificationKeepsThePendingIds() throws Throwable {
+        prefetch(1);
+        prefetch(2);
+        invoke(interceptor, "execute", newInstance(loader, "UpdateItem"));
+        assertEquals("item 1 v1", select(1));
+        assertEquals("item 2 v1", select(2));
+        assertEquals("[[1, 2]]", loadedIds().toString());
+    }
+
+    @Test
+    public void testOutsideTheScopeTheOperationIsExecuted() throws Throwable {
+        scope.close();
+        assertEquals("item 1 v0", select(1));
+        assertEquals("item 1 v0", select(1));
+        assertEquals("[[1], [1]]", loadedIds().toString());
+    }
+}
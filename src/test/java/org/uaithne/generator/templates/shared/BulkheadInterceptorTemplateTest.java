@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.uaithne.generator.templates.shared.GeneratedSharedLibrary.*;
+
+public class BulkheadInterceptorTemplateTest {
+
+    private static ClassLoader loader;
+    private static Class<?> operationClass;
+
+    @BeforeClass
+    public static void compileInterceptor() throws Exception {
+        GeneratedSharedLibrary library = new GeneratedSharedLibrary("bulkheadInterceptor");
+        library.add(new BulkheadInterceptorTemplate_WithLamdas(PACKAGE));
+        library.add("NestingExecutor",
+                "public class NestingExecutor extends Executor {\n"
+                + "    public volatile Executor head;\n"
+                + "    public NestingExecutor() {\n"
+                + "        handle(TestOperation.class, operation -> {\n"
+                + "            String value = operation.getValue();\n"
+                + "            if (value.equals(\"fail\")) {\n"
+                + "                throw new IllegalStateException(\"failed\");\n"
+                + "            }\n"
+                + "            if (value.startsWith(\"outer \")) {\n"
+                + "                return \"outer of \" + head.execute(new TestOperation(value.substring(6)));\n"
+                + "            }\n"
+                + "            return value;\n"
+                + "        });\n"
+                + "    }\n"
+                + "}");
+        loader = library.compile();
+        operationClass = loader.loadClass(PACKAGE + ".TestOperation");
+    }
+
+    private static Object execute(Object executor, String value) throws Throwable {
+        return invoke(executor, "execute", newInstance(loader, "TestOperation", value));
+    }
+
+    private static Object nestingBulkhead(boolean moduleLimit) throws Throwable {
+        Object executor = newInstance(loader, "NestingExecutor");
+        Object bulkhead = newInstance(loader, "BulkheadInterceptor", executor);
+        executor.getClass().getField("head").set(executor, bulkhead);
+        if (moduleLimit) {
+            invoke(bulkhead, "limit", executor, 1);
+        } else {
+            invoke(bulkhead, "limit", operationClass, 1);
+        }
+        return bulkhead;
+    }
+
+    private static Object heldPermits(Object bulkhead) throws Exception {
+        Field field = bulkhead.getClass().getDeclaredField("heldPermits");
+        field.setAccessible(true);
+        return ((ThreadLocal<?>) field.get(bulkhead)).get();
+    }
+
+    @Test
+    public void testNestedExecutionReusesTheModulePermit() throws Throwable {
+        Object bulkhead = nestingBulkhead(true);
+        assertEquals("outer of inner", execute(bulkhead, "outer inner"));
+        assertEquals("outer of outer of inner", execute(bulkhead, "outer outer inner"));
+        assertEquals(0L, invoke(bulkhead, "getRejectedCount"));
+        assertNull(heldPermits(bulkhead));
+    }
+
+    @Test
+    public void testNestedExecutionReusesTheOperationPermit() throws Throwable {
+        Object bulkhead = nestingBulkhead(false);
+        assertEquals("outer of inner", execute(bulkhead, "outer inner"));
+        assertEquals(0L, invoke(bulkhead, "getRejectedCount"));
+        assertNull(heldPermits(bulkhead));
+    }
+
+    @Test
+    public void testPermitsAreReleasedWhenTheNestedExecutionFails() throws Throwable {
+        Object bulkhead = nestingBulkhead(true);
+        try {
+            execute(bulkhead, "outer fail");
+            fail("The failure must be propagated");
+        } catch (RuntimeException e) {
+            assertEquals(PACKAGE + ".OperationExecutionException", e.getClass().getName());
+        }
+        assertNull(heldPermits(bulkhead));
+        assertEquals("a", execute(bulkhead, "a"));
+        assertEquals(0L, invoke(bulkhead, "getRejectedCount"));
+    }
+
+    @Test
+    public void testOtherThreadIsRejected() throws Throwable {
+        Object executor = newInstance(loader, "TestExecutor");
+        final Object bulkhead = newInstance(loader, "BulkheadInterceptor", executor);
+        invoke(bulkhead, "limit", executor, 1);
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.getClass().getField("gate").set(executor, gate);
+        final Object[] result = new Object[1];
+        Thread holder = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    result[0] = execute(bulkhead, "a");
+                } catch (Throwable e) {
+                    result[0] = e;
+                }
+            }
+        };
+        holder.start();
+        try {
+            assertTrue(((CountDownLatch) field(executor, "started")).await(10, TimeUnit.SECONDS));
+            try {
+                execute(bulkhead, "b");
+                fail("The execution must be rejected while the other thread holds the permit");
+            } catch (RuntimeException e) {
+                assertEquals(PACKAGE + ".OperationRejectedException", e.getClass().getName());
+            }
+            assertEquals(1L, invoke(bulkhead, "getRejectedCount"));
+        } finally {
+            gate.countDown();
+            holder.join(10000);
+        }
+        assertEquals("result of a #1", result[0]);
+        executor.getClass().getField("gate").set(executor, null);
+        assertEquals("result of b #2", execute(bulkhead, "b"));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.lang.reflect.Modifier;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.uaithne.generator.templates.shared.GeneratedSharedLibrary.*;
+
+public class CachingInterceptorTemplateTest {
+
+    private static ClassLoader loader;
+    private Object executor;
+    private Object interceptor;
+
+    @BeforeClass
+    public static void compileInterceptor() throws Exception {
+        GeneratedSharedLibrary library = new GeneratedSharedLibrary("cachingInterceptor");
+        library.add(new CacheRegionTemplate(PACKAGE));
+        library.add(new CachingInterceptorTemplate_WithLamdas(PACKAGE));
+        loader = library.compile();
+    }
+
+    @Before
+    public void createInterceptor() throws Throwable {
+        executor = newInstance(loader, "TestExecutor");
+        interceptor = newInstance(loader, "CachingInterceptor", executor);
+        invoke(interceptor, "cache", loader.loadClass(PACKAGE + ".TestOperation"), "products", 0L, 10);
+        invoke(interceptor, "invalidateWhen", loader.loadClass(PACKAGE + ".TestWriteOperation"), "products");
+    }
+
+    private Object read(String value) throws Throwable {
+        return invoke(interceptor, "execute", newInstance(loader, "TestOperation", value));
+    }
+
+    private int executions() throws Exception {
+        return ((Number) field(executor, "executions")).intValue();
+    }
+
+    @Test
+    public void testResultIsShared() throws Throwable {
+        Object result = read("a");
+        assertSame(result, read("a"));
+        assertEquals(1, executions());
+        assertEquals("result of b #2", read("b"));
+        assertEquals(2, executions());
+    }
+
+    @Test
+    public void testKeyIsACopyOfTheOperation() throws Throwable {
+        Object operation = newInstance(loader, "TestOperation", "a");
+        assertEquals("result of a #1", invoke(interceptor, "execute", operation));
+        invoke(operation, "setValue", "b");
+        assertEquals("result of b #2", invoke(interceptor, "execute", operation));
+        assertEquals("result of a #1", read("a"));
+        assertEquals(2, executions());
+    }
+
+    @Test
+    public void testInvalidateWhen() throws Throwable {
+        read("a");
+        invoke(interceptor, "execute", newInstance(loader, "TestWriteOperation"));
+        assertEquals("result of a #2", read("a"));
+        assertEquals(1, ((Number) field(executor, "writes")).intValue());
+    }
+
+    @Test
+    public void testResultLoadedBeforeInvalidationIsNotStored() throws Throwable {
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.getClass().getField("gate").set(executor, gate);
+        final Object[] loaded = new Object[1];
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    loaded[0] = read("a");
+                } catch (Throwable e) {
+                    loaded[0] = e;
+                }
+            }
+        };
+        reader.start();
+        assertTrue(((CountDownLatch) field(executor, "started")).await(10, TimeUnit.SECONDS));
+        invoke(interceptor, "execute", newInstance(loader, "TestWriteOperation"));
+        gate.countDown();
+        reader.join(10000);
+        assertEquals("result of a #1", loaded[0]);
+
+        executor.getClass().getField("gate").set(executor, null);
+        assertEquals("result of a #2", read("a"));
+        assertEquals("result of a #2", read("a"));
+    }
+
+    @Test
+    public void testRegionEvictsTheOldestValues() throws Throwable {
+        Object region = newInstance(loader, "CacheRegion", "products", 0L, 2);
+        long version = (Long) invoke(region, "getVersion");
+        invoke(region, "put", "a", "1", version);
+        invoke(region, "put", "b", "2", version);
+        invoke(region, "put", "c", "3", version);
+        assertEquals(2, invoke(region, "size"));
+        assertNull(invoke(region, "get", "a"));
+        assertNotNull(invoke(region, "get", "c"));
+    }
+
+    @Test
+    public void testRegionIgnoresValuesOfPreviousVersions() throws Throwable {
+        Object region = newInstance(loader, "CacheRegion", "products", 0L, 10);
+        long version = (Long) invoke(region, "getVersion");
+        invoke(region, "clear");
+        invoke(region, "put", "a", "1", version);
+        assertNull(invoke(region, "get", "a"));
+        assertEquals(0, invoke(region, "size"));
+    }
+
+    @Test
+    public void testInterceptorCanBeExtended() throws Exception {
+        assertFalse(Modifier.isFinal(loader.loadClass(PACKAGE + ".CachingInterceptor").getModifiers()));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.lang.reflect.Modifier;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.uaithne.generator.templates.shared.GeneratedSharedLibrary.*;
+
+public class CoalescingInterceptorTemplateTest {
+
+    private static ClassLoader loader;
+    private Object executor;
+    private Object interceptor;
+    private CountDownLatch gate;
+
+    @BeforeClass
+    public static void compileInterceptor() throws Exception {
+        GeneratedSharedLibrary library = new GeneratedSharedLibrary("coalescingInterceptor");
+        library.add(new CacheRegionTemplate(PACKAGE));
+        library.add(new CoalescingInterceptorTemplate_WithLamdas(PACKAGE));
+        loader = library.compile();
+    }
+
+    @Before
+    public void createInterceptor() throws Throwable {
+        executor = newInstance(loader, "TestExecutor");
+        interceptor = newInstance(loader, "CoalescingInterceptor", executor);
+        invoke(interceptor, "coalesce", loader.loadClass(PACKAGE + ".TestOperation"));
+        gate = new CountDownLatch(1);
+        executor.getClass().getField("gate").set(executor, gate);
+    }
+
+    private int executions() throws Exception {
+        return ((Number) field(executor, "executions")).intValue();
+    }
+
+    /**
+     * Executes the operation in a new thread, the outcome is the result or the
+     * exception thrown.
+     */
+    private Execution start(String value) {
+        Execution execution = new Execution(value);
+        execution.start();
+        return execution;
+    }
+
+    private Execution startLeader(String value) throws Exception {
+        Execution leader = start(value);
+        assertTrue(((CountDownLatch) field(executor, "started")).await(10, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long limit = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue("The follower must wait for the leader", System.currentTimeMillis() < limit);
+            Thread.sleep(1);
+        }
+    }
+
+    private final class Execution extends Thread {
+
+        private final String value;
+        private volatile Object outcome;
+
+        Execution(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public void run() {
+            try {
+                outcome = invoke(interceptor, "execute", newInstance(loader, "TestOperation", value));
+            } catch (Throwable e) {
+                outcome = e;
+            }
+        }
+
+        Object finish() throws InterruptedException {
+            join(10000);
+            assertFalse(isAlive());
+            return outcome;
+        }
+    }
+
+    @Test
+    public void testFollowersReceiveTheSameResult() throws Throwable {
+        Execution leader = startLeader("a");
+        Execution follower = start("a");
+        awaitWaiting(follower);
+        assertEquals(1, invoke(interceptor, "getInFlightExecutionCount"));
+        gate.countDown();
+        Object result = leader.finish();
+        assertEquals("result of a #1", result);
+        assertSame(result, follower.finish());
+        assertEquals(1, executions());
+        assertEquals(0, invoke(interceptor, "getInFlightExecutionCount"));
+    }
+
+    @Test
+    public void testFollowersReceiveTheSameFailure() throws Throwable {
+        Execution leader = startLeader("a");
+        Execution follower = start("a");
+        awaitWaiting(follower);
+        executor.getClass().getField("failure").set(executor, new IllegalStateException("failed"));
+        gate.countDown();
+        Object failure = leader.finish();
+        assertTrue(failure instanceof RuntimeException);
+        assertEquals("failed", ((Throwable) failure).getCause().getMessage());
+        assertSame(failure, follower.finish());
+        assertEquals(1, executions());
+        assertEquals(0, invoke(interceptor, "getInFlightExecutionCount"));
+
+        executor.getClass().getField("failure").set(executor, null);
+        assertEquals("result of a #2", invoke(interceptor, "execute", newInstance(loader, "TestOperation", "a")));
+    }
+
+    @Test
+    public void testDifferentOperationsAreNotCoalesced() throws Throwable {
+        Execution leader = startLeader("a");
+        Execution other = start("b");
+        awaitWaiting(other);
+        assertEquals(2, invoke(interceptor, "getInFlightExecutionCount"));
+        gate.countDown();
+        assertEquals("result of a #2", leader.finish());
+        assertEquals("result of b #2", other.finish());
+    }
+
+    @Test
+    public void testFollowerWaitLimit() throws Throwable {
+        invoke(interceptor, "setMaxWaitMillis", 20L);
+        Execution leader = startLeader("a");
+        try {
+            invoke(interceptor, "execute", newInstance(loader, "TestOperation", "a"));
+            fail("The follower must be rejected after the wait limit");
+        } catch (RuntimeException e) {
+            assertEquals(PACKAGE + ".OperationRejectedException", e.getClass().getName());
+        } finally {
+            gate.countDown();
+        }
+        assertEquals("result of a #1", leader.finish());
+        assertEquals(1, executions());
+    }
+
+    @Test
+    public void testInterceptorCanBeExtended() throws Exception {
+        assertFalse(Modifier.isFinal(loader.loadClass(PACKAGE + ".CoalescingInterceptor").getModifiers()));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.lang.reflect.Field;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.uaithne.generator.templates.shared.GeneratedSharedLibrary.*;
+
+public class ExecutorTemplate_WithLamdasTest {
+
+    private static ClassLoader loader;
+    private static Class<?> operationClass;
+    private static Field dispatchField;
+
+    @BeforeClass
+    public static void compileExecutor() throws Exception {
+        GeneratedSharedLibrary library = new GeneratedSharedLibrary("executor");
+        library.add(new MappedExecutorTemplate_WithLamdas(PACKAGE));
+        loader = library.compile();
+        operationClass = loader.loadClass(PACKAGE + ".TestOperation");
+        dispatchField = loader.loadClass(PACKAGE + ".Executor").getDeclaredField("dispatch");
+        dispatchField.setAccessible(true);
+    }
+
+    private static Object read(Object executor, String value) throws Throwable {
+        return invoke(executor, "execute", newInstance(loader, "TestOperation", value));
+    }
+
+    @Test
+    public void testDispatchThroughTransparentExecutors() throws Throwable {
+        Object executor = newInstance(loader, "TestExecutor");
+        Object head = newInstance(loader, "Executor", newInstance(loader, "Executor", executor));
+        assertEquals("result of a #1", read(head, "a"));
+        assertEquals("result of b #2", read(head, "b"));
+        assertEquals(1, invoke(invoke(head, "execute", newInstance(loader, "TestWriteOperation")), "intValue"));
+    }
+
+    @Test
+    public void testOperationWithoutHandler() throws Throwable {
+        Object head = newInstance(loader, "Executor", newInstance(loader, "Executor"));
+        try {
+            read(head, "a");
+            fail("An operation without handler must fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("No handler found for the operation"));
+        }
+    }
+
+    @Test
+    public void testHandlerRegisteredAfterUse() throws Throwable {
+        Object first = newInstance(loader, "TestExecutor");
+        Object second = newInstance(loader, "TestExecutor");
+        Object mapped = newInstance(loader, "MappedExecutor");
+        Object head = newInstance(loader, "Executor", mapped);
+        invoke(mapped, "handle", operationClass, first);
+        assertEquals("result of a #1", read(head, "a"));
+        assertEquals("result of a #2", read(head, "a"));
+
+        invoke(mapped, "handle", operationClass, second);
+        assertEquals("result of a #1", read(head, "a"));
+        assertEquals(2, ((Number) field(first, "executions")).intValue());
+    }
+
+    @Test
+    public void testOtherChainsKeepTheirResolvedHandlers() throws Throwable {
+        Object head = newInstance(loader, "Executor", newInstance(loader, "TestExecutor"));
+        read(head, "a");
+        Object dispatch = dispatchField.get(head);
+        read(head, "a");
+        assertSame(dispatch, dispatchField.get(head));
+
+        Object mapped = newInstance(loader, "MappedExecutor");
+        invoke(mapped, "handle", operationClass, newInstance(loader, "TestExecutor"));
+        read(mapped, "a");
+        invoke(mapped, "handle", operationClass, newInstance(loader, "TestExecutor"));
+        read(mapped, "a");
+        read(head, "a");
+        assertSame(dispatch, dispatchField.get(head));
+    }
+
+    @Test
+    public void testNewExecutorOverAUsedChain() throws Throwable {
+        Object shared = newInstance(loader, "Executor", newInstance(loader, "TestExecutor"));
+        read(shared, "a");
+        Object dispatch = dispatchField.get(shared);
+
+        Object mapped = newInstance(loader, "MappedExecutor", shared);
+        invoke(mapped, "handle", operationClass, newInstance(loader, "TestExecutor"));
+        assertEquals("result of a #1", read(mapped, "a"));
+        read(shared, "a");
+        assertSame(dispatch, dispatchField.get(shared));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.uaithne.generator.templates.ClassTemplate;
+import static org.junit.Assert.*;
+
+/**
+ * Compiles the generated shared library classes together with the executor
+ * and the operations used by the tests, the compiled classes are used by
+ * reflection.
+ */
+final class GeneratedSharedLibrary {
+
+    static final String PACKAGE = "org.uaithne.shared";
+
+    private final File directory;
+    private final ArrayList<String> sources = new ArrayList<String>();
+
+    GeneratedSharedLibrary(String name) throws IOException {
+        this(name, true);
+    }
+
+    /**
+     * @param withLambdas if the executors are the lambda ones, otherwise the
+     * executor groups with the executor selected by the operation are used
+     */
+    GeneratedSharedLibrary(String name, boolean withLambdas) throws IOException {
+        directory = File.createTempFile(name, "");
+        assertTrue(directory.delete() && directory.mkdir());
+        add(new OperationExecutionExceptionTemplate(PACKAGE));
+        add(new PublicExceptionTemplate(PACKAGE));
+        add(new OperationRejectedExceptionTemplate(PACKAGE));
+        if (withLambdas) {
+            addLambdaExecutors();
+        } else {
+            addSelectedExecutors();
+        }
+    }
+
+    private void addLambdaExecutors() throws IOException {
+        add(new OperationTemplate(PACKAGE));
+        add(new ExecutorTemplate_WithLamdas(PACKAGE));
+        add("TestOperation",
+                "public class TestOperation implements Operation<String> {\n"
+                + "    private String value;\n"
+                + "    public TestOperation(String value) { this.value = value; }\n"
+                + "    public String getValue() { return value; }\n"
+                + "    public void setValue(String value) { this.value = value; }\n"
+                + "}");
+        add("TestWriteOperation",
+                "public class TestWriteOperation implements Operation<Integer> {\n"
+                + "}");
+        add("TestExecutor",
+                "import java.util.concurrent.CountDownLatch;\n"
+                + "import java.util.concurrent.atomic.AtomicInteger;\n"
+                + "\n"
+                + "public class TestExecutor extends Executor {\n"
+                + "    public final AtomicInteger executions = new AtomicInteger();\n"
+                + "    public final AtomicInteger writes = new AtomicInteger();\n"
+                + "    public final CountDownLatch started = new CountDownLatch(1);\n"
+                + "    public volatile CountDownLatch gate;\n"
+                + "    public volatile RuntimeException failure;\n"
+                + "    public TestExecutor() {\n"
+                + "        handle(TestOperation.class, operation -> {\n"
+                + "            executions.incrementAndGet();\n"
+                + "            started.countDown();\n"
+                + "            try {\n"
+                + "                if (gate != null) { gate.await(); }\n"
+                + "            } catch (InterruptedException e) {\n"
+                + "                throw new IllegalStateException(e);\n"
+                + "            }\n"
+                + "            if (failure != null) { throw failure; }\n"
+                + "            return \"result of \" + operation.getValue() + \" #\" + executions.get();\n"
+                + "        });\n"
+                + "        handle(TestWriteOperation.class, operation -> writes.incrementAndGet());\n"
+                + "    }\n"
+                + "}");
+    }
+
+    private void addSelectedExecutors() throws IOException {
+        add(new ExecutorGroupTemplate(PACKAGE));
+        add(new ExecutorTemplate(PACKAGE));
+        add("Operation",
+                "public interface Operation<RESULT> extends java.io.Serializable {\n"
+                + "    Object getExecutorSelector();\n"
+                + "}");
+        add("TestOperation",
+                "public class TestOperation implements Operation<String> {\n"
+                + "    private final String selector;\n"
+                + "    public TestOperation(String selector) { this.selector = selector; }\n"
+                + "    public Object getExecutorSelector() { return selector; }\n"
+                + "}");
+        add("TestExecutor",
+                "public class TestExecutor extends Executor {\n"
+                + "    private final String selector;\n"
+                + "    private final String name;\n"
+                + "    public TestExecutor(String selector, String name) { this.selector = selector; this.name = name; }\n"
+                + "    public Object getExecutorSelector() { return selector; }\n"
+                + "    @Override\n"
+                + "    protected <RESULT, OPERATION extends Operation<RESULT>> RESULT executeAnyOperation(OPERATION operation) {\n"
+                + "        return (RESULT) name;\n"
+                + "    }\n"
+                + "}");
+    }
+
+    void add(ClassTemplate template) throws IOException {
+        StringBuilder appender = new StringBuilder();
+        template.write(appender);
+        add(template.getClassName(), appender);
+    }
+
+    void add(String className, CharSequence content) throws IOException {
+        add(PACKAGE, className, content);
+    }
+
+    void add(String packageName, String className, CharSequence content) throws IOException {
+        File packageDirectory = new File(directory, packageName.replace('.', File.separatorChar));
+        assertTrue(packageDirectory.isDirectory() || packageDirectory.mkdirs());
+        File source = new File(packageDirectory, className + ".java");
+        String code;
+        if (content.toString().startsWith("package ")) {
+            code = content.toString();
+        } else {
+            code = "package " + packageName + ";\n\n" + content;
+        }
+        FileOutputStream output = new FileOutputStream(source);
+        try {
+            output.write(code.getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+        sources.add(source.getPath());
+    }
+
+    ClassLoader compile() throws IOException {
+        ArrayList<String> arguments = new ArrayList<String>();
+        arguments.add("-proc:none");
+        arguments.add("-nowarn");
+        arguments.add("-d");
+        arguments.add(directory.getPath());
+        arguments.addAll(sources);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A java compiler is required for run this test", compiler);
+        int result = compiler.run((InputStream) null, null, null, arguments.toArray(new String[arguments.size()]));
+        assertEquals("The generated shared library must compile", 0, result);
+        return new URLClassLoader(new URL[]{directory.toURI().toURL()}, GeneratedSharedLibrary.class.getClassLoader());
+    }
+
+    static Object newInstance(ClassLoader loader, String className, Object... args) throws Throwable {
+        Class<?> type = loader.loadClass(PACKAGE + "." + className);
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterTypes().length == args.length && isApplicable(constructor.getParameterTypes(), args)) {
+                try {
+                    return constructor.newInstance(args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+        throw new IllegalArgumentException("No constructor of " + className + " for " + args.length + " arguments");
+    }
+
+    static Object invoke(Object target, String methodName, Object... args) throws Throwable {
+        Class<?> type = target instanceof Class ? (Class<?>) target : target.getClass();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.getName().equals(methodName) && method.getParameterTypes().length == args.length && isApplicable(method.getParameterTypes(), args)) {
+                    method.setAccessible(true);
+                    try {
+                        return method.invoke(target instanceof Class ? null : target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("No method " + methodName + " in " + type.getName() + " for " + args.length + " arguments");
+    }
+
+    static Object field(Object target, String fieldName) throws Exception {
+        return target.getClass().getField(fieldName).get(target);
+    }
+
+    private static boolean isApplicable(Class<?>[] parameterTypes, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            if (args[i] == null) {
+                if (parameterType.isPrimitive()) {
+                    return false;
+                }
+            } else if (parameterType == int.class) {
+                if (!(args[i] instanceof Integer)) {
+                    return false;
+                }
+            } else if (parameterType == long.class) {
+                if (!(args[i] instanceof Long)) {
+                    return false;
+                }
+            } else if (parameterType == boolean.class) {
+                if (!(args[i] instanceof Boolean)) {
+                    return false;
+                }
+            } else if (parameterType == double.class) {
+                if (!(args[i] instanceof Double)) {
+                    return false;
+                }
+            } else if (!parameterType.isInstance(args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
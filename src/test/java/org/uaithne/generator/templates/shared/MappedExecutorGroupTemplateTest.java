@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.uaithne.generator.templates.shared.GeneratedSharedLibrary.*;
+
+public class MappedExecutorGroupTemplateTest {
+
+    private static ClassLoader loader;
+    private static ClassLoader chainedLoader;
+
+    @BeforeClass
+    public static void compileExecutorGroups() throws Exception {
+        GeneratedSharedLibrary library = new GeneratedSharedLibrary("mappedExecutorGroup", false);
+        library.add(new MappedExecutorGroupTemplate_WithExecutorGroup(PACKAGE));
+        loader = library.compile();
+        library = new GeneratedSharedLibrary("chainedMappedExecutorGroup", false);
+        library.add(new ChainedMappedExecutorGroupTemplate_WithExecutorGroup(PACKAGE));
+        chainedLoader = library.compile();
+    }
+
+    private static Object execute(Object executorGroup, ClassLoader loader, String selector) throws Throwable {
+        return invoke(executorGroup, "execute", newInstance(loader, "TestOperation", selector));
+    }
+
+    @Test
+    public void testAddAndRemoveExecutor() throws Throwable {
+        Object group = newInstance(loader, "MappedExecutorGroup");
+        Object first = newInstance(loader, "TestExecutor", "a", "first");
+        Object second = newInstance(loader, "TestExecutor", "a", "second");
+        assertNull(invoke(group, "addExecutor", first));
+        assertEquals("first", execute(group, loader, "a"));
+        assertSame(first, invoke(group, "addExecutor", second));
+        assertEquals("second", execute(group, loader, "a"));
+
+        assertEquals(false, invoke(group, "removeExecutor", first));
+        assertEquals("second", execute(group, loader, "a"));
+        assertEquals(true, invoke(group, "removeExecutor", second));
+        assertEquals(false, invoke(group, "removeExecutor", second));
+        assertNull(invoke(group, "getExecutor", newInstance(loader, "TestOperation", "a")));
+    }
+
+    @Test
+    public void testRemoveExecutorBySelector() throws Throwable {
+        Object group = newInstance(loader, "MappedExecutorGroup");
+        invoke(group, "addExecutor", newInstance(loader, "TestExecutor", "a", "first"));
+        assertEquals(false, invoke(group, "removeExecutorBySelector", "b"));
+        assertEquals(true, invoke(group, "removeExecutorBySelector", "a"));
+        assertNull(invoke(group, "getExecutor", newInstance(loader, "TestOperation", "a")));
+    }
+
+    @Test
+    public void testChangesWhileExecuting() throws Throwable {
+        final Object group = newInstance(loader, "MappedExecutorGroup");
+        invoke(group, "addExecutor", newInstance(loader, "TestExecutor", "stable", "stable"));
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread executing = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (running.get()) {
+                        assertEquals("stable", execute(group, loader, "stable"));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        };
+        executing.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                Object executor = newInstance(loader, "TestExecutor", "selector" + (i % 10), "changing");
+                invoke(group, "addExecutor", executor);
+                assertEquals(true, invoke(group, "removeExecutor", executor));
+            }
+        } finally {
+            running.set(false);
+            executing.join(10000);
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void testChainedCustomExecutors() throws Throwable {
+        Object chained = newInstance(chainedLoader, "TestExecutor", "a", "chained");
+        Object group = newInstance(chainedLoader, "ChainedMappedExecutorGroup", chained);
+        assertEquals(false, invoke(group, "removeCustomExecutor", chained));
+        assertEquals("chained", execute(group, chainedLoader, "a"));
+
+        Object custom = newInstance(chainedLoader, "TestExecutor", "a", "custom");
+        assertNull(invoke(group, "addCustomExecutor", custom));
+        assertEquals("custom", execute(group, chainedLoader, "a"));
+        assertEquals("chained", execute(group, chainedLoader, "b"));
+
+        Object other = newInstance(chainedLoader, "TestExecutor", "a", "other");
+        assertEquals(false, invoke(group, "removeCustomExecutor", other));
+        assertEquals(true, invoke(group, "removeCustomExecutor", custom));
+        assertEquals("chained", execute(group, chainedLoader, "a"));
+        assertEquals(false, invoke(group, "removeCustomExecutorBySelector", "a"));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared;
+
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.uaithne.generator.templates.shared.GeneratedSharedLibrary.*;
+
+public class OperationMetricsTemplateTest {
+
+    private static final int BUCKETS = 160;
+    private static ClassLoader loader;
+    private static Class<?> metricsClass;
+
+    @BeforeClass
+    public static void compileMetrics() throws Exception {
+        GeneratedSharedLibrary library = new GeneratedSharedLibrary("operationMetrics");
+        library.add(new OperationMetricsMBeanTemplate(PACKAGE));
+        library.add(new OperationMetricsTemplate(PACKAGE));
+        library.add(new MetricsInterceptorTemplate_WithLamdas(PACKAGE));
+        loader = library.compile();
+        metricsClass = loader.loadClass(PACKAGE + ".OperationMetrics");
+    }
+
+    private static int bucketOf(long nanos) throws Throwable {
+        return (Integer) invoke(metricsClass, "bucketOf", nanos);
+    }
+
+    private static long bucketUpperBound(int bucket) throws Throwable {
+        return (Long) invoke(metricsClass, "bucketUpperBound", bucket);
+    }
+
+    @Test
+    public void testBucketsAreContiguous() throws Throwable {
+        assertEquals(0, bucketOf(0));
+        assertEquals(0L, bucketUpperBound(0));
+        for (int bucket = 0; bucket < BUCKETS - 2; bucket++) {
+            long upperBound = bucketUpperBound(bucket);
+            assertEquals("upper bound of the bucket " + bucket, bucket, bucketOf(upperBound));
+            assertEquals("value after the bucket " + bucket, bucket + 1, bucketOf(upperBound + 1));
+        }
+        assertEquals(BUCKETS - 1, bucketOf(1L << 41));
+        assertEquals(BUCKETS - 1, bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testBucketRelativeError() throws Throwable {
+        for (long nanos = 1; nanos < (1L << 40); nanos = nanos * 3 + 1) {
+            int bucket = bucketOf(nanos);
+            long upperBound = bucketUpperBound(bucket);
+            assertTrue("upper bound of " + nanos, upperBound >= nanos);
+            assertTrue("relative error of " + nanos, upperBound - nanos <= nanos / 4);
+        }
+    }
+
+    @Test
+    public void testPercentiles() throws Throwable {
+        Object metrics = newInstance(loader, "OperationMetrics", "test");
+        for (long i = 1; i <= 100; i++) {
+            invoke(metrics, "started");
+            invoke(metrics, "finished", i * 1000, i % 10 == 0);
+        }
+        Object snapshot = invoke(metrics, "snapshot");
+        assertEquals(100L, invoke(snapshot, "getCount"));
+        assertEquals(10L, invoke(snapshot, "getErrorCount"));
+        assertEquals(0L, invoke(snapshot, "getInFlight"));
+        assertEquals(50500L, invoke(snapshot, "getMeanTime"));
+        assertEquals(100000L, invoke(snapshot, "getMaxTime"));
+        assertPercentile(snapshot, 50, 50000);
+        assertPercentile(snapshot, 90, 90000);
+        assertPercentile(snapshot, 99, 99000);
+        assertEquals(100000L, invoke(snapshot, "getPercentile", 100.0));
+        assertPercentile(snapshot, 0, 1000);
+    }
+
+    private static void assertPercentile(Object snapshot, double percentile, long expected) throws Throwable {
+        long value = (Long) invoke(snapshot, "getPercentile", percentile);
+        assertTrue("p" + percentile + "=" + value, value >= expected && value <= expected + expected / 4);
+    }
+
+    @Test
+    public void testEmptyPercentile() throws Throwable {
+        Object metrics = newInstance(loader, "OperationMetrics", "test");
+        assertEquals(0L, invoke(invoke(metrics, "snapshot"), "getPercentile", 99.0));
+    }
+
+    @Test
+    public void testResetKeepsInFlight() throws Throwable {
+        Object metrics = newInstance(loader, "OperationMetrics", "test");
+        invoke(metrics, "started");
+        invoke(metrics, "started");
+        invoke(metrics, "finished", 10L, false);
+        invoke(metrics, "reset");
+        assertEquals(0L, invoke(metrics, "getCount"));
+        assertEquals(1L, invoke(metrics, "getInFlight"));
+        invoke(metrics, "finished", 20L, false);
+        assertEquals(1L, invoke(metrics, "getCount"));
+        assertEquals(0L, invoke(metrics, "getInFlight"));
+        assertEquals(20L, invoke(invoke(metrics, "snapshot"), "getMaxTime"));
+    }
+
+    @Test
+    public void testInterceptorRecordsFailures() throws Throwable {
+        Object executor = newInstance(loader, "TestExecutor");
+        Object interceptor = newInstance(loader, "MetricsInterceptor", executor);
+        invoke(interceptor, "execute", newInstance(loader, "TestOperation", "a"));
+        executor.getClass().getField("failure").set(executor, new IllegalStateException("failed"));
+        try {
+            invoke(interceptor, "execute", newInstance(loader, "TestOperation", "a"));
+            fail("The failure must be propagated");
+        } catch (RuntimeException e) {
+            assertEquals("failed", e.getCause().getMessage());
+        }
+        List<?> snapshots = (List<?>) invoke(interceptor, "snapshot");
+        assertEquals(1, snapshots.size());
+        assertEquals(2L, invoke(snapshots.get(0), "getCount"));
+        assertEquals(1L, invoke(snapshots.get(0), "getErrorCount"));
+        assertEquals(PACKAGE + ".TestOperation", invoke(snapshots.get(0), "getOperation"));
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The generated provider is compiled against a minimal copy of the MyBatis
+ * session api, the sessions and connections are recorded by proxies.
+ */
+public class ManagedSqlSessionProviderTemplateTest {
+
+    private static final String PACKAGE = "test.mybatis";
+    private static ClassLoader loader;
+    private static Class<?> providerClass;
+    private static Class<?> sqlSessionClass;
+    private static Class<?> sqlSessionFactoryClass;
+    private static Class<?> sessionPolicyClass;
+
+    private ArrayList<String> events;
+    private int openedSessions;
+    private Object provider;
+
+    @BeforeClass
+    public static void compileProvider() throws IOException, ClassNotFoundException {
+        File directory = File.createTempFile("managedSqlSessionProvider", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        ArrayList<String> sources = new ArrayList<String>();
+        sources.add(writeSource(directory, "org.apache.ibatis.session", "ExecutorType",
+                "public enum ExecutorType { SIMPLE, REUSE, BATCH }"));
+        sources.add(writeSource(directory, "org.apache.ibatis.session", "SqlSession",
+                "public interface SqlSession {\n"
+                + "    java.sql.Connection getConnection();\n"
+                + "    void commit();\n"
+                + "    void rollback();\n"
+                + "    void close();\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.session", "SqlSessionFactory",
+                "public interface SqlSessionFactory {\n"
+                + "    SqlSession openSession();\n"
+                + "    SqlSession openSession(ExecutorType execType);\n"
+                + "    SqlSession openSession(ExecutorType execType, java.sql.Connection connection);\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.session", "SqlSessionFactoryBuilder",
+                "public class SqlSessionFactoryBuilder {\n"
+                + "    public SqlSessionFactory build(java.io.InputStream inputStream) { return null; }\n"
+                + "    public SqlSessionFactory build(java.io.InputStream inputStream, String environment) { return null; }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.io", "Resources",
+                "public class Resources {\n"
+                + "    public static java.io.InputStream getResourceAsStream(String resource) { return null; }\n"
+                + "    public static java.io.InputStream getResourceAsStream(ClassLoader loader, String resource) { return null; }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.exceptions", "PersistenceException",
+                "public class PersistenceException extends RuntimeException {\n"
+                + "    public PersistenceException(String message, Throwable cause) { super(message, cause); }\n"
+                + "}"));
+
+        StringBuilder appender = new StringBuilder();
+        new SqlSessionProviderTemplate(PACKAGE).write(appender);
+        sources.add(writeSource(directory, PACKAGE, "SqlSessionProvider", appender));
+        appender = new StringBuilder();
+        new ManagedSqlSessionProviderTemplate(PACKAGE).write(appender);
+        sources.add(writeSource(directory, PACKAGE, "ManagedSqlSessionProvider", appender));
+
+        ArrayList<String> arguments = new ArrayList<String>();
+        arguments.add("-proc:none");
+        arguments.add("-d");
+        arguments.add(directory.getPath());
+        arguments.addAll(sources);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A java compiler is required for run this test", compiler);
+        int result = compiler.run((InputStream) null, null, null, arguments.toArray(new String[arguments.size()]));
+        assertEquals("The generated ManagedSqlSessionProvider must compile", 0, result);
+
+        loader = new URLClassLoader(new URL[]{directory.toURI().toURL()}, ManagedSqlSessionProviderTemplateTest.class.getClassLoader());
+        providerClass = loader.loadClass(PACKAGE + ".ManagedSqlSessionProvider");
+        sessionPolicyClass = loader.loadClass(PACKAGE + ".ManagedSqlSessionProvider$SessionPolicy");
+        sqlSessionClass = loader.loadClass("org.apache.ibatis.session.SqlSession");
+        sqlSessionFactoryClass = loader.loadClass("org.apache.ibatis.session.SqlSessionFactory");
+    }
+
+    private static String writeSource(File directory, String packageName, String className, CharSequence content) throws IOException {
+        File packageDirectory = new File(directory, packageName.replace('.', File.separatorChar));
+        assertTrue(packageDirectory.isDirectory() || packageDirectory.mkdirs());
+        File source = new File(packageDirectory, className + ".java");
+        String code;
+        if (content.toString().startsWith("package ")) {
+            code = content.toString();
+        } else {
+            code = "package " + packageName + ";\n\n" + content;
+        }
+        FileOutputStream output = new FileOutputStream(source);
+        try {
+            output.write(code.getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+        return source.getPath();
+    }
+
+    @Before
+    public void createProvider() throws Exception {
+        events = new ArrayList<String>();
+        openedSessions = 0;
+        Object sqlSessionFactory = Proxy.newProxyInstance(loader, new Class<?>[]{sqlSessionFactoryClass}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (!"openSession".equals(method.getName())) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                String executorType;
+                Connection connection = null;
+                if (args == null) {
+                    executorType = "SIMPLE";
+                } else {
+                    executorType = args[0].toString();
+                    if (args.length > 1) {
+                        connection = (Connection) args[1];
+                    }
+                }
+                openedSessions++;
+                String name = "session" + openedSessions;
+                if (connection == null) {
+                    connection = createConnection("connection" + openedSessions);
+                }
+                events.add(name + ".open(" + executorType + ")");
+                return createSqlSession(name, connection);
+            }
+        });
+        provider = providerClass.getConstructor(sqlSessionFactoryClass).newInstance(sqlSessionFactory);
+    }
+
+    private Connection createConnection(final String name) {
+        return (Connection) Proxy.newProxyInstance(loader, new Class<?>[]{Connection.class}, new InvocationHandler() {
+            private boolean autoCommit;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String methodName = method.getName();
+                if ("getAutoCommit".equals(methodName)) {
+                    return autoCommit;
+                } else if ("setAutoCommit".equals(methodName)) {
+                    autoCommit = (Boolean) args[0];
+                } else if ("toString".equals(methodName)) {
+                    return name;
+                } else if (!"setReadOnly".equals(methodName)) {
+                    throw new UnsupportedOperationException(methodName);
+                }
+                events.add(name + "." + methodName + "(" + args[0] + ")");
+                return null;
+            }
+        });
+    }
+
+    private Object createSqlSession(final String name, final Connection connection) {
+        return Proxy.newProxyInstance(loader, new Class<?>[]{sqlSessionClass}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String methodName = method.getName();
+                if ("getConnection".equals(methodName)) {
+                    return connection;
+                } else if ("toString".equals(methodName)) {
+                    return name;
+                }
+                events.add(name + "." + methodName + "()");
+                return null;
+            }
+        });
+    }
+
+    private Object call(String methodName, Object... args) throws Throwable {
+        Class<?>[] parameterTypes = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Boolean) {
+                parameterTypes[i] = boolean.class;
+            } else {
+                parameterTypes[i] = args[i].getClass();
+            }
+        }
+        Method method = providerClass.getMethod(methodName, parameterTypes);
+        try {
+            return method.invoke(provider, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object policy(String name) {
+        for (Object policy : sessionPolicyClass.getEnumConstants()) {
+            if (name.equals(policy.toString())) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Test
+    public void testReadOnlyPolicy() throws Throwable {
+        call("beginSqlSessionLevel", policy("READ_ONLY"));
+        Object session = call("getSqlSession");
+        assertSame(session, call("getReadSqlSession"));
+        call("endSqlSessionLevel", false);
+
+        assertEquals(Arrays.asList(
+                "session1.open(REUSE)",
+                "connection1.setReadOnly(true)",
+                "connection1.setAutoCommit(true)",
+                "connection1.setReadOnly(false)",
+                "session1.close()"), events);
+        assertEquals(0L, call("getCommitCount"));
+        assertEquals(1L, call("getSkippedCommitCount"));
+        assertEquals(0, call("getCurrentLevel"));
+    }
+
+    @Test
+    public void testReadOnlyPolicyWithNestedWriteLevel() throws Throwable {
+        call("beginSqlSessionLevel", policy("READ_ONLY"));
+        Object readOnlySession = call("getSqlSession");
+        call("beginSqlSessionLevel", policy("DEFAULT"));
+        Object session = call("getSqlSession");
+        assertNotSame(readOnlySession, session);
+        call("endSqlSessionLevel", false);
+        call("endSqlSessionLevel", false);
+
+        assertEquals(Arrays.asList(
+                "session1.open(REUSE)",
+                "connection1.setReadOnly(true)",
+                "connection1.setAutoCommit(true)",
+                "connection1.setReadOnly(false)",
+                "session1.close()",
+                "session2.open(SIMPLE)",
+                "session2.commit()",
+                "session2.close()"), events);
+        assertEquals(1L, call("getCommitCount"));
+        assertEquals(0L, call("getSkippedCommitCount"));
+    }
+
+    @Test
+    public void testBatchSession() throws Throwable {
+        call("beginSqlSessionLevel", policy("DEFAULT"));
+        assertEquals(policy("DEFAULT"), call("getCurrentSessionPolicy"));
+        Object session = call("getSqlSession");
+        Object batchSession = call("getBatchSqlSession");
+        assertNotSame(session, batchSession);
+        call("endSqlSessionLevel", false);
+
+        assertEquals(Arrays.asList(
+                "session1.open(SIMPLE)",
+                "session2.open(BATCH)",
+                "session2.commit()",
+                "session1.commit()",
+                "session1.close()"), events);
+        assertEquals(2L, call("getCommitCount"));
+        assertEquals(0L, call("getSkippedCommitCount"));
+        assertNull(call("getCurrentSessionPolicy"));
+    }
+
+    @Test
+    public void testBatchSessionRollback() throws Throwable {
+        call("beginSqlSessionLevel", policy("DEFAULT"));
+        call("getBatchSqlSession");
+        call("endSqlSessionLevel", true);
+
+        assertEquals(Arrays.asList(
+                "session1.open(SIMPLE)",
+                "session2.open(BATCH)",
+                "session2.rollback()",
+                "session1.rollback()",
+                "session1.close()"), events);
+        assertEquals(0L, call("getCommitCount"));
+    }
+
+    @Test
+    public void testSessionRequiresLevel() throws Throwable {
+        try {
+            call("getSqlSession");
+            fail("The session must not be available outside a level");
+        } catch (IllegalStateException e) {
+            assertTrue(events.isEmpty());
+        }
+    }
+}
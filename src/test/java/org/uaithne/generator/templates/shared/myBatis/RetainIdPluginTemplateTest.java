@@ -0,0 +1,479 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The generated plugin is compiled against a minimal copy of the MyBatis
+ * executor api; the executor is a proxy that, like the batch executor, only
+ * generates the keys when the statements are flushed.
+ */
+public class RetainIdPluginTemplateTest {
+
+    private static final String PACKAGE = "test.mybatis";
+    private static Class<?> pluginClass;
+    private static Class<?> executorClass;
+    private static Class<?> mappedStatementClass;
+    private static Class<?> keyGeneratorClass;
+    private static Constructor<?> invocationConstructor;
+    private static Object insertStatement;
+
+    private Object plugin;
+    private Object executor;
+    private ArrayList<Object> pendingParameters;
+    private Object pendingStatement;
+    private long nextKey;
+
+    @BeforeClass
+    public static void compilePlugin() throws Exception {
+        File directory = File.createTempFile("retainIdPlugin", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        ArrayList<String> sources = new ArrayList<String>();
+        sources.add(writeSource(directory, "org.apache.ibatis.executor", "Executor",
+                "import java.sql.SQLException;\n"
+                + "import java.util.List;\n"
+                + "import org.apache.ibatis.mapping.MappedStatement;\n"
+                + "\n"
+                + "public interface Executor {\n"
+                + "    int update(MappedStatement ms, Object parameter) throws SQLException;\n"
+                + "    List<Object> flushStatements() throws SQLException;\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.executor", "ExecutorException",
+                "public class ExecutorException extends RuntimeException {\n"
+                + "    public ExecutorException(String message, Throwable cause) { super(message, cause); }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.executor.keygen", "KeyGenerator",
+                "public interface KeyGenerator {\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.executor.keygen", "Jdbc3KeyGenerator",
+                "import java.sql.Statement;\n"
+                + "import java.util.Collection;\n"
+                + "import org.apache.ibatis.executor.Executor;\n"
+                + "import org.apache.ibatis.mapping.MappedStatement;\n"
+                + "\n"
+                + "public class Jdbc3KeyGenerator implements KeyGenerator {\n"
+                + "    public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) { }\n"
+                + "    public void processBatch(MappedStatement ms, Statement stmt, Collection<Object> parameters) { }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.mapping", "MappedStatement",
+                "import org.apache.ibatis.executor.keygen.KeyGenerator;\n"
+                + "import org.apache.ibatis.session.Configuration;\n"
+                + "\n"
+                + "public class MappedStatement {\n"
+                + "    private Configuration configuration;\n"
+                + "    private String id;\n"
+                + "    private KeyGenerator keyGenerator;\n"
+                + "    private String[] keyProperties;\n"
+                + "    private String[] keyColumns;\n"
+                + "    public Configuration getConfiguration() { return configuration; }\n"
+                + "    public String getId() { return id; }\n"
+                + "    public KeyGenerator getKeyGenerator() { return keyGenerator; }\n"
+                + "    public String[] getKeyProperties() { return keyProperties; }\n"
+                + "    public String[] getKeyColumns() { return keyColumns; }\n"
+                + "    public Object getSqlSource() { return null; }\n"
+                + "    public Object getSqlCommandType() { return null; }\n"
+                + "    public Object getResource() { return null; }\n"
+                + "    public Object getFetchSize() { return null; }\n"
+                + "    public Object getTimeout() { return null; }\n"
+                + "    public Object getStatementType() { return null; }\n"
+                + "    public Object getResultSetType() { return null; }\n"
+                + "    public Object getParameterMap() { return null; }\n"
+                + "    public Object getResultMaps() { return null; }\n"
+                + "    public Object getCache() { return null; }\n"
+                + "    public Object isFlushCacheRequired() { return null; }\n"
+                + "    public Object isUseCache() { return null; }\n"
+                + "    public Object isResultOrdered() { return null; }\n"
+                + "    public Object getDatabaseId() { return null; }\n"
+                + "    public Object getLang() { return null; }\n"
+                + "    public String[] getResultSets() { return null; }\n"
+                + "\n"
+                + "    private static String[] split(String value) {\n"
+                + "        return value == null ? null : value.split(\",\");\n"
+                + "    }\n"
+                + "\n"
+                + "    public static class Builder {\n"
+                + "        private final MappedStatement mappedStatement = new MappedStatement();\n"
+                + "        public Builder(Configuration configuration, String id, Object sqlSource, Object sqlCommandType) {\n"
+                + "            mappedStatement.configuration = configuration;\n"
+                + "            mappedStatement.id = id;\n"
+                + "        }\n"
+                + "        public Builder resource(Object value) { return this; }\n"
+                + "        public Builder fetchSize(Object value) { return this; }\n"
+                + "        public Builder timeout(Object value) { return this; }\n"
+                + "        public Builder statementType(Object value) { return this; }\n"
+                + "        public Builder resultSetType(Object value) { return this; }\n"
+                + "        public Builder parameterMap(Object value) { return this; }\n"
+                + "        public Builder resultMaps(Object value) { return this; }\n"
+                + "        public Builder cache(Object value) { return this; }\n"
+                + "        public Builder flushCacheRequired(Object value) { return this; }\n"
+                + "        public Builder useCache(Object value) { return this; }\n"
+                + "        public Builder resultOrdered(Object value) { return this; }\n"
+                + "        public Builder databaseId(Object value) { return this; }\n"
+                + "        public Builder lang(Object value) { return this; }\n"
+                + "        public Builder resultSets(String value) { return this; }\n"
+                + "        public Builder keyGenerator(KeyGenerator value) { mappedStatement.keyGenerator = value; return this; }\n"
+                + "        public Builder keyProperty(String value) { mappedStatement.keyProperties = split(value); return this; }\n"
+                + "        public Builder keyColumn(String value) { mappedStatement.keyColumns = split(value); return this; }\n"
+                + "        public MappedStatement build() { return mappedStatement; }\n"
+                + "    }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.reflection", "MetaObject",
+                "public class MetaObject {\n"
+                + "    public boolean hasSetter(String name) { return false; }\n"
+                + "    public Class<?> getSetterType(String name) { return null; }\n"
+                + "    public void setValue(String name, Object value) { }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.type", "JdbcType",
+                "public enum JdbcType {\n"
+                + "    OTHER;\n"
+                + "    public static JdbcType forCode(int code) { return OTHER; }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.type", "TypeHandler",
+                "import java.sql.ResultSet;\n"
+                + "import java.sql.SQLException;\n"
+                + "\n"
+                + "public interface TypeHandler<T> {\n"
+                + "    T getResult(ResultSet rs, int columnIndex) throws SQLException;\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.type", "TypeHandlerRegistry",
+                "import java.sql.ResultSet;\n"
+                + "import java.sql.SQLException;\n"
+                + "\n"
+                + "public class TypeHandlerRegistry {\n"
+                + "    public TypeHandler<?> getTypeHandler(Class<?> type, JdbcType jdbcType) {\n"
+                + "        return new TypeHandler<Object>() {\n"
+                + "            public Object getResult(ResultSet rs, int columnIndex) throws SQLException {\n"
+                + "                return rs.getObject(columnIndex);\n"
+                + "            }\n"
+                + "        };\n"
+                + "    }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.type", "TypeAliasRegistry",
+                "public class TypeAliasRegistry {\n"
+                + "    public Class<?> resolveAlias(String alias) { return Long.class; }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.session", "Configuration",
+                "import org.apache.ibatis.reflection.MetaObject;\n"
+                + "import org.apache.ibatis.type.TypeAliasRegistry;\n"
+                + "import org.apache.ibatis.type.TypeHandlerRegistry;\n"
+                + "\n"
+                + "public class Configuration {\n"
+                + "    public TypeHandlerRegistry getTypeHandlerRegistry() { return new TypeHandlerRegistry(); }\n"
+                + "    public TypeAliasRegistry getTypeAliasRegistry() { return new TypeAliasRegistry(); }\n"
+                + "    public MetaObject newMetaObject(Object object) { return new MetaObject(); }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Invocation",
+                "import java.lang.reflect.Method;\n"
+                + "\n"
+                + "public class Invocation {\n"
+                + "    private final Object target;\n"
+                + "    private final Method method;\n"
+                + "    private final Object[] args;\n"
+                + "    public Invocation(Object target, Method method, Object[] args) {\n"
+                + "        this.target = target;\n"
+                + "        this.method = method;\n"
+                + "        this.args = args;\n"
+                + "    }\n"
+                + "    public Object getTarget() { return target; }\n"
+                + "    public Method getMethod() { return method; }\n"
+                + "    public Object[] getArgs() { return args; }\n"
+                + "    public Object proceed() throws java.lang.reflect.InvocationTargetException, IllegalAccessException {\n"
+                + "        return method.invoke(target, args);\n"
+                + "    }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Interceptor",
+                "public interface Interceptor {\n"
+                + "    Object intercept(Invocation invocation) throws Throwable;\n"
+                + "    Object plugin(Object target);\n"
+                + "    void setProperties(java.util.Properties properties);\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Plugin",
+                "public class Plugin {\n"
+                + "    public static Object wrap(Object target, Interceptor interceptor) { return target; }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Intercepts",
+                "public @interface Intercepts {\n"
+                + "    Signature[] value();\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Signature",
+                "public @interface Signature {\n"
+                + "    Class<?> type();\n"
+                + "    String method();\n"
+                + "    Class<?>[] args();\n"
+                + "}"));
+
+        StringBuilder appender = new StringBuilder();
+        new RetainIdPluginTemplate(PACKAGE).write(appender);
+        sources.add(writeSource(directory, PACKAGE, "RetainIdPlugin", appender));
+
+        ArrayList<String> arguments = new ArrayList<String>();
+        arguments.add("-proc:none");
+        arguments.add("-d");
+        arguments.add(directory.getPath());
+        arguments.addAll(sources);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A java compiler is required for run this test", compiler);
+        int result = compiler.run((InputStream) null, null, null, arguments.toArray(new String[arguments.size()]));
+        assertEquals("The generated RetainIdPlugin must compile", 0, result);
+
+        ClassLoader loader = new URLClassLoader(new URL[]{directory.toURI().toURL()}, RetainIdPluginTemplateTest.class.getClassLoader());
+        pluginClass = loader.loadClass(PACKAGE + ".RetainIdPlugin");
+        executorClass = loader.loadClass("org.apache.ibatis.executor.Executor");
+        mappedStatementClass = loader.loadClass("org.apache.ibatis.mapping.MappedStatement");
+        keyGeneratorClass = loader.loadClass("org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator");
+        invocationConstructor = loader.loadClass("org.apache.ibatis.plugin.Invocation").getConstructors()[0];
+
+        Class<?> configurationClass = loader.loadClass("org.apache.ibatis.session.Configuration");
+        Class<?> builderClass = loader.loadClass("org.apache.ibatis.mapping.MappedStatement$Builder");
+        Object builder = builderClass.getConstructor(configurationClass, String.class, Object.class, Object.class)
+                .newInstance(configurationClass.newInstance(), "insertProduct", null, null);
+        builderClass.getMethod("keyGenerator", loader.loadClass("org.apache.ibatis.executor.keygen.KeyGenerator"))
+                .invoke(builder, keyGeneratorClass.newInstance());
+        builderClass.getMethod("keyProperty", String.class).invoke(builder, "__retain_long");
+        insertStatement = builderClass.getMethod("build").invoke(builder);
+    }
+
+    private static String writeSource(File directory, String packageName, String className, CharSequence content) throws IOException {
+        File packageDirectory = new File(directory, packageName.replace('.', File.separatorChar));
+        assertTrue(packageDirectory.isDirectory() || packageDirectory.mkdirs());
+        File source = new File(packageDirectory, className + ".java");
+        String code;
+        if (content.toString().startsWith("package ")) {
+            code = content.toString();
+        } else {
+            code = "package " + packageName + ";\n\n" + content;
+        }
+        FileOutputStream output = new FileOutputStream(source);
+        try {
+            output.write(code.getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+        return source.getPath();
+    }
+
+    @Before
+    public void createPlugin() throws Exception {
+        pendingParameters = new ArrayList<Object>();
+        nextKey = 1;
+        executor = Proxy.newProxyInstance(executorClass.getClassLoader(), new Class<?>[]{executorClass}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("update")) {
+                    pendingStatement = args[0];
+                    pendingParameters.add(args[1]);
+                    return Integer.MIN_VALUE;
+                } else if (name.equals("flushStatements")) {
+                    if (!pendingParameters.isEmpty()) {
+                        Object keyGenerator = mappedStatementClass.getMethod("getKeyGenerator").invoke(pendingStatement);
+                        keyGeneratorClass.getMethod("processBatch", mappedStatementClass, Statement.class, Collection.class)
+                                .invoke(keyGenerator, pendingStatement, statement(pendingParameters.size()), pendingParameters);
+                        pendingParameters = new ArrayList<Object>();
+                    }
+                    return new ArrayList<Object>();
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+        plugin = pluginClass.newInstance();
+        pluginClass.getMethod("plugin", Object.class).invoke(plugin, executor);
+    }
+
+    @After
+    public void removeRetainedKeys() throws Exception {
+        Field retained = pluginClass.getDeclaredField("retained");
+        retained.setAccessible(true);
+        ((ThreadLocal<?>) retained.get(null)).remove();
+    }
+
+    /**
+     * Statement that generated the next keys, one for each executed parameter.
+     */
+    private Statement statement(int executions) {
+        final ArrayList<Long> keys = new ArrayList<Long>();
+        for (int i = 0; i < executions; i++) {
+            keys.add(nextKey++);
+        }
+        final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSetMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("getColumnCount")) {
+                    return 1;
+                } else if (name.equals("getColumnType")) {
+                    return Types.BIGINT;
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+        final ResultSet generatedKeys = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class}, new InvocationHandler() {
+            private int row = -1;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("next")) {
+                    row++;
+                    return row < keys.size();
+                } else if (name.equals("getObject")) {
+                    return keys.get(row);
+                } else if (name.equals("getMetaData")) {
+                    return metaData;
+                } else if (name.equals("close")) {
+                    return null;
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("getGeneratedKeys")) {
+                    return generatedKeys;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private void intercept(String methodName, Object... args) throws Throwable {
+        Method method;
+        if (methodName.equals("update")) {
+            method = executorClass.getMethod("update", mappedStatementClass, Object.class);
+        } else {
+            method = executorClass.getMethod(methodName);
+        }
+        Object invocation = invocationConstructor.newInstance(executor, method, args);
+        try {
+            pluginClass.getMethod("intercept", invocationConstructor.getDeclaringClass()).invoke(plugin, invocation);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvocationTargetException) {
+                cause = cause.getCause();
+            }
+            throw cause;
+        }
+    }
+
+    private void insert(String value) throws Throwable {
+        intercept("update", insertStatement, value);
+    }
+
+    private void flush() throws Throwable {
+        intercept("flushStatements");
+    }
+
+    private static void beginOperation() throws Exception {
+        pluginClass.getMethod("beginOperation").invoke(null);
+    }
+
+    private static void endOperation() throws Exception {
+        pluginClass.getMethod("endOperation").invoke(null);
+    }
+
+    private static List<?> getRetainedIds() throws Exception {
+        return (List<?>) pluginClass.getMethod("getRetainedIds").invoke(null);
+    }
+
+    @Test
+    public void testOperationRetainsTheKeysOfEveryFlush() throws Throwable {
+        beginOperation();
+        insert("a");
+        insert("b");
+        flush();
+        insert("c");
+        flush();
+        insert("d");
+        insert("e");
+        flush();
+        endOperation();
+        assertEquals("[1, 2, 3, 4, 5]", getRetainedIds().toString());
+        assertEquals(5L, pluginClass.getMethod("getRetainedId").invoke(null));
+    }
+
+    @Test
+    public void testOutsideAnOperationOnlyTheLastFlushIsRetained() throws Throwable {
+        insert("a");
+        insert("b");
+        flush();
+        assertEquals("[1, 2]", getRetainedIds().toString());
+        insert("c");
+        flush();
+        assertEquals("[3]", getRetainedIds().toString());
+    }
+
+    @Test
+    public void testNestedOperationKeepsTheKeysOfTheOuterOne() throws Throwable {
+        beginOperation();
+        insert("a");
+        flush();
+        beginOperation();
+        insert("b");
+        insert("c");
+        flush();
+        endOperation();
+        insert("d");
+        flush();
+        endOperation();
+        assertEquals("[1, 2, 3, 4]", getRetainedIds().toString());
+
+        beginOperation();
+        insert("e");
+        flush();
+        endOperation();
+        assertEquals("[5]", getRetainedIds().toString());
+    }
+
+    @Test
+    public void testFlushWithoutPendingInsertsKeepsTheKeys() throws Throwable {
+        beginOperation();
+        insert("a");
+        flush();
+        flush();
+        endOperation();
+        assertEquals("[1]", getRetainedIds().toString());
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2012 and beyond, Juan Luis Paz
+ *
+ * This file is part of Uaithne.
+ *
+ * Uaithne is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Uaithne is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Uaithne. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.uaithne.generator.templates.shared.myBatis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The generated plugin is compiled against a minimal copy of the MyBatis
+ * plugin api, the statement and the statement handler are recorded by proxies.
+ */
+public class StatementTimeoutPluginTemplateTest {
+
+    private static final String PACKAGE = "test.mybatis";
+    private static Class<?> pluginClass;
+    private static Class<?> statementHandlerClass;
+    private static Constructor<?> invocationConstructor;
+
+    private ArrayList<String> events;
+    private int queryTimeout;
+    private Statement statement;
+    private Object statementHandler;
+    private Object plugin;
+
+    @BeforeClass
+    public static void compilePlugin() throws IOException, ClassNotFoundException {
+        File directory = File.createTempFile("statementTimeoutPlugin", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        ArrayList<String> sources = new ArrayList<String>();
+        sources.add(writeSource(directory, "org.apache.ibatis.session", "ResultHandler",
+                "public interface ResultHandler<T> {\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.executor.statement", "StatementHandler",
+                "import java.sql.SQLException;\n"
+                + "import java.sql.Statement;\n"
+                + "import org.apache.ibatis.session.ResultHandler;\n"
+                + "\n"
+                + "public interface StatementHandler {\n"
+                + "    Statement prepare(java.sql.Connection connection, Integer transactionTimeout) throws SQLException;\n"
+                + "    void batch(Statement statement) throws SQLException;\n"
+                + "    int update(Statement statement) throws SQLException;\n"
+                + "    <E> java.util.List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException;\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Invocation",
+                "import java.lang.reflect.Method;\n"
+                + "\n"
+                + "public class Invocation {\n"
+                + "    private final Object target;\n"
+                + "    private final Method method;\n"
+                + "    private final Object[] args;\n"
+                + "    public Invocation(Object target, Method method, Object[] args) {\n"
+                + "        this.target = target;\n"
+                + "        this.method = method;\n"
+                + "        this.args = args;\n"
+                + "    }\n"
+                + "    public Object getTarget() { return target; }\n"
+                + "    public Method getMethod() { return method; }\n"
+                + "    public Object[] getArgs() { return args; }\n"
+                + "    public Object proceed() throws java.lang.reflect.InvocationTargetException, IllegalAccessException {\n"
+                + "        return method.invoke(target, args);\n"
+                + "    }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Interceptor",
+                "public interface Interceptor {\n"
+                + "    Object intercept(Invocation invocation) throws Throwable;\n"
+                + "    Object plugin(Object target);\n"
+                + "    void setProperties(java.util.Properties properties);\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Plugin",
+                "public class Plugin {\n"
+                + "    public static Object wrap(Object target, Interceptor interceptor) { return target; }\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Intercepts",
+                "public @interface Intercepts {\n"
+                + "    Signature[] value();\n"
+                + "}"));
+        sources.add(writeSource(directory, "org.apache.ibatis.plugin", "Signature",
+                "public @interface Signature {\n"
+                + "    Class<?> type();\n"
+                + "    String method();\n"
+                + "    Class<?>[] args();\n"
+                + "}"));
+
+        StringBuilder appender = new StringBuilder();
+        new StatementTimeoutPluginTemplate(PACKAGE).write(appender);
+        sources.add(writeSource(directory, PACKAGE, "StatementTimeoutPlugin", appender));
+
+        ArrayList<String> arguments = new ArrayList<String>();
+        arguments.add("-proc:none");
+        arguments.add("-d");
+        arguments.add(directory.getPath());
+        arguments.addAll(sources);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A java compiler is required for run this test", compiler);
+        int result = compiler.run((InputStream) null, null, null, arguments.toArray(new String[arguments.size()]));
+        assertEquals("The generated StatementTimeoutPlugin must compile", 0, result);
+
+        ClassLoader loader = new URLClassLoader(new URL[]{directory.toURI().toURL()}, StatementTimeoutPluginTemplateTest.class.getClassLoader());
+        pluginClass = loader.loadClass(PACKAGE + ".StatementTimeoutPlugin");
+        statementHandlerClass = loader.loadClass("org.apache.ibatis.executor.statement.StatementHandler");
+        invocationConstructor = loader.loadClass("org.apache.ibatis.plugin.Invocation").getConstructors()[0];
+    }
+
+    private static String writeSource(File directory, String packageName, String className, CharSequence content) throws IOException {
+        File packageDirectory = new File(directory, packageName.replace('.', File.separatorChar));
+        assertTrue(packageDirectory.isDirectory() || packageDirectory.mkdirs());
+        File source = new File(packageDirectory, className + ".java");
+        String code;
+        if (content.toString().startsWith("package ")) {
+            code = content.toString();
+        } else {
+            code = "package " + packageName + ";\n\n" + content;
+        }
+        FileOutputStream output = new FileOutputStream(source);
+        try {
+            output.write(code.getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+        return source.getPath();
+    }
+
+    @Before
+    public void createPlugin() throws Exception {
+        events = new ArrayList<String>();
+        queryTimeout = 30;
+        statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("getQueryTimeout")) {
+                    return queryTimeout;
+                } else if (name.equals("setQueryTimeout")) {
+                    queryTimeout = (Integer) args[0];
+                    events.add("setQueryTimeout " + queryTimeout);
+                    return null;
+                } else if (name.equals("isClosed")) {
+                    return false;
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+        statementHandler = Proxy.newProxyInstance(statementHandlerClass.getClassLoader(), new Class<?>[]{statementHandlerClass}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                events.add(method.getName() + " with timeout " + queryTimeout);
+                if (method.getName().equals("update")) {
+                    return 1;
+                }
+                return null;
+            }
+        });
+        plugin = pluginClass.newInstance();
+    }
+
+    @After
+    public void removeDeadlines() throws Exception {
+        Field deadlines = pluginClass.getDeclaredField("deadlines");
+        deadlines.setAccessible(true);
+        ((ThreadLocal<?>) deadlines.get(null)).remove();
+    }
+
+    private void execute(String methodName) throws Throwable {
+        Method method = null;
+        for (Method candidate : statementHandlerClass.getMethods()) {
+            if (candidate.getName().equals(methodName)) {
+                method = candidate;
+            }
+        }
+        Object[] args;
+        if (method.getParameterTypes().length == 2) {
+            args = new Object[]{statement, null};
+        } else {
+            args = new Object[]{statement};
+        }
+        Object invocation = invocationConstructor.newInstance(statementHandler, method, args);
+        try {
+            pluginClass.getMethod("intercept", invocationConstructor.getDeclaringClass()).invoke(plugin, invocation);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvocationTargetException) {
+                cause = cause.getCause();
+            }
+            throw cause;
+        }
+    }
+
+    private static void setDeadline(long deadline) throws Exception {
+        pluginClass.getMethod("setDeadline", long.class).invoke(null, deadline);
+    }
+
+    private static void setDeadlineIn(long millis) throws Exception {
+        setDeadline(System.currentTimeMillis() + millis);
+    }
+
+    private static void clearDeadline() throws Exception {
+        pluginClass.getMethod("clearDeadline").invoke(null);
+    }
+
+    @Test
+    public void testWithoutDeadlineTheTimeoutIsNotTouched() throws Throwable {
+        execute("query");
+        execute("update");
+        execute("batch");
+        assertEquals("[query with timeout 30, update with timeout 30, batch with timeout 30]", events.toString());
+    }
+
+    @Test
+    public void testDeadlineLimitsTheTimeoutOfTheExecution() throws Throwable {
+        setDeadlineIn(5000);
+        execute("query");
+        clearDeadline();
+        execute("query");
+        assertEquals("[setQueryTimeout 5, query with timeout 5, setQueryTimeout 30, query with timeout 30]", events.toString());
+    }
+
+    @Test
+    public void testShorterConfiguredTimeoutIsKept() throws Throwable {
+        queryTimeout = 3;
+        setDeadlineIn(60000);
+        execute("update");
+        assertEquals("[update with timeout 3]", events.toString());
+    }
+
+    @Test
+    public void testStatementWithoutTimeoutUsesTheDeadline() throws Throwable {
+        queryTimeout = 0;
+        setDeadlineIn(5000);
+        execute("update");
+        assertEquals("[setQueryTimeout 5, update with timeout 5, setQueryTimeout 0]", events.toString());
+    }
+
+    @Test
+    public void testNestedDeadlines() throws Throwable {
+        setDeadlineIn(10000);
+        // A nested call cannot extend the deadline
+        setDeadlineIn(60000);
+        setDeadlineIn(2000);
+        execute("update");
+        clearDeadline();
+        execute("update");
+        clearDeadline();
+        execute("update");
+        clearDeadline();
+        execute("update");
+        // An extra clear doesn't fail
+        clearDeadline();
+        execute("update");
+        assertEquals("[setQueryTimeout 2, update with timeout 2, setQueryTimeout 30, "
+                + "setQueryTimeout 10, update with timeout 10, setQueryTimeout 30, "
+                + "setQueryTimeout 10, update with timeout 10, setQueryTimeout 30, "
+                + "update with timeout 30, update with timeout 30]", events.toString());
+    }
+
+    @Test
+    public void testPassedDeadlineIsNotExecuted() throws Throwable {
+        setDeadline(System.currentTimeMillis() - 1000);
+        try {
+            execute("query");
+            fail("The statement must not be executed after the deadline");
+        } catch (SQLTimeoutException e) {
+            assertTrue(events.isEmpty());
+        }
+    }
+
+    @Test
+    public void testBatchKeepsTheTimeoutUntilTheFlush() throws Throwable {
+        setDeadlineIn(5000);
+        execute("batch");
+        clearDeadline();
+        execute("batch");
+        assertEquals("[setQueryTimeout 5, batch with timeout 5, batch with timeout 5]", events.toString());
+    }
+}